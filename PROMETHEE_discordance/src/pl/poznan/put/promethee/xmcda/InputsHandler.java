@@ -12,9 +12,11 @@ import org.xmcda.XMCDA;
 import org.xmcda.utils.Coord;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -205,13 +207,8 @@ public class InputsHandler {
 			errors.addError("Exactly one list of partial preferences is expected");
 			return;
 		}
-		@SuppressWarnings("unchecked")
-		AlternativesMatrix<Double> matrix = (AlternativesMatrix<Double>) xmcda.alternativesMatricesList.get(0);
-
-		if (matrix.isEmpty()) {
-			errors.addError("List of partial preferences is empty");
-			return;
-		}
+		// an empty list is valid: pairs missing from the list have all their
+		// partial preferences equal to 0
 	}
 
 	/**
@@ -277,37 +274,36 @@ public class InputsHandler {
 		@SuppressWarnings("unchecked")
 		AlternativesMatrix<Double> matrix = (AlternativesMatrix<Double>) xmcda.alternativesMatricesList.get(0);
 
+		Set<String> criteriaIds = new HashSet<>(inputs.criteria_ids);
 		if (inputs.comparisonWith != ComparisonWithParam.ALTERNATIVES) {
-			mainExtractionLoop(inputs.alternatives_ids, inputs.profiles_ids, inputs, matrix, errors);
-			mainExtractionLoop(inputs.profiles_ids, inputs.alternatives_ids, inputs, matrix, errors);
-			mainExtractionLoop(inputs.profiles_ids, inputs.profiles_ids, inputs, matrix, errors);
+			mainExtractionLoop(inputs.alternatives_ids, inputs.profiles_ids, inputs, criteriaIds, matrix, errors);
+			mainExtractionLoop(inputs.profiles_ids, inputs.alternatives_ids, inputs, criteriaIds, matrix, errors);
+			mainExtractionLoop(inputs.profiles_ids, inputs.profiles_ids, inputs, criteriaIds, matrix, errors);
 		} else {
-			mainExtractionLoop(inputs.alternatives_ids, inputs.alternatives_ids, inputs, matrix, errors);
+			mainExtractionLoop(inputs.alternatives_ids, inputs.alternatives_ids, inputs, criteriaIds, matrix, errors);
 		}
 	}
 
 	private static void mainExtractionLoop(List<String> list1, List<String> list2, Inputs inputs,
-			AlternativesMatrix<Double> matrix, ProgramExecutionResult errors) {
+			Set<String> criteriaIds, AlternativesMatrix<Double> matrix, ProgramExecutionResult errors) {
 		for (String a : list1) {
 			for (String b : list2) {
 				Alternative altA = new Alternative(a);
 				Alternative altB = new Alternative(b);
 				Coord<Alternative, Alternative> coord = new Coord<Alternative, Alternative>(altA, altB);
 				if (matrix.containsKey(coord)) {
-					if (!putPreferencesIntoMap(inputs, errors, matrix, a, b)) {
+					if (!putPreferencesIntoMap(inputs, criteriaIds, errors, matrix, a, b)) {
 						return;
 					}
 				} else {
-					errors.addError(
-							"List of partial preferences does not contain preferences of pair :" + a + ", " + b);
-					return;
+					putZeroPreferencesIntoMap(inputs, a, b);
 				}
 			}
 		}
 	}
 
-	private static boolean putPreferencesIntoMap(Inputs inputs, ProgramExecutionResult errors,
-			AlternativesMatrix<Double> matrix, String a, String b) {
+	private static boolean putPreferencesIntoMap(Inputs inputs, Set<String> criteriaIds,
+			ProgramExecutionResult errors, AlternativesMatrix<Double> matrix, String a, String b) {
 		inputs.partialPreferences.putIfAbsent(a, new LinkedHashMap<>());
 		inputs.partialPreferences.get(a).putIfAbsent(b, new LinkedHashMap<>());
 		Alternative alt1 = new Alternative(a);
@@ -319,12 +315,12 @@ public class InputsHandler {
 					+ b + ")");
 			return false;
 		}
-		if (values.size() != inputs.criteria_ids.size()) {
+		if (values.size() > inputs.criteria_ids.size()) {
 			errors.addError("List of partial preferences does not contain correct criteria list");
 			return false;
 		}
 		for (QualifiedValue<Double> value : values) {
-			if (inputs.criteria_ids.contains(value.id())) {
+			if (criteriaIds.contains(value.id())) {
 				if (inputs.partialPreferences.get(a).get(b).containsKey(value.id())) {
 					errors.addError("Partial Preferences list contains duplicates of criteria");
 					return false;
@@ -337,6 +333,27 @@ public class InputsHandler {
 				return false;
 			}
 		}
+		Map<String, Double> read = inputs.partialPreferences.get(a).get(b);
+		if (read.size() < inputs.criteria_ids.size()) {
+			// omitted partial preferences keep the position of their criterion,
+			// as in a complete list
+			Map<String, Double> pairPreferences = new LinkedHashMap<>();
+			for (String criterion : inputs.criteria_ids) {
+				pairPreferences.put(criterion, read.getOrDefault(criterion, 0.0));
+			}
+			inputs.partialPreferences.get(a).put(b, pairPreferences);
+		}
 		return true;
 	}
+
+	/**
+	 * Partial preferences omitted from a sparse list are equal to 0.
+	 */
+	private static void putZeroPreferencesIntoMap(Inputs inputs, String a, String b) {
+		inputs.partialPreferences.putIfAbsent(a, new LinkedHashMap<>());
+		inputs.partialPreferences.get(a).putIfAbsent(b, new LinkedHashMap<>());
+		for (String criterion : inputs.criteria_ids) {
+			inputs.partialPreferences.get(a).get(b).putIfAbsent(criterion, 0.0);
+		}
+	}
 }
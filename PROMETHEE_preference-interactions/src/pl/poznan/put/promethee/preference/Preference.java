@@ -1,10 +1,9 @@
 package pl.poznan.put.promethee.preference;
 
+import java.util.List;
 import java.util.Map;
 import java.util.LinkedHashMap;
 
-import org.xmcda.Threshold;
-
 import pl.poznan.put.promethee.exceptions.InvalidZFunctionParamException;
 import pl.poznan.put.promethee.exceptions.NullThresholdException;
 import pl.poznan.put.promethee.exceptions.PositiveNetBalanceException;
@@ -49,73 +48,70 @@ public class Preference {
 	}
 
 	/**
-	 * @param direction
-	 *            direction of function on criterion ('MIN' or 'MAX')
-	 * @param ga
-	 *            evaluation of alternative on specified criterion
-	 * @param gb
-	 *            evaluation of alternative on specified criterion
-	 * @return difference between evaluations
+	 * @param inputs
+	 * @return preference kernels of all criteria, in the order of the criteria
 	 * @throws WrongPreferenceDirectionException
+	 * @throws NullThresholdException
 	 */
-	private static Double calcDifferenceBetweenEvaluations(String direction, Double ga, Double gb)
-			throws WrongPreferenceDirectionException {
-		Double differenceBetweenEvaluations = 0.0;
-		if (direction.equals("MAX")) {
-			differenceBetweenEvaluations = ga - gb;
-		} else if (direction.equals("MIN")) {
-			differenceBetweenEvaluations = gb - ga;
-		} else {
-			throw new WrongPreferenceDirectionException();
+	private static PreferenceKernel[] compileKernels(Inputs inputs)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		PreferenceKernel[] kernels = new PreferenceKernel[inputs.criteria_ids.size()];
+		for (int c = 0; c < kernels.length; c++) {
+			String criterion = inputs.criteria_ids.get(c);
+			kernels[c] = PreferenceKernel.compile(inputs.preferenceDirections.get(criterion),
+					inputs.generalisedCriteria.get(criterion), inputs.preferenceThresholds.get(criterion),
+					inputs.indifferenceThresholds.get(criterion), inputs.sigmaThresholds.get(criterion));
 		}
-		return differenceBetweenEvaluations;
+		return kernels;
 	}
 
 	/**
-	 * @param direction
-	 * @param ga
-	 * @param gb
-	 * @param threshold
-	 * @return calculated final threshold value (get constant if exist or
-	 *         calculate value if defined as linear)
-	 * @throws WrongPreferenceDirectionException
+	 * @return evaluations of the elements on each criterion, indexed by
+	 *         criterion then by element
 	 */
-	private static Double calcThreshold(String direction, Double ga, Double gb, Threshold<Double> threshold)
-			throws WrongPreferenceDirectionException {
-		if (threshold == null) {
-			return null;
-		}
-		Double thresholdValue = 0.0;
-		if (threshold.isConstant()) {
-			thresholdValue = threshold.getConstant().getValue();
-		} else {
-			Double baseEvaluation = 0.0;
-			if (direction.equals("MAX")) {
-				baseEvaluation = ga > gb ? gb : ga;
-			} else if (direction.equals("MIN")) {
-				baseEvaluation = ga > gb ? ga : gb;
-			} else {
-				throw new WrongPreferenceDirectionException();
+	private static double[][] getEvaluations(List<String> ids, Map<String, Map<String, Double>> performanceTable,
+			List<String> criteria) {
+		double[][] evaluations = new double[criteria.size()][ids.size()];
+		for (int c = 0; c < criteria.size(); c++) {
+			for (int i = 0; i < ids.size(); i++) {
+				evaluations[c][i] = performanceTable.get(ids.get(i)).get(criteria.get(c)).doubleValue();
 			}
-			Double slope = threshold.getSlope().getValue();
-			Double intercept = threshold.getIntercept().getValue();
-			thresholdValue = slope * baseEvaluation + intercept;
 		}
-		return thresholdValue;
+		return evaluations;
 	}
 
-	private static Double calcPreferenceOnOneCriterion(Double ga, Double gb, String direction, Integer functionNumber,
-			Threshold<Double> preferenceThreshold, Threshold<Double> indifferenceThreshold,
-			Threshold<Double> sigmaThreshold) throws WrongPreferenceDirectionException, NullThresholdException {
-		GeneralisedCriteria generalisedCriteria = new GeneralisedCriteria();
-
-		Double diff = calcDifferenceBetweenEvaluations(direction, ga, gb);
-		Double p = calcThreshold(direction, ga, gb, preferenceThreshold);
-		Double q = calcThreshold(direction, ga, gb, indifferenceThreshold);
-		Double s = calcThreshold(direction, ga, gb, sigmaThreshold);
+	/**
+	 * Calculates the preferences of one element over all the elements of the
+	 * columns, criterion by criterion.
+	 *
+	 * @param row
+	 *            index of the element in the evaluations of the rows
+	 * @param columns
+	 *            indices of all the elements of the columns, see
+	 *            {@link #getColumns(int)}
+	 * @param buffers
+	 *            scratch arrays of the kernels
+	 * @param preferences
+	 *            receives the preferences, indexed by criterion then by column
+	 */
+	private static void calcRow(PreferenceKernel[] kernels, double[][] rowsEvaluations, int row,
+			double[][] columnsEvaluations, int[] columns, PreferenceKernel.Buffers buffers,
+			double[][] preferences) {
+		for (int c = 0; c < kernels.length; c++) {
+			kernels[c].calculateRow(rowsEvaluations[c][row], columnsEvaluations[c], columns, preferences[c], 0, 1,
+					buffers);
+		}
+	}
 
-		Double preference = generalisedCriteria.calculate(functionNumber, diff, p, q, s);
-		return preference;
+	/**
+	 * @return indices of the given number of elements, from 0
+	 */
+	private static int[] getColumns(int count) {
+		int[] columns = new int[count];
+		for (int k = 0; k < count; k++) {
+			columns[k] = k;
+		}
+		return columns;
 	}
 
 	/**
@@ -128,54 +124,61 @@ public class Preference {
 	private static void calcPartialPreferences(Inputs inputs,
 			Map<String, Map<String, Map<String, Double>>> partialPreferences)
 			throws WrongPreferenceDirectionException, NullThresholdException {
+		PreferenceKernel[] kernels = compileKernels(inputs);
+		List<String> criteria = inputs.criteria_ids;
+		List<String> alternatives = inputs.alternatives_ids;
+		double[][] alternativesEvaluations = getEvaluations(alternatives, inputs.performanceTable, criteria);
+		int[] alternativesColumns = getColumns(alternatives.size());
+		PreferenceKernel.Buffers buffers = new PreferenceKernel.Buffers();
 		if (inputs.comparisonWith == ComparisonWithParam.ALTERNATIVES) {
-			for (String a : inputs.alternatives_ids) {
-				for (String b : inputs.alternatives_ids) {
-					for (String c : inputs.criteria_ids) {
+			double[][] row = new double[criteria.size()][alternatives.size()];
+			for (int i = 0; i < alternatives.size(); i++) {
+				String a = alternatives.get(i);
+				calcRow(kernels, alternativesEvaluations, i, alternativesEvaluations, alternativesColumns, buffers,
+						row);
+				for (int j = 0; j < alternatives.size(); j++) {
+					String b = alternatives.get(j);
+					for (int c = 0; c < criteria.size(); c++) {
 						partialPreferences.putIfAbsent(a, new LinkedHashMap<>());
 						partialPreferences.get(a).putIfAbsent(b, new LinkedHashMap<>());
-						partialPreferences.get(a).get(b).put(c, calcPreferenceOnOneCriterion(
-								inputs.performanceTable.get(a).get(c).doubleValue(),
-								inputs.performanceTable.get(b).get(c).doubleValue(), inputs.preferenceDirections.get(c),
-								inputs.generalisedCriteria.get(c).intValue(), inputs.preferenceThresholds.get(c),
-								inputs.indifferenceThresholds.get(c), inputs.sigmaThresholds.get(c)));
+						partialPreferences.get(a).get(b).put(criteria.get(c), row[c][j]);
 					}
 				}
 			}
 		} else {
-			for (String a : inputs.alternatives_ids) {
-				for (String b : inputs.profiles_ids) {
-					for (String c : inputs.criteria_ids) {
+			List<String> profiles = inputs.profiles_ids;
+			double[][] profilesEvaluations = getEvaluations(profiles, inputs.profilesPerformanceTable, criteria);
+			int[] profilesColumns = getColumns(profiles.size());
+			double[][][] profilesRows = new double[profiles.size()][criteria.size()][alternatives.size()];
+			for (int j = 0; j < profiles.size(); j++) {
+				calcRow(kernels, profilesEvaluations, j, alternativesEvaluations, alternativesColumns, buffers,
+						profilesRows[j]);
+			}
+			double[][] row = new double[criteria.size()][profiles.size()];
+			for (int i = 0; i < alternatives.size(); i++) {
+				String a = alternatives.get(i);
+				calcRow(kernels, alternativesEvaluations, i, profilesEvaluations, profilesColumns, buffers, row);
+				for (int j = 0; j < profiles.size(); j++) {
+					String b = profiles.get(j);
+					for (int c = 0; c < criteria.size(); c++) {
 						partialPreferences.putIfAbsent(a, new LinkedHashMap<>());
 						partialPreferences.get(a).putIfAbsent(b, new LinkedHashMap<>());
-						partialPreferences.get(a).get(b).put(c,
-								calcPreferenceOnOneCriterion(inputs.performanceTable.get(a).get(c).doubleValue(),
-										inputs.profilesPerformanceTable.get(b).get(c).doubleValue(),
-										inputs.preferenceDirections.get(c),
-										inputs.generalisedCriteria.get(c).intValue(),
-										inputs.preferenceThresholds.get(c), inputs.indifferenceThresholds.get(c),
-										inputs.sigmaThresholds.get(c)));
+						partialPreferences.get(a).get(b).put(criteria.get(c), row[c][j]);
 						partialPreferences.putIfAbsent(b, new LinkedHashMap<>());
 						partialPreferences.get(b).putIfAbsent(a, new LinkedHashMap<>());
-						partialPreferences.get(b).get(a).put(c, calcPreferenceOnOneCriterion(
-								inputs.profilesPerformanceTable.get(b).get(c).doubleValue(),
-								inputs.performanceTable.get(a).get(c).doubleValue(), inputs.preferenceDirections.get(c),
-								inputs.generalisedCriteria.get(c).intValue(), inputs.preferenceThresholds.get(c),
-								inputs.indifferenceThresholds.get(c), inputs.sigmaThresholds.get(c)));
+						partialPreferences.get(b).get(a).put(criteria.get(c), profilesRows[j][c][i]);
 					}
 				}
 			}
-			for (String a : inputs.profiles_ids) {
-				for (String b : inputs.profiles_ids) {
-					for (String c : inputs.criteria_ids) {
+			for (int i = 0; i < profiles.size(); i++) {
+				String a = profiles.get(i);
+				calcRow(kernels, profilesEvaluations, i, profilesEvaluations, profilesColumns, buffers, row);
+				for (int j = 0; j < profiles.size(); j++) {
+					String b = profiles.get(j);
+					for (int c = 0; c < criteria.size(); c++) {
 						partialPreferences.putIfAbsent(a, new LinkedHashMap<>());
 						partialPreferences.get(a).putIfAbsent(b, new LinkedHashMap<>());
-						partialPreferences.get(a).get(b).put(c, calcPreferenceOnOneCriterion(
-								inputs.profilesPerformanceTable.get(a).get(c).doubleValue(),
-								inputs.profilesPerformanceTable.get(b).get(c).doubleValue(),
-								inputs.preferenceDirections.get(c), inputs.generalisedCriteria.get(c).intValue(),
-								inputs.preferenceThresholds.get(c), inputs.indifferenceThresholds.get(c),
-								inputs.sigmaThresholds.get(c)));
+						partialPreferences.get(a).get(b).put(criteria.get(c), row[c][j]);
 					}
 				}
 			}
@@ -20,9 +20,11 @@ import org.xmcda.utils.ValueConverters;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -539,7 +541,7 @@ public class InputsHandler {
 	private static void checkAlternativesPerformanceTable(Inputs inputs, XMCDA xmcda, ProgramExecutionResult errors) {
 		@SuppressWarnings("unchecked")
 		PerformanceTable<Double> xmcda_perf_table = (PerformanceTable<Double>) xmcda.performanceTablesList.get(0);
-		List<String> alternativesIds = new ArrayList<>();
+		Set<String> alternativesIds = new HashSet<>();
 		for (Alternative x_alternative : xmcda_perf_table.getAlternatives())
 			if (x_alternative.isActive())
 				alternativesIds.add(x_alternative.id());
@@ -577,7 +579,7 @@ public class InputsHandler {
 			@SuppressWarnings("unchecked")
 			PerformanceTable<Double> x_perf_table_profiles = (PerformanceTable<Double>) xmcda.performanceTablesList
 					.get(1);
-			List<String> profilesIds = new ArrayList<>();
+			Set<String> profilesIds = new HashSet<>();
 			for (Alternative x_alternative : x_perf_table_profiles.getAlternatives()) {
 				if (x_alternative.isActive())
 					profilesIds.add(x_alternative.id());
@@ -601,8 +603,9 @@ public class InputsHandler {
 			return false;
 		}
 		Boolean unique = true;
+		Set<String> alternativesIds = new HashSet<>(inputs.alternatives_ids);
 		for (String profile : inputs.profiles_ids) {
-			if (inputs.alternatives_ids.contains(profile)) {
+			if (alternativesIds.contains(profile)) {
 				errors.addError("List of active profiles is empty");
 				unique = false;
 				break;
@@ -634,16 +637,20 @@ public class InputsHandler {
 	private static Boolean criteriaIdenticalInAllFiles(Inputs inputs, XMCDA xmcda,
 			ProgramExecutionResult xmcda_execution_results) {
 		Boolean criteriaIdentical = true;
+		Set<Criterion> performanceTableCriteria = xmcda.performanceTablesList.get(0).getCriteria();
+		Set<Criterion> profilesPerformanceTableCriteria = null;
+		if (inputs.comparisonWith != ComparisonWithParam.ALTERNATIVES)
+			profilesPerformanceTableCriteria = xmcda.performanceTablesList.get(1).getCriteria();
 		for (String criterionID : inputs.criteria_ids) {
 			Criterion criterion = new Criterion(criterionID);
 
-			if (!xmcda.performanceTablesList.get(0).getCriteria().contains(criterion)) {
+			if (!performanceTableCriteria.contains(criterion)) {
 				criteriaIdentical = false;
 				xmcda_execution_results.addError(
 						"Criteria are not identical, performance_table.xml doesn't contain criterion " + criterionID);
 			}
 			if (inputs.comparisonWith != ComparisonWithParam.ALTERNATIVES) {
-				if (!xmcda.performanceTablesList.get(1).getCriteria().contains(criterion)) {
+				if (!profilesPerformanceTableCriteria.contains(criterion)) {
 					criteriaIdentical = false;
 					xmcda_execution_results.addError(
 							"Criteria are not identical, profiles_performance_table.xml doesn't contain criterion "
@@ -726,14 +733,16 @@ public class InputsHandler {
 	}
 
 	private static void extractPreferenceTables(Inputs inputs, XMCDA xmcda) {
-		List<String> criteria_ids = inputs.criteria_ids;
+		Set<String> criteria_ids = new HashSet<>(inputs.criteria_ids);
 		inputs.performanceTable = new LinkedHashMap<>();
 		@SuppressWarnings("unchecked")
 		PerformanceTable<Double> x_perf_table = (PerformanceTable<Double>) xmcda.performanceTablesList.get(0);
+		Set<String> alternativesIds = new HashSet<>(inputs.alternatives_ids);
+		Set<Criterion> x_criteria = x_perf_table.getCriteria();
 		for (Alternative x_alternative : x_perf_table.getAlternatives()) {
-			if (!inputs.alternatives_ids.contains(x_alternative.id()))
+			if (!alternativesIds.contains(x_alternative.id()))
 				continue;
-			for (Criterion x_criterion : x_perf_table.getCriteria()) {
+			for (Criterion x_criterion : x_criteria) {
 				if (!criteria_ids.contains(x_criterion.id()))
 					continue;
 				Double value = (Double) x_perf_table.getValue(x_alternative, x_criterion);
@@ -745,15 +754,17 @@ public class InputsHandler {
 
 	private static void extractProfilesPreferenceTables(Inputs inputs, XMCDA xmcda) {
 		if (inputs.comparisonWith != ComparisonWithParam.ALTERNATIVES) {
-			List<String> criteria_ids = inputs.criteria_ids;
+			Set<String> criteria_ids = new HashSet<>(inputs.criteria_ids);
 			@SuppressWarnings("unchecked")
 			PerformanceTable<Double> x_perf_table_profiles = (PerformanceTable<Double>) xmcda.performanceTablesList
 					.get(1);
 			inputs.profilesPerformanceTable = new LinkedHashMap<>();
+			Set<String> profilesIds = new HashSet<>(inputs.profiles_ids);
+			Set<Criterion> x_criteria = x_perf_table_profiles.getCriteria();
 			for (Alternative x_alternative : x_perf_table_profiles.getAlternatives()) {
-				if (!inputs.profiles_ids.contains(x_alternative.id()))
+				if (!profilesIds.contains(x_alternative.id()))
 					continue;
-				for (Criterion x_criterion : x_perf_table_profiles.getCriteria()) {
+				for (Criterion x_criterion : x_criteria) {
 					if (!criteria_ids.contains(x_criterion.id()))
 						continue;
 					Double value = x_perf_table_profiles.getValue(x_alternative, x_criterion);
@@ -31,17 +31,97 @@ public class GeneralisedCriteria {
 			throws NullThresholdException {
 		return generalisedCriteria.get(functionNumber).calculate(differenceBetweenEvaluations, p, q, s);
 	}
+
+	/**
+	 * Calculates preferences of many differences with the same thresholds.
+	 *
+	 * @param functionNumber
+	 * @param differences
+	 * @param p preferenceThreshold
+	 * @param q indefferenceThreshold
+	 * @param s sigmaThreshold
+	 * @param preferences
+	 *            array receiving the preference of each difference
+	 * @param length
+	 *            number of differences
+	 * @throws NullThresholdException
+	 */
+	public void calculateAll(Integer functionNumber, double[] differences, Double p, Double q, Double s,
+			double[] preferences, int length) throws NullThresholdException {
+		generalisedCriteria.get(functionNumber).calculateAll(differences, p, q, s, preferences, length);
+	}
+
+	/**
+	 * Calculates preferences of many differences, each one with its own
+	 * thresholds.
+	 *
+	 * @param functionNumber
+	 * @param differences
+	 * @param p preferenceThresholds, one per difference
+	 * @param q indefferenceThresholds, one per difference
+	 * @param s sigmaThresholds, one per difference
+	 * @param preferences
+	 *            array receiving the preference of each difference
+	 * @param length
+	 *            number of differences
+	 * @throws NullThresholdException
+	 */
+	public void calculateEach(Integer functionNumber, double[] differences, double[] p, double[] q, double[] s,
+			double[] preferences, int length) throws NullThresholdException {
+		generalisedCriteria.get(functionNumber).calculateEach(differences, p, q, s, preferences, length);
+	}
+
+	GeneralisedCriterion get(Integer functionNumber) {
+		return generalisedCriteria.get(functionNumber);
+	}
 }
 
 abstract class GeneralisedCriterion {
 	public abstract Double calculate(Double differenceBetweenEvaluations, Double p, Double q, Double s)
 			throws NullThresholdException;
+
+	/**
+	 * Calculates preferences of the first {@code length} differences with the
+	 * same thresholds and stores them at the same indices of
+	 * {@code preferences}.
+	 */
+	public abstract void calculateAll(double[] differences, Double p, Double q, Double s, double[] preferences,
+			int length) throws NullThresholdException;
+
+	/**
+	 * Calculates preferences of the first {@code length} differences, each one
+	 * with thresholds at the same index, and stores them at the same indices of
+	 * {@code preferences}. Arrays of thresholds not used by the function may be
+	 * null.
+	 */
+	public abstract void calculateEach(double[] differences, double[] p, double[] q, double[] s,
+			double[] preferences, int length) throws NullThresholdException;
 }
 
 class UsualCriterion extends GeneralisedCriterion {
 
 	@Override
 	public Double calculate(Double differenceBetweenEvaluations, Double p, Double q, Double s) {
+		return preference(differenceBetweenEvaluations);
+	}
+
+	@Override
+	public void calculateAll(double[] differences, Double p, Double q, Double s, double[] preferences,
+			int length) {
+		for (int i = 0; i < length; i++) {
+			preferences[i] = preference(differences[i]);
+		}
+	}
+
+	@Override
+	public void calculateEach(double[] differences, double[] p, double[] q, double[] s, double[] preferences,
+			int length) {
+		for (int i = 0; i < length; i++) {
+			preferences[i] = preference(differences[i]);
+		}
+	}
+
+	static double preference(double differenceBetweenEvaluations) {
 		if (differenceBetweenEvaluations <= 0) {
 			return 0.0;
 		} else {
@@ -57,6 +137,31 @@ class UShapeCriterion extends GeneralisedCriterion {
 			throws NullThresholdException {
 		if (q == null)
 			throw new NullThresholdException();
+		return preference(differenceBetweenEvaluations, q);
+	}
+
+	@Override
+	public void calculateAll(double[] differences, Double p, Double q, Double s, double[] preferences,
+			int length) throws NullThresholdException {
+		if (q == null)
+			throw new NullThresholdException();
+		double qValue = q;
+		for (int i = 0; i < length; i++) {
+			preferences[i] = preference(differences[i], qValue);
+		}
+	}
+
+	@Override
+	public void calculateEach(double[] differences, double[] p, double[] q, double[] s, double[] preferences,
+			int length) throws NullThresholdException {
+		if (q == null)
+			throw new NullThresholdException();
+		for (int i = 0; i < length; i++) {
+			preferences[i] = preference(differences[i], q[i]);
+		}
+	}
+
+	static double preference(double differenceBetweenEvaluations, double q) {
 		if (differenceBetweenEvaluations <= q) {
 			return 0.0;
 		} else {
@@ -72,6 +177,31 @@ class VShapeCriterion extends GeneralisedCriterion {
 			throws NullThresholdException {
 		if (p == null)
 			throw new NullThresholdException();
+		return preference(differenceBetweenEvaluations, p);
+	}
+
+	@Override
+	public void calculateAll(double[] differences, Double p, Double q, Double s, double[] preferences,
+			int length) throws NullThresholdException {
+		if (p == null)
+			throw new NullThresholdException();
+		double pValue = p;
+		for (int i = 0; i < length; i++) {
+			preferences[i] = preference(differences[i], pValue);
+		}
+	}
+
+	@Override
+	public void calculateEach(double[] differences, double[] p, double[] q, double[] s, double[] preferences,
+			int length) throws NullThresholdException {
+		if (p == null)
+			throw new NullThresholdException();
+		for (int i = 0; i < length; i++) {
+			preferences[i] = preference(differences[i], p[i]);
+		}
+	}
+
+	static double preference(double differenceBetweenEvaluations, double p) {
 		if (differenceBetweenEvaluations <= 0) {
 			return 0.0;
 		}
@@ -90,6 +220,34 @@ class LevelCriterion extends GeneralisedCriterion {
 		if ((p == null) || (q == null)) {
 			throw new NullThresholdException();
 		}
+		return preference(differenceBetweenEvaluations, p, q);
+	}
+
+	@Override
+	public void calculateAll(double[] differences, Double p, Double q, Double s, double[] preferences,
+			int length) throws NullThresholdException {
+		if ((p == null) || (q == null)) {
+			throw new NullThresholdException();
+		}
+		double pValue = p;
+		double qValue = q;
+		for (int i = 0; i < length; i++) {
+			preferences[i] = preference(differences[i], pValue, qValue);
+		}
+	}
+
+	@Override
+	public void calculateEach(double[] differences, double[] p, double[] q, double[] s, double[] preferences,
+			int length) throws NullThresholdException {
+		if ((p == null) || (q == null)) {
+			throw new NullThresholdException();
+		}
+		for (int i = 0; i < length; i++) {
+			preferences[i] = preference(differences[i], p[i], q[i]);
+		}
+	}
+
+	static double preference(double differenceBetweenEvaluations, double p, double q) {
 		if (differenceBetweenEvaluations <= q) {
 			return 0.0;
 		}
@@ -108,6 +266,34 @@ class VShapeWithIndifferenceCriterion extends GeneralisedCriterion {
 		if ((p == null) || (q == null)) {
 			throw new NullThresholdException();
 		}
+		return preference(differenceBetweenEvaluations, p, q);
+	}
+
+	@Override
+	public void calculateAll(double[] differences, Double p, Double q, Double s, double[] preferences,
+			int length) throws NullThresholdException {
+		if ((p == null) || (q == null)) {
+			throw new NullThresholdException();
+		}
+		double pValue = p;
+		double qValue = q;
+		for (int i = 0; i < length; i++) {
+			preferences[i] = preference(differences[i], pValue, qValue);
+		}
+	}
+
+	@Override
+	public void calculateEach(double[] differences, double[] p, double[] q, double[] s, double[] preferences,
+			int length) throws NullThresholdException {
+		if ((p == null) || (q == null)) {
+			throw new NullThresholdException();
+		}
+		for (int i = 0; i < length; i++) {
+			preferences[i] = preference(differences[i], p[i], q[i]);
+		}
+	}
+
+	static double preference(double differenceBetweenEvaluations, double p, double q) {
 		if (differenceBetweenEvaluations <= q) {
 			return 0.0;
 		}
@@ -125,6 +311,31 @@ class GaussianCriterion extends GeneralisedCriterion {
 			throws NullThresholdException {
 		if (s == null)
 			throw new NullThresholdException();				
+		return preference(differenceBetweenEvaluations, s);
+	}
+
+	@Override
+	public void calculateAll(double[] differences, Double p, Double q, Double s, double[] preferences,
+			int length) throws NullThresholdException {
+		if (s == null)
+			throw new NullThresholdException();
+		double sValue = s;
+		for (int i = 0; i < length; i++) {
+			preferences[i] = preference(differences[i], sValue);
+		}
+	}
+
+	@Override
+	public void calculateEach(double[] differences, double[] p, double[] q, double[] s, double[] preferences,
+			int length) throws NullThresholdException {
+		if (s == null)
+			throw new NullThresholdException();
+		for (int i = 0; i < length; i++) {
+			preferences[i] = preference(differences[i], s[i]);
+		}
+	}
+
+	static double preference(double differenceBetweenEvaluations, double s) {
 		if (differenceBetweenEvaluations <= 0) {
 			return 0.0;
 		}
@@ -0,0 +1,425 @@
+package pl.poznan.put.promethee.preference;
+
+import org.xmcda.Threshold;
+
+import pl.poznan.put.promethee.exceptions.NullThresholdException;
+import pl.poznan.put.promethee.exceptions.WrongPreferenceDirectionException;
+
+/**
+ * Preference function of a single criterion compiled once per run from its
+ * direction, generalised criterion and thresholds. Evaluating a kernel does
+ * not allocate nor compare strings.
+ */
+public abstract class PreferenceKernel {
+	protected final boolean maximized;
+
+	protected PreferenceKernel(boolean maximized) {
+		this.maximized = maximized;
+	}
+
+	/**
+	 * @param ga
+	 *            evaluation of the first element on the criterion
+	 * @param gb
+	 *            evaluation of the second element on the criterion
+	 * @return preference of the first element over the second one
+	 */
+	public abstract double calculate(double ga, double gb);
+
+	/**
+	 * Calculates preferences of one element over the given columns and stores
+	 * the preference over {@code evaluations[columns[k]]} at
+	 * {@code preferences[offset + columns[k] * stride]}.
+	 *
+	 * @param buffers
+	 *            scratch arrays of the calling thread
+	 */
+	public abstract void calculateRow(double ga, double[] evaluations, int[] columns, double[] preferences,
+			int offset, int stride, Buffers buffers);
+
+	protected final double difference(double ga, double gb) {
+		return maximized ? ga - gb : gb - ga;
+	}
+
+	/**
+	 * @param direction
+	 *            direction of function on criterion ('MIN' or 'MAX')
+	 * @param functionNumber
+	 *            number of generalised criterion (1 to 6)
+	 * @param preferenceThreshold
+	 * @param indifferenceThreshold
+	 * @param sigmaThreshold
+	 * @return kernel specialized for the function and its thresholds
+	 * @throws WrongPreferenceDirectionException
+	 * @throws NullThresholdException
+	 *             if a threshold needed by the function is missing
+	 */
+	public static PreferenceKernel compile(String direction, Integer functionNumber,
+			Threshold<Double> preferenceThreshold, Threshold<Double> indifferenceThreshold,
+			Threshold<Double> sigmaThreshold) throws WrongPreferenceDirectionException, NullThresholdException {
+		boolean maximized;
+		if ("MAX".equals(direction)) {
+			maximized = true;
+		} else if ("MIN".equals(direction)) {
+			maximized = false;
+		} else {
+			throw new WrongPreferenceDirectionException();
+		}
+		// thresholds are resolved once, kernels of constant thresholds never
+		// compute them per pair
+		CompiledThreshold p = CompiledThreshold.compile(preferenceThreshold);
+		CompiledThreshold q = CompiledThreshold.compile(indifferenceThreshold);
+		CompiledThreshold s = CompiledThreshold.compile(sigmaThreshold);
+		switch (functionNumber) {
+		case 1:
+			return new UsualKernel(maximized);
+		case 2:
+			checkThresholds(q);
+			if (q.isConstant()) {
+				return new UShapeKernel(maximized, q.getConstant());
+			}
+			break;
+		case 3:
+			checkThresholds(p);
+			if (p.isConstant()) {
+				return new VShapeKernel(maximized, p.getConstant());
+			}
+			break;
+		case 4:
+			checkThresholds(p, q);
+			if (p.isConstant() && q.isConstant()) {
+				return new LevelKernel(maximized, p.getConstant(), q.getConstant());
+			}
+			break;
+		case 5:
+			checkThresholds(p, q);
+			if (p.isConstant() && q.isConstant()) {
+				return new VShapeWithIndifferenceKernel(maximized, p.getConstant(), q.getConstant());
+			}
+			break;
+		case 6:
+			checkThresholds(s);
+			if (s.isConstant()) {
+				return new GaussianKernel(maximized, s.getConstant());
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown generalised criterion " + functionNumber);
+		}
+		return new LinearThresholdsKernel(maximized, functionNumber, p, q, s);
+	}
+
+	private static void checkThresholds(CompiledThreshold... thresholds) throws NullThresholdException {
+		for (CompiledThreshold threshold : thresholds) {
+			if (threshold == null) {
+				throw new NullThresholdException();
+			}
+		}
+	}
+
+	/**
+	 * Scratch arrays of the kernels computing thresholds per pair, owned by
+	 * the caller so rows are evaluated without allocating. Buffers are not
+	 * shared between threads. Arrays grow to the longest row.
+	 */
+	public static final class Buffers {
+		double[] differences = new double[0];
+		double[] preferenceThresholds = new double[0];
+		double[] indifferenceThresholds = new double[0];
+		double[] sigmaThresholds = new double[0];
+		double[] results = new double[0];
+
+		/**
+		 * @param length
+		 *            number of columns of the row
+		 */
+		void reserve(int length) {
+			if (differences.length < length) {
+				differences = new double[length];
+				preferenceThresholds = new double[length];
+				indifferenceThresholds = new double[length];
+				sigmaThresholds = new double[length];
+				results = new double[length];
+			}
+		}
+	}
+}
+
+/**
+ * Kernel of a criterion with constant thresholds. Rows are evaluated by the
+ * batch API of {@link GeneralisedCriterion} with the same thresholds for all
+ * pairs.
+ */
+abstract class ConstantThresholdsKernel extends PreferenceKernel {
+	private final GeneralisedCriterion criterion;
+	private final Double p;
+	private final Double q;
+	private final Double s;
+
+	ConstantThresholdsKernel(boolean maximized, int functionNumber, Double p, Double q, Double s) {
+		super(maximized);
+		this.criterion = new GeneralisedCriteria().get(functionNumber);
+		this.p = p;
+		this.q = q;
+		this.s = s;
+	}
+
+	@Override
+	public void calculateRow(double ga, double[] evaluations, int[] columns, double[] preferences, int offset,
+			int stride, Buffers buffers) {
+		int length = columns.length;
+		buffers.reserve(length);
+		for (int k = 0; k < length; k++) {
+			buffers.differences[k] = difference(ga, evaluations[columns[k]]);
+		}
+		try {
+			criterion.calculateAll(buffers.differences, p, q, s, buffers.results, length);
+		} catch (NullThresholdException e) {
+			// thresholds used by the function are checked when the kernel is
+			// compiled
+			throw new IllegalStateException(e);
+		}
+		for (int k = 0; k < length; k++) {
+			preferences[offset + columns[k] * stride] = buffers.results[k];
+		}
+	}
+}
+
+final class UsualKernel extends ConstantThresholdsKernel {
+
+	UsualKernel(boolean maximized) {
+		super(maximized, 1, null, null, null);
+	}
+
+	@Override
+	public double calculate(double ga, double gb) {
+		return UsualCriterion.preference(difference(ga, gb));
+	}
+}
+
+final class UShapeKernel extends ConstantThresholdsKernel {
+	private final double q;
+
+	UShapeKernel(boolean maximized, double q) {
+		super(maximized, 2, null, q, null);
+		this.q = q;
+	}
+
+	@Override
+	public double calculate(double ga, double gb) {
+		return UShapeCriterion.preference(difference(ga, gb), q);
+	}
+}
+
+final class VShapeKernel extends ConstantThresholdsKernel {
+	private final double p;
+
+	VShapeKernel(boolean maximized, double p) {
+		super(maximized, 3, p, null, null);
+		this.p = p;
+	}
+
+	@Override
+	public double calculate(double ga, double gb) {
+		return VShapeCriterion.preference(difference(ga, gb), p);
+	}
+}
+
+final class LevelKernel extends ConstantThresholdsKernel {
+	private final double p;
+	private final double q;
+
+	LevelKernel(boolean maximized, double p, double q) {
+		super(maximized, 4, p, q, null);
+		this.p = p;
+		this.q = q;
+	}
+
+	@Override
+	public double calculate(double ga, double gb) {
+		return LevelCriterion.preference(difference(ga, gb), p, q);
+	}
+}
+
+final class VShapeWithIndifferenceKernel extends ConstantThresholdsKernel {
+	private final double p;
+	private final double q;
+
+	VShapeWithIndifferenceKernel(boolean maximized, double p, double q) {
+		super(maximized, 5, p, q, null);
+		this.p = p;
+		this.q = q;
+	}
+
+	@Override
+	public double calculate(double ga, double gb) {
+		return VShapeWithIndifferenceCriterion.preference(difference(ga, gb), p, q);
+	}
+}
+
+final class GaussianKernel extends ConstantThresholdsKernel {
+	private final double s;
+
+	GaussianKernel(boolean maximized, double s) {
+		super(maximized, 6, null, null, s);
+		this.s = s;
+	}
+
+	@Override
+	public double calculate(double ga, double gb) {
+		return GaussianCriterion.preference(difference(ga, gb), s);
+	}
+}
+
+/**
+ * Kernel of a criterion with at least one threshold defined as a linear
+ * function of the evaluations, so thresholds are computed for each pair. Rows
+ * are evaluated by the batch API of {@link GeneralisedCriterion} with one
+ * threshold per pair.
+ */
+final class LinearThresholdsKernel extends PreferenceKernel {
+	private final int functionNumber;
+	private final GeneralisedCriterion criterion;
+	private final CompiledThreshold preferenceThreshold;
+	private final CompiledThreshold indifferenceThreshold;
+	private final CompiledThreshold sigmaThreshold;
+
+	LinearThresholdsKernel(boolean maximized, int functionNumber, CompiledThreshold preferenceThreshold,
+			CompiledThreshold indifferenceThreshold, CompiledThreshold sigmaThreshold) {
+		super(maximized);
+		this.functionNumber = functionNumber;
+		this.criterion = new GeneralisedCriteria().get(functionNumber);
+		// thresholds not used by the function are never evaluated
+		boolean withPreference = functionNumber == 3 || functionNumber == 4 || functionNumber == 5;
+		boolean withIndifference = functionNumber == 2 || functionNumber == 4 || functionNumber == 5;
+		this.preferenceThreshold = withPreference ? preferenceThreshold : null;
+		this.indifferenceThreshold = withIndifference ? indifferenceThreshold : null;
+		this.sigmaThreshold = functionNumber == 6 ? sigmaThreshold : null;
+	}
+
+	@Override
+	public double calculate(double ga, double gb) {
+		double baseEvaluation = baseEvaluation(ga, gb);
+		return preference(difference(ga, gb), threshold(preferenceThreshold, baseEvaluation),
+				threshold(indifferenceThreshold, baseEvaluation), threshold(sigmaThreshold, baseEvaluation));
+	}
+
+	@Override
+	public void calculateRow(double ga, double[] evaluations, int[] columns, double[] preferences, int offset,
+			int stride, Buffers buffers) {
+		int length = columns.length;
+		buffers.reserve(length);
+		for (int k = 0; k < length; k++) {
+			buffers.differences[k] = difference(ga, evaluations[columns[k]]);
+		}
+		thresholds(preferenceThreshold, ga, evaluations, columns, buffers.preferenceThresholds);
+		thresholds(indifferenceThreshold, ga, evaluations, columns, buffers.indifferenceThresholds);
+		thresholds(sigmaThreshold, ga, evaluations, columns, buffers.sigmaThresholds);
+		try {
+			// arrays of thresholds not used by the function are ignored
+			criterion.calculateEach(buffers.differences, buffers.preferenceThresholds,
+					buffers.indifferenceThresholds, buffers.sigmaThresholds, buffers.results, length);
+		} catch (NullThresholdException e) {
+			// thresholds used by the function are checked when the kernel is
+			// compiled
+			throw new IllegalStateException(e);
+		}
+		for (int k = 0; k < length; k++) {
+			preferences[offset + columns[k] * stride] = buffers.results[k];
+		}
+	}
+
+	private double preference(double diff, double p, double q, double s) {
+		switch (functionNumber) {
+		case 2:
+			return UShapeCriterion.preference(diff, q);
+		case 3:
+			return VShapeCriterion.preference(diff, p);
+		case 4:
+			return LevelCriterion.preference(diff, p, q);
+		case 5:
+			return VShapeWithIndifferenceCriterion.preference(diff, p, q);
+		case 6:
+			return GaussianCriterion.preference(diff, s);
+		default:
+			return UsualCriterion.preference(diff);
+		}
+	}
+
+	private double baseEvaluation(double ga, double gb) {
+		if (maximized) {
+			return ga > gb ? gb : ga;
+		}
+		return ga > gb ? ga : gb;
+	}
+
+	/**
+	 * Stores the thresholds of the pairs formed with the columns, unless the
+	 * criterion does not use the threshold.
+	 */
+	private void thresholds(CompiledThreshold threshold, double ga, double[] evaluations, int[] columns,
+			double[] thresholds) {
+		if (threshold == null) {
+			return;
+		}
+		// with a constant threshold and a linear one, calculateEach takes an
+		// array of each of them
+		for (int k = 0; k < columns.length; k++) {
+			thresholds[k] = threshold.value(baseEvaluation(ga, evaluations[columns[k]]));
+		}
+	}
+
+	/**
+	 * @return value of the threshold or NaN if the criterion does not use it
+	 */
+	private double threshold(CompiledThreshold threshold, double baseEvaluation) {
+		if (threshold == null) {
+			return Double.NaN;
+		}
+		return threshold.value(baseEvaluation);
+	}
+}
+
+/**
+ * Threshold resolved once into a constant or the slope and intercept of a
+ * linear function of the base evaluation, so pairs read primitive fields only.
+ */
+final class CompiledThreshold {
+	private final boolean constant;
+	private final double slope;
+	private final double intercept;
+
+	private CompiledThreshold(boolean constant, double slope, double intercept) {
+		this.constant = constant;
+		this.slope = slope;
+		this.intercept = intercept;
+	}
+
+	/**
+	 * @return compiled threshold or null if the threshold is missing
+	 */
+	static CompiledThreshold compile(Threshold<Double> threshold) {
+		if (threshold == null) {
+			return null;
+		}
+		if (threshold.isConstant()) {
+			return new CompiledThreshold(true, 0.0, threshold.getConstant().getValue().doubleValue());
+		}
+		return new CompiledThreshold(false, threshold.getSlope().getValue(), threshold.getIntercept().getValue());
+	}
+
+	boolean isConstant() {
+		return constant;
+	}
+
+	double getConstant() {
+		return intercept;
+	}
+
+	double value(double baseEvaluation) {
+		if (constant) {
+			return intercept;
+		}
+		return slope * baseEvaluation + intercept;
+	}
+}
@@ -0,0 +1,9 @@
+#! /bin/bash
+# Usage:
+#  benchmark.sh [alternatives [criteria [iterations]]]
+# The classes of the benchmark directory have to be compiled into ./bin
+
+source common_settings.sh
+
+${JAVA} -cp ${CLASSPATH} pl.poznan.put.promethee.preference.PreferenceBenchmark "$@"
+exit $?
@@ -0,0 +1,62 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Random;
+
+/**
+ * Compares the throughput of the exact Gaussian criterion, computed with
+ * {@link Math#exp(double)}, with the one of {@link GaussianTable}, and reports
+ * the largest absolute error observed on the random differences.
+ *
+ * Usage: GaussianBenchmark [max error [differences [iterations]]]
+ */
+public class GaussianBenchmark {
+	private static final int WARMUP_ITERATIONS = 5;
+	private static final double SIGMA = 15.0;
+
+	public static void main(String[] args) {
+		double maxError = args.length > 0 ? Double.parseDouble(args[0]) : 1e-6;
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+		GaussianTable table = new GaussianTable(maxError);
+		double scale = table.scale(SIGMA);
+		Random random = new Random(0);
+		double[] differences = new double[count];
+		for (int i = 0; i < count; i++) {
+			// differences of evaluations between 0 and 100, a few of them beyond
+			// the last value of the table
+			differences[i] = random.nextDouble() * 100;
+		}
+		double[] exact = new double[count];
+		double[] approximated = new double[count];
+
+		measure("exact", iterations, count, () -> {
+			for (int i = 0; i < count; i++) {
+				exact[i] = GaussianCriterion.preference(differences[i], SIGMA);
+			}
+		});
+		measure("table", iterations, count, () -> {
+			for (int i = 0; i < count; i++) {
+				approximated[i] = table.preference(differences[i], scale);
+			}
+		});
+
+		double largestError = 0.0;
+		for (int i = 0; i < count; i++) {
+			largestError = Math.max(largestError, Math.abs(exact[i] - approximated[i]));
+		}
+		System.out.println(String.format("max error %.3e, largest observed error %.3e, table of %d values",
+				maxError, largestError, table.size()));
+	}
+
+	private static void measure(String name, int iterations, int count, Runnable benchmark) {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			benchmark.run();
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			benchmark.run();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9 / iterations;
+		System.out.println(String.format("%-10s %10.6f s/op %12.0f preferences/s", name, seconds, count / seconds));
+	}
+}
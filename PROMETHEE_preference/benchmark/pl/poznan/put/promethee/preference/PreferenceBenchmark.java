@@ -0,0 +1,114 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.xmcda.QualifiedValue;
+import org.xmcda.Threshold;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.ComparisonWithParam;
+import pl.poznan.put.promethee.xmcda.InputsHandler.GeneralisedCriterionParam;
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Compares the throughput of the tiled evaluation of {@link Preference} with
+ * the former loop order: alternatives as the outer loops and criteria as the
+ * inner loop, reading evaluations from maps and storing partial preferences in
+ * maps.
+ *
+ * Usage: PreferenceBenchmark [alternatives [criteria [iterations]]]
+ */
+public class PreferenceBenchmark {
+	private static final int WARMUP_ITERATIONS = 3;
+
+	public static void main(String[] args) throws Exception {
+		int alternatives = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int criteria = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		Inputs inputs = randomInputs(alternatives, criteria, new Random(0));
+		double evaluations = (double) alternatives * alternatives * criteria;
+
+		measure("maps loop", iterations, evaluations, () -> calcPartialPreferencesInMaps(inputs));
+		measure("tiled", iterations, evaluations, () -> Preference.calculateResults(inputs, 1, true));
+	}
+
+	private static void measure(String name, int iterations, double evaluations, Callable<Object> benchmark)
+			throws Exception {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			benchmark.call();
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			benchmark.call();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9 / iterations;
+		System.out.println(String.format("%-10s %10.3f s/op %12.0f partial preferences/s", name, seconds,
+				evaluations / seconds));
+	}
+
+	/**
+	 * Partial preferences computed in the loop order of the former
+	 * implementation.
+	 */
+	private static Map<String, Map<String, Map<String, Double>>> calcPartialPreferencesInMaps(Inputs inputs)
+			throws Exception {
+		Map<String, PreferenceKernel> kernels = new HashMap<>();
+		for (String c : inputs.criteria_ids) {
+			kernels.put(c,
+					PreferenceKernel.compile(inputs.preferenceDirections.get(c), inputs.generalisedCriteria.get(c),
+							inputs.preferenceThresholds.get(c), inputs.indifferenceThresholds.get(c),
+							inputs.sigmaThresholds.get(c)));
+		}
+		Map<String, Map<String, Map<String, Double>>> partialPreferences = new LinkedHashMap<>();
+		for (String a : inputs.alternatives_ids) {
+			for (String b : inputs.alternatives_ids) {
+				for (String c : inputs.criteria_ids) {
+					partialPreferences.putIfAbsent(a, new LinkedHashMap<>());
+					partialPreferences.get(a).putIfAbsent(b, new LinkedHashMap<>());
+					partialPreferences.get(a).get(b).put(c, kernels.get(c).calculate(
+							inputs.performanceTable.get(a).get(c), inputs.performanceTable.get(b).get(c)));
+				}
+			}
+		}
+		return partialPreferences;
+	}
+
+	private static Inputs randomInputs(int alternatives, int criteria, Random random) {
+		Inputs inputs = new Inputs();
+		inputs.comparisonWith = ComparisonWithParam.ALTERNATIVES;
+		inputs.generalisedCriterion = GeneralisedCriterionParam.SPECIFIED;
+		inputs.alternatives_ids = new ArrayList<>();
+		inputs.criteria_ids = new ArrayList<>();
+		inputs.performanceTable = new LinkedHashMap<>();
+		inputs.generalisedCriteria = new LinkedHashMap<>();
+		inputs.preferenceDirections = new LinkedHashMap<>();
+		inputs.weights = new LinkedHashMap<>();
+		inputs.preferenceThresholds = new LinkedHashMap<>();
+		inputs.indifferenceThresholds = new LinkedHashMap<>();
+		inputs.sigmaThresholds = new LinkedHashMap<>();
+		for (int c = 0; c < criteria; c++) {
+			String criterion = "g" + c;
+			inputs.criteria_ids.add(criterion);
+			inputs.generalisedCriteria.put(criterion, 1 + c % 6);
+			inputs.preferenceDirections.put(criterion, c % 2 == 0 ? "MAX" : "MIN");
+			inputs.weights.put(criterion, 1.0 + random.nextInt(5));
+			inputs.preferenceThresholds.put(criterion, new Threshold<Double>(new QualifiedValue<Double>(30.0)));
+			inputs.indifferenceThresholds.put(criterion, new Threshold<Double>(new QualifiedValue<Double>(5.0)));
+			inputs.sigmaThresholds.put(criterion, new Threshold<Double>(new QualifiedValue<Double>(15.0)));
+		}
+		for (int a = 0; a < alternatives; a++) {
+			String alternative = "a" + a;
+			inputs.alternatives_ids.add(alternative);
+			Map<String, Double> evaluations = new LinkedHashMap<>();
+			for (String criterion : inputs.criteria_ids) {
+				evaluations.put(criterion, random.nextDouble() * 100);
+			}
+			inputs.performanceTable.put(alternative, evaluations);
+		}
+		return inputs;
+	}
+}
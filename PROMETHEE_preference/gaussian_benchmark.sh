@@ -0,0 +1,9 @@
+#! /bin/bash
+# Usage:
+#  gaussian_benchmark.sh [max_error [differences [iterations]]]
+# The classes of the benchmark directory have to be compiled into ./bin
+
+source common_settings.sh
+
+${JAVA} -cp ${CLASSPATH} pl.poznan.put.promethee.preference.GaussianBenchmark "$@"
+exit $?
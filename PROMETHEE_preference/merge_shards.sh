@@ -0,0 +1,10 @@
+#! /bin/bash
+# Usage:
+#  merge_shards.sh output_dir shard_dir_1 ... shard_dir_N
+# Merges the results written by run.sh with options --shard 1/N to --shard N/N,
+# the shard directories may be given in any order
+
+source common_settings.sh
+
+${JAVA} -cp ${CLASSPATH} pl.poznan.put.promethee.xmcda.ShardsMerger "$@"
+exit $?
@@ -1,6 +1,10 @@
 #! /bin/bash
 # Usage:
-#  run.sh [--v2|--v3] -i input_dir -o output_dir
+#  run.sh [--v2|--v3] -i input_dir -o output_dir [-t threads] [--skip-partial-preferences] [--sparse-partial-preferences]
+#         [--stream-performance-table] [-p previous_results_dir [-c changed_id,...]] [-m mapped_storage_dir]
+#         [--partial-precision double|float32|fixed16|step2] [--chunk-size alternatives]
+#         [--gaussian-max-error error] [--shard i/N] [--min-preference value] [--top-k pairs]
+#         [--cache-dir cache_dir [--cache-size bytes]] [--scenarios scenarios_dir]
 
 source common_settings.sh
 
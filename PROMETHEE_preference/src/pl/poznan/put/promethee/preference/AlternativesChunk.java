@@ -0,0 +1,114 @@
+package pl.poznan.put.promethee.preference;
+
+/**
+ * Alternatives of a chunk with their evaluations and their preferences with
+ * the profiles of a {@link ProfilesPreference}.
+ */
+public class AlternativesChunk {
+	private final int criteriaCount;
+	private final int profilesCount;
+	private final String[] ids;
+	private final double[] evaluations;
+	private final double[] preferencesToProfiles;
+	private final double[] preferencesFromProfiles;
+	private final double[] partialPreferencesToProfiles;
+	private final double[] partialPreferencesFromProfiles;
+	private int size;
+
+	AlternativesChunk(int capacity, int criteriaCount, int profilesCount, boolean withPartialPreferences) {
+		this.criteriaCount = criteriaCount;
+		this.profilesCount = profilesCount;
+		ids = new String[capacity];
+		evaluations = new double[capacity * criteriaCount];
+		preferencesToProfiles = new double[capacity * profilesCount];
+		preferencesFromProfiles = new double[capacity * profilesCount];
+		if (withPartialPreferences) {
+			partialPreferencesToProfiles = new double[capacity * profilesCount * criteriaCount];
+			partialPreferencesFromProfiles = new double[capacity * profilesCount * criteriaCount];
+		} else {
+			partialPreferencesToProfiles = null;
+			partialPreferencesFromProfiles = null;
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isFull() {
+		return size == ids.length;
+	}
+
+	public boolean hasPartialPreferences() {
+		return partialPreferencesToProfiles != null;
+	}
+
+	/**
+	 * Removes all alternatives.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * @param id
+	 * @param alternativeEvaluations
+	 *            evaluations indexed like the criteria, they are copied
+	 */
+	public void add(String id, double[] alternativeEvaluations) {
+		ids[size] = id;
+		System.arraycopy(alternativeEvaluations, 0, evaluations, size * criteriaCount, criteriaCount);
+		size++;
+	}
+
+	public String getId(int alternative) {
+		return ids[alternative];
+	}
+
+	double getEvaluation(int alternative, int criterion) {
+		return evaluations[alternative * criteriaCount + criterion];
+	}
+
+	/**
+	 * @return preference of the alternative over the profile
+	 */
+	public double getPreferenceToProfile(int alternative, int profile) {
+		return preferencesToProfiles[alternative * profilesCount + profile];
+	}
+
+	/**
+	 * @return preference of the profile over the alternative
+	 */
+	public double getPreferenceFromProfile(int alternative, int profile) {
+		return preferencesFromProfiles[alternative * profilesCount + profile];
+	}
+
+	public double getPartialPreferenceToProfile(int alternative, int profile, int criterion) {
+		return partialPreferencesToProfiles[(alternative * profilesCount + profile) * criteriaCount + criterion];
+	}
+
+	public double getPartialPreferenceFromProfile(int alternative, int profile, int criterion) {
+		return partialPreferencesFromProfiles[(alternative * profilesCount + profile) * criteriaCount + criterion];
+	}
+
+	void setPreferences(int alternative, int profile, double toProfile, double fromProfile) {
+		preferencesToProfiles[alternative * profilesCount + profile] = toProfile;
+		preferencesFromProfiles[alternative * profilesCount + profile] = fromProfile;
+	}
+
+	/**
+	 * @param toProfiles
+	 *            partial preferences of the alternative over all profiles,
+	 *            criteria of a profile being contiguous
+	 * @param fromProfiles
+	 *            partial preferences of all profiles over the alternative
+	 */
+	void setPartialPreferences(int alternative, double[] toProfiles, double[] fromProfiles) {
+		if (partialPreferencesToProfiles == null) {
+			return;
+		}
+		int length = profilesCount * criteriaCount;
+		System.arraycopy(toProfiles, 0, partialPreferencesToProfiles, alternative * length, length);
+		System.arraycopy(fromProfiles, 0, partialPreferencesFromProfiles, alternative * length, length);
+	}
+}
@@ -0,0 +1,145 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.ComparisonWithParam;
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Elements (alternatives followed by profiles) compared by the module. Knows
+ * which pairs are compared and in which order rows and columns are written to
+ * the output files.
+ */
+public class ComparedElements {
+	private final IdsDictionary dictionary;
+	private final int alternativesCount;
+	private final boolean withProfiles;
+
+	public ComparedElements(Inputs inputs) {
+		List<String> ids = new ArrayList<>(inputs.alternatives_ids);
+		withProfiles = inputs.comparisonWith != ComparisonWithParam.ALTERNATIVES;
+		if (withProfiles) {
+			ids.addAll(inputs.profiles_ids);
+		}
+		dictionary = new IdsDictionary(ids);
+		alternativesCount = inputs.alternatives_ids.size();
+	}
+
+	public IdsDictionary getDictionary() {
+		return dictionary;
+	}
+
+	public int size() {
+		return dictionary.size();
+	}
+
+	public boolean isAlternative(int index) {
+		return index < alternativesCount;
+	}
+
+	/**
+	 * Alternatives are compared with each other only when no profiles are
+	 * given. Every other pair is compared.
+	 */
+	public boolean isCompared(int row, int column) {
+		return !withProfiles || !isAlternative(row) || !isAlternative(column);
+	}
+
+	/**
+	 * @return number of compared pairs, including the pairs of the elements
+	 *         with themselves
+	 */
+	public long getPairsCount() {
+		if (!withProfiles) {
+			return (long) size() * size();
+		}
+		int profilesCount = size() - alternativesCount;
+		return (long) alternativesCount * profilesCount + (long) profilesCount * size();
+	}
+
+	/**
+	 * Compared pairs are indexed row by row: the rows of the alternatives only
+	 * hold the profiles when they are compared with profiles.
+	 *
+	 * @param row
+	 * @param column
+	 *            element compared with the row element
+	 * @return index of the pair, from 0 to {@link #getPairsCount()}
+	 */
+	public long getPairIndex(int row, int column) {
+		if (!withProfiles) {
+			return (long) row * size() + column;
+		}
+		int profilesCount = size() - alternativesCount;
+		if (isAlternative(row)) {
+			return (long) row * profilesCount + column - alternativesCount;
+		}
+		return (long) alternativesCount * profilesCount + (long) (row - alternativesCount) * size() + column;
+	}
+
+	/**
+	 * @param row
+	 * @return indices of elements compared with the row element, in output
+	 *         order
+	 */
+	public int[] getColumns(int row) {
+		int from = (withProfiles && isAlternative(row)) ? alternativesCount : 0;
+		int[] columns = new int[size() - from];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = from + i;
+		}
+		return columns;
+	}
+
+	/**
+	 * Every compared pair is compared in both directions, so each unordered
+	 * pair is owned by the row with the lower index.
+	 *
+	 * @param row
+	 * @return indices of elements compared with the row element whose index is
+	 *         not lower than the row index
+	 */
+	public int[] getPairColumns(int row) {
+		int from = (withProfiles && isAlternative(row)) ? alternativesCount : row;
+		int[] columns = new int[size() - from];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = from + i;
+		}
+		return columns;
+	}
+
+	/**
+	 * @return indices of rows sorted by element id
+	 */
+	public int[] getSortedRows() {
+		return Arrays.stream(getRows()).boxed().sorted(Comparator.comparing(dictionary::getId))
+				.mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * @return indices of rows in the order of partial preferences output: the
+	 *         first alternative, then the profiles, then remaining
+	 *         alternatives
+	 */
+	public int[] getRows() {
+		int[] rows = new int[size()];
+		int position = 0;
+		if (withProfiles && alternativesCount > 0) {
+			rows[position++] = 0;
+			for (int i = alternativesCount; i < size(); i++) {
+				rows[position++] = i;
+			}
+			for (int i = 1; i < alternativesCount; i++) {
+				rows[position++] = i;
+			}
+		} else {
+			for (int i = 0; i < size(); i++) {
+				rows[position++] = i;
+			}
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,108 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Preferences on one criterion computed once for every pair of distinct
+ * evaluations. Criteria on ordinal scales have few distinct evaluations, so
+ * pairs of elements read their preferences from a small table instead of
+ * evaluating the kernel.
+ */
+public class DistinctValuesTable {
+	private final int[] codes;
+	private final int distinctCount;
+	private final double[] table;
+
+	private DistinctValuesTable(int[] codes, double[] values, int distinctCount, PreferenceKernel kernel) {
+		this.codes = codes;
+		this.distinctCount = distinctCount;
+		this.table = new double[distinctCount * distinctCount];
+		for (int i = 0; i < distinctCount; i++) {
+			for (int j = 0; j < distinctCount; j++) {
+				table[i * distinctCount + j] = kernel.calculate(values[i], values[j]);
+			}
+		}
+	}
+
+	/**
+	 * @param kernel
+	 *            kernel of the criterion
+	 * @param evaluations
+	 *            evaluations of the elements on the criterion
+	 * @return table of the criterion or null if it has too many distinct
+	 *         evaluations for the table to be cheaper than the kernel
+	 */
+	public static DistinctValuesTable compress(PreferenceKernel kernel, double[] evaluations) {
+		int n = evaluations.length;
+		int[] codes = new int[n];
+		// with at most n / 2 distinct evaluations the table has at most a
+		// quarter of the pairs
+		double[] values = new double[n / 2];
+		// Double keys are compared by bits, so only identical evaluations share
+		// a code
+		Map<Double, Integer> distinct = new HashMap<>();
+		for (int i = 0; i < n; i++) {
+			Integer code = distinct.get(evaluations[i]);
+			if (code == null) {
+				if (distinct.size() >= values.length) {
+					return null;
+				}
+				code = distinct.size();
+				values[code] = evaluations[i];
+				distinct.put(evaluations[i], code);
+			}
+			codes[i] = code;
+		}
+		return new DistinctValuesTable(codes, values, distinct.size(), kernel);
+	}
+
+	public int getDistinctCount() {
+		return distinctCount;
+	}
+
+	/**
+	 * Same contract as
+	 * {@link PreferenceKernel#calculateRow(double, double[], int[], double[], int, int, PreferenceKernel.Buffers)}
+	 * for the element of index {@code row}.
+	 */
+	public void calculateRow(int row, int[] columns, double[] preferences, int offset, int stride) {
+		int rowStart = codes[row] * distinctCount;
+		for (int column : columns) {
+			preferences[offset + column * stride] = table[rowStart + codes[column]];
+		}
+	}
+
+	/**
+	 * Same contract as
+	 * {@link PreferenceKernel#calculatePairs(double, double[], int[], double[], int, int, double[], int, int, PreferenceKernel.Buffers)}
+	 * for the element of index {@code row}.
+	 */
+	public void calculatePairs(int row, int[] columns, double[] forward, int forwardOffset, int forwardStride,
+			double[] backward, int backwardOffset, int backwardStride) {
+		int rowCode = codes[row];
+		int rowStart = rowCode * distinctCount;
+		for (int column : columns) {
+			int columnCode = codes[column];
+			forward[forwardOffset + column * forwardStride] = table[rowStart + columnCode];
+			backward[backwardOffset + column * backwardStride] = table[columnCode * distinctCount + rowCode];
+		}
+	}
+
+	/**
+	 * Same contract as
+	 * {@link PreferenceKernel#calculatePairBits(double, double[], int[], long, StepBits, int, int, StepBits, int, int)}
+	 * for the element of index {@code row}, the table must be built from a
+	 * step kernel.
+	 */
+	void calculatePairBits(int row, int[] columns, long bit, StepBits forward, int forwardOffset, int forwardStride,
+			StepBits backward, int backwardOffset, int backwardStride) {
+		int rowCode = codes[row];
+		int rowStart = rowCode * distinctCount;
+		for (int column : columns) {
+			int columnCode = codes[column];
+			forward.set(forwardOffset + column * forwardStride, bit, table[rowStart + columnCode]);
+			backward.set(backwardOffset + column * backwardStride, bit, table[columnCode * distinctCount + rowCode]);
+		}
+	}
+}
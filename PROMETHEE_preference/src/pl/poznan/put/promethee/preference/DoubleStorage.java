@@ -0,0 +1,306 @@
+package pl.poznan.put.promethee.preference;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Values of a preference matrix, stored in a primitive array on the heap or in
+ * a memory-mapped file that can exceed the heap. Heap arrays may store the
+ * values with a reduced precision, see {@link StoragePrecision}.
+ */
+public abstract class DoubleStorage {
+	private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	public abstract long size();
+
+	public abstract double get(long index);
+
+	public abstract void set(long index, double value);
+
+	/**
+	 * Writes the values to the underlying file, if any.
+	 */
+	public void flush() {
+	}
+
+	/**
+	 * @return whether the stored values are read back unchanged
+	 */
+	public boolean isExact() {
+		return true;
+	}
+
+	/**
+	 * @param size
+	 *            number of values, all initially equal to 0
+	 * @return storage in an array on the heap
+	 * @throws IllegalArgumentException
+	 *             if the values do not fit in an array
+	 */
+	public static DoubleStorage heap(long size) {
+		return new HeapDoubleStorage(size);
+	}
+
+	/**
+	 * @return storage of values as 32-bit floats
+	 */
+	public static DoubleStorage floats(long size) {
+		return new FloatStorage(size);
+	}
+
+	/**
+	 * @return storage of values between 0 and 1 in 16 bits each
+	 */
+	public static DoubleStorage fixedPoint(long size) {
+		return new FixedPointStorage(size);
+	}
+
+	/**
+	 * @return storage of values equal to 0, 0.5 or 1 in 2 bits each
+	 */
+	public static DoubleStorage stepCodes(long size) {
+		return new StepCodesStorage(size);
+	}
+
+	/**
+	 * The file holds the values as consecutive doubles in the native byte
+	 * order, so later steps can map it too. An existing file is overwritten.
+	 *
+	 * @param file
+	 * @param size
+	 *            number of values, all initially equal to 0
+	 * @return storage in the memory-mapped file
+	 * @throws IOException
+	 */
+	public static DoubleStorage mapped(File file, long size) throws IOException {
+		return new MappedDoubleStorage(file, size);
+	}
+
+	/**
+	 * @param length
+	 *            length of the array storing the values
+	 * @param size
+	 *            number of values
+	 * @return the length
+	 * @throws IllegalArgumentException
+	 *             if the length exceeds the maximal length of arrays
+	 */
+	static int arrayLength(long length, long size) {
+		if (length > MAX_ARRAY_SIZE) {
+			throw new IllegalArgumentException(
+					"Too many values to store in memory (" + size + " values), use a memory-mapped storage");
+		}
+		return (int) length;
+	}
+}
+
+final class HeapDoubleStorage extends DoubleStorage {
+	private final double[] values;
+
+	HeapDoubleStorage(long size) {
+		values = new double[arrayLength(size, size)];
+	}
+
+	@Override
+	public long size() {
+		return values.length;
+	}
+
+	@Override
+	public double get(long index) {
+		return values[(int) index];
+	}
+
+	@Override
+	public void set(long index, double value) {
+		values[(int) index] = value;
+	}
+}
+
+final class FloatStorage extends DoubleStorage {
+	private final float[] values;
+
+	@Override
+	public boolean isExact() {
+		return false;
+	}
+
+	FloatStorage(long size) {
+		values = new float[arrayLength(size, size)];
+	}
+
+	@Override
+	public long size() {
+		return values.length;
+	}
+
+	@Override
+	public double get(long index) {
+		return values[(int) index];
+	}
+
+	@Override
+	public void set(long index, double value) {
+		values[(int) index] = (float) value;
+	}
+}
+
+/**
+ * Unsigned 16-bit fixed point, the absolute error is at most 1 / 131068. The
+ * highest code stands for NaN, which the functions give for NaN evaluations or
+ * thresholds. Other values are bounded to [0, 1], the range of the functions.
+ */
+final class FixedPointStorage extends DoubleStorage {
+	private static final char NAN = Character.MAX_VALUE;
+	private static final double SCALE = NAN - 1;
+
+	@Override
+	public boolean isExact() {
+		return false;
+	}
+
+	private final char[] values;
+
+	FixedPointStorage(long size) {
+		values = new char[arrayLength(size, size)];
+	}
+
+	@Override
+	public long size() {
+		return values.length;
+	}
+
+	@Override
+	public double get(long index) {
+		char value = values[(int) index];
+		if (value == NAN) {
+			return Double.NaN;
+		}
+		return value / SCALE;
+	}
+
+	@Override
+	public void set(long index, double value) {
+		if (Double.isNaN(value)) {
+			values[(int) index] = NAN;
+			return;
+		}
+		values[(int) index] = (char) Math.round(Math.max(0.0, Math.min(1.0, value)) * SCALE);
+	}
+}
+
+/**
+ * Codes 0, 1 and 2 of the values 0, 0.5 and 1 packed by 32 in longs. Rows of
+ * a matrix are filled by several threads and neighbouring values can share a
+ * long, so it is updated atomically.
+ */
+final class StepCodesStorage extends DoubleStorage {
+	private static final int CODES_SHIFT = 5;
+	private static final long CODES_MASK = (1L << CODES_SHIFT) - 1;
+
+	private final long size;
+	private final AtomicLongArray words;
+
+	StepCodesStorage(long size) {
+		this.size = size;
+		words = new AtomicLongArray(arrayLength((size + CODES_MASK) >>> CODES_SHIFT, size));
+	}
+
+	@Override
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public double get(long index) {
+		long word = words.get((int) (index >>> CODES_SHIFT));
+		return ((word >>> shift(index)) & 3) * 0.5;
+	}
+
+	@Override
+	public void set(long index, double value) {
+		long code;
+		if (value == 0.0) {
+			code = 0;
+		} else if (value == 0.5) {
+			code = 1;
+		} else if (value == 1.0) {
+			code = 2;
+		} else {
+			throw new IllegalArgumentException(
+					"Value " + value + " is not 0, 0.5 or 1 and can not be stored in 2 bits");
+		}
+		int wordIndex = (int) (index >>> CODES_SHIFT);
+		int shift = shift(index);
+		long word;
+		do {
+			word = words.get(wordIndex);
+		} while (!words.compareAndSet(wordIndex, word, word & ~(3L << shift) | code << shift));
+	}
+
+	private static int shift(long index) {
+		return (int) (index & CODES_MASK) << 1;
+	}
+}
+
+/**
+ * File mapped in chunks, as a single mapping can not exceed 2 GB.
+ */
+final class MappedDoubleStorage extends DoubleStorage {
+	private static final int CHUNK_SHIFT = 27;
+	private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+	private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private final long size;
+	private final MappedByteBuffer[] buffers;
+	private final DoubleBuffer[] chunks;
+
+	MappedDoubleStorage(File file, long size) throws IOException {
+		this.size = size;
+		int count = (int) ((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+		buffers = new MappedByteBuffer[count];
+		chunks = new DoubleBuffer[count];
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			// truncating first makes all values equal to 0
+			randomAccessFile.setLength(0);
+			randomAccessFile.setLength(size * Double.BYTES);
+			FileChannel channel = randomAccessFile.getChannel();
+			for (int chunk = 0; chunk < count; chunk++) {
+				long from = (long) chunk << CHUNK_SHIFT;
+				long length = Math.min(CHUNK_SIZE, size - from);
+				buffers[chunk] = channel.map(FileChannel.MapMode.READ_WRITE, from * Double.BYTES,
+						length * Double.BYTES);
+				buffers[chunk].order(ByteOrder.nativeOrder());
+				chunks[chunk] = buffers[chunk].asDoubleBuffer();
+			}
+		}
+	}
+
+	@Override
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public double get(long index) {
+		return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+	}
+
+	@Override
+	public void set(long index, double value) {
+		chunks[(int) (index >>> CHUNK_SHIFT)].put((int) (index & CHUNK_MASK), value);
+	}
+
+	@Override
+	public void flush() {
+		for (MappedByteBuffer buffer : buffers) {
+			buffer.force();
+		}
+	}
+}
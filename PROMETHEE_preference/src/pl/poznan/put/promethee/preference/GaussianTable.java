@@ -0,0 +1,84 @@
+package pl.poznan.put.promethee.preference;
+
+/**
+ * Approximation of the Gaussian criterion 1 - exp(-d^2 / (2 s^2)) with an
+ * absolute error bounded by a given maximum. The function of x = d / s is
+ * tabulated on a regular grid and linearly interpolated. The interpolation
+ * error is at most h^2 / 8 times the maximum of the second derivative, which
+ * is 1, so the step h is chosen for half of the maximum error. Beyond the last
+ * point of the table the function differs from 1 by less than the maximum
+ * error.
+ */
+public final class GaussianTable {
+	/**
+	 * Smallest maximum error accepted, the table then has about 350 000
+	 * values.
+	 */
+	public static final double MIN_MAX_ERROR = 1e-10;
+
+	private final double maxError;
+	private final double step;
+	private final double[] values;
+
+	/**
+	 * @param maxError
+	 *            maximum absolute error of the preferences, between
+	 *            {@link #MIN_MAX_ERROR} and 1
+	 * @throws IllegalArgumentException
+	 *             if the maximum error is out of range
+	 */
+	public GaussianTable(double maxError) {
+		if (!(maxError >= MIN_MAX_ERROR && maxError < 1)) {
+			throw new IllegalArgumentException("Maximum error of the Gaussian criterion must be between "
+					+ MIN_MAX_ERROR + " and 1");
+		}
+		this.maxError = maxError;
+		this.step = Math.sqrt(4 * maxError);
+		double last = Math.sqrt(-2 * Math.log(maxError));
+		values = new double[(int) Math.ceil(last / step) + 2];
+		for (int i = 0; i < values.length; i++) {
+			double x = i * step;
+			values[i] = 1 - Math.exp(-(x * x) / 2);
+		}
+	}
+
+	public double getMaxError() {
+		return maxError;
+	}
+
+	/**
+	 * @return number of tabulated values
+	 */
+	int size() {
+		return values.length;
+	}
+
+	/**
+	 * @return factor turning differences into positions in the table for the
+	 *         sigma threshold
+	 */
+	double scale(double s) {
+		return 1 / (Math.abs(s) * step);
+	}
+
+	/**
+	 * @param scale
+	 *            result of {@link #scale(double)} for the sigma threshold
+	 * @return preference for the difference, 0 for non-positive differences
+	 */
+	double preference(double differenceBetweenEvaluations, double scale) {
+		if (differenceBetweenEvaluations <= 0) {
+			return 0.0;
+		}
+		double position = differenceBetweenEvaluations * scale;
+		if (position < values.length - 1) {
+			int index = (int) position;
+			double fraction = position - index;
+			return values[index] + fraction * (values[index + 1] - values[index]);
+		}
+		if (Double.isNaN(position)) {
+			return Double.NaN;
+		}
+		return 1.0;
+	}
+}
@@ -0,0 +1,52 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bidirectional dictionary between ids (of alternatives, profiles or criteria)
+ * and consecutive indices used to address the dense arrays of the engine.
+ */
+public class IdsDictionary {
+	private final List<String> ids;
+	private final Map<String, Integer> indices;
+
+	/**
+	 * @param ids
+	 *            ids in the order of their indices
+	 */
+	public IdsDictionary(List<String> ids) {
+		this.ids = new ArrayList<>(ids);
+		this.indices = new HashMap<>(ids.size() * 2);
+		for (int i = 0; i < this.ids.size(); i++) {
+			indices.putIfAbsent(this.ids.get(i), i);
+		}
+	}
+
+	public int size() {
+		return ids.size();
+	}
+
+	public String getId(int index) {
+		return ids.get(index);
+	}
+
+	/**
+	 * @param id
+	 * @return index of the id or -1 if the dictionary does not contain it
+	 */
+	public int getIndex(String id) {
+		Integer index = indices.get(id);
+		if (index == null) {
+			return -1;
+		}
+		return index;
+	}
+
+	public List<String> getIds() {
+		return Collections.unmodifiableList(ids);
+	}
+}
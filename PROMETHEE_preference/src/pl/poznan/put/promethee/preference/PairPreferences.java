@@ -0,0 +1,224 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import pl.poznan.put.promethee.exceptions.NullThresholdException;
+import pl.poznan.put.promethee.exceptions.WrongPreferenceDirectionException;
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Aggregated preferences of single pairs or rows computed on demand, for
+ * callers that need few pairs out of the whole matrix. Computed preferences
+ * are kept in a bounded LRU cache keyed by the indices of the pair, which is
+ * cleared when weights change. Values are the same as the ones of
+ * {@link Preference}.
+ */
+public class PairPreferences {
+	private final ComparedElements elements;
+	private final IdsDictionary criteria;
+	private final PreferenceKernel[] kernels;
+	private final double[][] evaluations;
+	/**
+	 * Scratch arrays of the kernels, methods computing pairs are synchronized
+	 */
+	private final PreferenceKernel.Buffers buffers = new PreferenceKernel.Buffers();
+	private final double[] weights;
+	private double totalWeight;
+	private final LruCache cache;
+
+	/**
+	 * @param inputs
+	 * @param cacheCapacity
+	 *            maximal number of pairs kept in the cache, positive
+	 * @throws WrongPreferenceDirectionException
+	 * @throws NullThresholdException
+	 * @throws IllegalArgumentException
+	 *             if the capacity is not positive
+	 */
+	public PairPreferences(Inputs inputs, int cacheCapacity)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		if (cacheCapacity < 1) {
+			throw new IllegalArgumentException("Cache capacity must be positive");
+		}
+		elements = new ComparedElements(inputs);
+		criteria = new IdsDictionary(inputs.criteria_ids);
+		kernels = new PreferenceKernel[criteria.size()];
+		evaluations = new double[criteria.size()][];
+		for (int c = 0; c < criteria.size(); c++) {
+			kernels[c] = Preference.compileKernel(inputs, criteria.getId(c));
+			evaluations[c] = Preference.getEvaluations(inputs, elements, criteria.getId(c));
+		}
+		weights = Preference.getWeights(inputs, criteria);
+		updateTotalWeight();
+		cache = new LruCache(cacheCapacity);
+	}
+
+	public ComparedElements getElements() {
+		return elements;
+	}
+
+	/**
+	 * @return preference of the row element over the column element
+	 * @throws IllegalArgumentException
+	 *             if an id is unknown or the pair is not compared
+	 */
+	public synchronized double getPreference(String row, String column) {
+		return getPreference(getIndex(row), getIndex(column));
+	}
+
+	/**
+	 * @return preference of the row element over the column element
+	 * @throws IllegalArgumentException
+	 *             if the pair is not compared
+	 */
+	public synchronized double getPreference(int row, int column) {
+		if (!elements.isCompared(row, column)) {
+			throw new IllegalArgumentException("Elements " + elements.getDictionary().getId(row) + " and "
+					+ elements.getDictionary().getId(column) + " are not compared");
+		}
+		Double preference = cache.get(key(row, column));
+		if (preference == null) {
+			return calculatePairs(row, new int[] { column })[0];
+		}
+		return preference;
+	}
+
+	/**
+	 * @return preferences of the row element over the elements of
+	 *         {@link ComparedElements#getColumns(int)}, in the same order
+	 * @throws IllegalArgumentException
+	 *             if the id is unknown
+	 */
+	public synchronized double[] getRow(String row) {
+		return getRow(getIndex(row));
+	}
+
+	/**
+	 * @return preferences of the row element over the elements of
+	 *         {@link ComparedElements#getColumns(int)}, in the same order
+	 */
+	public synchronized double[] getRow(int row) {
+		int[] columns = elements.getColumns(row);
+		double[] preferences = new double[columns.length];
+		int missing = 0;
+		int[] missingColumns = new int[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			Double preference = cache.get(key(row, columns[i]));
+			if (preference == null) {
+				missingColumns[missing++] = columns[i];
+			} else {
+				preferences[i] = preference;
+			}
+		}
+		if (missing > 0) {
+			int[] calculated = Arrays.copyOf(missingColumns, missing);
+			double[] values = calculatePairs(row, calculated);
+			for (int i = 0, j = 0; i < columns.length && j < missing; i++) {
+				if (columns[i] == calculated[j]) {
+					preferences[i] = values[j++];
+				}
+			}
+		}
+		return preferences;
+	}
+
+	/**
+	 * Changes the weight of a criterion and clears the cache.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the criterion is unknown
+	 */
+	public synchronized void setWeight(String criterion, double weight) {
+		int index = criteria.getIndex(criterion);
+		if (index < 0) {
+			throw new IllegalArgumentException("Unknown criterion " + criterion);
+		}
+		weights[index] = weight;
+		updateTotalWeight();
+		cache.clear();
+	}
+
+	/**
+	 * Changes the weights of the given criteria and clears the cache.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if a criterion is unknown
+	 */
+	public synchronized void setWeights(Map<String, Double> criteriaWeights) {
+		for (Map.Entry<String, Double> entry : criteriaWeights.entrySet()) {
+			setWeight(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * @return number of pairs in the cache
+	 */
+	public synchronized int getCachedPairsCount() {
+		return cache.size();
+	}
+
+	/**
+	 * Computes the pairs of the row with the columns in both directions and
+	 * caches them.
+	 *
+	 * @return preferences of the row over the columns
+	 */
+	private double[] calculatePairs(int row, int[] columns) {
+		int m = kernels.length;
+		double[] forward = new double[columns.length * m];
+		double[] backward = new double[columns.length * m];
+		double[] preferences = new double[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			int[] column = { columns[i] };
+			// offsets place the pair at i * m whatever the column index
+			int offset = i * m - columns[i] * m;
+			for (int c = 0; c < m; c++) {
+				kernels[c].calculatePairs(evaluations[c][row], evaluations[c], column, forward, offset + c, m,
+						backward, offset + c, m, buffers);
+			}
+			preferences[i] = Preference.calcTotalPreference(forward, i * m, weights, totalWeight);
+			cache.put(key(row, columns[i]), preferences[i]);
+			cache.put(key(columns[i], row),
+					Preference.calcTotalPreference(backward, i * m, weights, totalWeight));
+		}
+		return preferences;
+	}
+
+	private int getIndex(String id) {
+		int index = elements.getDictionary().getIndex(id);
+		if (index < 0) {
+			throw new IllegalArgumentException("Unknown element " + id);
+		}
+		return index;
+	}
+
+	private long key(int row, int column) {
+		return (long) row * elements.size() + column;
+	}
+
+	private void updateTotalWeight() {
+		double weightsSum = 0.0;
+		for (double weight : weights) {
+			weightsSum += weight;
+		}
+		totalWeight = weightsSum;
+	}
+
+	private static class LruCache extends LinkedHashMap<Long, Double> {
+		private static final long serialVersionUID = -3158542206314839160L;
+
+		private final int capacity;
+
+		LruCache(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Double> eldest) {
+			return size() > capacity;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs an action for every row of a matrix, splitting the rows between the
+ * threads of a {@link ForkJoinPool}. Rows are independent, so the results do
+ * not depend on the number of threads. The pool of a number of threads is
+ * created once and reused by the following calls.
+ */
+public class ParallelRows {
+	/**
+	 * Maximal number of threads, far below the limit of {@link ForkJoinPool}
+	 */
+	public static final int MAX_THREADS = 1024;
+	private static final int TASKS_PER_THREAD = 8;
+	private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+	/**
+	 * @param rows
+	 *            number of rows
+	 * @param threads
+	 *            number of threads, 1 runs the rows in the calling thread, at
+	 *            most {@link #MAX_THREADS}
+	 * @param action
+	 *            action called with the index of each row
+	 */
+	public static void forEachRow(int rows, int threads, IntConsumer action) {
+		forEachRange(rows, threads, (from, to) -> {
+			for (int row = from; row < to; row++) {
+				action.accept(row);
+			}
+		});
+	}
+
+	/**
+	 * Same as {@link #forEachRow(int, int, IntConsumer)} with a state per
+	 * worker, e.g. scratch buffers. A state is used by one thread at a time
+	 * and reused by the following rows, so at most one state is created per
+	 * thread.
+	 *
+	 * @param states
+	 *            creates the state of a worker
+	 * @param action
+	 *            action called with a state and the index of each row
+	 */
+	public static <T> void forEachRow(int rows, int threads, Supplier<T> states, ObjIntConsumer<T> action) {
+		Queue<T> free = new ConcurrentLinkedQueue<>();
+		forEachRange(rows, threads, (from, to) -> {
+			T state = free.poll();
+			if (state == null) {
+				state = states.get();
+			}
+			for (int row = from; row < to; row++) {
+				action.accept(state, row);
+			}
+			free.offer(state);
+		});
+	}
+
+	private static void forEachRange(int rows, int threads, RangeAction action) {
+		if (threads <= 1 || rows <= 1) {
+			if (rows > 0) {
+				action.run(0, rows);
+			}
+			return;
+		}
+		if (threads > MAX_THREADS) {
+			throw new IllegalArgumentException("At most " + MAX_THREADS + " threads, not " + threads);
+		}
+		int rowsPerTask = Math.max(1, rows / (threads * TASKS_PER_THREAD));
+		// workers of the pools are daemon threads, pools are never shut down
+		POOLS.computeIfAbsent(threads, ForkJoinPool::new).invoke(new RowsTask(0, rows, rowsPerTask, action));
+	}
+
+	private interface RangeAction {
+		/**
+		 * Runs the rows from {@code from} included to {@code to} excluded.
+		 */
+		void run(int from, int to);
+	}
+
+	private static class RowsTask extends RecursiveAction {
+		private static final long serialVersionUID = 6215384727719842207L;
+
+		private final int from;
+		private final int to;
+		private final int rowsPerTask;
+		private final RangeAction action;
+
+		RowsTask(int from, int to, int rowsPerTask, RangeAction action) {
+			this.from = from;
+			this.to = to;
+			this.rowsPerTask = rowsPerTask;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= rowsPerTask) {
+				action.run(from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new RowsTask(from, middle, rowsPerTask, action), new RowsTask(middle, to, rowsPerTask, action));
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package pl.poznan.put.promethee.preference;
+
+/**
+ * Tensor of partial preferences of the compared pairs on all criteria stored
+ * in a {@link DoubleStorage}, pairs being indexed by
+ * {@link ComparedElements#getPairIndex(int, int)}. Values of one pair on all
+ * criteria are contiguous. Pairs which are not compared have no values.
+ */
+public class PartialPreferencesTensor {
+	private final ComparedElements elements;
+	private final IdsDictionary criteria;
+	private final DoubleStorage values;
+
+	public PartialPreferencesTensor(ComparedElements elements, IdsDictionary criteria) {
+		this(elements, criteria, DoubleStorage.heap(size(elements, criteria)));
+	}
+
+	/**
+	 * @param elements
+	 * @param criteria
+	 * @param values
+	 *            storage of {@link #size(ComparedElements, IdsDictionary)}
+	 *            values
+	 */
+	public PartialPreferencesTensor(ComparedElements elements, IdsDictionary criteria, DoubleStorage values) {
+		if (values.size() != size(elements, criteria)) {
+			throw new IllegalArgumentException("Storage of " + values.size() + " values for a tensor of "
+					+ size(elements, criteria) + " values");
+		}
+		this.elements = elements;
+		this.criteria = criteria;
+		this.values = values;
+	}
+
+	/**
+	 * @return number of values of the tensor of the elements and criteria
+	 */
+	public static long size(ComparedElements elements, IdsDictionary criteria) {
+		return elements.getPairsCount() * criteria.size();
+	}
+
+	public ComparedElements getElements() {
+		return elements;
+	}
+
+	public IdsDictionary getCriteria() {
+		return criteria;
+	}
+
+	public DoubleStorage getValues() {
+		return values;
+	}
+
+	public double get(int row, int column, int criterion) {
+		return values.get(offset(row, column) + criterion);
+	}
+
+	public void set(int row, int column, int criterion, double value) {
+		values.set(offset(row, column) + criterion, value);
+	}
+
+	/**
+	 * Sets the values of the pair on all criteria.
+	 *
+	 * @param preferences
+	 *            array holding the values
+	 * @param from
+	 *            index of the value on the first criterion
+	 */
+	public void set(int row, int column, double[] preferences, int from) {
+		long offset = offset(row, column);
+		for (int criterion = 0; criterion < criteria.size(); criterion++) {
+			values.set(offset + criterion, preferences[from + criterion]);
+		}
+	}
+
+	/**
+	 * Sets the values of the pair on all criteria from their packed bits.
+	 *
+	 * @param from
+	 *            index of the first word of the pair
+	 */
+	void set(int row, int column, StepBits preferences, int from) {
+		long offset = offset(row, column);
+		for (int criterion = 0; criterion < criteria.size(); criterion++) {
+			values.set(offset + criterion, preferences.get(from, criterion));
+		}
+	}
+
+	private long offset(int row, int column) {
+		return elements.getPairIndex(row, column) * criteria.size();
+	}
+}
@@ -0,0 +1,61 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.BitSet;
+
+/**
+ * Evaluations of the alternatives stored as one primitive column per
+ * criterion, filled straight from the performance table without boxing the
+ * values. Evaluations which are set are tracked apart from the values, so an
+ * evaluation may be NaN.
+ */
+public class PerformanceColumns {
+	private final IdsDictionary alternatives;
+	private final IdsDictionary criteria;
+	private final double[][] columns;
+	/**
+	 * Alternatives evaluated on each criterion
+	 */
+	private final BitSet[] evaluated;
+
+	public PerformanceColumns(IdsDictionary alternatives, IdsDictionary criteria) {
+		this.alternatives = alternatives;
+		this.criteria = criteria;
+		this.columns = new double[criteria.size()][alternatives.size()];
+		this.evaluated = new BitSet[criteria.size()];
+		for (int criterion = 0; criterion < evaluated.length; criterion++) {
+			evaluated[criterion] = new BitSet(alternatives.size());
+		}
+	}
+
+	public IdsDictionary getAlternatives() {
+		return alternatives;
+	}
+
+	public IdsDictionary getCriteria() {
+		return criteria;
+	}
+
+	public double get(int alternative, int criterion) {
+		return columns[criterion][alternative];
+	}
+
+	public void set(int alternative, int criterion, double value) {
+		columns[criterion][alternative] = value;
+		evaluated[criterion].set(alternative);
+	}
+
+	/**
+	 * @return whether the evaluation of the alternative on the criterion is set
+	 */
+	public boolean isSet(int alternative, int criterion) {
+		return evaluated[criterion].get(alternative);
+	}
+
+	/**
+	 * @return evaluations of the alternatives on the criterion, indexed like
+	 *         the alternatives; the column is not copied
+	 */
+	public double[] getColumn(int criterion) {
+		return columns[criterion];
+	}
+}
@@ -1,195 +1,516 @@
 package pl.poznan.put.promethee.preference;
 
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.stream.Collectors;
-import java.util.LinkedHashMap;
-
-import org.xmcda.Threshold;
+import java.util.Arrays;
 
 import pl.poznan.put.promethee.exceptions.NullThresholdException;
 import pl.poznan.put.promethee.exceptions.WrongPreferenceDirectionException;
 import pl.poznan.put.promethee.xmcda.InputsHandler;
-import pl.poznan.put.promethee.xmcda.InputsHandler.ComparisonWithParam;
 import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
 
 public class Preference {
+	/**
+	 * Number of rows and of columns of a tile. Evaluations and partial
+	 * preferences of the pairs of a tile on all criteria stay in the cache
+	 * while they are computed and aggregated.
+	 */
+	private static final int TILE_SIZE = 32;
+	/**
+	 * Minimal numbers of blocks of rows and of criteria per thread for the
+	 * threads to be balanced when splitting them
+	 */
+	private static final int BLOCKS_PER_THREAD = 4;
+	private static final int CRITERIA_PER_THREAD = 4;
 
-	public static Map<String, Map<String, Double>> calculatePreferences(InputsHandler.Inputs inputs)
+	public static PreferencesMatrix calculatePreferences(InputsHandler.Inputs inputs)
 			throws WrongPreferenceDirectionException, NullThresholdException {
-		Map<String, Map<String, Map<String, Double>>> partialPreferences = calcPartialPreferences(inputs);
-		Map<String, Map<String, Double>> preferences = new LinkedHashMap<>();
-		if (inputs.comparisonWith == ComparisonWithParam.ALTERNATIVES) {
-			for (String a : inputs.alternatives_ids) {
-				for (String b : inputs.alternatives_ids) {
-					preferences.putIfAbsent(a, new LinkedHashMap<>());
-					preferences.get(a).put(b, calcTotalPreference(a, b, inputs, partialPreferences));
-				}
-			}
-		} else {
-			for (String a : inputs.alternatives_ids) {
-				for (String b : inputs.profiles_ids) {
-					preferences.putIfAbsent(a, new LinkedHashMap<>());
-					preferences.get(a).put(b, calcTotalPreference(a, b, inputs, partialPreferences));
-					preferences.putIfAbsent(b, new LinkedHashMap<>());
-					preferences.get(b).put(a, calcTotalPreference(b, a, inputs, partialPreferences));
-				}
-			}
-			for (String a : inputs.profiles_ids) {
-				for (String b : inputs.profiles_ids) {
-					preferences.putIfAbsent(a, new LinkedHashMap<>());
-					preferences.get(a).put(b, calcTotalPreference(a, b, inputs, partialPreferences));
-				}
-			}
-		}
-		return sortMapByKey(preferences);
+		return calculatePreferences(inputs, 1);
+	}
+
+	/**
+	 * @param inputs
+	 * @param threads
+	 *            number of threads computing rows of the matrices
+	 * @return aggregated preferences
+	 * @throws WrongPreferenceDirectionException
+	 * @throws NullThresholdException
+	 */
+	public static PreferencesMatrix calculatePreferences(InputsHandler.Inputs inputs, int threads)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		return calculateResults(inputs, threads, false).getPreferences();
 	}
 
-	private static Map<String, Map<String, Double>> sortMapByKey(Map<String, Map<String, Double>> map) {
-		Map<String, Map<String, Double>> sortedMap = map.entrySet().stream().sorted(Entry.comparingByKey())
-				.collect(Collectors.toMap(Entry::getKey, Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
-		return sortedMap;
+	public static PartialPreferencesTensor calcPartialPreferences(Inputs inputs)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		return calcPartialPreferences(inputs, 1);
 	}
 
 	/**
-	 * @param direction
-	 *            direction of function on criterion ('MIN' or 'MAX')
-	 * @param ga
-	 *            evaluation of alternative on specified criterion
-	 * @param gb
-	 *            evaluation of alternative on specified criterion
-	 * @return difference between evaluations
+	 * @param inputs
+	 * @param threads
+	 *            number of threads computing rows or criteria of the tensor
+	 * @return partial preferences of all compared pairs on all criteria
 	 * @throws WrongPreferenceDirectionException
+	 * @throws NullThresholdException
 	 */
-	private static Double calcDifferenceBetweenEvaluations(String direction, Double ga, Double gb)
-			throws WrongPreferenceDirectionException {
-		Double differenceBetweenEvaluations = 0.0;
-		if (direction.equals("MAX")) {
-			differenceBetweenEvaluations = ga - gb;
-		} else if (direction.equals("MIN")) {
-			differenceBetweenEvaluations = gb - ga;
-		} else {
-			throw new WrongPreferenceDirectionException();
-		}
-		return differenceBetweenEvaluations;
+	public static PartialPreferencesTensor calcPartialPreferences(Inputs inputs, int threads)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		return calculateResults(inputs, threads, true).getPartialPreferences();
 	}
 
 	/**
-	 * @param direction
-	 * @param ga
-	 * @param gb
-	 * @param threshold
-	 * @return calculated final threshold value (get constant if exist or calc
-	 *         value if defined as linear)
+	 * Computes aggregated preferences and, optionally, partial preferences in a
+	 * single pass, tile by tile. Each unordered pair is evaluated once and
+	 * fills both directions. Criteria with few distinct evaluations are read from a
+	 * {@link DistinctValuesTable}. Partial preferences of a tile are kept in
+	 * buffers and copied to the tensor, if any, once aggregated. With few rows
+	 * and many criteria, partial preferences are computed criterion by
+	 * criterion instead, see {@link #isCriterionParallel(int, int, int)}.
+	 *
+	 * @param inputs
+	 * @param threads
+	 *            number of threads computing rows of the matrices
+	 * @param withPartialPreferences
+	 *            whether the partial preferences are kept in the results
+	 * @return aggregated preferences and partial preferences (or null)
 	 * @throws WrongPreferenceDirectionException
+	 * @throws NullThresholdException
 	 */
-	private static Double calcThreshold(String direction, Double ga, Double gb, Threshold<Double> threshold)
-			throws WrongPreferenceDirectionException {
-		if (threshold == null) {
-			return null;
-		}
-		Double thresholdValue = 0.0;
-		if (threshold.isConstant()) {
-			thresholdValue = threshold.getConstant().getValue();
-		} else {
-			Double baseEvaluation = 0.0;
-			if (direction.equals("MAX")) {
-				baseEvaluation = ga > gb ? gb : ga;
-			} else if (direction.equals("MIN")) {
-				baseEvaluation = ga > gb ? ga : gb;
-			} else {
-				throw new WrongPreferenceDirectionException();
-			}
-			Double slope = threshold.getSlope().getValue();
-			Double intercept = threshold.getIntercept().getValue();
-			thresholdValue = slope * baseEvaluation + intercept;
+	public static PreferenceResults calculateResults(Inputs inputs, int threads, boolean withPartialPreferences)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		ComparedElements elements = new ComparedElements(inputs);
+		PartialPreferencesTensor partialPreferences = null;
+		if (withPartialPreferences) {
+			partialPreferences = new PartialPreferencesTensor(elements, new IdsDictionary(inputs.criteria_ids));
 		}
-		return thresholdValue;
+		return calculateResults(inputs, threads, new PreferencesMatrix(elements), partialPreferences, null, null);
 	}
 
-	private static Double calcPreferenceOnOneCriterion(Double ga, Double gb, String direction, Integer functionNumber,
-			Threshold<Double> preferenceThreshold, Threshold<Double> indifferenceThreshold,
-			Threshold<Double> sigmaThreshold) throws WrongPreferenceDirectionException, NullThresholdException {
-		GeneralisedCriteria generalisedCriteria = new GeneralisedCriteria();
-
-		Double diff = calcDifferenceBetweenEvaluations(direction, ga, gb);
-		Double p = calcThreshold(direction, ga, gb, preferenceThreshold);
-		Double q = calcThreshold(direction, ga, gb, indifferenceThreshold);
-		Double s = calcThreshold(direction, ga, gb, sigmaThreshold);
+	/**
+	 * Computes the results into matrices allocated by the caller, e.g. backed
+	 * by memory-mapped files with {@link DoubleStorage#mapped}. Their storage
+	 * is flushed once they are filled.
+	 *
+	 * @param inputs
+	 * @param threads
+	 *            number of threads computing rows of the matrices
+	 * @param preferences
+	 *            matrix of the compared elements of the inputs
+	 * @param partialPreferences
+	 *            tensor of the compared elements and criteria of the inputs, or
+	 *            null if partial preferences are not kept
+	 * @return aggregated preferences and partial preferences (or null)
+	 * @throws WrongPreferenceDirectionException
+	 * @throws NullThresholdException
+	 */
+	public static PreferenceResults calculateResults(Inputs inputs, int threads, PreferencesMatrix preferences,
+			PartialPreferencesTensor partialPreferences)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		return calculateResults(inputs, threads, preferences, partialPreferences, null, null);
+	}
 
-		Double preference = generalisedCriteria.calculate(functionNumber, diff, p, q, s);
-		return preference;
+	/**
+	 * Computes the preferences after evaluations of some elements changed,
+	 * reusing preferences between unchanged elements from the previous
+	 * results. Elements added since the previous run and pairs missing from
+	 * the previous results are computed too. The reused pairs of one row are
+	 * recomputed to check that the previous results come from the same
+	 * criteria, weights and thresholds.
+	 *
+	 * @param inputs
+	 * @param threads
+	 *            number of threads computing rows of the matrices
+	 * @param previous
+	 *            previous results, their matrices are completed and returned
+	 * @return aggregated preferences and partial preferences (or null)
+	 * @throws WrongPreferenceDirectionException
+	 * @throws NullThresholdException
+	 * @throws IllegalArgumentException
+	 *             if reused preferences differ from the recomputed ones
+	 */
+	public static PreferenceResults recalculateResults(Inputs inputs, int threads, PreviousResults previous)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		return calculateResults(inputs, threads, previous.getPreferences(), previous.getPartialPreferences(),
+				previous, null);
 	}
 
-	public static Map<String, Map<String, Map<String, Double>>> calcPartialPreferences(Inputs inputs)
+	/**
+	 * @param criteriaEvaluations
+	 *            evaluations of the elements on each criterion as returned by
+	 *            {@link #getEvaluations(Inputs, ComparedElements, String)}, or
+	 *            null to read them from the inputs
+	 */
+	static PreferenceResults calculateResults(Inputs inputs, int threads, PreferencesMatrix preferences,
+			PartialPreferencesTensor partialPreferences, PreviousResults previous, double[][] criteriaEvaluations)
 			throws WrongPreferenceDirectionException, NullThresholdException {
-		Map<String, Map<String, Map<String, Double>>> preferenceMap = new LinkedHashMap<>();
-		if (inputs.comparisonWith == ComparisonWithParam.ALTERNATIVES) {
-			for (String a : inputs.alternatives_ids) {
-				for (String b : inputs.alternatives_ids) {
-					for (String c : inputs.criteria_ids) {
-						preferenceMap.putIfAbsent(a, new LinkedHashMap<>());
-						preferenceMap.get(a).putIfAbsent(b, new LinkedHashMap<>());
-						preferenceMap.get(a).get(b).put(c, calcPreferenceOnOneCriterion(
-								inputs.performanceTable.get(a).get(c).doubleValue(),
-								inputs.performanceTable.get(b).get(c).doubleValue(), inputs.preferenceDirections.get(c),
-								inputs.generalisedCriteria.get(c).intValue(), inputs.preferenceThresholds.get(c),
-								inputs.indifferenceThresholds.get(c), inputs.sigmaThresholds.get(c)));
-					}
+		ComparedElements elements = preferences.getElements();
+		IdsDictionary criteria = new IdsDictionary(inputs.criteria_ids);
+		PreferenceKernel[] kernels = new PreferenceKernel[criteria.size()];
+		double[][] evaluations = new double[criteria.size()][];
+		DistinctValuesTable[] tables = new DistinctValuesTable[criteria.size()];
+		for (int c = 0; c < criteria.size(); c++) {
+			kernels[c] = compileKernel(inputs, criteria.getId(c));
+			evaluations[c] = criteriaEvaluations != null ? criteriaEvaluations[c]
+					: getEvaluations(inputs, elements, criteria.getId(c));
+			tables[c] = DistinctValuesTable.compress(kernels[c], evaluations[c]);
+		}
+		double[] weights = getWeights(inputs, criteria);
+		double totalWeight = 0.0;
+		for (double weight : weights) {
+			totalWeight += weight;
+		}
+		final double weightsSum = totalWeight;
+		// step criteria only with weights multiple of a power of two: partial
+		// preferences are packed in bits and counted, see StepWeights.create
+		final StepWeights stepWeights = StepWeights.create(kernels, weights);
+		final PartialPreferencesTensor tensor = partialPreferences;
+		final int n = elements.size();
+		final int m = kernels.length;
+		if (previous != null) {
+			checkPreviousResults(elements, kernels, evaluations, tables, weights, weightsSum, previous);
+		}
+		if (previous == null && isCriterionParallel(n, m, threads)) {
+			calculateByCriteria(elements, kernels, evaluations, tables, weights, weightsSum, preferences, tensor,
+					threads);
+			preferences.getValues().flush();
+			if (tensor != null) {
+				tensor.getValues().flush();
+			}
+			return new PreferenceResults(preferences, tensor);
+		}
+		final int blocks = (n + TILE_SIZE - 1) / TILE_SIZE;
+		ParallelRows.forEachRow(blocks, threads, PreferenceKernel.Buffers::new, (buffers, block) -> {
+			int rowsFrom = block * TILE_SIZE;
+			int rowsTo = Math.min(n, rowsFrom + TILE_SIZE);
+			int[][] rowColumns = new int[rowsTo - rowsFrom][];
+			for (int a = rowsFrom; a < rowsTo; a++) {
+				int[] columns = elements.getPairColumns(a);
+				if (previous != null) {
+					columns = getColumns(a, columns, previous, false);
 				}
+				rowColumns[a - rowsFrom] = columns;
 			}
-		} else {
-			for (String a : inputs.alternatives_ids) {
-				for (String b : inputs.profiles_ids) {
-					for (String c : inputs.criteria_ids) {
-						preferenceMap.putIfAbsent(a, new LinkedHashMap<>());
-						preferenceMap.get(a).putIfAbsent(b, new LinkedHashMap<>());
-						preferenceMap.get(a).get(b).put(c,
-								calcPreferenceOnOneCriterion(inputs.performanceTable.get(a).get(c).doubleValue(),
-										inputs.profilesPerformanceTable.get(b).get(c).doubleValue(),
-										inputs.preferenceDirections.get(c),
-										inputs.generalisedCriteria.get(c).intValue(),
-										inputs.preferenceThresholds.get(c), inputs.indifferenceThresholds.get(c),
-										inputs.sigmaThresholds.get(c)));
-						preferenceMap.putIfAbsent(b, new LinkedHashMap<>());
-						preferenceMap.get(b).putIfAbsent(a, new LinkedHashMap<>());
-						preferenceMap.get(b).get(a).put(c,
-								calcPreferenceOnOneCriterion(inputs.profilesPerformanceTable.get(b).get(c).doubleValue(),
-										inputs.performanceTable.get(a).get(c).doubleValue(),
-										inputs.preferenceDirections.get(c),
-										inputs.generalisedCriteria.get(c).intValue(),
-										inputs.preferenceThresholds.get(c), inputs.indifferenceThresholds.get(c),
-										inputs.sigmaThresholds.get(c)));
+			// partial preferences of (a, b) and (b, a) for the pairs of the tile
+			// owned by a, copied to the tensor once aggregated
+			double[] forward = new double[TILE_SIZE * TILE_SIZE * m];
+			double[] backward = new double[TILE_SIZE * TILE_SIZE * m];
+			int words = StepBits.words(m);
+			StepBits forwardBits = stepWeights != null ? new StepBits(TILE_SIZE * TILE_SIZE * words) : null;
+			StepBits backwardBits = stepWeights != null ? new StepBits(TILE_SIZE * TILE_SIZE * words) : null;
+			int[] offsets = new int[rowsTo - rowsFrom];
+			int[] bitsOffsets = new int[rowsTo - rowsFrom];
+			int[] positions = new int[rowsTo - rowsFrom];
+			int[][] tileColumns = new int[rowsTo - rowsFrom][];
+			for (int tileFrom = rowsFrom; tileFrom < n; tileFrom += TILE_SIZE) {
+				int tileTo = Math.min(n, tileFrom + TILE_SIZE);
+				for (int a = rowsFrom; a < rowsTo; a++) {
+					int row = a - rowsFrom;
+					int[] columns = rowColumns[row];
+					int from = positions[row];
+					int to = from;
+					while (to < columns.length && columns[to] < tileTo) {
+						to++;
+					}
+					positions[row] = to;
+					tileColumns[row] = Arrays.copyOfRange(columns, from, to);
+					offsets[row] = (row * TILE_SIZE - tileFrom) * m;
+					bitsOffsets[row] = (row * TILE_SIZE - tileFrom) * words;
+				}
+				if (stepWeights != null) {
+					forwardBits.clear();
+					backwardBits.clear();
+				}
+				for (int c = 0; c < m; c++) {
+					for (int a = rowsFrom; a < rowsTo; a++) {
+						int row = a - rowsFrom;
+						int[] columns = tileColumns[row];
+						if (columns.length == 0) {
+							continue;
+						}
+						if (stepWeights != null) {
+							int bitsOffset = bitsOffsets[row] + (c >>> 6);
+							if (tables[c] != null) {
+								tables[c].calculatePairBits(a, columns, 1L << c, forwardBits, bitsOffset, words,
+										backwardBits, bitsOffset, words);
+							} else {
+								kernels[c].calculatePairBits(evaluations[c][a], evaluations[c], columns, 1L << c,
+										forwardBits, bitsOffset, words, backwardBits, bitsOffset, words);
+							}
+						} else if (tables[c] != null) {
+							tables[c].calculatePairs(a, columns, forward, offsets[row] + c, m, backward,
+									offsets[row] + c, m);
+						} else {
+							kernels[c].calculatePairs(evaluations[c][a], evaluations[c], columns, forward,
+									offsets[row] + c, m, backward, offsets[row] + c, m, buffers);
+						}
+					}
+				}
+				for (int a = rowsFrom; a < rowsTo; a++) {
+					int row = a - rowsFrom;
+					if (stepWeights != null) {
+						for (int b : tileColumns[row]) {
+							int offset = bitsOffsets[row] + b * words;
+							preferences.set(a, b, calcTotalPreference(forwardBits, offset, stepWeights, weightsSum));
+							if (tensor != null) {
+								tensor.set(a, b, forwardBits, offset);
+							}
+							if (b != a) {
+								preferences.set(b, a,
+										calcTotalPreference(backwardBits, offset, stepWeights, weightsSum));
+								if (tensor != null) {
+									tensor.set(b, a, backwardBits, offset);
+								}
+							}
+						}
+						continue;
+					}
+					for (int b : tileColumns[row]) {
+						int offset = offsets[row] + b * m;
+						preferences.set(a, b, calcTotalPreference(forward, offset, weights, weightsSum));
+						if (tensor != null) {
+							tensor.set(a, b, forward, offset);
+						}
+						if (b != a) {
+							preferences.set(b, a, calcTotalPreference(backward, offset, weights, weightsSum));
+							if (tensor != null) {
+								tensor.set(b, a, backward, offset);
+							}
+						}
 					}
 				}
 			}
-			for (String a : inputs.profiles_ids) {
-				for (String b : inputs.profiles_ids) {
-					for (String c : inputs.criteria_ids) {
-						preferenceMap.putIfAbsent(a, new LinkedHashMap<>());
-						preferenceMap.get(a).putIfAbsent(b, new LinkedHashMap<>());
-						preferenceMap.get(a).get(b).put(c, calcPreferenceOnOneCriterion(
-								inputs.profilesPerformanceTable.get(a).get(c).doubleValue(),
-								inputs.profilesPerformanceTable.get(b).get(c).doubleValue(),
-								inputs.preferenceDirections.get(c), inputs.generalisedCriteria.get(c).intValue(),
-								inputs.preferenceThresholds.get(c), inputs.indifferenceThresholds.get(c),
-								inputs.sigmaThresholds.get(c)));
+		});
+		preferences.getValues().flush();
+		if (partialPreferences != null) {
+			partialPreferences.getValues().flush();
+		}
+		return new PreferenceResults(preferences, partialPreferences);
+	}
+
+	/**
+	 * Rows are computed in blocks of {@link #TILE_SIZE} rows, the first blocks
+	 * having the most pairs, so threads are poorly balanced with few blocks
+	 * per thread. Criteria are then split between the threads instead, when
+	 * there are enough of them.
+	 *
+	 * @param n
+	 *            number of compared elements
+	 * @param m
+	 *            number of criteria
+	 * @param threads
+	 *            number of threads, bounded by the number of cores
+	 * @return whether partial preferences are computed criterion by criterion
+	 */
+	static boolean isCriterionParallel(int n, int m, int threads) {
+		int cores = Math.min(threads, Runtime.getRuntime().availableProcessors());
+		if (cores <= 1) {
+			return false;
+		}
+		int blocks = (n + TILE_SIZE - 1) / TILE_SIZE;
+		return blocks < BLOCKS_PER_THREAD * cores && m >= CRITERIA_PER_THREAD * cores;
+	}
+
+	/**
+	 * Criterion-parallel strategy: rows are computed in chunks of about as
+	 * many pairs as the tiles of all the threads. Each thread computes the
+	 * partial preferences of its criteria for the pairs of the chunk, then
+	 * the pairs of the chunk are aggregated in parallel and copied to the
+	 * tensor, if any. The criteria of a pair are added in order, as in the
+	 * tiles, so both strategies give the same results.
+	 */
+	static void calculateByCriteria(ComparedElements elements, PreferenceKernel[] kernels,
+			double[][] evaluations, DistinctValuesTable[] tables, double[] weights, double weightsSum,
+			PreferencesMatrix preferences, PartialPreferencesTensor tensor, int threads) {
+		final int n = elements.size();
+		final int m = kernels.length;
+		int cores = Math.min(threads, Runtime.getRuntime().availableProcessors());
+		final int chunkRows = Math.max(1, Math.min(n, cores * TILE_SIZE * TILE_SIZE / Math.max(1, n)));
+		// partial preferences of (a, b) and (b, a) for the pairs of the chunk
+		// owned by a, in one array per criterion so threads write apart
+		final double[][] forward = new double[m][chunkRows * n];
+		final double[][] backward = new double[m][chunkRows * n];
+		final int slices = (n + TILE_SIZE - 1) / TILE_SIZE;
+		for (int rowsFrom = 0; rowsFrom < n; rowsFrom += chunkRows) {
+			final int from = rowsFrom;
+			final int[][] rowColumns = new int[Math.min(n, from + chunkRows) - from][];
+			for (int i = 0; i < rowColumns.length; i++) {
+				rowColumns[i] = elements.getPairColumns(from + i);
+			}
+			ParallelRows.forEachRow(m, threads, PreferenceKernel.Buffers::new, (buffers, c) -> {
+				for (int i = 0; i < rowColumns.length; i++) {
+					int a = from + i;
+					if (tables[c] != null) {
+						tables[c].calculatePairs(a, rowColumns[i], forward[c], i * n, 1, backward[c], i * n, 1);
+					} else {
+						kernels[c].calculatePairs(evaluations[c][a], evaluations[c], rowColumns[i], forward[c],
+								i * n, 1, backward[c], i * n, 1, buffers);
 					}
 				}
+			});
+			// rows are aggregated by slices of their columns, so chunks of few
+			// rows are shared by the threads too
+			ParallelRows.forEachRow(rowColumns.length * slices, threads, () -> new double[m],
+					(partialPreferences, unit) -> {
+						int i = unit / slices;
+						int a = from + i;
+						int[] columns = rowColumns[i];
+						int last = Math.min(columns.length, (unit % slices + 1) * TILE_SIZE);
+						for (int k = (unit % slices) * TILE_SIZE; k < last; k++) {
+							int b = columns[k];
+							for (int c = 0; c < m; c++) {
+								partialPreferences[c] = forward[c][i * n + b];
+							}
+							preferences.set(a, b, calcTotalPreference(partialPreferences, 0, weights, weightsSum));
+							if (tensor != null) {
+								tensor.set(a, b, partialPreferences, 0);
+							}
+							if (b == a) {
+								continue;
+							}
+							for (int c = 0; c < m; c++) {
+								partialPreferences[c] = backward[c][i * n + b];
+							}
+							preferences.set(b, a, calcTotalPreference(partialPreferences, 0, weights, weightsSum));
+							if (tensor != null) {
+								tensor.set(b, a, partialPreferences, 0);
+							}
+						}
+					});
+		}
+	}
+
+	/**
+	 * @param reusable
+	 *            whether the reusable or the recomputed pairs are kept
+	 * @return columns whose pairs with the row are reusable, or recomputed
+	 */
+	private static int[] getColumns(int row, int[] columns, PreviousResults previous, boolean reusable) {
+		int count = 0;
+		int[] kept = new int[columns.length];
+		for (int column : columns) {
+			if (previous.isReusable(row, column) == reusable) {
+				kept[count++] = column;
 			}
 		}
-		return preferenceMap;
+		return Arrays.copyOf(kept, count);
 	}
 
-	private static Double calcTotalPreference(String alternative1, String alternative2, Inputs inputs,
-			Map<String, Map<String, Map<String, Double>>> partialPreferences) {
-		Double preference = 0.0;
-		Double totalWeight = 0.0;
-		for (String criterion : inputs.criteria_ids) {
-			Double weight = inputs.weights.get(criterion);
-			totalWeight += weight;
-			preference += (partialPreferences.get(alternative1).get(alternative2).get(criterion).doubleValue() * weight);
+	/**
+	 * Recomputes the reusable pairs of the first row having some. Previous
+	 * results of other criteria, weights or thresholds give other
+	 * preferences.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if a reusable preference differs from the recomputed one
+	 */
+	private static void checkPreviousResults(ComparedElements elements, PreferenceKernel[] kernels,
+			double[][] evaluations, DistinctValuesTable[] tables, double[] weights, double weightsSum,
+			PreviousResults previous) {
+		final int n = elements.size();
+		final int m = kernels.length;
+		PreferenceKernel.Buffers buffers = new PreferenceKernel.Buffers();
+		for (int a = 0; a < n; a++) {
+			int[] columns = getColumns(a, elements.getPairColumns(a), previous, true);
+			if (columns.length == 0) {
+				continue;
+			}
+			double[] forward = new double[n * m];
+			double[] backward = new double[n * m];
+			for (int c = 0; c < m; c++) {
+				if (tables[c] != null) {
+					tables[c].calculatePairs(a, columns, forward, c, m, backward, c, m);
+				} else {
+					kernels[c].calculatePairs(evaluations[c][a], evaluations[c], columns, forward, c, m, backward, c,
+							m, buffers);
+				}
+			}
+			PreferencesMatrix preferences = previous.getPreferences();
+			for (int b : columns) {
+				if (!isSame(preferences.get(a, b), calcTotalPreference(forward, b * m, weights, weightsSum))
+						|| !isSame(preferences.get(b, a), calcTotalPreference(backward, b * m, weights, weightsSum))) {
+					throw new IllegalArgumentException("The previous results of " + elements.getDictionary().getId(a)
+							+ " and " + elements.getDictionary().getId(b)
+							+ " do not match the criteria, weights and thresholds of the inputs");
+				}
+			}
+			return;
 		}
+	}
+
+	private static boolean isSame(double previous, double recomputed) {
+		return Double.doubleToLongBits(previous) == Double.doubleToLongBits(recomputed);
+	}
+
+	static double[] getWeights(Inputs inputs, IdsDictionary criteria) {
+		double[] weights = new double[criteria.size()];
+		for (int c = 0; c < criteria.size(); c++) {
+			weights[c] = inputs.weights.get(criteria.getId(c)).doubleValue();
+		}
+		return weights;
+	}
+
+	static PreferenceKernel compileKernel(Inputs inputs, String criterion)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		Integer function = inputs.generalisedCriteria.get(criterion);
+		GaussianTable gaussianTable = null;
+		if (inputs.gaussianMaxError > 0 && function != null && function == 6) {
+			gaussianTable = new GaussianTable(inputs.gaussianMaxError);
+		}
+		return PreferenceKernel.compile(inputs.preferenceDirections.get(criterion), function,
+				inputs.preferenceThresholds.get(criterion), inputs.indifferenceThresholds.get(criterion),
+				inputs.sigmaThresholds.get(criterion), gaussianTable);
+	}
+
+	/**
+	 * @return evaluations of all compared elements (alternatives and profiles)
+	 *         on the criterion, indexed like the elements
+	 */
+	static double[] getEvaluations(Inputs inputs, ComparedElements elements, String criterion) {
+		double[] evaluations = new double[elements.size()];
+		PerformanceColumns columns = inputs.performanceColumns;
+		double[] column = columns != null ? columns.getColumn(columns.getCriteria().getIndex(criterion)) : null;
+		for (int i = 0; i < elements.size(); i++) {
+			String id = elements.getDictionary().getId(i);
+			if (elements.isAlternative(i) && column != null) {
+				evaluations[i] = column[columns.getAlternatives().getIndex(id)];
+			} else if (elements.isAlternative(i)) {
+				evaluations[i] = inputs.performanceTable.get(id).get(criterion).doubleValue();
+			} else {
+				evaluations[i] = inputs.profilesPerformanceTable.get(id).get(criterion).doubleValue();
+			}
+		}
+		return evaluations;
+	}
+
+	/**
+	 * @param partialPreferences
+	 *            array holding the partial preferences of the pair
+	 * @param offset
+	 *            index of the partial preference of the pair on the first
+	 *            criterion
+	 */
+	static double calcTotalPreference(double[] partialPreferences, int offset, double[] weights,
+			double totalWeight) {
+		double preference = 0.0;
+		for (int c = 0; c < weights.length; c++) {
+			preference += partialPreferences[offset + c] * weights[c];
+		}
+		preference = preference / totalWeight;
+		return preference;
+	}
+
+	/**
+	 * Same as {@link #calcTotalPreference(double[], int, double[], double)}
+	 * for partial preferences of step criteria packed in bits, aggregated by
+	 * popcounts.
+	 *
+	 * @param partialPreferences
+	 *            bits holding the partial preferences of the pair
+	 * @param offset
+	 *            index of the first word of the pair
+	 */
+	static double calcTotalPreference(StepBits partialPreferences, int offset, StepWeights weights,
+			double totalWeight) {
+		double preference = weights.sum(partialPreferences, offset);
 		preference = preference / totalWeight;
 		return preference;
 	}
@@ -0,0 +1,113 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Selects the pairs of a row written to the outputs from their aggregated
+ * preferences: pairs whose preference is at least a minimum value and, among
+ * them, the k pairs with the highest preferences. Preferences are ordered as
+ * by {@link Double#compare(double, double)}, ties are broken by the order of
+ * the columns.
+ */
+public class PreferenceFilter {
+	/**
+	 * Filter keeping every pair
+	 */
+	public static final PreferenceFilter NONE = new PreferenceFilter(Double.NaN, 0);
+
+	private final double minPreference;
+	private final int topK;
+
+	/**
+	 * @param minPreference
+	 *            minimal preference of the kept pairs, or NaN to keep pairs
+	 *            whatever their preference
+	 * @param topK
+	 *            maximal number of pairs kept in each row, or 0 to keep all of
+	 *            them
+	 */
+	public PreferenceFilter(double minPreference, int topK) {
+		if (topK < 0) {
+			throw new IllegalArgumentException("Negative number of pairs per row " + topK);
+		}
+		this.minPreference = minPreference;
+		this.topK = topK;
+	}
+
+	/**
+	 * @return whether some pairs may be left out
+	 */
+	public boolean isFiltering() {
+		return !Double.isNaN(minPreference) || topK > 0;
+	}
+
+	/**
+	 * @return whether the number of pairs of each row is limited, so a row
+	 *         has to be filtered at once
+	 */
+	public boolean isTopK() {
+		return topK > 0;
+	}
+
+	/**
+	 * @param columns
+	 *            indices of the columns of the row
+	 * @param preferences
+	 *            preference of the row over the column of each index
+	 * @return indices of the kept columns, in the order of the columns
+	 */
+	public int[] filterColumns(int[] columns, IntToDoubleFunction preferences) {
+		if (!isFiltering()) {
+			return columns;
+		}
+		int[] positions = select(columns.length, position -> preferences.applyAsDouble(columns[position]));
+		int[] kept = new int[positions.length];
+		for (int i = 0; i < positions.length; i++) {
+			kept[i] = columns[positions[i]];
+		}
+		return kept;
+	}
+
+	/**
+	 * @param columnsCount
+	 *            number of columns of the row
+	 * @param preferences
+	 *            preference of the row over the column of each position
+	 * @return positions of the kept columns, in increasing order
+	 */
+	public int[] select(int columnsCount, IntToDoubleFunction preferences) {
+		int[] columns = new int[columnsCount];
+		double[] values = new double[columnsCount];
+		int count = 0;
+		for (int column = 0; column < columnsCount; column++) {
+			double preference = preferences.applyAsDouble(column);
+			if (Double.isNaN(minPreference) || preference >= minPreference) {
+				columns[count] = column;
+				values[count++] = preference;
+			}
+		}
+		if (topK > 0 && count > topK) {
+			double[] sorted = Arrays.copyOf(values, count);
+			Arrays.sort(sorted);
+			double lowest = sorted[count - topK];
+			// columns equal to the lowest kept preference fill the remaining
+			// places in column order
+			int ties = topK;
+			for (int i = count - topK; i < count; i++) {
+				if (Double.compare(sorted[i], lowest) > 0) {
+					ties--;
+				}
+			}
+			int kept = 0;
+			for (int i = 0; i < count; i++) {
+				int comparison = Double.compare(values[i], lowest);
+				if (comparison > 0 || (comparison == 0 && ties-- > 0)) {
+					columns[kept++] = columns[i];
+				}
+			}
+			count = kept;
+		}
+		return count == columnsCount ? columns : Arrays.copyOf(columns, count);
+	}
+}
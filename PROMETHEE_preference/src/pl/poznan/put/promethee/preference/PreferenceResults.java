@@ -0,0 +1,25 @@
+package pl.poznan.put.promethee.preference;
+
+/**
+ * Aggregated and partial preferences computed in a single pass.
+ */
+public class PreferenceResults {
+	private final PreferencesMatrix preferences;
+	private final PartialPreferencesTensor partialPreferences;
+
+	public PreferenceResults(PreferencesMatrix preferences, PartialPreferencesTensor partialPreferences) {
+		this.preferences = preferences;
+		this.partialPreferences = partialPreferences;
+	}
+
+	public PreferencesMatrix getPreferences() {
+		return preferences;
+	}
+
+	/**
+	 * @return partial preferences or null if they were not requested
+	 */
+	public PartialPreferencesTensor getPartialPreferences() {
+		return partialPreferences;
+	}
+}
@@ -0,0 +1,181 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Arrays;
+
+import pl.poznan.put.promethee.exceptions.NullThresholdException;
+import pl.poznan.put.promethee.exceptions.WrongPreferenceDirectionException;
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Aggregated and partial preferences of some rows over all their columns,
+ * e.g. the rows of one shard of the results. Only the given rows are stored,
+ * so a process computing a shard holds a fraction of the matrices. Values
+ * are the same as the ones of {@link Preference}.
+ */
+public class PreferenceRows {
+	private final ComparedElements elements;
+	private final IdsDictionary criteria;
+	/**
+	 * Position of each row in the storages or -1 if the row is not computed
+	 */
+	private final int[] slots;
+	/**
+	 * Position of the first pair of each computed row in the storages, rows
+	 * only hold their compared columns
+	 */
+	private final long[] offsets;
+	/**
+	 * First compared column of each computed row, the columns of a row are
+	 * consecutive
+	 */
+	private final int[] firstColumns;
+	private final DoubleStorage preferences;
+	private DoubleStorage partialPreferences;
+
+	private PreferenceRows(ComparedElements elements, IdsDictionary criteria, int[] rows) {
+		this.elements = elements;
+		this.criteria = criteria;
+		this.slots = new int[elements.size()];
+		Arrays.fill(slots, -1);
+		this.offsets = new long[rows.length + 1];
+		this.firstColumns = new int[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			slots[rows[i]] = i;
+			int[] columns = elements.getColumns(rows[i]);
+			offsets[i + 1] = offsets[i] + columns.length;
+			firstColumns[i] = columns.length > 0 ? columns[0] : 0;
+		}
+		this.preferences = DoubleStorage.heap(offsets[rows.length]);
+	}
+
+	/**
+	 * @param inputs
+	 * @param rows
+	 *            distinct indices of the computed rows in
+	 *            {@link ComparedElements}
+	 * @param threads
+	 *            number of threads computing rows
+	 * @param partialPreferencesPrecision
+	 *            precision of the partial preferences kept in the results, or
+	 *            null if they are not kept
+	 * @return preferences of the rows
+	 * @throws WrongPreferenceDirectionException
+	 * @throws NullThresholdException
+	 */
+	public static PreferenceRows calculate(Inputs inputs, int[] rows, int threads,
+			StoragePrecision partialPreferencesPrecision)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		ComparedElements elements = new ComparedElements(inputs);
+		IdsDictionary criteria = new IdsDictionary(inputs.criteria_ids);
+		PreferenceRows results = new PreferenceRows(elements, criteria, rows);
+		if (partialPreferencesPrecision != null) {
+			results.partialPreferences = partialPreferencesPrecision
+					.create(results.offsets[rows.length] * criteria.size());
+		}
+		PreferenceKernel[] kernels = new PreferenceKernel[criteria.size()];
+		double[][] evaluations = new double[criteria.size()][];
+		DistinctValuesTable[] tables = new DistinctValuesTable[criteria.size()];
+		for (int c = 0; c < criteria.size(); c++) {
+			kernels[c] = Preference.compileKernel(inputs, criteria.getId(c));
+			evaluations[c] = Preference.getEvaluations(inputs, elements, criteria.getId(c));
+			tables[c] = DistinctValuesTable.compress(kernels[c], evaluations[c]);
+		}
+		double[] weights = Preference.getWeights(inputs, criteria);
+		double totalWeight = 0.0;
+		for (double weight : weights) {
+			totalWeight += weight;
+		}
+		final double weightsSum = totalWeight;
+		final int n = elements.size();
+		final int m = kernels.length;
+		ParallelRows.forEachRow(rows.length, threads, () -> new RowState(n * m), (state, i) -> {
+			int a = rows[i];
+			int[] columns = elements.getColumns(a);
+			// preferences of the columns over the row are computed with their
+			// own rows
+			double[] forward = state.forward;
+			for (int c = 0; c < m; c++) {
+				if (tables[c] != null) {
+					tables[c].calculateRow(a, columns, forward, c, m);
+				} else {
+					kernels[c].calculateRow(evaluations[c][a], evaluations[c], columns, forward, c, m,
+							state.buffers);
+				}
+			}
+			for (int b : columns) {
+				long index = results.index(i, b);
+				results.preferences.set(index, Preference.calcTotalPreference(forward, b * m, weights, weightsSum));
+				if (results.partialPreferences != null) {
+					for (int c = 0; c < m; c++) {
+						results.partialPreferences.set(index * m + c, forward[b * m + c]);
+					}
+				}
+			}
+		});
+		return results;
+	}
+
+	public ComparedElements getElements() {
+		return elements;
+	}
+
+	public IdsDictionary getCriteria() {
+		return criteria;
+	}
+
+	public boolean hasPartialPreferences() {
+		return partialPreferences != null;
+	}
+
+	/**
+	 * @param row
+	 *            one of the computed rows
+	 * @param column
+	 *            element compared with the row element
+	 */
+	public double getPreference(int row, int column) {
+		return preferences.get(index(slot(row), column));
+	}
+
+	/**
+	 * @param row
+	 *            one of the computed rows
+	 * @param column
+	 *            element compared with the row element
+	 */
+	public double getPartialPreference(int row, int column, int criterion) {
+		return partialPreferences.get(index(slot(row), column) * criteria.size() + criterion);
+	}
+
+	private int slot(int row) {
+		int slot = slots[row];
+		if (slot < 0) {
+			throw new IllegalArgumentException("Row " + elements.getDictionary().getId(row) + " is not computed");
+		}
+		return slot;
+	}
+
+	/**
+	 * @return position of the pair in the storages
+	 */
+	private long index(int slot, int column) {
+		int position = column - firstColumns[slot];
+		if (position < 0 || offsets[slot] + position >= offsets[slot + 1]) {
+			throw new IllegalArgumentException("Column " + elements.getDictionary().getId(column)
+					+ " is not compared with the row");
+		}
+		return offsets[slot] + position;
+	}
+
+	/**
+	 * Scratch arrays of a worker, reused by its rows
+	 */
+	private static final class RowState {
+		private final double[] forward;
+		private final PreferenceKernel.Buffers buffers = new PreferenceKernel.Buffers();
+
+		RowState(int length) {
+			forward = new double[length];
+		}
+	}
+}
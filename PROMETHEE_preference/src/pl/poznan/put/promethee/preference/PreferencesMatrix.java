@@ -0,0 +1,53 @@
+package pl.poznan.put.promethee.preference;
+
+/**
+ * Matrix of aggregated preferences of the compared pairs stored row by row in a
+ * {@link DoubleStorage}, pairs being indexed by
+ * {@link ComparedElements#getPairIndex(int, int)}. Pairs which are not
+ * compared have no values.
+ */
+public class PreferencesMatrix {
+	private final ComparedElements elements;
+	private final DoubleStorage values;
+
+	public PreferencesMatrix(ComparedElements elements) {
+		this(elements, DoubleStorage.heap(size(elements)));
+	}
+
+	/**
+	 * @param elements
+	 * @param values
+	 *            storage of {@link #size(ComparedElements)} values
+	 */
+	public PreferencesMatrix(ComparedElements elements, DoubleStorage values) {
+		if (values.size() != size(elements)) {
+			throw new IllegalArgumentException("Storage of " + values.size() + " values for a matrix of "
+					+ size(elements) + " values");
+		}
+		this.elements = elements;
+		this.values = values;
+	}
+
+	/**
+	 * @return number of values of the matrix of the elements
+	 */
+	public static long size(ComparedElements elements) {
+		return elements.getPairsCount();
+	}
+
+	public ComparedElements getElements() {
+		return elements;
+	}
+
+	public DoubleStorage getValues() {
+		return values;
+	}
+
+	public double get(int row, int column) {
+		return values.get(elements.getPairIndex(row, column));
+	}
+
+	public void set(int row, int column, double value) {
+		values.set(elements.getPairIndex(row, column), value);
+	}
+}
@@ -0,0 +1,122 @@
+package pl.poznan.put.promethee.preference;
+
+/**
+ * Results of a previous run loaded into the matrices of the current run.
+ * Preferences of pairs of unchanged elements read in both directions from the
+ * previous results are reused, the others are recomputed, e.g. pairs left out
+ * of filtered results. Only evaluations may differ between the runs: criteria,
+ * weights and thresholds have to be the same.
+ */
+public class PreviousResults {
+	private final PreferencesMatrix preferences;
+	private final PartialPreferencesTensor partialPreferences;
+	private final boolean[] changed;
+	/**
+	 * Bits of the pairs whose preference was read, by pair index
+	 */
+	private final long[] readPreferences;
+	/**
+	 * Bits of the pairs with at least one partial preference read, by pair
+	 * index
+	 */
+	private final long[] readPartialPreferences;
+
+	/**
+	 * @param preferences
+	 *            empty matrix of the compared elements of the current run
+	 * @param partialPreferences
+	 *            empty tensor of the current run, or null if partial
+	 *            preferences are not computed
+	 */
+	public PreviousResults(PreferencesMatrix preferences, PartialPreferencesTensor partialPreferences) {
+		this.preferences = preferences;
+		this.partialPreferences = partialPreferences;
+		ComparedElements elements = preferences.getElements();
+		changed = new boolean[elements.size()];
+		int words = (int) ((elements.getPairsCount() + 63) >>> 6);
+		readPreferences = new long[words];
+		readPartialPreferences = partialPreferences != null ? new long[words] : null;
+	}
+
+	/**
+	 * Loads a previous preference. Pairs with an element missing from the
+	 * current run or not compared in the current run are ignored.
+	 */
+	public void setPreference(String row, String column, double value) {
+		IdsDictionary ids = preferences.getElements().getDictionary();
+		int rowIndex = ids.getIndex(row);
+		int columnIndex = ids.getIndex(column);
+		if (rowIndex < 0 || columnIndex < 0 || !preferences.getElements().isCompared(rowIndex, columnIndex)) {
+			return;
+		}
+		preferences.set(rowIndex, columnIndex, value);
+		setRead(readPreferences, rowIndex, columnIndex);
+	}
+
+	/**
+	 * Loads a previous partial preference. Missing partial preferences of a
+	 * pair with other partial preferences are equal to 0, as in sparse
+	 * results.
+	 */
+	public void setPartialPreference(String row, String column, String criterion, double value) {
+		if (partialPreferences == null) {
+			return;
+		}
+		IdsDictionary ids = preferences.getElements().getDictionary();
+		int rowIndex = ids.getIndex(row);
+		int columnIndex = ids.getIndex(column);
+		int criterionIndex = partialPreferences.getCriteria().getIndex(criterion);
+		if (rowIndex < 0 || columnIndex < 0 || criterionIndex < 0
+				|| !preferences.getElements().isCompared(rowIndex, columnIndex)) {
+			return;
+		}
+		partialPreferences.set(rowIndex, columnIndex, criterionIndex, value);
+		setRead(readPartialPreferences, rowIndex, columnIndex);
+	}
+
+	/**
+	 * Marks an element whose evaluations changed since the previous run.
+	 *
+	 * @return false if the id is not an element of the current run
+	 */
+	public boolean setChanged(String id) {
+		int index = preferences.getElements().getDictionary().getIndex(id);
+		if (index < 0) {
+			return false;
+		}
+		changed[index] = true;
+		return true;
+	}
+
+	/**
+	 * @return whether the preferences of the pair in both directions are taken
+	 *         from the previous results: both elements are unchanged and the
+	 *         pair was read in both directions
+	 */
+	public boolean isReusable(int row, int column) {
+		return !changed[row] && !changed[column] && isRead(row, column) && isRead(column, row);
+	}
+
+	private boolean isRead(int row, int column) {
+		return isSet(readPreferences, row, column)
+				&& (readPartialPreferences == null || isSet(readPartialPreferences, row, column));
+	}
+
+	private void setRead(long[] bits, int row, int column) {
+		long pair = preferences.getElements().getPairIndex(row, column);
+		bits[(int) (pair >>> 6)] |= 1L << pair;
+	}
+
+	private boolean isSet(long[] bits, int row, int column) {
+		long pair = preferences.getElements().getPairIndex(row, column);
+		return (bits[(int) (pair >>> 6)] & (1L << pair)) != 0;
+	}
+
+	public PreferencesMatrix getPreferences() {
+		return preferences;
+	}
+
+	public PartialPreferencesTensor getPartialPreferences() {
+		return partialPreferences;
+	}
+}
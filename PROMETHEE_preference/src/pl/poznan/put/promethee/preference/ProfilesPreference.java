@@ -0,0 +1,123 @@
+package pl.poznan.put.promethee.preference;
+
+import pl.poznan.put.promethee.exceptions.NullThresholdException;
+import pl.poznan.put.promethee.exceptions.WrongPreferenceDirectionException;
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Preferences between the profiles and alternatives given chunk by chunk, so
+ * that only the evaluations and preferences of one chunk of alternatives are
+ * in memory. Preferences between the profiles are computed once. Results are
+ * the same as the ones of {@link Preference} for the same pairs.
+ */
+public class ProfilesPreference {
+	private final IdsDictionary criteria;
+	private final IdsDictionary profiles;
+	private final PreferenceKernel[] kernels;
+	private final double[][] profilesEvaluations;
+	private final double[] weights;
+	private final double totalWeight;
+	private final double[] profilesPartialPreferences;
+
+	/**
+	 * @param inputs
+	 *            inputs with profiles, evaluations of alternatives are not used
+	 * @throws WrongPreferenceDirectionException
+	 * @throws NullThresholdException
+	 */
+	public ProfilesPreference(Inputs inputs) throws WrongPreferenceDirectionException, NullThresholdException {
+		criteria = new IdsDictionary(inputs.criteria_ids);
+		profiles = new IdsDictionary(inputs.profiles_ids);
+		int m = criteria.size();
+		int k = profiles.size();
+		kernels = new PreferenceKernel[m];
+		profilesEvaluations = new double[m][k];
+		for (int c = 0; c < m; c++) {
+			kernels[c] = Preference.compileKernel(inputs, criteria.getId(c));
+			for (int p = 0; p < k; p++) {
+				profilesEvaluations[c][p] = inputs.profilesPerformanceTable.get(profiles.getId(p))
+						.get(criteria.getId(c)).doubleValue();
+			}
+		}
+		weights = Preference.getWeights(inputs, criteria);
+		double weightsSum = 0.0;
+		for (double weight : weights) {
+			weightsSum += weight;
+		}
+		totalWeight = weightsSum;
+		// profile p owns its pairs with profiles q >= p, (p, q) is stored at
+		// (p * k + q) * m and (q, p) at (q * k + p) * m
+		profilesPartialPreferences = new double[k * k * m];
+		PreferenceKernel.Buffers buffers = new PreferenceKernel.Buffers();
+		for (int p = 0; p < k; p++) {
+			int[] columns = new int[k - p];
+			for (int q = p; q < k; q++) {
+				columns[q - p] = q;
+			}
+			for (int c = 0; c < m; c++) {
+				kernels[c].calculatePairs(profilesEvaluations[c][p], profilesEvaluations[c], columns,
+						profilesPartialPreferences, p * k * m + c, m, profilesPartialPreferences, p * m + c, k * m,
+						buffers);
+			}
+		}
+	}
+
+	public IdsDictionary getCriteria() {
+		return criteria;
+	}
+
+	public IdsDictionary getProfiles() {
+		return profiles;
+	}
+
+	public double getProfilesPreference(int row, int column) {
+		return Preference.calcTotalPreference(profilesPartialPreferences, (row * profiles.size() + column)
+				* criteria.size(), weights, totalWeight);
+	}
+
+	public double getProfilesPartialPreference(int row, int column, int criterion) {
+		return profilesPartialPreferences[(row * profiles.size() + column) * criteria.size() + criterion];
+	}
+
+	/**
+	 * @param capacity
+	 *            maximal number of alternatives of the chunk
+	 * @param withPartialPreferences
+	 *            whether partial preferences are kept
+	 * @return empty chunk of alternatives compared with the profiles
+	 */
+	public AlternativesChunk newChunk(int capacity, boolean withPartialPreferences) {
+		return new AlternativesChunk(capacity, criteria.size(), profiles.size(), withPartialPreferences);
+	}
+
+	/**
+	 * Computes the preferences between the alternatives of the chunk and the
+	 * profiles.
+	 *
+	 * @param chunk
+	 * @param threads
+	 *            number of threads computing alternatives of the chunk
+	 */
+	public void calculate(AlternativesChunk chunk, int threads) {
+		final int m = criteria.size();
+		final int k = profiles.size();
+		final int[] columns = new int[k];
+		for (int p = 0; p < k; p++) {
+			columns[p] = p;
+		}
+		ParallelRows.forEachRow(chunk.size(), threads, PreferenceKernel.Buffers::new, (buffers, i) -> {
+			// partial preferences of (a, p) and (p, a) for all profiles p
+			double[] forward = new double[k * m];
+			double[] backward = new double[k * m];
+			for (int c = 0; c < m; c++) {
+				kernels[c].calculatePairs(chunk.getEvaluation(i, c), profilesEvaluations[c], columns, forward, c,
+						m, backward, c, m, buffers);
+			}
+			for (int p = 0; p < k; p++) {
+				chunk.setPreferences(i, p, Preference.calcTotalPreference(forward, p * m, weights, totalWeight),
+						Preference.calcTotalPreference(backward, p * m, weights, totalWeight));
+			}
+			chunk.setPartialPreferences(i, forward, backward);
+		});
+	}
+}
@@ -0,0 +1,98 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Objects;
+
+import pl.poznan.put.promethee.exceptions.NullThresholdException;
+import pl.poznan.put.promethee.exceptions.WrongPreferenceDirectionException;
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Evaluates scenarios sharing the compared elements, the criteria and the
+ * performance tables of the same inputs, and differing in their weights,
+ * generalised criteria, directions or thresholds. The evaluations of the
+ * elements on each criterion are extracted once and shared by all the
+ * scenarios, which are computed in parallel, one scenario per thread.
+ */
+public class ScenarioBatch {
+	private final Inputs inputs;
+	private final ComparedElements elements;
+	private final IdsDictionary criteria;
+	private final double[][] evaluations;
+
+	/**
+	 * @param inputs
+	 *            inputs holding the shared elements, criteria and performance
+	 *            tables
+	 */
+	public ScenarioBatch(Inputs inputs) {
+		this.inputs = inputs;
+		this.elements = new ComparedElements(inputs);
+		this.criteria = new IdsDictionary(inputs.criteria_ids);
+		this.evaluations = new double[criteria.size()][];
+		for (int c = 0; c < criteria.size(); c++) {
+			evaluations[c] = Preference.getEvaluations(inputs, elements, criteria.getId(c));
+		}
+	}
+
+	/**
+	 * @param scenario
+	 *            inputs of the scenario
+	 * @return whether the scenario compares the elements of the batch on its
+	 *         criteria, in the same order
+	 */
+	public boolean isCompatible(Inputs scenario) {
+		return scenario.comparisonWith == inputs.comparisonWith
+				&& Objects.equals(scenario.alternatives_ids, inputs.alternatives_ids)
+				&& Objects.equals(scenario.profiles_ids, inputs.profiles_ids)
+				&& Objects.equals(scenario.criteria_ids, inputs.criteria_ids);
+	}
+
+	/**
+	 * Computes the results of the scenarios in parallel.
+	 *
+	 * @param scenarios
+	 *            inputs of the scenarios, compatible with the batch
+	 * @param threads
+	 *            number of scenarios computed at the same time
+	 * @param withPartialPreferences
+	 *            whether the partial preferences are kept in the results
+	 * @param results
+	 *            receives the results of each scenario, or null when the
+	 *            calculation failed
+	 * @param errors
+	 *            receives the error of each failed scenario, or null
+	 */
+	public void calculateResults(Inputs[] scenarios, int threads, boolean withPartialPreferences,
+			PreferenceResults[] results, Throwable[] errors) {
+		ParallelRows.forEachRow(scenarios.length, threads, s -> {
+			try {
+				results[s] = calculateResults(scenarios[s], withPartialPreferences);
+			} catch (Throwable t) {
+				results[s] = null;
+				errors[s] = t;
+			}
+		});
+	}
+
+	/**
+	 * @param scenario
+	 *            inputs of the scenario, compatible with the batch
+	 * @param withPartialPreferences
+	 *            whether the partial preferences are kept in the results
+	 * @return aggregated preferences and partial preferences (or null)
+	 * @throws WrongPreferenceDirectionException
+	 * @throws NullThresholdException
+	 */
+	public PreferenceResults calculateResults(Inputs scenario, boolean withPartialPreferences)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		if (!isCompatible(scenario)) {
+			throw new IllegalArgumentException("The scenario does not compare the elements of the batch");
+		}
+		PartialPreferencesTensor partialPreferences = null;
+		if (withPartialPreferences) {
+			partialPreferences = new PartialPreferencesTensor(elements, criteria);
+		}
+		return Preference.calculateResults(scenario, 1, new PreferencesMatrix(elements), partialPreferences, null,
+				evaluations);
+	}
+}
@@ -0,0 +1,72 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Arrays;
+
+/**
+ * Partial preferences of step criteria (usual, U-shape and level), whose
+ * preferences are 0, 0.5 or 1, packed as bits. The bit of a criterion is set
+ * in {@code ones} when its preference is 1 and in {@code halves} when it is
+ * 0.5. The bits of a pair are in consecutive words, criterion c in bit c % 64
+ * of word c / 64. Bits hold the tiles of the whole matrix computation of
+ * {@link Preference} only, stored partial preferences and rows computed
+ * alone are doubles, see {@link StepWeights}.
+ */
+final class StepBits {
+	final long[] ones;
+	final long[] halves;
+
+	/**
+	 * @param size
+	 *            number of words
+	 */
+	StepBits(int size) {
+		this.ones = new long[size];
+		this.halves = new long[size];
+	}
+
+	/**
+	 * @return number of words of the bits of a pair on the criteria
+	 */
+	static int words(int criteria) {
+		return (criteria + 63) >>> 6;
+	}
+
+	void clear() {
+		Arrays.fill(ones, 0L);
+		Arrays.fill(halves, 0L);
+	}
+
+	/**
+	 * Sets the bit of a criterion from its preference, the bits of the
+	 * criterion must be clear.
+	 *
+	 * @param index
+	 *            index of the word holding the bit
+	 * @param bit
+	 *            mask of the bit of the criterion in the word
+	 */
+	void set(int index, long bit, double preference) {
+		if (preference == 1.0) {
+			ones[index] |= bit;
+		} else if (preference == 0.5) {
+			halves[index] |= bit;
+		}
+	}
+
+	/**
+	 * @param from
+	 *            index of the first word of the pair
+	 * @return preference of the pair on the criterion
+	 */
+	double get(int from, int criterion) {
+		int index = from + (criterion >>> 6);
+		long bit = 1L << criterion;
+		if ((ones[index] & bit) != 0) {
+			return 1.0;
+		}
+		if ((halves[index] & bit) != 0) {
+			return 0.5;
+		}
+		return 0.0;
+	}
+}
@@ -0,0 +1,125 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Weights of step criteria aggregating partial preferences packed in
+ * {@link StepBits}. Criteria of equal weights are counted together with
+ * popcounts, which gives the same value as adding the weighted partial
+ * preferences of all criteria only when every weight is a multiple of a
+ * common power of two small enough for all the sums to be exact. Packing
+ * pays off through these counts only, so the bits are used when all the
+ * criteria are step criteria with such weights. Other sums depend on the
+ * order of the criteria and keep the double path, as do runs mixing step and
+ * other criteria.
+ */
+final class StepWeights {
+	private final int words;
+	/**
+	 * Half of the weight of each group of criteria of equal non-zero weights
+	 */
+	private final double[] groupHalfWeights;
+	private final long[] groupMasks;
+
+	private StepWeights(double[] weights) {
+		this.words = StepBits.words(weights.length);
+		Map<Double, Integer> groups = new HashMap<>();
+		long[] masks = new long[weights.length * words];
+		double[] groupWeights = new double[weights.length];
+		for (int c = 0; c < weights.length; c++) {
+			if (weights[c] == 0.0) {
+				continue;
+			}
+			Integer group = groups.get(weights[c]);
+			if (group == null) {
+				group = groups.size();
+				groupWeights[group] = 0.5 * weights[c];
+				groups.put(weights[c], group);
+			}
+			masks[group * words + (c >>> 6)] |= 1L << c;
+		}
+		this.groupHalfWeights = new double[groups.size()];
+		System.arraycopy(groupWeights, 0, groupHalfWeights, 0, groups.size());
+		this.groupMasks = new long[groups.size() * words];
+		System.arraycopy(masks, 0, groupMasks, 0, groupMasks.length);
+	}
+
+	/**
+	 * Packed preferences are used only when every criterion is a step
+	 * criterion and every weight is a multiple of a common power of two, e.g.
+	 * integer weights or weights such as 0.25 and 1.5. Weights such as 0.3 or
+	 * 1/3 have no exact binary value, so their sums depend on the order of
+	 * the criteria and the preferences are aggregated as doubles, with the
+	 * same results.
+	 *
+	 * @param kernels
+	 *            kernels of the criteria
+	 * @param weights
+	 *            weights of the criteria
+	 * @return weights aggregating the packed preferences, or null if a
+	 *         criterion is not a step criterion or the sums of the weights
+	 *         are not exact
+	 */
+	static StepWeights create(PreferenceKernel[] kernels, double[] weights) {
+		if (kernels.length == 0) {
+			return null;
+		}
+		for (int c = 0; c < kernels.length; c++) {
+			// preferences equal to 0 are skipped, which changes nothing for
+			// finite weights only
+			if (!kernels[c].isStep() || Double.isNaN(weights[c]) || Double.isInfinite(weights[c])) {
+				return null;
+			}
+		}
+		return isExact(weights) ? new StepWeights(weights) : null;
+	}
+
+	/**
+	 * @param bits
+	 *            packed partial preferences
+	 * @param from
+	 *            index of the first word of the pair
+	 * @return sum of the partial preferences of the pair multiplied by the
+	 *         weights
+	 */
+	double sum(StepBits bits, int from) {
+		double preference = 0.0;
+		for (int group = 0; group < groupHalfWeights.length; group++) {
+			// twice the sum of the preferences of the criteria of the group
+			long count = 0;
+			for (int word = 0; word < words; word++) {
+				long mask = groupMasks[group * words + word];
+				count += 2 * Long.bitCount(bits.ones[from + word] & mask)
+						+ Long.bitCount(bits.halves[from + word] & mask);
+			}
+			preference += groupHalfWeights[group] * count;
+		}
+		return preference;
+	}
+
+	/**
+	 * @return whether all the weights are multiples of a power of two such
+	 *         that sums of the weights and of their halves are exact in any
+	 *         order
+	 */
+	private static boolean isExact(double[] weights) {
+		int fractionBits = 0;
+		double sum = 0.0;
+		for (double weight : weights) {
+			if (weight == 0.0) {
+				continue;
+			}
+			if (Math.abs(weight) < Double.MIN_NORMAL) {
+				return false;
+			}
+			long significand = (Double.doubleToRawLongBits(weight) & 0xFFFFFFFFFFFFFL) | (1L << 52);
+			fractionBits = Math.max(fractionBits,
+					52 - Math.getExponent(weight) - Long.numberOfTrailingZeros(significand));
+			sum += Math.abs(weight);
+		}
+		// all partial sums are multiples of 2^-(fractionBits + 1) bounded by
+		// the sum of the absolute weights
+		return fractionBits < 1000 && Math.scalb(sum, fractionBits + 1) < 0x1p53;
+	}
+}
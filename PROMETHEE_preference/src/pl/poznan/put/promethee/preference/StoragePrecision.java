@@ -0,0 +1,72 @@
+package pl.poznan.put.promethee.preference;
+
+/**
+ * Precision of the partial preferences kept in memory. Aggregated preferences
+ * are always computed from the partial preferences in full precision.
+ */
+public enum StoragePrecision {
+	/**
+	 * 64-bit doubles, exact
+	 */
+	DOUBLE("double"),
+	/**
+	 * 32-bit floats, relative error below 6e-8
+	 */
+	FLOAT32("float32"),
+	/**
+	 * 16-bit fixed point, absolute error below 8e-6
+	 */
+	FIXED16("fixed16"),
+	/**
+	 * 2-bit codes of 0, 0.5 and 1, exact for usual, U-shape and level functions
+	 */
+	STEP2("step2");
+
+	private final String name;
+
+	private StoragePrecision(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return precision of the given name or null if there is none
+	 */
+	public static StoragePrecision fromName(String name) {
+		for (StoragePrecision precision : values()) {
+			if (precision.name.equals(name)) {
+				return precision;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param functionNumber
+	 *            number of a generalised criterion
+	 * @return whether all preferences of the function are stored exactly
+	 *         enough
+	 */
+	public boolean supports(int functionNumber) {
+		return this != STEP2 || functionNumber == 1 || functionNumber == 2 || functionNumber == 4;
+	}
+
+	/**
+	 * @return heap storage of the given number of values in this precision
+	 */
+	public DoubleStorage create(long size) {
+		switch (this) {
+		case FLOAT32:
+			return DoubleStorage.floats(size);
+		case FIXED16:
+			return DoubleStorage.fixedPoint(size);
+		case STEP2:
+			return DoubleStorage.stepCodes(size);
+		default:
+			return DoubleStorage.heap(size);
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package pl.poznan.put.promethee.xmcda;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads an alternativesMatrix (XMCDA v3) or alternativesComparisons (XMCDA
+ * v2), such as the ones written by {@link AlternativesMatrixWriter}, value by
+ * value without building the XMCDA objects of all pairs in memory.
+ */
+public class AlternativesMatrixReader {
+
+	/**
+	 * Receives the values of the pairs.
+	 */
+	@FunctionalInterface
+	public interface PairValueConsumer {
+		/**
+		 * @param valueId
+		 *            id of the value or null if it has no id
+		 */
+		void accept(String row, String column, String valueId, double value);
+	}
+
+	/**
+	 * @param file
+	 * @param consumer
+	 *            called for every numeric value of the file
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 * @throws NumberFormatException
+	 *             if a value is not a number
+	 */
+	public static void read(File file, PairValueConsumer consumer) throws IOException, XMLStreamException {
+		try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+			XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(input);
+			try {
+				read(reader, consumer);
+			} finally {
+				reader.close();
+			}
+		}
+	}
+
+	private static void read(XMLStreamReader reader, PairValueConsumer consumer) throws XMLStreamException {
+		Deque<String> parents = new ArrayDeque<>();
+		String row = null;
+		String column = null;
+		String valueId = null;
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.END_ELEMENT) {
+				parents.pop();
+				continue;
+			}
+			if (event != XMLStreamConstants.START_ELEMENT) {
+				continue;
+			}
+			String tag = reader.getLocalName();
+			String parent = parents.peek();
+			if ("alternativeID".equals(tag)) {
+				String id = reader.getElementText().trim();
+				if ("row".equals(parent) || "initial".equals(parent)) {
+					row = id;
+				} else if ("column".equals(parent) || "terminal".equals(parent)) {
+					column = id;
+				}
+				continue;
+			}
+			if ("value".equals(tag)) {
+				valueId = reader.getAttributeValue(null, "id");
+			} else if ("real".equals(tag) || "integer".equals(tag)) {
+				String text = reader.getElementText().trim();
+				consumer.accept(row, column, valueId, parseDouble(text));
+				continue;
+			}
+			parents.push(tag);
+		}
+	}
+
+	/**
+	 * @return value of a xsd:double
+	 */
+	private static double parseDouble(String text) {
+		if ("INF".equals(text)) {
+			return Double.POSITIVE_INFINITY;
+		}
+		if ("-INF".equals(text)) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		return Double.parseDouble(text);
+	}
+}
@@ -0,0 +1,341 @@
+package pl.poznan.put.promethee.xmcda;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import pl.poznan.put.promethee.preference.ComparedElements;
+import pl.poznan.put.promethee.preference.IdsDictionary;
+
+/**
+ * Writes an alternativesMatrix (XMCDA v3) or alternativesComparisons (XMCDA
+ * v2) row by row, from whole results or as rows are computed, without
+ * building the XMCDA objects of all pairs in memory. The layout of the files
+ * is the one of the XMCDA parsers. In the sparse mode values equal to 0 are
+ * omitted, as well as pairs and rows without any other value.
+ */
+public class AlternativesMatrixWriter implements Closeable {
+	private static final String V3_NAMESPACE = "http://www.decision-deck.org/2016/XMCDA-3.0.2";
+	private static final String V3_SCHEMA_LOCATION = V3_NAMESPACE
+			+ " http://www.decision-deck.org/xmcda/_downloads/XMCDA-3.0.2.xsd";
+	private static final String V3_XSI_NAMESPACE = "http://www.w3.org/2001/XMLSchema-instance";
+	private static final String V2_NAMESPACE = "http://www.decision-deck.org/2017/XMCDA-2.2.2";
+	private static final String V2_XSI_NAMESPACE = "http://www.w3.org/2001/XMLSchema-Instance";
+
+	/**
+	 * Values of the compared pairs.
+	 */
+	@FunctionalInterface
+	public interface PairValues {
+		/**
+		 * @return value number {@code index} of the pair (row, column)
+		 */
+		double get(int row, int column, int index);
+	}
+
+	/**
+	 * Values of the pairs of one row.
+	 */
+	@FunctionalInterface
+	public interface RowValues {
+		/**
+		 * @return value number {@code index} of the pair of the row and its
+		 *         column number {@code column}
+		 */
+		double get(int column, int index);
+	}
+
+	/**
+	 * Columns written in each row.
+	 */
+	@FunctionalInterface
+	public interface RowColumns {
+		/**
+		 * @return indices of the columns of the row, in output order
+		 */
+		int[] get(int row);
+	}
+
+	private final Writer output;
+	private final XMLStreamWriter writer;
+	private final Utils.XMCDA_VERSION version;
+	private final String indentation;
+	private final String[] valuesIds;
+	private final boolean sparse;
+
+	/**
+	 * Opens the file and writes the beginning of the matrix. Rows are then
+	 * written with {@link #writeRow} and the matrix is ended by
+	 * {@link #finish()}.
+	 *
+	 * @param file
+	 *            output file
+	 * @param tag
+	 *            tag of the matrix
+	 * @param version
+	 * @param valuesIds
+	 *            ids of the values of each pair, a null id is not written
+	 * @param sparse
+	 *            whether values equal to 0 are omitted
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 */
+	public AlternativesMatrixWriter(File file, String tag, Utils.XMCDA_VERSION version, String[] valuesIds,
+			boolean sparse) throws IOException, XMLStreamException {
+		this.output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+		this.version = version;
+		this.valuesIds = valuesIds;
+		this.sparse = sparse;
+		try {
+			writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output);
+			if (version == Utils.XMCDA_VERSION.v2) {
+				indentation = "    ";
+				output.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+				startV2(tag);
+			} else {
+				indentation = "\t";
+				output.write("<?xml version=\"1.0\" ?>\n");
+				startV3(tag);
+			}
+		} catch (IOException | XMLStreamException | RuntimeException e) {
+			output.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param file
+	 *            output file
+	 * @param tag
+	 *            tag of the matrix
+	 * @param version
+	 * @param elements
+	 *            compared elements, columns of each row are written in the
+	 *            order of {@link ComparedElements#getColumns(int)}
+	 * @param rows
+	 *            indices of rows in the output order
+	 * @param valuesIds
+	 *            ids of the values of each pair, a null id is not written
+	 * @param values
+	 * @param sparse
+	 *            whether values equal to 0 are omitted
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 */
+	public static void write(File file, String tag, Utils.XMCDA_VERSION version, ComparedElements elements,
+			int[] rows, String[] valuesIds, PairValues values, boolean sparse)
+			throws IOException, XMLStreamException {
+		write(file, tag, version, elements, rows, elements::getColumns, valuesIds, values, sparse);
+	}
+
+	/**
+	 * Same as
+	 * {@link #write(File, String, Utils.XMCDA_VERSION, ComparedElements, int[], String[], PairValues, boolean)}
+	 * with only some of the columns of each row written.
+	 *
+	 * @param rowColumns
+	 *            columns written in each row
+	 */
+	public static void write(File file, String tag, Utils.XMCDA_VERSION version, ComparedElements elements,
+			int[] rows, RowColumns rowColumns, String[] valuesIds, PairValues values, boolean sparse)
+			throws IOException, XMLStreamException {
+		IdsDictionary ids = elements.getDictionary();
+		try (AlternativesMatrixWriter writer = new AlternativesMatrixWriter(file, tag, version, valuesIds, sparse)) {
+			for (int row : rows) {
+				int[] columns = rowColumns.get(row);
+				String[] columnsIds = new String[columns.length];
+				for (int i = 0; i < columns.length; i++) {
+					columnsIds[i] = ids.getId(columns[i]);
+				}
+				writer.writeRow(ids.getId(row), columnsIds,
+						(column, index) -> values.get(row, columns[column], index));
+			}
+			writer.finish();
+		}
+	}
+
+	/**
+	 * Writes the pairs of a row with the given columns. In XMCDA v3 a row may
+	 * be written several times with different columns.
+	 *
+	 * @param row
+	 *            id of the row
+	 * @param columns
+	 *            ids of the columns
+	 * @param values
+	 * @throws XMLStreamException
+	 */
+	public void writeRow(String row, String[] columns, RowValues values) throws XMLStreamException {
+		int[] written = getColumns(columns.length, values);
+		if (version == Utils.XMCDA_VERSION.v2) {
+			writeRowV2(row, columns, written, values);
+		} else {
+			writeRowV3(row, columns, written, values);
+		}
+	}
+
+	/**
+	 * Writes the end of the matrix, the file is then closed by
+	 * {@link #close()}.
+	 *
+	 * @throws XMLStreamException
+	 */
+	public void finish() throws XMLStreamException {
+		if (version == Utils.XMCDA_VERSION.v2) {
+			newLine(2);
+			writer.writeEndElement();
+		}
+		newLine(1);
+		writer.writeEndElement();
+		newLine(0);
+		writer.writeEndElement();
+		writer.writeCharacters("\n");
+		writer.flush();
+		writer.close();
+	}
+
+	@Override
+	public void close() throws IOException {
+		output.close();
+	}
+
+	private void startV3(String tag) throws XMLStreamException {
+		writer.writeStartElement("xmcda", "XMCDA", V3_NAMESPACE);
+		writer.writeNamespace("xmcda", V3_NAMESPACE);
+		writer.writeNamespace("xsi", V3_XSI_NAMESPACE);
+		writer.writeAttribute("xsi", V3_XSI_NAMESPACE, "schemaLocation", V3_SCHEMA_LOCATION);
+		writer.writeCharacters("\n\n");
+		writer.writeStartElement(tag);
+	}
+
+	private void startV2(String tag) throws XMLStreamException {
+		writer.writeStartElement("xmcda", "XMCDA", V2_NAMESPACE);
+		writer.writeNamespace("xmcda", V2_NAMESPACE);
+		writer.writeNamespace("xsi", V2_XSI_NAMESPACE);
+		newLine(1);
+		writer.writeStartElement(tag);
+		newLine(2);
+		writer.writeStartElement("pairs");
+	}
+
+	private void writeRowV3(String row, String[] columns, int[] written, RowValues values)
+			throws XMLStreamException {
+		if (written.length == 0) {
+			return;
+		}
+		newLine(2);
+		writer.writeStartElement("row");
+		writeElement(3, "alternativeID", row);
+		for (int column : written) {
+			newLine(3);
+			writer.writeStartElement("column");
+			writeElement(4, "alternativeID", columns[column]);
+			writeValues(4, column, values);
+			newLine(3);
+			writer.writeEndElement();
+		}
+		newLine(2);
+		writer.writeEndElement();
+	}
+
+	private void writeRowV2(String row, String[] columns, int[] written, RowValues values)
+			throws XMLStreamException {
+		for (int column : written) {
+			newLine(3);
+			writer.writeStartElement("pair");
+			writeAlternative(4, "initial", row);
+			writeAlternative(4, "terminal", columns[column]);
+			writeValues(4, column, values);
+			newLine(3);
+			writer.writeEndElement();
+		}
+	}
+
+	/**
+	 * @return positions of the columns of the row written to the file
+	 */
+	private int[] getColumns(int columnsCount, RowValues values) {
+		int[] columns = new int[columnsCount];
+		int count = 0;
+		for (int column = 0; column < columnsCount; column++) {
+			if (!sparse) {
+				columns[count++] = column;
+				continue;
+			}
+			for (int index = 0; index < valuesIds.length; index++) {
+				if (values.get(column, index) != 0.0) {
+					columns[count++] = column;
+					break;
+				}
+			}
+		}
+		return count == columnsCount ? columns : Arrays.copyOf(columns, count);
+	}
+
+	private void writeAlternative(int depth, String tag, String id) throws XMLStreamException {
+		newLine(depth);
+		writer.writeStartElement(tag);
+		writeElement(depth + 1, "alternativeID", id);
+		newLine(depth);
+		writer.writeEndElement();
+	}
+
+	private void writeValues(int depth, int column, RowValues values) throws XMLStreamException {
+		newLine(depth);
+		writer.writeStartElement("values");
+		for (int index = 0; index < valuesIds.length; index++) {
+			double value = values.get(column, index);
+			if (sparse && value == 0.0) {
+				continue;
+			}
+			newLine(depth + 1);
+			writer.writeStartElement("value");
+			if (valuesIds[index] != null) {
+				writer.writeAttribute("id", valuesIds[index]);
+			}
+			writeElement(depth + 2, "real", format(value));
+			newLine(depth + 1);
+			writer.writeEndElement();
+		}
+		newLine(depth);
+		writer.writeEndElement();
+	}
+
+	private void writeElement(int depth, String tag, String text) throws XMLStreamException {
+		newLine(depth);
+		writer.writeStartElement(tag);
+		writer.writeCharacters(text);
+		writer.writeEndElement();
+	}
+
+	private void newLine(int depth) throws XMLStreamException {
+		StringBuilder builder = new StringBuilder("\n");
+		for (int i = 0; i < depth; i++) {
+			builder.append(indentation);
+		}
+		writer.writeCharacters(builder.toString());
+	}
+
+	/**
+	 * @return lexical representation of a xsd:double
+	 */
+	private static String format(double value) {
+		if (value == Double.POSITIVE_INFINITY) {
+			return "INF";
+		}
+		if (value == Double.NEGATIVE_INFINITY) {
+			return "-INF";
+		}
+		return Double.toString(value);
+	}
+}
@@ -0,0 +1,172 @@
+package pl.poznan.put.promethee.xmcda;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.xmcda.ProgramExecutionResult;
+
+import pl.poznan.put.promethee.preference.AlternativesChunk;
+import pl.poznan.put.promethee.preference.IdsDictionary;
+import pl.poznan.put.promethee.preference.PreferenceFilter;
+import pl.poznan.put.promethee.preference.ProfilesPreference;
+
+/**
+ * Compares the alternatives of performance_table.xml with the profiles chunk
+ * by chunk: a chunk is read, compared and written to preferences.xml and
+ * partial_preferences.xml before the next one is read. Rows are written in
+ * the order of the computation: the profiles with columns of the profiles,
+ * then for each chunk its alternatives followed by the profiles with columns
+ * of the alternatives of the chunk.
+ */
+public class ChunkedResultsWriter {
+
+	/**
+	 * @param inputs
+	 *            inputs with profiles and without evaluations of alternatives
+	 * @param params
+	 *            arguments with the size of chunks
+	 * @param executionResult
+	 * @param version
+	 */
+	public static void writeResultFiles(InputsHandler.Inputs inputs, Utils.Arguments params,
+			ProgramExecutionResult executionResult, Utils.XMCDA_VERSION version) {
+		if (version != Utils.XMCDA_VERSION.v2 && version != Utils.XMCDA_VERSION.v3) {
+			executionResult.addError("XMCDA_VERSION not specified");
+			return;
+		}
+		ProfilesPreference preference;
+		try {
+			preference = new ProfilesPreference(inputs);
+		} catch (Throwable t) {
+			executionResult.addError(Utils.getMessage("The calculation could not be performed, reason: ", t));
+			return;
+		}
+		File preferencesFile = new File(params.outputDirectory, "preferences.xml");
+		File partialPreferencesFile = new File(params.outputDirectory, "partial_preferences.xml");
+		try {
+			writeResultFiles(inputs, params, preference, preferencesFile,
+					params.partialPreferences ? partialPreferencesFile : null, executionResult, version);
+		} catch (Throwable t) {
+			executionResult.addError(Utils.getMessage("Error while writing the results, reason: ", t));
+		}
+		if (executionResult.isError()) {
+			preferencesFile.delete();
+			partialPreferencesFile.delete();
+		} else if (version == Utils.XMCDA_VERSION.v2) {
+			executionResult.addDebug("Success");
+		}
+	}
+
+	private static void writeResultFiles(InputsHandler.Inputs inputs, Utils.Arguments params,
+			ProfilesPreference preference, File preferencesFile, File partialPreferencesFile,
+			ProgramExecutionResult executionResult, Utils.XMCDA_VERSION version)
+			throws IOException, XMLStreamException {
+		IdsDictionary alternatives = new IdsDictionary(inputs.alternatives_ids);
+		IdsDictionary profiles = preference.getProfiles();
+		String[] profilesIds = profiles.getIds().toArray(new String[0]);
+		String[] criteriaIds = preference.getCriteria().getIds().toArray(new String[0]);
+		boolean[] read = new boolean[alternatives.size()];
+		try (AlternativesMatrixWriter preferences = new AlternativesMatrixWriter(preferencesFile,
+				tag("preferences", version), version, new String[] { null }, false);
+				AlternativesMatrixWriter partialPreferences = partialPreferencesFile == null ? null
+						: new AlternativesMatrixWriter(partialPreferencesFile, tag("partial_preferences", version),
+								version, criteriaIds, params.sparsePartialPreferences)) {
+			PreferenceFilter filter = params.getPreferenceFilter();
+			for (int p = 0; p < profiles.size(); p++) {
+				final int profile = p;
+				writeRow(filter, profilesIds[p], profilesIds,
+						(column, index) -> preference.getProfilesPreference(profile, column),
+						(column, index) -> preference.getProfilesPartialPreference(profile, column, index),
+						preferences, partialPreferences);
+			}
+			AlternativesChunk chunk = preference.newChunk(params.chunkSize, partialPreferences != null);
+			PerformanceTableReader.read(new File(params.inputDirectory, "performance_table.xml"),
+					preference.getCriteria(), (alternative, evaluations, evaluated) -> {
+						int index = alternatives.getIndex(alternative);
+						if (index < 0) {
+							return;
+						}
+						if (read[index]) {
+							throw new IllegalArgumentException(
+									"The performance table contains alternative " + alternative + " twice");
+						}
+						if (evaluated.cardinality() < evaluations.length) {
+							throw new IllegalArgumentException(
+									"The performance table has missing values for alternative " + alternative);
+						}
+						read[index] = true;
+						chunk.add(alternative, evaluations);
+						if (chunk.isFull()) {
+							writeChunk(preference, chunk, profilesIds, filter, preferences, partialPreferences,
+									params.threads);
+						}
+					});
+			writeChunk(preference, chunk, profilesIds, filter, preferences, partialPreferences, params.threads);
+			for (int a = 0; a < alternatives.size(); a++) {
+				if (!read[a]) {
+					executionResult.addError("The performance table does not contain alternative: "
+							+ alternatives.getId(a));
+				}
+			}
+			preferences.finish();
+			if (partialPreferences != null) {
+				partialPreferences.finish();
+			}
+		}
+	}
+
+	private static void writeChunk(ProfilesPreference preference, AlternativesChunk chunk, String[] profilesIds,
+			PreferenceFilter filter, AlternativesMatrixWriter preferences, AlternativesMatrixWriter partialPreferences,
+			int threads) throws XMLStreamException {
+		if (chunk.size() == 0) {
+			return;
+		}
+		preference.calculate(chunk, threads);
+		String[] alternativesIds = new String[chunk.size()];
+		for (int i = 0; i < chunk.size(); i++) {
+			final int alternative = i;
+			alternativesIds[i] = chunk.getId(i);
+			writeRow(filter, alternativesIds[i], profilesIds,
+					(column, index) -> chunk.getPreferenceToProfile(alternative, column),
+					(column, index) -> chunk.getPartialPreferenceToProfile(alternative, column, index), preferences,
+					partialPreferences);
+		}
+		for (int p = 0; p < profilesIds.length; p++) {
+			final int profile = p;
+			writeRow(filter, profilesIds[p], alternativesIds,
+					(column, index) -> chunk.getPreferenceFromProfile(column, profile),
+					(column, index) -> chunk.getPartialPreferenceFromProfile(column, profile, index), preferences,
+					partialPreferences);
+		}
+		chunk.clear();
+	}
+
+	/**
+	 * Writes the pairs of the row kept by the filter to both files.
+	 *
+	 * @param partialPreferences
+	 *            writer of partial preferences or null
+	 */
+	private static void writeRow(PreferenceFilter filter, String row, String[] columns,
+			AlternativesMatrixWriter.RowValues preferenceValues,
+			AlternativesMatrixWriter.RowValues partialPreferenceValues, AlternativesMatrixWriter preferences,
+			AlternativesMatrixWriter partialPreferences) throws XMLStreamException {
+		int[] kept = filter.select(columns.length, column -> preferenceValues.get(column, 0));
+		String[] keptColumns = new String[kept.length];
+		for (int i = 0; i < kept.length; i++) {
+			keptColumns[i] = columns[kept[i]];
+		}
+		preferences.writeRow(row, keptColumns, (column, index) -> preferenceValues.get(kept[column], index));
+		if (partialPreferences != null) {
+			partialPreferences.writeRow(row, keptColumns,
+					(column, index) -> partialPreferenceValues.get(kept[column], index));
+		}
+	}
+
+	private static String tag(String outputName, Utils.XMCDA_VERSION version) {
+		return version == Utils.XMCDA_VERSION.v2 ? OutputsHandler.xmcdaV2Tag(outputName)
+				: OutputsHandler.xmcdaV3Tag(outputName);
+	}
+}
@@ -1,10 +1,10 @@
 package pl.poznan.put.promethee.xmcda;
 
-import java.util.Map;
-
 import org.xmcda.ProgramExecutionResult;
 import org.xmcda.XMCDA;
 
+import pl.poznan.put.promethee.preference.PreferenceResults;
+
 public class ErrorChecker {
 
 	public static Boolean checkErrors(ProgramExecutionResult executionResult) {
@@ -33,8 +33,7 @@ public class ErrorChecker {
 		return success;
 	}
 
-	public static Boolean checkErrors(ProgramExecutionResult executionResult,
-			Map<String, Map<String, Double>> results) {
+	public static Boolean checkErrors(ProgramExecutionResult executionResult, PreferenceResults results) {
 		Boolean success = true;
 		if (results == null){
 			executionResult.addError("results is null");
@@ -42,14 +41,4 @@ public class ErrorChecker {
 		success = checkErrors(executionResult);
 		return success;
 	}
-	
-	public static Boolean checkPartialResultsErrors(ProgramExecutionResult executionResult,
-			Map<String, Map<String, Map<String, Double>>> results) {
-		Boolean success = true;
-		if (results == null) {
-			executionResult.addError("results is null");
-		}
-		success = checkErrors(executionResult);
-		return success;
-	}
 }
@@ -12,13 +12,22 @@ public class InputFileLoader {
 
 	public static XMCDA loadFiles(Map<String, InputFile> files, String inputDirectory,
 			ProgramExecutionResult executionResult, File prgExecResultsFile, Utils.XMCDA_VERSION version) {
+		return loadFiles(files, new String[] { inputDirectory }, executionResult, prgExecResultsFile, version);
+	}
+
+	/**
+	 * Same as loading the files from a single directory, each file being read
+	 * from the first directory containing it.
+	 */
+	public static XMCDA loadFiles(Map<String, InputFile> files, String[] inputDirectories,
+			ProgramExecutionResult executionResult, File prgExecResultsFile, Utils.XMCDA_VERSION version) {
 		XMCDA xmcda = null;
 		if (version.equals(Utils.XMCDA_VERSION.v2)) {
-			xmcda = loadFilesV2(executionResult, inputDirectory, files);
+			xmcda = loadFilesV2(executionResult, inputDirectories, files);
 			if (!ErrorChecker.checkErrors(executionResult, xmcda))
 				return null;
 		} else if (version == Utils.XMCDA_VERSION.v3) {
-			xmcda = loadFilesV3(executionResult, inputDirectory, files);
+			xmcda = loadFilesV3(executionResult, inputDirectories, files);
 			if (!ErrorChecker.checkErrors(executionResult))
 				return null;
 		} else {
@@ -28,14 +37,14 @@ public class InputFileLoader {
 		return xmcda;
 	}
 
-	private static XMCDA loadFilesV2(ProgramExecutionResult executionResult, String indir,
+	private static XMCDA loadFilesV2(ProgramExecutionResult executionResult, String[] indirs,
 			Map<String, InputFile> files) {
 		XMCDA xmcda = new org.xmcda.XMCDA();	
 		for (InputFile file : files.values()) {
 			if ("".equals(file.filenameV2)) continue;
 			org.xmcda.v2.XMCDA xmcda_v2 = new org.xmcda.v2.XMCDA();
 			Referenceable.DefaultCreationObserver.currentMarker=file.filenameV2;
-			Utils.loadXMCDAv2(xmcda_v2, new File(indir, file.filenameV2), file.mandatory, executionResult,
+			Utils.loadXMCDAv2(xmcda_v2, locate(indirs, file.filenameV2), file.mandatory, executionResult,
 					file.loadTagV2);
 			try {				
 	            XMCDAConverter.convertTo_v3(xmcda_v2, xmcda);
@@ -46,14 +55,27 @@ public class InputFileLoader {
 		return xmcda;
 	}
 
-	private static XMCDA loadFilesV3(ProgramExecutionResult executionResult, String indir,
+	private static XMCDA loadFilesV3(ProgramExecutionResult executionResult, String[] indirs,
 			Map<String, InputFile> files) {
 		XMCDA xmcda = new XMCDA();
 		for (InputFile file : files.values()) {
 			if ("".equals(file.filenameV3)) continue;
 			Referenceable.DefaultCreationObserver.currentMarker=file.filenameV3;
-			Utils.loadXMCDAv3(xmcda, new File(indir, file.filenameV3), file.mandatory, executionResult, file.loadTagV3);
+			Utils.loadXMCDAv3(xmcda, locate(indirs, file.filenameV3), file.mandatory, executionResult, file.loadTagV3);
 		}
 		return xmcda;
 	}
+
+	/**
+	 * @return file in the first directory containing it, or in the last
+	 *         directory if none does
+	 */
+	private static File locate(String[] indirs, String filename) {
+		for (int i = 0; i < indirs.length - 1; i++) {
+			File file = new File(indirs[i], filename);
+			if (file.exists())
+				return file;
+		}
+		return new File(indirs[indirs.length - 1], filename);
+	}
 }
@@ -15,10 +15,14 @@ import org.xmcda.XMCDA;
 import org.xmcda.QuantitativeScale;
 import org.xmcda.utils.ValueConverters;
 
+import pl.poznan.put.promethee.preference.PerformanceColumns;
+
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -143,6 +147,17 @@ public class InputsHandler {
 		public Map<String, Threshold<Double>> preferenceThresholds;
 		public Map<String, Threshold<Double>> indifferenceThresholds;
 		public Map<String, Threshold<Double>> sigmaThresholds;
+		/**
+		 * Maximum absolute error of the approximated Gaussian criterion, or 0
+		 * to compute it exactly
+		 */
+		public double gaussianMaxError;
+		/**
+		 * Evaluations of the alternatives read by
+		 * {@link PerformanceTableReader#read(java.io.File, PerformanceColumns)}
+		 * instead of {@code performanceTable}, or null
+		 */
+		public PerformanceColumns performanceColumns;
 
 	}
 
@@ -161,17 +176,42 @@ public class InputsHandler {
 		return extractInputs(inputsDict, xmcda, xmcda_exec_results);
 	}
 
+	/**
+	 * Checks and extracts the inputs when the performance table of the
+	 * alternatives is not loaded, because it is read chunk by chunk with
+	 * {@link PerformanceTableReader}. The extracted performance table of the
+	 * alternatives is empty.
+	 *
+	 * @param xmcda
+	 *            inputs without the performance table of the alternatives
+	 * @param xmcda_exec_results
+	 * @return
+	 */
+	static public Inputs checkAndExtractInputsWithoutPerformanceTable(XMCDA xmcda,
+			ProgramExecutionResult xmcda_exec_results) {
+		Inputs inputsDict = checkInputs(xmcda, xmcda_exec_results, false);
+
+		if (xmcda_exec_results.isError())
+			return null;
+
+		return extractInputs(inputsDict, xmcda, xmcda_exec_results, false);
+	}
+
 	/**
 	 * @param xmcda
 	 * @param errors
 	 * @return Inputs
 	 */
 	protected static Inputs checkInputs(XMCDA xmcda, ProgramExecutionResult errors) {
+		return checkInputs(xmcda, errors, true);
+	}
+
+	private static Inputs checkInputs(XMCDA xmcda, ProgramExecutionResult errors, boolean withPerformanceTable) {
 		Inputs inputs = new Inputs();		
 		checkParameters(inputs, xmcda, errors);
 		checkAlternatives(inputs, xmcda, errors);
 		checkProfiles(inputs, xmcda, errors);
-		checkPerformanceTables(inputs, xmcda, errors);
+		checkPerformanceTables(inputs, xmcda, errors, withPerformanceTable);
 		checkCriteriaValues(inputs, xmcda, errors);
 		checkCriteriaScales(inputs, xmcda, errors);
 		return inputs;
@@ -270,43 +310,52 @@ public class InputsHandler {
 		inputs.generalisedCriterion = generalisedCriterion;
 	}
 
-	private static void checkPerformanceTables(Inputs inputs, XMCDA xmcda, ProgramExecutionResult errors) {
-		if (xmcda.performanceTablesList.size() == 0) {
+	/**
+	 * @param withPerformanceTable
+	 *            whether the performance table of the alternatives is loaded,
+	 *            it is counted with the tables otherwise
+	 */
+	private static void checkPerformanceTables(Inputs inputs, XMCDA xmcda, ProgramExecutionResult errors,
+			boolean withPerformanceTable) {
+		int tablesCount = xmcda.performanceTablesList.size() + (withPerformanceTable ? 0 : 1);
+		if (tablesCount == 0) {
 			errors.addError("Performance table has not been supplied");
 			return;
-		} else if (xmcda.performanceTablesList.size() > 2) {
+		} else if (tablesCount > 2) {
 			errors.addError("More than two performance tables have been supplied");
 			return;
-		} else if ((inputs.comparisonWith == ComparisonWithParam.ALTERNATIVES)
-				&& (xmcda.performanceTablesList.size() != 1)) {
+		} else if ((inputs.comparisonWith == ComparisonWithParam.ALTERNATIVES) && (tablesCount != 1)) {
 			errors.addError("Only one performance table is expected");
 			return;
 		}
-		if ((inputs.comparisonWith != ComparisonWithParam.ALTERNATIVES) && (xmcda.performanceTablesList.size() != 2)) {
+		if ((inputs.comparisonWith != ComparisonWithParam.ALTERNATIVES) && (tablesCount != 2)) {
 			errors.addError("Exactly two performance tables are expected");
 			return;
 		} else {
-			@SuppressWarnings("rawtypes")
-			PerformanceTable p = xmcda.performanceTablesList.get(0);
+			if (withPerformanceTable) {
+				@SuppressWarnings("rawtypes")
+				PerformanceTable p = xmcda.performanceTablesList.get(0);
 
-			if (p.hasMissingValues())
-				errors.addError("The performance table has missing values");
-			if (!p.isNumeric()) {
-				errors.addError("The performance table must contain numeric values only");
-			} else {
-				try {
-					@SuppressWarnings("unchecked")
-					PerformanceTable<Double> perfTable = p.asDouble();
-					xmcda.performanceTablesList.set(0, perfTable);
-				} catch (ValueConverters.ConversionException e) {
-					final String msg = "Error when converting the performance table's value to Double, reason:";
-					errors.addError(Utils.getMessage(msg, e));
-					return;
+				if (p.hasMissingValues())
+					errors.addError("The performance table has missing values");
+				if (!p.isNumeric()) {
+					errors.addError("The performance table must contain numeric values only");
+				} else {
+					try {
+						@SuppressWarnings("unchecked")
+						PerformanceTable<Double> perfTable = p.asDouble();
+						xmcda.performanceTablesList.set(0, perfTable);
+					} catch (ValueConverters.ConversionException e) {
+						final String msg = "Error when converting the performance table's value to Double, reason:";
+						errors.addError(Utils.getMessage(msg, e));
+						return;
+					}
 				}
 			}
 			if (inputs.comparisonWith != ComparisonWithParam.ALTERNATIVES) {
+				int profilesTable = profilesPerformanceTableIndex(withPerformanceTable);
 				@SuppressWarnings("rawtypes")
-				PerformanceTable p2 = xmcda.performanceTablesList.get(1);
+				PerformanceTable p2 = xmcda.performanceTablesList.get(profilesTable);
 
 				if (p2.hasMissingValues())
 					errors.addError("The performance table has missing values");
@@ -316,7 +365,7 @@ public class InputsHandler {
 					try {
 						@SuppressWarnings("unchecked")
 						PerformanceTable<Double> perfTable = p2.asDouble();
-						xmcda.performanceTablesList.set(1, perfTable);
+						xmcda.performanceTablesList.set(profilesTable, perfTable);
 					} catch (ValueConverters.ConversionException e) {
 						final String msg = "Error when converting the performance table's value to Double, reason:";
 						errors.addError(Utils.getMessage(msg, e));
@@ -368,6 +417,14 @@ public class InputsHandler {
 		}
 	}
 
+	/**
+	 * @return position of the performance table of the profiles, which
+	 *         follows the one of the alternatives when it is loaded
+	 */
+	private static int profilesPerformanceTableIndex(boolean withPerformanceTable) {
+		return withPerformanceTable ? 1 : 0;
+	}
+
 	private static void checkCriteriaScales(Inputs inputs, XMCDA xmcda, ProgramExecutionResult errors) {
 		if (xmcda.criteriaScalesList.size() == 0) {
 			errors.addError("List of scales has not been supplied");
@@ -387,22 +444,31 @@ public class InputsHandler {
 	 * @return
 	 */
 	protected static Inputs extractInputs(Inputs inputs, XMCDA xmcda, ProgramExecutionResult xmcda_execution_results) {
+		return extractInputs(inputs, xmcda, xmcda_execution_results, true);
+	}
+
+	private static Inputs extractInputs(Inputs inputs, XMCDA xmcda, ProgramExecutionResult xmcda_execution_results,
+			boolean withPerformanceTable) {
 		extractAlternatives(inputs, xmcda, xmcda_execution_results);
-		checkAlternativesPerformanceTable(inputs, xmcda, xmcda_execution_results);
+		if (withPerformanceTable)
+			checkAlternativesPerformanceTable(inputs, xmcda, xmcda_execution_results);
 		extractCriteria(inputs, xmcda);
 		extractProfiles(inputs, xmcda, xmcda_execution_results);
-		checkProfilesPerformanceTable(inputs, xmcda, xmcda_execution_results);
+		checkProfilesPerformanceTable(inputs, xmcda, xmcda_execution_results, withPerformanceTable);
 		if (!profilesIDsUnique(inputs, xmcda_execution_results)) {
 			return null;
 		}
 		if (!criteriaAlternativesAndProfilesExists(inputs, xmcda, xmcda_execution_results)) {
 			return null;
 		}
-		if (!criteriaIdenticalInAllFiles(inputs, xmcda, xmcda_execution_results)) {
+		if (!criteriaIdenticalInAllFiles(inputs, xmcda, xmcda_execution_results, withPerformanceTable)) {
 			return null;
 		}
-		extractPerformanceTables(inputs, xmcda);
-		extractProfilesPerformanceTables(inputs, xmcda);
+		if (withPerformanceTable)
+			extractPerformanceTables(inputs, xmcda);
+		else
+			inputs.performanceTable = new LinkedHashMap<>();
+		extractProfilesPerformanceTables(inputs, xmcda, withPerformanceTable);
 		extractWeights(inputs, xmcda);
 		extractGeneralisedCriteria(inputs, xmcda, xmcda_execution_results);
 		extractCriteriaDirection(inputs, xmcda);
@@ -413,6 +479,52 @@ public class InputsHandler {
 		return inputs;
 	}
 
+	/**
+	 * Checks that the performance table read into columns evaluates every
+	 * alternative on every criterion.
+	 *
+	 * @param columns
+	 * @param errors
+	 * @return whether no evaluation is missing
+	 */
+	static public boolean checkPerformanceColumns(PerformanceColumns columns, ProgramExecutionResult errors) {
+		boolean complete = true;
+		boolean[] evaluatedAlternatives = new boolean[columns.getAlternatives().size()];
+		for (int criterion = 0; criterion < columns.getCriteria().size(); criterion++) {
+			boolean evaluatedCriterion = false;
+			for (int alternative = 0; alternative < evaluatedAlternatives.length; alternative++) {
+				if (columns.isSet(alternative, criterion)) {
+					evaluatedCriterion = true;
+					evaluatedAlternatives[alternative] = true;
+				}
+			}
+			if (!evaluatedCriterion) {
+				complete = false;
+				errors.addError("Criteria are not identical, performance_table.xml doesn't contain criterion "
+						+ columns.getCriteria().getId(criterion));
+			}
+		}
+		if (!complete) {
+			return false;
+		}
+		for (int alternative = 0; alternative < evaluatedAlternatives.length; alternative++) {
+			String id = columns.getAlternatives().getId(alternative);
+			if (!evaluatedAlternatives[alternative]) {
+				complete = false;
+				errors.addError("The performance table does not contain alternative: " + id);
+				continue;
+			}
+			for (int criterion = 0; criterion < columns.getCriteria().size(); criterion++) {
+				if (!columns.isSet(alternative, criterion)) {
+					complete = false;
+					errors.addError("The performance table does not contain the evaluation of alternative " + id
+							+ " on criterion " + columns.getCriteria().getId(criterion));
+				}
+			}
+		}
+		return complete;
+	}
+
 	private static void extractAlternatives(Inputs inputs, XMCDA xmcda, ProgramExecutionResult errors) {
 		List<String> alternativesIds = xmcda.alternatives.getActiveAlternatives().stream()
 				.filter(a -> "alternatives.xml".equals(a.getMarker())).map(Alternative::id).collect(Collectors.toList());
@@ -424,7 +536,7 @@ public class InputsHandler {
 	private static void checkAlternativesPerformanceTable(Inputs inputs, XMCDA xmcda, ProgramExecutionResult errors) {
 		@SuppressWarnings("unchecked")
 		PerformanceTable<Double> xmcda_perf_table = (PerformanceTable<Double>) xmcda.performanceTablesList.get(0);
-		List<String> alternativesIds = new ArrayList<>();
+		Set<String> alternativesIds = new HashSet<>();
 		for (Alternative x_alternative : xmcda_perf_table.getAlternatives())
 			if (x_alternative.isActive())
 				alternativesIds.add(x_alternative.id());
@@ -457,12 +569,13 @@ public class InputsHandler {
 		}
 	}
 
-	private static void checkProfilesPerformanceTable(Inputs inputs, XMCDA xmcda, ProgramExecutionResult errors) {
+	private static void checkProfilesPerformanceTable(Inputs inputs, XMCDA xmcda, ProgramExecutionResult errors,
+			boolean withPerformanceTable) {
 		if (inputs.comparisonWith != ComparisonWithParam.ALTERNATIVES) {
 			@SuppressWarnings("unchecked")
 			PerformanceTable<Double> x_perf_table_profiles = (PerformanceTable<Double>) xmcda.performanceTablesList
-					.get(1);
-			List<String> profilesIds = new ArrayList<>();
+					.get(profilesPerformanceTableIndex(withPerformanceTable));
+			Set<String> profilesIds = new HashSet<>();
 			for (Alternative x_alternative : x_perf_table_profiles.getAlternatives()) {
 				if (x_alternative.isActive())
 					profilesIds.add(x_alternative.id());
@@ -477,7 +590,7 @@ public class InputsHandler {
 		}
 	}
 
-	private static Boolean profilesIDsUnique(Inputs inputs, ProgramExecutionResult errors) {
+	static Boolean profilesIDsUnique(Inputs inputs, ProgramExecutionResult errors) {
 		if (inputs.comparisonWith == ComparisonWithParam.ALTERNATIVES) {
 			return true;
 		}
@@ -486,8 +599,9 @@ public class InputsHandler {
 			return false;
 		}
 		Boolean unique = true;
+		Set<String> alternativesIds = new HashSet<>(inputs.alternatives_ids);
 		for (String profile : inputs.profiles_ids) {
-			if (inputs.alternatives_ids.contains(profile)) {
+			if (alternativesIds.contains(profile)) {
 				errors.addError("Ids of profiles are not unique");
 				unique = false;
 				break;
@@ -517,18 +631,24 @@ public class InputsHandler {
 	}
 
 	private static Boolean criteriaIdenticalInAllFiles(Inputs inputs, XMCDA xmcda,
-			ProgramExecutionResult xmcda_execution_results) {
+			ProgramExecutionResult xmcda_execution_results, boolean withPerformanceTable) {
 		Boolean criteriaIdentical = true;
+		Set<Criterion> performanceTableCriteria = withPerformanceTable
+				? xmcda.performanceTablesList.get(0).getCriteria() : null;
+		Set<Criterion> profilesPerformanceTableCriteria = null;
+		if (inputs.comparisonWith != ComparisonWithParam.ALTERNATIVES)
+			profilesPerformanceTableCriteria = xmcda.performanceTablesList
+					.get(profilesPerformanceTableIndex(withPerformanceTable)).getCriteria();
 		for (String criterionID : inputs.criteria_ids) {
 			Criterion criterion = new Criterion(criterionID);
 
-			if (!xmcda.performanceTablesList.get(0).getCriteria().contains(criterion)) {
+			if (withPerformanceTable && !performanceTableCriteria.contains(criterion)) {
 				criteriaIdentical = false;
 				xmcda_execution_results.addError(
 						"Criteria are not identical, performance_table.xml doesn't contain criterion " + criterionID);
 			}
 			if (inputs.comparisonWith != ComparisonWithParam.ALTERNATIVES) {
-				if (!xmcda.performanceTablesList.get(1).getCriteria().contains(criterion)) {
+				if (!profilesPerformanceTableCriteria.contains(criterion)) {
 					criteriaIdentical = false;
 					xmcda_execution_results.addError(
 							"Criteria are not identical, profiles_performance_table.xml doesn't contain criterion "
@@ -611,14 +731,16 @@ public class InputsHandler {
 	}
 
 	private static void extractPerformanceTables(Inputs inputs, XMCDA xmcda) {
-		List<String> criteria_ids = inputs.criteria_ids;
+		Set<String> criteria_ids = new HashSet<>(inputs.criteria_ids);
 		inputs.performanceTable = new LinkedHashMap<>();
 		@SuppressWarnings("unchecked")
 		PerformanceTable<Double> x_perf_table = (PerformanceTable<Double>) xmcda.performanceTablesList.get(0);
+		Set<String> alternativesIds = new HashSet<>(inputs.alternatives_ids);
+		Set<Criterion> x_criteria = x_perf_table.getCriteria();
 		for (Alternative x_alternative : x_perf_table.getAlternatives()) {
-			if (!inputs.alternatives_ids.contains(x_alternative.id()))
+			if (!alternativesIds.contains(x_alternative.id()))
 				continue;
-			for (Criterion x_criterion : x_perf_table.getCriteria()) {
+			for (Criterion x_criterion : x_criteria) {
 				if (!criteria_ids.contains(x_criterion.id()))
 					continue;
 				Double value = (Double) x_perf_table.getValue(x_alternative, x_criterion);
@@ -628,17 +750,19 @@ public class InputsHandler {
 		}
 	}
 
-	private static void extractProfilesPerformanceTables(Inputs inputs, XMCDA xmcda) {
+	private static void extractProfilesPerformanceTables(Inputs inputs, XMCDA xmcda, boolean withPerformanceTable) {
 		if (inputs.comparisonWith != ComparisonWithParam.ALTERNATIVES) {
-			List<String> criteria_ids = inputs.criteria_ids;
+			Set<String> criteria_ids = new HashSet<>(inputs.criteria_ids);
 			@SuppressWarnings("unchecked")
 			PerformanceTable<Double> x_perf_table_profiles = (PerformanceTable<Double>) xmcda.performanceTablesList
-					.get(1);
+					.get(profilesPerformanceTableIndex(withPerformanceTable));
 			inputs.profilesPerformanceTable = new LinkedHashMap<>();
+			Set<String> profilesIds = new HashSet<>(inputs.profiles_ids);
+			Set<Criterion> x_criteria = x_perf_table_profiles.getCriteria();
 			for (Alternative x_alternative : x_perf_table_profiles.getAlternatives()) {
-				if (!inputs.profiles_ids.contains(x_alternative.id()))
+				if (!profilesIds.contains(x_alternative.id()))
 					continue;
-				for (Criterion x_criterion : x_perf_table_profiles.getCriteria()) {
+				for (Criterion x_criterion : x_criteria) {
 					if (!criteria_ids.contains(x_criterion.id()))
 						continue;
 					Double value = x_perf_table_profiles.getValue(x_alternative, x_criterion);
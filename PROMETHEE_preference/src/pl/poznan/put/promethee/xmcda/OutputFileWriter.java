@@ -1,67 +1,79 @@
 package pl.poznan.put.promethee.xmcda;
 
 import java.io.File;
-import java.util.Map;
 
 import org.xmcda.ProgramExecutionResult;
-import org.xmcda.XMCDA;
-import org.xmcda.converters.v2_v3.XMCDAConverter;
-import org.xmcda.parsers.xml.xmcda_v2.XMCDAParser;
+
+import pl.poznan.put.promethee.preference.ComparedElements;
+import pl.poznan.put.promethee.preference.PartialPreferencesTensor;
+import pl.poznan.put.promethee.preference.PreferenceFilter;
+import pl.poznan.put.promethee.preference.PreferenceResults;
+import pl.poznan.put.promethee.preference.PreferencesMatrix;
 
 public class OutputFileWriter {
 
-	public static void writeResultFiles(Map<String, XMCDA> xmcdaResults, ProgramExecutionResult executionResult,
-			String outputDirectory, Utils.XMCDA_VERSION version) {
-		if (version == Utils.XMCDA_VERSION.v2) {
-			writeResultFilesV2(xmcdaResults, executionResult, outputDirectory);
-		} else if (version == Utils.XMCDA_VERSION.v3) {
-			writeResultFilesV3(xmcdaResults, executionResult, outputDirectory);
-		} else {
+	/**
+	 * Streams preferences.xml and, if partial preferences were computed,
+	 * partial_preferences.xml into the output directory.
+	 *
+	 * @param sparsePartialPreferences
+	 *            whether partial preferences equal to 0 are omitted
+	 */
+	public static void writeResultFiles(PreferenceResults results, ProgramExecutionResult executionResult,
+			String outputDirectory, Utils.XMCDA_VERSION version, boolean sparsePartialPreferences) {
+		writeResultFiles(results, executionResult, outputDirectory, version, sparsePartialPreferences,
+				PreferenceFilter.NONE);
+	}
+
+	/**
+	 * Same as
+	 * {@link #writeResultFiles(PreferenceResults, ProgramExecutionResult, String, Utils.XMCDA_VERSION, boolean)}
+	 * with only the pairs kept by the filter written to both files.
+	 *
+	 * @param filter
+	 *            filter of the pairs on their preferences
+	 */
+	public static void writeResultFiles(PreferenceResults results, ProgramExecutionResult executionResult,
+			String outputDirectory, Utils.XMCDA_VERSION version, boolean sparsePartialPreferences,
+			PreferenceFilter filter) {
+		if (version != Utils.XMCDA_VERSION.v2 && version != Utils.XMCDA_VERSION.v3) {
 			executionResult.addError("XMCDA_VERSION not specified");
+			return;
 		}
-	}
+		if (version == Utils.XMCDA_VERSION.v2 && !executionResult.isError()) {
+			executionResult.addDebug("Success");
+		}
+
+		PreferencesMatrix preferences = results.getPreferences();
+		ComparedElements elements = preferences.getElements();
+		AlternativesMatrixWriter.RowColumns rowColumns = row -> filter.filterColumns(elements.getColumns(row),
+				column -> preferences.get(row, column));
+		writeResultFile("preferences", elements, elements.getSortedRows(), rowColumns, new String[] { null },
+				(row, column, index) -> preferences.get(row, column), false, executionResult, outputDirectory,
+				version);
 
-	private static void writeResultFilesV2(Map<String, XMCDA> xmcdaResults, ProgramExecutionResult executionResult,
-			String outputDirectory) {
-		if (!executionResult.isError()) {
-            executionResult.addDebug("Success");
-        }
-		
-		org.xmcda.v2.XMCDA results_v2;
-		for (String outputName : xmcdaResults.keySet()) {
-			File outputFile = new File(outputDirectory, String.format("%s.xml", outputName));
-			try {
-				results_v2 = XMCDAConverter.convertTo_v2(xmcdaResults.get(outputName));
-				if (results_v2 == null)
-					throw new IllegalStateException("Conversion from v3 to v2 returned a null value");
-			} catch (Throwable t) {
-				final String err = String.format("Could not convert %s into XMCDA_v2, reason: ", outputName);
-				executionResult.addError(Utils.getMessage(err, t));
-				continue;
-			}
-			try {
-				XMCDAParser.writeXMCDA(results_v2, outputFile, OutputsHandler.xmcdaV2Tag(outputName));
-			} catch (Throwable t) {
-				final String err = String.format("Error while writing %s.xml, reason: ", outputName);
-				executionResult.addError(Utils.getMessage(err, t));
-				outputFile.delete();
-			}
+		PartialPreferencesTensor partialPreferences = results.getPartialPreferences();
+		if (partialPreferences != null) {
+			String[] criteria = partialPreferences.getCriteria().getIds().toArray(new String[0]);
+			writeResultFile("partial_preferences", elements, elements.getRows(), rowColumns, criteria,
+					partialPreferences::get, sparsePartialPreferences, executionResult, outputDirectory, version);
 		}
 	}
 
-	private static void writeResultFilesV3(Map<String, XMCDA> xmcdaResults, ProgramExecutionResult executionResult,
-			String outputDirectory) {
-		final org.xmcda.parsers.xml.xmcda_v3.XMCDAParser parser = new org.xmcda.parsers.xml.xmcda_v3.XMCDAParser();
-
-		for (String key : xmcdaResults.keySet()) {
-			File outputFile = new File(outputDirectory, String.format("%s.xml", key));
-			try {
-				parser.writeXMCDA(xmcdaResults.get(key), outputFile, OutputsHandler.xmcdaV3Tag(key));
-			} catch (Throwable throwable) {
-				final String err = String.format("Error while writing %s.xml, reason: ", key);
-				executionResult.addError(Utils.getMessage(err, throwable)); //
-				outputFile.delete();
-			}
+	private static void writeResultFile(String outputName, ComparedElements elements, int[] rows,
+			AlternativesMatrixWriter.RowColumns rowColumns, String[] valuesIds,
+			AlternativesMatrixWriter.PairValues values, boolean sparse, ProgramExecutionResult executionResult,
+			String outputDirectory, Utils.XMCDA_VERSION version) {
+		File outputFile = new File(outputDirectory, String.format("%s.xml", outputName));
+		String tag = version == Utils.XMCDA_VERSION.v2 ? OutputsHandler.xmcdaV2Tag(outputName)
+				: OutputsHandler.xmcdaV3Tag(outputName);
+		try {
+			AlternativesMatrixWriter.write(outputFile, tag, version, elements, rows, rowColumns, valuesIds, values,
+					sparse);
+		} catch (Throwable t) {
+			final String err = String.format("Error while writing %s.xml, reason: ", outputName);
+			executionResult.addError(Utils.getMessage(err, t));
+			outputFile.delete();
 		}
 	}
 
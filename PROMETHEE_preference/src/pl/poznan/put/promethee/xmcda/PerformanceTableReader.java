@@ -0,0 +1,160 @@
+package pl.poznan.put.promethee.xmcda;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import pl.poznan.put.promethee.preference.IdsDictionary;
+import pl.poznan.put.promethee.preference.PerformanceColumns;
+
+/**
+ * Reads a performanceTable (XMCDA v2 or v3) alternative by alternative without
+ * building the XMCDA objects of the whole table.
+ */
+public class PerformanceTableReader {
+
+	/**
+	 * Receives the evaluations of the alternatives.
+	 */
+	@FunctionalInterface
+	public interface AlternativeConsumer {
+		/**
+		 * @param alternative
+		 *            id of the alternative
+		 * @param evaluations
+		 *            evaluations indexed like the criteria; the array is
+		 *            reused for the next alternative
+		 * @param evaluated
+		 *            criteria of the evaluations read for the alternative,
+		 *            other evaluations are missing; the set is reused for the
+		 *            next alternative
+		 * @throws XMLStreamException
+		 */
+		void accept(String alternative, double[] evaluations, BitSet evaluated) throws XMLStreamException;
+	}
+
+	/**
+	 * @param file
+	 * @param criteria
+	 *            criteria whose evaluations are read, others are ignored
+	 * @param consumer
+	 *            called for every alternativePerformances of the file
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 * @throws NumberFormatException
+	 *             if a value is not a number
+	 */
+	public static void read(File file, IdsDictionary criteria, AlternativeConsumer consumer)
+			throws IOException, XMLStreamException {
+		try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+			XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(input);
+			try {
+				read(reader, criteria, consumer);
+			} finally {
+				reader.close();
+			}
+		}
+	}
+
+	/**
+	 * Reads the evaluations of the alternatives of the columns straight into
+	 * the columns, other alternatives and criteria are ignored.
+	 *
+	 * @param file
+	 * @param columns
+	 *            columns of the read alternatives and criteria
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 * @throws NumberFormatException
+	 *             if a value is not a number
+	 * @throws IllegalArgumentException
+	 *             if an alternative of the columns is in the table twice
+	 */
+	public static void read(File file, PerformanceColumns columns) throws IOException, XMLStreamException {
+		IdsDictionary alternatives = columns.getAlternatives();
+		BitSet read = new BitSet(alternatives.size());
+		read(file, columns.getCriteria(), (alternative, evaluations, evaluated) -> {
+			int index = alternatives.getIndex(alternative);
+			if (index < 0) {
+				return;
+			}
+			if (read.get(index)) {
+				throw new IllegalArgumentException(
+						"The performance table contains alternative " + alternative + " twice");
+			}
+			read.set(index);
+			for (int criterion = 0; criterion < evaluations.length; criterion++) {
+				if (evaluated.get(criterion)) {
+					columns.set(index, criterion, evaluations[criterion]);
+				}
+			}
+		});
+	}
+
+	private static void read(XMLStreamReader reader, IdsDictionary criteria, AlternativeConsumer consumer)
+			throws XMLStreamException {
+		Deque<String> parents = new ArrayDeque<>();
+		double[] evaluations = new double[criteria.size()];
+		BitSet evaluated = new BitSet(criteria.size());
+		String alternative = null;
+		int criterion = -1;
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.END_ELEMENT) {
+				if ("alternativePerformances".equals(parents.pop()) && alternative != null) {
+					consumer.accept(alternative, evaluations, evaluated);
+				}
+				continue;
+			}
+			if (event != XMLStreamConstants.START_ELEMENT) {
+				continue;
+			}
+			String tag = reader.getLocalName();
+			String parent = parents.peek();
+			if ("alternativePerformances".equals(tag)) {
+				alternative = null;
+				evaluated.clear();
+			} else if ("performance".equals(tag)) {
+				criterion = -1;
+			} else if ("alternativeID".equals(tag) && "alternativePerformances".equals(parent)) {
+				alternative = reader.getElementText().trim();
+				continue;
+			} else if ("criterionID".equals(tag) && "performance".equals(parent)) {
+				criterion = criteria.getIndex(reader.getElementText().trim());
+				continue;
+			} else if ("real".equals(tag) || "integer".equals(tag)) {
+				double value = parseDouble(reader.getElementText().trim());
+				// the first value of a performance is its evaluation
+				if (criterion >= 0 && parents.contains("performance") && !evaluated.get(criterion)) {
+					evaluations[criterion] = value;
+					evaluated.set(criterion);
+				}
+				continue;
+			}
+			parents.push(tag);
+		}
+	}
+
+	/**
+	 * @return value of a xsd:double
+	 */
+	private static double parseDouble(String text) {
+		if ("INF".equals(text)) {
+			return Double.POSITIVE_INFINITY;
+		}
+		if ("-INF".equals(text)) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		return Double.parseDouble(text);
+	}
+}
@@ -6,16 +6,29 @@ package pl.poznan.put.promethee.xmcda;
 import org.xmcda.ProgramExecutionResult;
 import org.xmcda.XMCDA;
 
+import pl.poznan.put.promethee.preference.ComparedElements;
+import pl.poznan.put.promethee.preference.DoubleStorage;
+import pl.poznan.put.promethee.preference.IdsDictionary;
+import pl.poznan.put.promethee.preference.PartialPreferencesTensor;
+import pl.poznan.put.promethee.preference.PerformanceColumns;
 import pl.poznan.put.promethee.preference.Preference;
+import pl.poznan.put.promethee.preference.PreferenceResults;
+import pl.poznan.put.promethee.preference.PreferencesMatrix;
+import pl.poznan.put.promethee.preference.PreviousResults;
+import pl.poznan.put.promethee.preference.ScenarioBatch;
+import pl.poznan.put.promethee.preference.StoragePrecision;
 import pl.poznan.put.promethee.xmcda.InputFile;
 import pl.poznan.put.promethee.xmcda.Utils.InvalidCommandLineException;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import javax.xml.stream.XMLStreamException;
+
 /**
  * 
  */
@@ -36,31 +49,208 @@ public class PreferenceXMCDA {
 
 		final ProgramExecutionResult executionResult = new ProgramExecutionResult();
 
+		if (params.chunkSize > 0)
+			streamResults(files, params, executionResult, prgExecResultsFile, version);
+
+		if (params.streamPerformanceTable)
+			files.remove("performanceTable");
 		final XMCDA xmcda = InputFileLoader.loadFiles(files, inputDirectory, executionResult, prgExecResultsFile,
 				version);
 		if (!ErrorChecker.checkErrors(executionResult, xmcda))
 			exitProgram(executionResult, prgExecResultsFile, version);
 
-		final InputsHandler.Inputs inputs = InputsHandler.checkAndExtractInputs(xmcda, executionResult);
+		final InputsHandler.Inputs inputs = params.streamPerformanceTable
+				? InputsHandler.checkAndExtractInputsWithoutPerformanceTable(xmcda, executionResult)
+				: InputsHandler.checkAndExtractInputs(xmcda, executionResult);
 		if (!ErrorChecker.checkErrors(executionResult, inputs))
 			exitProgram(executionResult, prgExecResultsFile, version);
+		inputs.gaussianMaxError = params.gaussianMaxError;
+		if (params.streamPerformanceTable)
+			readPerformanceColumns(inputs, params, executionResult, prgExecResultsFile, version);
+
+		if (params.scenariosDirectory != null)
+			evaluateScenarios(inputs, params, executionResult, prgExecResultsFile, version);
+
+		if (params.shards > 0)
+			writeShard(inputs, params, executionResult, prgExecResultsFile, version);
 
-		final Map<String, Map<String, Double>> results = calcResults(inputs, executionResult);
+		final String cacheKey = params.cacheDirectory != null ? ResultsCache.key(inputs, params, version) : null;
+		if (cacheKey != null)
+			restoreCachedResults(cacheKey, params, executionResult, prgExecResultsFile, version);
+
+		final PreferenceResults results = calcResults(inputs, params, executionResult);
 		if (!ErrorChecker.checkErrors(executionResult, results))
 			exitProgram(executionResult, prgExecResultsFile, version);
 
-		final Map<String, Map<String, Map<String, Double>>> partialResults = calcPartialResults(inputs,
+		OutputFileWriter.writeResultFiles(results, executionResult, outputDirectory, version,
+				params.sparsePartialPreferences, params.getPreferenceFilter());
+
+		if (cacheKey != null && !executionResult.isError())
+			storeCachedResults(cacheKey, params, executionResult);
+
+		exitProgram(executionResult, prgExecResultsFile, version);
+	}
+
+	/**
+	 * Compares alternatives with profiles chunk by chunk, without loading the
+	 * performance table of the alternatives, then exits.
+	 */
+	private static void streamResults(Map<String, InputFile> files, Utils.Arguments params,
+			ProgramExecutionResult executionResult, File prgExecResultsFile, Utils.XMCDA_VERSION version) {
+		files.remove("performanceTable");
+		final XMCDA xmcda = InputFileLoader.loadFiles(files, params.inputDirectory, executionResult,
+				prgExecResultsFile, version);
+		if (!ErrorChecker.checkErrors(executionResult, xmcda))
+			exitProgram(executionResult, prgExecResultsFile, version);
+
+		final InputsHandler.Inputs inputs = InputsHandler.checkAndExtractInputsWithoutPerformanceTable(xmcda,
 				executionResult);
-		if (!ErrorChecker.checkPartialResultsErrors(executionResult, partialResults))
+		if (!ErrorChecker.checkErrors(executionResult, inputs))
 			exitProgram(executionResult, prgExecResultsFile, version);
+		inputs.gaussianMaxError = params.gaussianMaxError;
+		if (inputs.comparisonWith == InputsHandler.ComparisonWithParam.ALTERNATIVES) {
+			executionResult.addError("Option --chunk-size requires comparison with profiles");
+			exitProgram(executionResult, prgExecResultsFile, version);
+		}
 
-		final Map<String, XMCDA> xmcdaResults = OutputsHandler.convert(results, partialResults, executionResult);
+		ChunkedResultsWriter.writeResultFiles(inputs, params, executionResult, version);
 
-		OutputFileWriter.writeResultFiles(xmcdaResults, executionResult, outputDirectory, version);
+		exitProgram(executionResult, prgExecResultsFile, version);
+	}
 
+	/**
+	 * Computes and writes the rows of the shard only, then exits.
+	 */
+	private static void writeShard(InputsHandler.Inputs inputs, Utils.Arguments params,
+			ProgramExecutionResult executionResult, File prgExecResultsFile, Utils.XMCDA_VERSION version) {
+		if (checkPrecision(inputs, params, executionResult)) {
+			ShardedResultsWriter.writeResultFiles(inputs, params, executionResult, version);
+		}
+		exitProgram(executionResult, prgExecResultsFile, version);
+	}
+
+	/**
+	 * Copies the results of the same inputs from the cache to the output
+	 * directory and exits, or returns if the cache does not have them.
+	 */
+	private static void restoreCachedResults(String cacheKey, Utils.Arguments params,
+			ProgramExecutionResult executionResult, File prgExecResultsFile, Utils.XMCDA_VERSION version) {
+		ResultsCache cache = new ResultsCache(new File(params.cacheDirectory), params.cacheSize);
+		try {
+			if (cache.restore(cacheKey, new File(params.outputDirectory), params.partialPreferences)) {
+				executionResult.addInfo("Result cache hit: " + cacheKey);
+				if (version == Utils.XMCDA_VERSION.v2)
+					executionResult.addDebug("Success");
+				exitProgram(executionResult, prgExecResultsFile, version);
+			}
+		} catch (Throwable t) {
+			executionResult.addWarning(Utils.getMessage("Could not read the result cache, reason: ", t));
+		}
+		executionResult.addInfo("Result cache miss: " + cacheKey);
+	}
+
+	private static void storeCachedResults(String cacheKey, Utils.Arguments params,
+			ProgramExecutionResult executionResult) {
+		ResultsCache cache = new ResultsCache(new File(params.cacheDirectory), params.cacheSize);
+		try {
+			cache.store(cacheKey, new File(params.outputDirectory), params.partialPreferences);
+		} catch (Throwable t) {
+			executionResult.addWarning(Utils.getMessage("Could not store the results in the cache, reason: ", t));
+		}
+	}
+
+	/**
+	 * Evaluates every scenario of the scenarios directory, then exits. A
+	 * scenario is a subdirectory whose parameter files (weights, generalised
+	 * criteria, thresholds, method parameters) replace those of the input
+	 * directory. The performance tables of the input directory are shared by
+	 * all the scenarios.
+	 */
+	private static void evaluateScenarios(InputsHandler.Inputs inputs, Utils.Arguments params,
+			ProgramExecutionResult executionResult, File prgExecResultsFile, Utils.XMCDA_VERSION version) {
+		File[] directories = new File(params.scenariosDirectory).listFiles(File::isDirectory);
+		if (directories == null || directories.length == 0) {
+			executionResult.addError("The scenarios directory does not contain any scenario");
+			exitProgram(executionResult, prgExecResultsFile, version);
+		}
+		Arrays.sort(directories);
+		ScenarioBatch batch = null;
+		try {
+			batch = new ScenarioBatch(inputs);
+		} catch (Throwable t) {
+			executionResult.addError(Utils.getMessage("The calculation could not be performed, reason: ", t));
+			exitProgram(executionResult, prgExecResultsFile, version);
+		}
+		String[] names = new String[directories.length];
+		InputsHandler.Inputs[] scenarios = new InputsHandler.Inputs[directories.length];
+		for (int s = 0; s < directories.length; s++) {
+			names[s] = directories[s].getName();
+			scenarios[s] = loadScenario(inputs, batch, directories[s], params, executionResult, version);
+			if (scenarios[s] == null) {
+				executionResult.addError("Invalid scenario " + names[s]);
+				exitProgram(executionResult, prgExecResultsFile, version);
+			}
+		}
+		ScenariosResultsWriter.writeResultFiles(batch, names, scenarios, params, executionResult, version);
 		exitProgram(executionResult, prgExecResultsFile, version);
 	}
 
+	/**
+	 * @return inputs of the scenario sharing the performance tables of the
+	 *         inputs, or null if they are invalid or do not have the same
+	 *         alternatives, profiles and criteria
+	 */
+	private static InputsHandler.Inputs loadScenario(InputsHandler.Inputs inputs, ScenarioBatch batch,
+			File directory, Utils.Arguments params, ProgramExecutionResult executionResult,
+			Utils.XMCDA_VERSION version) {
+		Map<String, InputFile> files = initFiles();
+		files.remove("performanceTable");
+		XMCDA xmcda = InputFileLoader.loadFiles(files,
+				new String[] { directory.getPath(), params.inputDirectory }, executionResult, null, version);
+		if (!ErrorChecker.checkErrors(executionResult, xmcda))
+			return null;
+		InputsHandler.Inputs scenario = InputsHandler.checkAndExtractInputsWithoutPerformanceTable(xmcda,
+				executionResult);
+		if (!ErrorChecker.checkErrors(executionResult, scenario))
+			return null;
+		scenario.performanceTable = inputs.performanceTable;
+		scenario.performanceColumns = inputs.performanceColumns;
+		scenario.gaussianMaxError = params.gaussianMaxError;
+		if (!batch.isCompatible(scenario)) {
+			executionResult.addError("The scenario does not have the alternatives, profiles and criteria of the"
+					+ " input directory");
+			return null;
+		}
+		return scenario;
+	}
+
+	/**
+	 * Reads the evaluations of the alternatives from performance_table.xml
+	 * straight into primitive columns, without building the XMCDA objects nor
+	 * the maps of the table. Exits if the table can not be read or lacks
+	 * evaluations.
+	 */
+	private static void readPerformanceColumns(InputsHandler.Inputs inputs, Utils.Arguments params,
+			ProgramExecutionResult executionResult, File prgExecResultsFile, Utils.XMCDA_VERSION version) {
+		File file = new File(params.inputDirectory, "performance_table.xml");
+		if (!file.exists()) {
+			executionResult.addError("Could not find the mandatory file performance_table.xml");
+			exitProgram(executionResult, prgExecResultsFile, version);
+		}
+		PerformanceColumns columns = new PerformanceColumns(new IdsDictionary(inputs.alternatives_ids),
+				new IdsDictionary(inputs.criteria_ids));
+		try {
+			PerformanceTableReader.read(file, columns);
+		} catch (Throwable t) {
+			executionResult
+					.addError(Utils.getMessage("Unable to read & parse the file performance_table.xml, reason: ", t));
+			exitProgram(executionResult, prgExecResultsFile, version);
+		}
+		if (!InputsHandler.checkPerformanceColumns(columns, executionResult))
+			exitProgram(executionResult, prgExecResultsFile, version);
+		inputs.performanceColumns = columns;
+	}
+
 	private static Utils.Arguments readParams(String[] args) {
 		Utils.Arguments params = null;
 		ArrayList<String> argsList = new ArrayList<String>(Arrays.asList(args));
@@ -69,7 +259,14 @@ public class PreferenceXMCDA {
 		try {
 			params = Utils.parseCmdLineArguments((String[]) argsList.toArray(new String[] {}));
 		} catch (InvalidCommandLineException e) {
-			System.err.println("Missing mandatory options. Required: [--v2|--v3] -i input_dir -o output_dir");
+			System.err.println("Invalid options: " + e.getMessage()
+					+ ". Usage: [--v2|--v3] -i input_dir -o output_dir [-t threads] [--skip-partial-preferences]"
+					+ " [--sparse-partial-preferences] [--stream-performance-table]"
+					+ " [-p previous_results_dir [-c changed_id,...]]"
+					+ " [-m mapped_storage_dir] [--partial-precision double|float32|fixed16|step2]"
+					+ " [--chunk-size alternatives] [--gaussian-max-error error] [--shard i/N]"
+					+ " [--min-preference value] [--top-k pairs] [--cache-dir cache_dir [--cache-size bytes]]"
+					+ " [--scenarios scenarios_dir]");
 			System.exit(-1);
 		}
 		return params;
@@ -119,11 +316,23 @@ public class PreferenceXMCDA {
 		Utils.writeProgramExecutionResultsAndExit(prgExecResultsFile, executionResult, version);
 	}
 
-	private static Map<String, Map<String, Double>> calcResults(InputsHandler.Inputs inputs,
+	private static PreferenceResults calcResults(InputsHandler.Inputs inputs, Utils.Arguments params,
 			ProgramExecutionResult executionResult) {
-		Map<String, Map<String, Double>> results = null;
+		PreferenceResults results = null;
+		if (!checkPrecision(inputs, params, executionResult)) {
+			return results;
+		}
 		try {
-			results = Preference.calculatePreferences(inputs);
+			if (params.previousResultsDirectory != null) {
+				PreviousResults previous = loadPreviousResults(inputs, params, executionResult);
+				if (previous == null) {
+					return results;
+				}
+				results = Preference.recalculateResults(inputs, params.threads, previous);
+			} else {
+				results = Preference.calculateResults(inputs, params.threads, createPreferences(inputs, params),
+						createPartialPreferences(inputs, params));
+			}
 		} catch (Throwable t) {
 			executionResult.addError(Utils.getMessage("The calculation could not be performed, reason: ", t));
 			return results;
@@ -131,15 +340,96 @@ public class PreferenceXMCDA {
 		return results;
 	}
 
-	private static Map<String, Map<String, Map<String, Double>>> calcPartialResults(InputsHandler.Inputs inputs,
+	/**
+	 * Loads preferences.xml and, if partial preferences are computed,
+	 * partial_preferences.xml from the directory of previous results.
+	 *
+	 * @return previous results, or null if a changed element is not an
+	 *         element of the inputs
+	 */
+	private static PreviousResults loadPreviousResults(InputsHandler.Inputs inputs, Utils.Arguments params,
+			ProgramExecutionResult executionResult) throws IOException, XMLStreamException {
+		PreviousResults previous = new PreviousResults(createPreferences(inputs, params),
+				createPartialPreferences(inputs, params));
+		boolean known = true;
+		for (String id : params.changedElements) {
+			if (!previous.setChanged(id)) {
+				executionResult.addError("Changed element " + id + " is neither an alternative nor a profile");
+				known = false;
+			}
+		}
+		if (!known) {
+			return null;
+		}
+		File directory = new File(params.previousResultsDirectory);
+		AlternativesMatrixReader.read(new File(directory, "preferences.xml"),
+				(row, column, valueId, value) -> previous.setPreference(row, column, value));
+		if (params.partialPreferences) {
+			AlternativesMatrixReader.read(new File(directory, "partial_preferences.xml"),
+					previous::setPartialPreference);
+		}
+		return previous;
+	}
+
+	/**
+	 * Reduced precisions are only available on the heap, and 2-bit codes only
+	 * for functions whose preferences are 0, 0.5 or 1.
+	 */
+	private static boolean checkPrecision(InputsHandler.Inputs inputs, Utils.Arguments params,
 			ProgramExecutionResult executionResult) {
-		Map<String, Map<String, Map<String, Double>>> results = null;
-		try {
-			results = Preference.calcPartialPreferences(inputs);
-		} catch (Throwable t) {
-			executionResult.addError(Utils.getMessage("The calculation could not be performed, reason: ", t));
-			return results;
+		StoragePrecision precision = params.partialPreferencesPrecision;
+		if (precision == StoragePrecision.DOUBLE || !params.partialPreferences) {
+			return true;
 		}
-		return results;
+		if (params.mappedStorageDirectory != null) {
+			executionResult.addError("Precision " + precision.getName()
+					+ " of partial preferences can not be used with a memory-mapped storage");
+			return false;
+		}
+		boolean supported = true;
+		for (String criterion : inputs.criteria_ids) {
+			Integer function = inputs.generalisedCriteria.get(criterion);
+			if (function != null && !precision.supports(function)) {
+				executionResult.addError("Precision " + precision.getName() + " of partial preferences does not"
+						+ " support function (" + function + ") specified on criterion " + criterion);
+				supported = false;
+			}
+		}
+		return supported;
+	}
+
+	/**
+	 * @return matrix of preferences on the heap or stored in preferences.bin of
+	 *         the mapped storage directory
+	 */
+	private static PreferencesMatrix createPreferences(InputsHandler.Inputs inputs, Utils.Arguments params)
+			throws IOException {
+		ComparedElements elements = new ComparedElements(inputs);
+		long size = PreferencesMatrix.size(elements);
+		if (params.mappedStorageDirectory == null) {
+			return new PreferencesMatrix(elements, DoubleStorage.heap(size));
+		}
+		File file = new File(params.mappedStorageDirectory, "preferences.bin");
+		return new PreferencesMatrix(elements, DoubleStorage.mapped(file, size));
+	}
+
+	/**
+	 * @return tensor of partial preferences on the heap in the requested
+	 *         precision or stored in partial_preferences.bin of the mapped
+	 *         storage directory, or null if they are not computed
+	 */
+	private static PartialPreferencesTensor createPartialPreferences(InputsHandler.Inputs inputs,
+			Utils.Arguments params) throws IOException {
+		if (!params.partialPreferences) {
+			return null;
+		}
+		ComparedElements elements = new ComparedElements(inputs);
+		IdsDictionary criteria = new IdsDictionary(inputs.criteria_ids);
+		long size = PartialPreferencesTensor.size(elements, criteria);
+		if (params.mappedStorageDirectory == null) {
+			return new PartialPreferencesTensor(elements, criteria, params.partialPreferencesPrecision.create(size));
+		}
+		File file = new File(params.mappedStorageDirectory, "partial_preferences.bin");
+		return new PartialPreferencesTensor(elements, criteria, DoubleStorage.mapped(file, size));
 	}
 }
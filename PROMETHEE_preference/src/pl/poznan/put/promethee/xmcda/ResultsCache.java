@@ -0,0 +1,290 @@
+package pl.poznan.put.promethee.xmcda;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.xmcda.Threshold;
+
+import pl.poznan.put.promethee.preference.PerformanceColumns;
+
+/**
+ * Output files of previous runs kept on local disk and addressed by a digest
+ * of the normalized inputs and of the options changing the outputs, so a run
+ * on the same inputs restores the files instead of computing them. Each entry
+ * is a directory named by its digest. Restoring or storing an entry marks it
+ * as used, and the least recently used entries are evicted once the entries
+ * exceed the size of the cache.
+ */
+public class ResultsCache {
+	private static final String[] RESULT_FILES = { "preferences.xml", "partial_preferences.xml" };
+	/**
+	 * Changed whenever the outputs of the same inputs change
+	 */
+	private static final String FORMAT = "PROMETHEE_preference results 1";
+
+	private final File directory;
+	private final long maxSize;
+
+	/**
+	 * @param directory
+	 *            directory of the entries, created if needed
+	 * @param maxSize
+	 *            maximal number of bytes of the files of the entries
+	 */
+	public ResultsCache(File directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * @return hexadecimal SHA-256 digest of the inputs and of the options
+	 *         changing the outputs. Evaluations, thresholds and weights are
+	 *         read in the order of the ids, so the key does not depend on the
+	 *         layout of the input files.
+	 */
+	public static String key(InputsHandler.Inputs inputs, Utils.Arguments params, Utils.XMCDA_VERSION version) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+		try (DataOutputStream output = new DataOutputStream(new DigestOutputStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+				// only the digest is kept
+			}
+		}, digest))) {
+			output.writeUTF(FORMAT);
+			output.writeUTF(version.name());
+			output.writeBoolean(params.partialPreferences);
+			output.writeBoolean(params.sparsePartialPreferences);
+			output.writeUTF(params.partialPreferencesPrecision.getName());
+			output.writeDouble(params.gaussianMaxError);
+			output.writeDouble(params.minPreference);
+			output.writeInt(params.topK);
+			writeString(output, String.valueOf(inputs.comparisonWith));
+			writeString(output, String.valueOf(inputs.generalisedCriterion));
+			writeIds(output, inputs.criteria_ids);
+			for (String criterion : inputs.criteria_ids) {
+				writeInteger(output, inputs.generalisedCriteria.get(criterion));
+				writeString(output, inputs.preferenceDirections.get(criterion));
+				writeNumber(output, inputs.weights.get(criterion));
+				writeThreshold(output, inputs.preferenceThresholds.get(criterion));
+				writeThreshold(output, inputs.indifferenceThresholds.get(criterion));
+				writeThreshold(output, inputs.sigmaThresholds.get(criterion));
+			}
+			if (inputs.performanceColumns != null) {
+				writeEvaluations(output, inputs.alternatives_ids, inputs.performanceColumns, inputs.criteria_ids);
+			} else {
+				writeEvaluations(output, inputs.alternatives_ids, inputs.performanceTable, inputs.criteria_ids);
+			}
+			writeEvaluations(output, inputs.profiles_ids, inputs.profilesPerformanceTable, inputs.criteria_ids);
+		} catch (IOException e) {
+			// the stream does not write anything
+			throw new IllegalStateException(e);
+		}
+		StringBuilder key = new StringBuilder();
+		for (byte b : digest.digest()) {
+			key.append(String.format("%02x", b));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Copies the files of the entry to the output directory.
+	 *
+	 * @param partialPreferences
+	 *            whether partial preferences are part of the results
+	 * @return whether the cache has an entry of the key with all the result
+	 *         files, nothing is copied otherwise
+	 * @throws IOException
+	 */
+	public boolean restore(String key, File outputDirectory, boolean partialPreferences) throws IOException {
+		File entry = new File(directory, key);
+		String[] fileNames = resultFiles(partialPreferences);
+		for (String fileName : fileNames) {
+			if (!new File(entry, fileName).isFile()) {
+				return false;
+			}
+		}
+		for (String fileName : fileNames) {
+			Files.copy(new File(entry, fileName).toPath(), new File(outputDirectory, fileName).toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+		}
+		entry.setLastModified(System.currentTimeMillis());
+		return true;
+	}
+
+	/**
+	 * Copies the result files written by the run to the entry of the key,
+	 * then evicts the least recently used entries exceeding the size of the
+	 * cache. Other files of the output directory, e.g. partial preferences
+	 * left by an earlier run, are not stored.
+	 *
+	 * @param partialPreferences
+	 *            whether the run wrote the partial preferences
+	 * @throws IOException
+	 *             if a result file is missing or can not be copied, nothing
+	 *             is stored then
+	 */
+	public void store(String key, File outputDirectory, boolean partialPreferences) throws IOException {
+		Files.createDirectories(directory.toPath());
+		File entry = new File(directory, key);
+		// runs sharing the cache only see complete entries
+		Path temporary = Files.createTempDirectory(directory.toPath(), key + ".");
+		try {
+			for (String fileName : resultFiles(partialPreferences)) {
+				Files.copy(new File(outputDirectory, fileName).toPath(), temporary.resolve(fileName));
+			}
+			if (!entry.exists()) {
+				Files.move(temporary, entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			}
+		} finally {
+			delete(temporary.toFile());
+		}
+		evict();
+	}
+
+	private static String[] resultFiles(boolean partialPreferences) {
+		return partialPreferences ? RESULT_FILES : new String[] { RESULT_FILES[0] };
+	}
+
+	private void evict() {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		List<File> entries = new ArrayList<>();
+		long size = 0;
+		for (File file : files) {
+			if (file.isDirectory() && isKey(file.getName())) {
+				entries.add(file);
+				size += size(file);
+			}
+		}
+		entries.sort(Comparator.comparingLong(File::lastModified));
+		for (File entry : entries) {
+			if (size <= maxSize) {
+				break;
+			}
+			size -= size(entry);
+			delete(entry);
+		}
+	}
+
+	private static boolean isKey(String name) {
+		return name.length() == 64 && name.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'));
+	}
+
+	private static long size(File entry) {
+		long size = 0;
+		File[] files = entry.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				size += file.length();
+			}
+		}
+		return size;
+	}
+
+	private static void delete(File entry) {
+		File[] files = entry.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		entry.delete();
+	}
+
+	private static void writeEvaluations(DataOutputStream output, List<String> ids,
+			Map<String, Map<String, Double>> performanceTable, List<String> criteria) throws IOException {
+		writeIds(output, ids);
+		if (ids == null) {
+			return;
+		}
+		for (String id : ids) {
+			Map<String, Double> evaluations = performanceTable == null ? null : performanceTable.get(id);
+			for (String criterion : criteria) {
+				writeNumber(output, evaluations == null ? null : evaluations.get(criterion));
+			}
+		}
+	}
+
+	/**
+	 * Writes the evaluations as
+	 * {@link #writeEvaluations(DataOutputStream, List, Map, List)} does, so the
+	 * key does not depend on how the performance table was read.
+	 */
+	private static void writeEvaluations(DataOutputStream output, List<String> ids, PerformanceColumns columns,
+			List<String> criteria) throws IOException {
+		writeIds(output, ids);
+		for (String id : ids) {
+			int alternative = columns.getAlternatives().getIndex(id);
+			for (String criterion : criteria) {
+				double value = columns.get(alternative, columns.getCriteria().getIndex(criterion));
+				// columns are checked to have no missing evaluation
+				writeNumber(output, value);
+			}
+		}
+	}
+
+	private static void writeIds(DataOutputStream output, List<String> ids) throws IOException {
+		if (ids == null) {
+			output.writeInt(-1);
+			return;
+		}
+		output.writeInt(ids.size());
+		for (String id : ids) {
+			writeString(output, id);
+		}
+	}
+
+	private static void writeThreshold(DataOutputStream output, Threshold<Double> threshold) throws IOException {
+		if (threshold == null) {
+			output.writeByte(0);
+		} else if (threshold.isConstant()) {
+			output.writeByte(1);
+			writeNumber(output, threshold.getConstant().getValue());
+		} else {
+			output.writeByte(2);
+			writeNumber(output, threshold.getSlope().getValue());
+			writeNumber(output, threshold.getIntercept().getValue());
+		}
+	}
+
+	private static void writeNumber(DataOutputStream output, Number number) throws IOException {
+		output.writeBoolean(number != null);
+		if (number != null) {
+			output.writeDouble(number.doubleValue());
+		}
+	}
+
+	private static void writeInteger(DataOutputStream output, Integer number) throws IOException {
+		output.writeBoolean(number != null);
+		if (number != null) {
+			output.writeInt(number);
+		}
+	}
+
+	private static void writeString(DataOutputStream output, String string) throws IOException {
+		output.writeBoolean(string != null);
+		if (string != null) {
+			output.writeUTF(string);
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package pl.poznan.put.promethee.xmcda;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.xmcda.ProgramExecutionResult;
+
+import pl.poznan.put.promethee.preference.PreferenceResults;
+import pl.poznan.put.promethee.preference.ScenarioBatch;
+
+/**
+ * Computes the scenarios of a batch and writes the results of each one to
+ * the subdirectory of the output directory named after the scenario.
+ * Scenarios are computed in groups of as many scenarios as threads, a group
+ * being written before the next one is computed, so that the results of at
+ * most one group are in memory.
+ */
+public class ScenariosResultsWriter {
+
+	/**
+	 * @param batch
+	 *            batch of the inputs holding the performance tables shared by
+	 *            the scenarios
+	 * @param names
+	 *            names of the scenarios
+	 * @param scenarios
+	 *            inputs of the scenarios, compatible with the inputs
+	 * @param params
+	 * @param executionResult
+	 * @param version
+	 */
+	public static void writeResultFiles(ScenarioBatch batch, String[] names, InputsHandler.Inputs[] scenarios,
+			Utils.Arguments params, ProgramExecutionResult executionResult, Utils.XMCDA_VERSION version) {
+		for (int from = 0; from < scenarios.length; from += params.threads) {
+			int to = Math.min(scenarios.length, from + params.threads);
+			PreferenceResults[] results = new PreferenceResults[to - from];
+			Throwable[] errors = new Throwable[to - from];
+			batch.calculateResults(Arrays.copyOfRange(scenarios, from, to), params.threads,
+					params.partialPreferences, results, errors);
+			for (int s = from; s < to; s++) {
+				if (errors[s - from] != null) {
+					executionResult.addError(Utils.getMessage(
+							"The calculation of scenario " + names[s] + " could not be performed, reason: ",
+							errors[s - from]));
+					continue;
+				}
+				File outputDirectory = new File(params.outputDirectory, names[s]);
+				if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+					executionResult.addError("Could not create the output directory of scenario " + names[s]);
+					continue;
+				}
+				OutputFileWriter.writeResultFiles(results[s - from], executionResult, outputDirectory.getPath(),
+						version, params.sparsePartialPreferences, params.getPreferenceFilter());
+			}
+		}
+	}
+}
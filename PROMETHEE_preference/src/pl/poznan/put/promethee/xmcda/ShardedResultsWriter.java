@@ -0,0 +1,114 @@
+package pl.poznan.put.promethee.xmcda;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.xmcda.ProgramExecutionResult;
+
+import pl.poznan.put.promethee.preference.ComparedElements;
+import pl.poznan.put.promethee.preference.PreferenceFilter;
+import pl.poznan.put.promethee.preference.PreferenceRows;
+
+/**
+ * Computes and writes one shard of the results: shard i of N holds the i-th
+ * of N consecutive ranges of rows of preferences.xml and of
+ * partial_preferences.xml, in their output order. Each shard is a valid
+ * XMCDA file, shards are combined into the standard results by
+ * {@link ShardsMerger}. The number of the shard is written as {@code i/N} in
+ * {@value #SHARD_FILE} so that the merger checks the shards.
+ */
+public class ShardedResultsWriter {
+	public static final String SHARD_FILE = "shard.txt";
+
+	/**
+	 * @param inputs
+	 * @param params
+	 *            arguments with the shard to compute
+	 * @param executionResult
+	 * @param version
+	 */
+	public static void writeResultFiles(InputsHandler.Inputs inputs, Utils.Arguments params,
+			ProgramExecutionResult executionResult, Utils.XMCDA_VERSION version) {
+		if (version != Utils.XMCDA_VERSION.v2 && version != Utils.XMCDA_VERSION.v3) {
+			executionResult.addError("XMCDA_VERSION not specified");
+			return;
+		}
+		ComparedElements elements = new ComparedElements(inputs);
+		int[] preferencesRows = getShardRows(elements.getSortedRows(), params.shard, params.shards);
+		int[] partialPreferencesRows = getShardRows(elements.getRows(), params.shard, params.shards);
+		int[] rows = params.partialPreferences
+				? IntStream.concat(Arrays.stream(preferencesRows), Arrays.stream(partialPreferencesRows)).distinct()
+						.toArray()
+				: preferencesRows;
+		PreferenceRows results;
+		try {
+			results = PreferenceRows.calculate(inputs, rows, params.threads,
+					params.partialPreferences ? params.partialPreferencesPrecision : null);
+		} catch (Throwable t) {
+			executionResult.addError(Utils.getMessage("The calculation could not be performed, reason: ", t));
+			return;
+		}
+		PreferenceFilter filter = params.getPreferenceFilter();
+		AlternativesMatrixWriter.RowColumns rowColumns = row -> filter.filterColumns(elements.getColumns(row),
+				column -> results.getPreference(row, column));
+		writeResultFile("preferences", elements, preferencesRows, rowColumns, new String[] { null },
+				(row, column, index) -> results.getPreference(row, column), false, executionResult, params,
+				version);
+		if (params.partialPreferences) {
+			String[] criteria = results.getCriteria().getIds().toArray(new String[0]);
+			writeResultFile("partial_preferences", elements, partialPreferencesRows, rowColumns, criteria,
+					results::getPartialPreference, params.sparsePartialPreferences, executionResult, params,
+					version);
+		}
+		if (!executionResult.isError()) {
+			writeShardFile(params, executionResult);
+		}
+		if (version == Utils.XMCDA_VERSION.v2 && !executionResult.isError()) {
+			executionResult.addDebug("Success");
+		}
+	}
+
+	private static void writeShardFile(Utils.Arguments params, ProgramExecutionResult executionResult) {
+		File shardFile = new File(params.outputDirectory, SHARD_FILE);
+		try {
+			Files.write(shardFile.toPath(),
+					(params.shard + "/" + params.shards + "\n").getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			executionResult.addError(Utils.getMessage("Error while writing " + SHARD_FILE + ", reason: ", e));
+		}
+	}
+
+	/**
+	 * @param rows
+	 *            rows in output order
+	 * @param shard
+	 *            number of the shard, from 1 to shards
+	 * @return rows of the shard, in output order
+	 */
+	static int[] getShardRows(int[] rows, int shard, int shards) {
+		int from = (int) ((long) rows.length * (shard - 1) / shards);
+		int to = (int) ((long) rows.length * shard / shards);
+		return Arrays.copyOfRange(rows, from, to);
+	}
+
+	private static void writeResultFile(String outputName, ComparedElements elements, int[] rows,
+			AlternativesMatrixWriter.RowColumns rowColumns, String[] valuesIds,
+			AlternativesMatrixWriter.PairValues values, boolean sparse, ProgramExecutionResult executionResult,
+			Utils.Arguments params, Utils.XMCDA_VERSION version) {
+		File outputFile = new File(params.outputDirectory, String.format("%s.xml", outputName));
+		String tag = version == Utils.XMCDA_VERSION.v2 ? OutputsHandler.xmcdaV2Tag(outputName)
+				: OutputsHandler.xmcdaV3Tag(outputName);
+		try {
+			AlternativesMatrixWriter.write(outputFile, tag, version, elements, rows, rowColumns, valuesIds, values,
+					sparse);
+		} catch (Throwable t) {
+			final String err = String.format("Error while writing %s.xml, reason: ", outputName);
+			executionResult.addError(Utils.getMessage(err, t));
+			outputFile.delete();
+		}
+	}
+}
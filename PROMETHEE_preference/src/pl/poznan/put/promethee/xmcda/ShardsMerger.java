@@ -0,0 +1,228 @@
+package pl.poznan.put.promethee.xmcda;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Combines the shards written with option {@code --shard} into the standard
+ * preferences.xml and partial_preferences.xml. Shards are written by
+ * {@link AlternativesMatrixWriter} with one tag per line, so rows are copied
+ * line by line without parsing them: the merged file is the beginning of the
+ * shards, the rows of every shard in the order of the shards, and the end of
+ * the shards. Shard directories may be given in any order, but shards 1 to N
+ * of the same N must all be given once.
+ *
+ * Usage: ShardsMerger output_dir shard_dir_1 ... shard_dir_N
+ */
+public class ShardsMerger {
+	private static final String[] ROWS_TAGS = { "row", "pair" };
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: ShardsMerger output_dir shard_dir_1 ... shard_dir_N");
+			System.exit(-1);
+		}
+		File outputDirectory = new File(args[0]);
+		File[] directories = new File[args.length - 1];
+		for (int i = 1; i < args.length; i++) {
+			directories[i - 1] = new File(args[i]);
+		}
+		try {
+			File[] shards = sortShards(directories);
+			merge("preferences.xml", shards, outputDirectory);
+			if (new File(shards[0], "partial_preferences.xml").exists()) {
+				merge("partial_preferences.xml", shards, outputDirectory);
+			}
+		} catch (Throwable t) {
+			System.err.println(Utils.getMessage("Could not merge the shards, reason: ", t));
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * @param directories
+	 *            directories of the shards, in any order
+	 * @return directories in the order of the shards
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             if a shard number is missing or invalid, shards are not
+	 *             all the shards of the same number of shards or a shard is
+	 *             given twice
+	 */
+	public static File[] sortShards(File[] directories) throws IOException {
+		File[] shards = new File[directories.length];
+		for (File directory : directories) {
+			File shardFile = new File(directory, ShardedResultsWriter.SHARD_FILE);
+			if (!shardFile.isFile()) {
+				throw new IllegalArgumentException("Missing file " + shardFile);
+			}
+			String number = new String(Files.readAllBytes(shardFile.toPath()), StandardCharsets.UTF_8).trim();
+			String[] parts = number.split("/");
+			int shard;
+			int shardsCount;
+			try {
+				shard = parts.length == 2 ? Integer.parseInt(parts[0]) : 0;
+				shardsCount = parts.length == 2 ? Integer.parseInt(parts[1]) : 0;
+			} catch (NumberFormatException e) {
+				shard = 0;
+				shardsCount = 0;
+			}
+			if (shard < 1 || shard > shardsCount) {
+				throw new IllegalArgumentException("Invalid shard number " + number + " in " + shardFile);
+			}
+			if (shardsCount != directories.length) {
+				throw new IllegalArgumentException("Shard " + directory + " is one of " + shardsCount
+						+ " shards but " + directories.length + " shards are given");
+			}
+			if (shards[shard - 1] != null) {
+				throw new IllegalArgumentException(
+						"Shards " + shards[shard - 1] + " and " + directory + " are both shard " + number);
+			}
+			shards[shard - 1] = directory;
+		}
+		return shards;
+	}
+
+	/**
+	 * @param fileName
+	 *            name of the file in every shard directory and in the output
+	 *            directory
+	 * @param shards
+	 *            directories of the shards, in the order of the shards
+	 * @param outputDirectory
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             if a file is missing or shards do not begin and end the same
+	 *             way
+	 */
+	public static void merge(String fileName, File[] shards, File outputDirectory) throws IOException {
+		File[] files = new File[shards.length];
+		for (int i = 0; i < shards.length; i++) {
+			files[i] = new File(shards[i], fileName);
+			if (!files[i].isFile()) {
+				throw new IllegalArgumentException("Missing file " + files[i]);
+			}
+		}
+		File outputFile = new File(outputDirectory, fileName);
+		try (Writer output = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8))) {
+			merge(files, output);
+		} catch (IOException | RuntimeException e) {
+			outputFile.delete();
+			throw e;
+		}
+	}
+
+	private static void merge(File[] files, Writer output) throws IOException {
+		List<String> beginning = null;
+		List<String> end = null;
+		// shards without rows are made of their beginning and their end only
+		List<List<String>> emptyShards = new ArrayList<>();
+		for (File file : files) {
+			List<String> shardBeginning = new ArrayList<>();
+			List<String> shardEnd = new ArrayList<>();
+			boolean withRows = false;
+			boolean inRow = false;
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (isRowStart(line)) {
+						if (!withRows) {
+							withRows = true;
+							if (beginning == null) {
+								beginning = shardBeginning;
+								writeLines(output, beginning);
+							} else if (!beginning.equals(shardBeginning)) {
+								throw new IllegalArgumentException(
+										"Shard " + file + " does not begin as the previous shards");
+							}
+						}
+						// lines between two rows belong to the rows
+						writeLines(output, shardEnd);
+						shardEnd.clear();
+						inRow = true;
+						writeLine(output, line);
+					} else if (inRow) {
+						writeLine(output, line);
+						inRow = !isRowEnd(line);
+					} else if (withRows) {
+						shardEnd.add(line);
+					} else {
+						shardBeginning.add(line);
+					}
+				}
+			}
+			if (!withRows) {
+				emptyShards.add(shardBeginning);
+			} else if (end == null) {
+				end = new ArrayList<>(shardEnd);
+			} else if (!end.equals(shardEnd)) {
+				throw new IllegalArgumentException("Shard " + file + " does not end as the previous shards");
+			}
+		}
+		if (beginning == null) {
+			// no rows at all, the first shard is the merged file
+			writeLines(output, emptyShards.get(0));
+			return;
+		}
+		List<String> whole = new ArrayList<>(beginning);
+		whole.addAll(end);
+		for (List<String> emptyShard : emptyShards) {
+			if (!whole.equals(emptyShard)) {
+				throw new IllegalArgumentException("Shards without rows do not begin and end as the other shards");
+			}
+		}
+		writeLines(output, end);
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             if the line holds a row start with other tags, the shard
+	 *             was then not written with one tag per line
+	 */
+	private static boolean isRowStart(String line) {
+		String trimmed = line.trim();
+		for (String tag : ROWS_TAGS) {
+			if (trimmed.equals("<" + tag + ">")) {
+				return true;
+			}
+			if (trimmed.contains("<" + tag + ">")) {
+				throw new IllegalArgumentException("Shards must be written with one tag per line");
+			}
+		}
+		return false;
+	}
+
+	private static boolean isRowEnd(String line) {
+		String trimmed = line.trim();
+		for (String tag : ROWS_TAGS) {
+			if (trimmed.equals("</" + tag + ">")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void writeLines(Writer output, List<String> lines) throws IOException {
+		for (String line : lines) {
+			writeLine(output, line);
+		}
+	}
+
+	private static void writeLine(Writer output, String line) throws IOException {
+		output.write(line);
+		output.write('\n');
+	}
+}
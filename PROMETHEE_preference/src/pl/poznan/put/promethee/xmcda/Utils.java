@@ -7,10 +7,17 @@ import org.xmcda.converters.v2_v3.XMCDAConverter;
 import org.xmcda.parsers.xml.xmcda_v2.XMCDAParser;
 import org.xml.sax.SAXException;
 
+import pl.poznan.put.promethee.preference.GaussianTable;
+import pl.poznan.put.promethee.preference.ParallelRows;
+import pl.poznan.put.promethee.preference.PreferenceFilter;
+import pl.poznan.put.promethee.preference.StoragePrecision;
+
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -29,6 +36,42 @@ public class Utils {
 	public static class Arguments {
 		public String inputDirectory;
 		public String outputDirectory;
+		public int threads = 1;
+		public boolean partialPreferences = true;
+		public boolean sparsePartialPreferences = false;
+		public boolean streamPerformanceTable = false;
+		public String previousResultsDirectory;
+		public List<String> changedElements = new ArrayList<>();
+		public String mappedStorageDirectory;
+		public StoragePrecision partialPreferencesPrecision = StoragePrecision.DOUBLE;
+		public int chunkSize = 0;
+		public double gaussianMaxError = 0;
+		/**
+		 * Number of the shard, from 1 to {@code shards}, or 0 when all the
+		 * rows are computed
+		 */
+		public int shard = 0;
+		public int shards = 0;
+		/**
+		 * Minimal preference of the pairs written to the outputs, or NaN to
+		 * write pairs whatever their preference
+		 */
+		public double minPreference = Double.NaN;
+		public int topK = 0;
+		public String cacheDirectory;
+		/**
+		 * Directory with one subdirectory of parameter files per scenario, or
+		 * null
+		 */
+		public String scenariosDirectory;
+		/**
+		 * Maximal number of bytes of the results kept in the cache directory
+		 */
+		public long cacheSize = 1L << 30;
+
+		public PreferenceFilter getPreferenceFilter() {
+			return new PreferenceFilter(minPreference, topK);
+		}
 	}
 
 	/**
@@ -49,35 +92,197 @@ public class Utils {
 
 	/**
 	 * Parses the command-line and search for the input directory (options
-	 * {@code -i} or {@code --input-directory}) and for the output directory
-	 * (options {@code -o} or {@code --output-directory}).
+	 * {@code -i} or {@code --input-directory}), for the output directory
+	 * (options {@code -o} or {@code --output-directory}) and for the optional
+	 * settings: number of threads (options {@code -t} or {@code --threads}),
+	 * directory of previous results (options {@code -p} or
+	 * {@code --previous-results}), comma-separated ids of elements changed since
+	 * the previous results (options {@code -c} or {@code --changed-elements}),
+	 * directory of memory-mapped result matrices (options {@code -m} or
+	 * {@code --mapped-storage}), precision of partial preferences kept in
+	 * memory (option {@code --partial-precision}), size of the chunks of
+	 * alternatives streamed against profiles (option {@code --chunk-size}),
+	 * maximum error of the approximated Gaussian criterion (option
+	 * {@code --gaussian-max-error}), shard of the rows to compute (option
+	 * {@code --shard i/N}), filters of the written pairs (options
+	 * {@code --min-preference} and {@code --top-k}), directory and size in
+	 * bytes of the cache of results (options {@code --cache-dir} and
+	 * {@code --cache-size}), directory of the scenarios of a batch (option
+	 * {@code --scenarios}) and flags {@code --skip-partial-preferences},
+	 * {@code --sparse-partial-preferences} and
+	 * {@code --stream-performance-table}.
 	 *
 	 * @param args
-	 *            the arguments of the command-line (its length must be equal to
-	 *            4).
+	 *            the arguments of the command-line
 	 * @return an {@link Arguments argument} with non-null fields
 	 *         {@code inputDirectory} and {@code outputDirectory}
 	 * @throws InvalidCommandLineException
 	 *             in one or both input/output directories are not present in
-	 *             the command line.
+	 *             the command line, if an option is unknown or has an invalid
+	 *             value, if changed elements are given without previous
+	 *             results, or if options which can not be used together are
+	 *             given.
 	 */
 	public static Arguments parseCmdLineArguments(String[] args) throws InvalidCommandLineException {
-		// Let's make it dead simple
-		if (args.length != 4)
-			throw new InvalidCommandLineException("Invalid number of arguments");
 		Arguments arguments = new Arguments();
-		for (int index = 0; index <= 2; index += 2) {
+		for (int index = 0; index < args.length; index++) {
 			String arg = args[index];
+			if ("--skip-partial-preferences".equals(arg)) {
+				arguments.partialPreferences = false;
+				continue;
+			}
+			if ("--sparse-partial-preferences".equals(arg)) {
+				arguments.sparsePartialPreferences = true;
+				continue;
+			}
+			if ("--stream-performance-table".equals(arg)) {
+				arguments.streamPerformanceTable = true;
+				continue;
+			}
+			if (index + 1 >= args.length)
+				throw new InvalidCommandLineException("Missing value of option " + arg);
+			String value = args[++index];
 			if ("-i".equals(arg) || "--input-directory".equals(arg))
-				arguments.inputDirectory = args[index + 1];
+				arguments.inputDirectory = value;
 			else if ("-o".equals(arg) || "--output-directory".equals(arg))
-				arguments.outputDirectory = args[index + 1];
+				arguments.outputDirectory = value;
+			else if ("-t".equals(arg) || "--threads".equals(arg))
+				arguments.threads = parseThreads(arg, value);
+			else if ("-p".equals(arg) || "--previous-results".equals(arg))
+				arguments.previousResultsDirectory = value;
+			else if ("-c".equals(arg) || "--changed-elements".equals(arg))
+				arguments.changedElements.addAll(Arrays.asList(value.split(",")));
+			else if ("-m".equals(arg) || "--mapped-storage".equals(arg))
+				arguments.mappedStorageDirectory = value;
+			else if ("--partial-precision".equals(arg))
+				arguments.partialPreferencesPrecision = parsePrecision(arg, value);
+			else if ("--chunk-size".equals(arg))
+				arguments.chunkSize = parsePositiveInt(arg, value);
+			else if ("--gaussian-max-error".equals(arg))
+				arguments.gaussianMaxError = parseMaxError(arg, value);
+			else if ("--shard".equals(arg))
+				parseShard(arguments, arg, value);
+			else if ("--min-preference".equals(arg))
+				arguments.minPreference = parseNumber(arg, value);
+			else if ("--top-k".equals(arg))
+				arguments.topK = parsePositiveInt(arg, value);
+			else if ("--cache-dir".equals(arg))
+				arguments.cacheDirectory = value;
+			else if ("--cache-size".equals(arg))
+				arguments.cacheSize = parsePositiveLong(arg, value);
+			else if ("--scenarios".equals(arg))
+				arguments.scenariosDirectory = value;
+			else
+				throw new InvalidCommandLineException("Unknown option " + arg);
 		}
 		if (arguments.inputDirectory == null || arguments.outputDirectory == null)
 			throw new InvalidCommandLineException("Missing parameters");
+		if (!arguments.changedElements.isEmpty() && arguments.previousResultsDirectory == null)
+			throw new InvalidCommandLineException("Option -c requires option -p");
+		checkConflicts(arguments);
 		return arguments;
 	}
 
+	/**
+	 * Rejects the options which can not be used together, before any of them
+	 * selects how the results are computed.
+	 */
+	private static void checkConflicts(Arguments arguments) throws InvalidCommandLineException {
+		boolean previous = arguments.previousResultsDirectory != null;
+		boolean mapped = arguments.mappedStorageDirectory != null;
+		boolean reducedPrecision = arguments.partialPreferencesPrecision != StoragePrecision.DOUBLE;
+		boolean cache = arguments.cacheDirectory != null;
+		boolean scenarios = arguments.scenariosDirectory != null;
+		if (arguments.chunkSize > 0 && (previous || mapped || reducedPrecision || arguments.shards > 0
+				|| arguments.topK > 0 || cache || scenarios))
+			throw new InvalidCommandLineException("Option --chunk-size can not be used with options -p, -m,"
+					+ " --partial-precision, --shard, --top-k, --cache-dir or --scenarios");
+		if (scenarios && (previous || mapped || reducedPrecision || arguments.shards > 0 || cache))
+			throw new InvalidCommandLineException("Option --scenarios can not be used with options -p, -m,"
+					+ " --partial-precision, --shard or --cache-dir");
+		if (arguments.shards > 0 && (previous || mapped || cache))
+			throw new InvalidCommandLineException("Option --shard can not be used with options -p, -m or --cache-dir");
+		if (cache && mapped)
+			throw new InvalidCommandLineException("Option --cache-dir can not be used with option -m");
+	}
+
+	private static int parsePositiveInt(String option, String value) throws InvalidCommandLineException {
+		try {
+			int number = Integer.parseInt(value);
+			if (number > 0)
+				return number;
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new InvalidCommandLineException("Option " + option + " requires a positive integer");
+	}
+
+	private static int parseThreads(String option, String value) throws InvalidCommandLineException {
+		try {
+			int number = Integer.parseInt(value);
+			if (number > 0 && number <= ParallelRows.MAX_THREADS)
+				return number;
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new InvalidCommandLineException(
+				"Option " + option + " requires an integer between 1 and " + ParallelRows.MAX_THREADS);
+	}
+
+	private static long parsePositiveLong(String option, String value) throws InvalidCommandLineException {
+		try {
+			long number = Long.parseLong(value);
+			if (number > 0)
+				return number;
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new InvalidCommandLineException("Option " + option + " requires a positive integer");
+	}
+
+	private static StoragePrecision parsePrecision(String option, String value) throws InvalidCommandLineException {
+		StoragePrecision precision = StoragePrecision.fromName(value);
+		if (precision == null)
+			throw new InvalidCommandLineException(
+					"Option " + option + " requires one of double, float32, fixed16, step2");
+		return precision;
+	}
+
+	private static double parseMaxError(String option, String value) throws InvalidCommandLineException {
+		try {
+			double maxError = Double.parseDouble(value);
+			if (maxError >= GaussianTable.MIN_MAX_ERROR && maxError < 1)
+				return maxError;
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new InvalidCommandLineException(
+				"Option " + option + " requires a number between " + GaussianTable.MIN_MAX_ERROR + " and 1");
+	}
+
+	private static double parseNumber(String option, String value) throws InvalidCommandLineException {
+		try {
+			double number = Double.parseDouble(value);
+			if (!Double.isNaN(number))
+				return number;
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new InvalidCommandLineException("Option " + option + " requires a number");
+	}
+
+	private static void parseShard(Arguments arguments, String option, String value)
+			throws InvalidCommandLineException {
+		String[] parts = value.split("/");
+		if (parts.length == 2) {
+			arguments.shard = parsePositiveInt(option, parts[0]);
+			arguments.shards = parsePositiveInt(option, parts[1]);
+			if (arguments.shard <= arguments.shards)
+				return;
+		}
+		throw new InvalidCommandLineException("Option " + option + " requires i/N with i from 1 to N");
+	}
+
 	public static void loadXMCDAv3(XMCDA xmcda, final File file, boolean mandatory,
 			ProgramExecutionResult x_execution_results, String... load_tags) {
 		final org.xmcda.parsers.xml.xmcda_v3.XMCDAParser parser = new org.xmcda.parsers.xml.xmcda_v3.XMCDAParser();
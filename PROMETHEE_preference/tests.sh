@@ -20,7 +20,17 @@ for i in $(seq 1 ${NB_TESTS}); do
     REFERENCE_OUT="tests/out${i}.v${version}"
     OUT=$(mktemp --tmpdir=. -d tests_tmp/out.XXX)
     echo "${IN}"
-    ${CMD} "--v${version}" -i "${IN}" -o "${OUT}"
+    # options of the test, if any, are in the file "options" of the input directory
+    OPTIONS=""
+    if [ -f "${IN}/options" ]; then
+        OPTIONS=$(cat "${IN}/options")
+    fi
+    if [ -d "${IN}/shards" ]; then
+        # the shards written by run.sh with option --shard are merged
+        ./merge_shards.sh "${OUT}" "${IN}"/shards/*
+    else
+        ${CMD} "--v${version}" -i "${IN}" -o "${OUT}" ${OPTIONS}
+    fi
     diff -x README -ruBw "${REFERENCE_OUT}" "${OUT}"
     ret_diff=$?
     if [ $ret_diff -ne 0 ]; then
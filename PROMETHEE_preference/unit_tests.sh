@@ -0,0 +1,19 @@
+#! /bin/bash
+# Usage:
+#  unit_tests.sh
+# The classes of the src and unit_tests directories have to be compiled into
+# ./bin. Every class named *Test is run, a failing test throws an error.
+
+source common_settings.sh
+
+failed=0
+for test in $(cd unit_tests && find . -name '*Test.java' | sort); do
+    class=$(echo "${test#./}" | sed -e 's/\.java$//' -e 's#/#.#g')
+    echo "${class}"
+    ${JAVA} -cp ${CLASSPATH} "${class}"
+    if [ $? -ne 0 ]; then
+        echo "FAILED: ${class}"
+        failed=1
+    fi
+done
+exit ${failed}
@@ -0,0 +1,51 @@
+package pl.poznan.put.promethee.preference;
+
+/**
+ * Assertions of the unit tests. A failed check throws an
+ * {@link AssertionError}, which stops the test with a non-zero exit status.
+ */
+public class Checks {
+	public interface Action {
+		void run() throws Exception;
+	}
+
+	private Checks() {
+	}
+
+	public static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new AssertionError(message);
+		}
+	}
+
+	/**
+	 * Checks that both values have the same bits, results of different
+	 * strategies are expected to be identical, not only close.
+	 */
+	public static void checkSame(double expected, double actual, String message) {
+		if (Double.doubleToLongBits(expected) != Double.doubleToLongBits(actual)) {
+			throw new AssertionError(message + ": expected " + expected + " but was " + actual);
+		}
+	}
+
+	public static void checkClose(double expected, double actual, double maxError, String message) {
+		if (!(Math.abs(expected - actual) <= maxError)) {
+			throw new AssertionError(message + ": expected " + expected + " +/- " + maxError + " but was " + actual);
+		}
+	}
+
+	/**
+	 * @return the exception thrown by the action
+	 */
+	public static <T extends Throwable> T checkThrows(Class<T> type, Action action, String message) {
+		try {
+			action.run();
+		} catch (Throwable e) {
+			if (type.isInstance(e)) {
+				return type.cast(e);
+			}
+			throw new AssertionError(message + ": unexpected " + e, e);
+		}
+		throw new AssertionError(message + ": no " + type.getSimpleName() + " thrown");
+	}
+}
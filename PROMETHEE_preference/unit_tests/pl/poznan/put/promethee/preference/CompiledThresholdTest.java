@@ -0,0 +1,90 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Random;
+
+import org.xmcda.Threshold;
+
+/**
+ * Thresholds compiled into primitive fields have the values of the XMCDA
+ * thresholds, and kernels are chosen by the kind of the thresholds their
+ * function uses.
+ */
+public class CompiledThresholdTest {
+
+	public static void main(String[] args) throws Exception {
+		testValues();
+		testKernels();
+		testUnusedThresholds();
+	}
+
+	private static void testValues() {
+		Checks.check(CompiledThreshold.compile(null) == null, "missing threshold");
+		CompiledThreshold constant = CompiledThreshold.compile(TestInputs.constant(2.5));
+		Checks.check(constant.isConstant(), "constant threshold");
+		Checks.checkSame(2.5, constant.getConstant(), "constant");
+		CompiledThreshold linear = CompiledThreshold.compile(TestInputs.linear(0.3, 1.5));
+		Checks.check(!linear.isConstant(), "linear threshold");
+		Random random = new Random(170);
+		for (int i = 0; i < 1000; i++) {
+			double base = i < 2 ? -i : (random.nextDouble() - 0.5) * 1000;
+			Checks.checkSame(2.5, constant.value(base), "constant at " + base);
+			Checks.checkSame(0.3 * base + 1.5, linear.value(base), "linear at " + base);
+		}
+	}
+
+	/**
+	 * Kernels of constant thresholds compute no threshold per pair, a linear
+	 * threshold of the function needs the kernel of linear thresholds.
+	 */
+	private static void testKernels() throws Exception {
+		Threshold<Double> constant = TestInputs.constant(10.0);
+		Threshold<Double> linear = TestInputs.linear(0.1, 5.0);
+		Class<?>[] kernels = { UsualKernel.class, UShapeKernel.class, VShapeKernel.class, LevelKernel.class,
+				VShapeWithIndifferenceKernel.class, GaussianKernel.class };
+		for (int function = 1; function <= 6; function++) {
+			String name = "function " + function;
+			Checks.check(kernels[function - 1].isInstance(PreferenceKernel.compile("MAX", function, constant,
+					constant, constant)), name + " with constant thresholds");
+			boolean withP = function == 3 || function == 4 || function == 5;
+			boolean withQ = function == 2 || function == 4 || function == 5;
+			boolean withS = function == 6;
+			PreferenceKernel linearP = PreferenceKernel.compile("MIN", function, linear, constant, constant);
+			PreferenceKernel linearQ = PreferenceKernel.compile("MIN", function, constant, linear, constant);
+			PreferenceKernel linearS = PreferenceKernel.compile("MIN", function, constant, constant, linear);
+			Checks.check(linearP instanceof LinearThresholdsKernel == withP, name + " with a linear p");
+			Checks.check(linearQ instanceof LinearThresholdsKernel == withQ, name + " with a linear q");
+			Checks.check(linearS instanceof LinearThresholdsKernel == withS, name + " with a linear s");
+		}
+		Checks.check(PreferenceKernel.compile("MAX", 6, null, null, constant,
+				new GaussianTable(1e-4)) instanceof ApproximateGaussianKernel, "approximate Gaussian");
+		Checks.check(PreferenceKernel.compile("MAX", 6, null, null, linear,
+				new GaussianTable(1e-4)) instanceof LinearThresholdsKernel, "approximate Gaussian of a linear s");
+	}
+
+	/**
+	 * Linear thresholds the function does not use are not required and do not
+	 * change the preferences.
+	 */
+	private static void testUnusedThresholds() throws Exception {
+		Threshold<Double> linear = TestInputs.linear(0.2, 3.0);
+		Random random = new Random(171);
+		for (String direction : new String[] { "MAX", "MIN" }) {
+			// V-shape with a linear p, U-shape with a linear q
+			PreferenceKernel vShape = PreferenceKernel.compile(direction, 3, linear, null, linear);
+			PreferenceKernel uShape = PreferenceKernel.compile(direction, 2, linear, linear, null);
+			GeneralisedCriteria criteria = new GeneralisedCriteria();
+			for (int i = 0; i < 500; i++) {
+				double ga = random.nextDouble() * 100;
+				double gb = i % 7 == 0 ? ga : random.nextDouble() * 100;
+				double base = "MAX".equals(direction) ? Math.min(ga, gb) : Math.max(ga, gb);
+				double difference = "MAX".equals(direction) ? ga - gb : gb - ga;
+				double threshold = 0.2 * base + 3.0;
+				String pair = direction + " (" + ga + ", " + gb + ")";
+				Checks.checkSame(criteria.calculate(3, difference, threshold, null, null), vShape.calculate(ga, gb),
+						"V-shape " + pair);
+				Checks.checkSame(criteria.calculate(2, difference, null, threshold, null), uShape.calculate(ga, gb),
+						"U-shape " + pair);
+			}
+		}
+	}
+}
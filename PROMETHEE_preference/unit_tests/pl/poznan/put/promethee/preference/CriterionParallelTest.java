@@ -0,0 +1,109 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Random;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Preferences computed criterion by criterion are the ones of the tiles,
+ * without partial preferences and with partial preferences of every
+ * precision.
+ */
+public class CriterionParallelTest {
+
+	public static void main(String[] args) throws Exception {
+		testStrategy();
+		testResults();
+		testStepResults();
+	}
+
+	private static void testStrategy() {
+		Checks.check(!Preference.isCriterionParallel(10, 1000, 1), "single thread");
+		Checks.check(!Preference.isCriterionParallel(10, 7, 2), "few criteria");
+		Checks.check(!Preference.isCriterionParallel(100000, 1000, 2), "many rows");
+		if (Runtime.getRuntime().availableProcessors() >= 2) {
+			Checks.check(Preference.isCriterionParallel(64, 8, 2), "few rows and many criteria");
+			// 8 blocks of rows are enough for 2 threads
+			Checks.check(!Preference.isCriterionParallel(256, 8, 2), "enough rows");
+		}
+	}
+
+	/**
+	 * Chunks of rows are sized by the number of elements, so the sizes give
+	 * one chunk, several chunks and chunks of one row.
+	 */
+	private static void testResults() throws Exception {
+		StoragePrecision[] precisions = { null, StoragePrecision.DOUBLE, StoragePrecision.FLOAT32,
+				StoragePrecision.FIXED16 };
+		for (int alternatives : new int[] { 5, 40, 150, 1100 }) {
+			for (int profiles : new int[] { 0, 3 }) {
+				int criteria = alternatives > 500 ? 3 : 11;
+				Inputs inputs = TestInputs.random(alternatives, profiles, criteria, new Random(250 + alternatives));
+				for (StoragePrecision precision : precisions) {
+					String name = alternatives + " alternatives, " + profiles + " profiles, "
+							+ (precision == null ? "no partial preferences" : precision.getName());
+					PreferenceResults tiles = Preference.calculateResults(inputs, 1, matrix(inputs),
+							tensor(inputs, precision));
+					for (int threads : new int[] { 1, 3 }) {
+						TestInputs.checkSameResults(tiles, calculateByCriteria(inputs, threads, precision),
+								name + " by " + threads + " threads");
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Step criteria whose preferences are packed in the tiles.
+	 */
+	private static void testStepResults() throws Exception {
+		Inputs inputs = TestInputs.random(60, 2, 9, new Random(251));
+		for (int c = 0; c < inputs.criteria_ids.size(); c++) {
+			inputs.generalisedCriteria.put(inputs.criteria_ids.get(c), new int[] { 1, 2, 4 }[c % 3]);
+		}
+		for (StoragePrecision precision : new StoragePrecision[] { null, StoragePrecision.STEP2 }) {
+			TestInputs.checkSameResults(
+					Preference.calculateResults(inputs, 1, matrix(inputs), tensor(inputs, precision)),
+					calculateByCriteria(inputs, 2, precision), "step criteria " + precision);
+		}
+	}
+
+	private static PreferenceResults calculateByCriteria(Inputs inputs, int threads, StoragePrecision precision)
+			throws Exception {
+		ComparedElements elements = new ComparedElements(inputs);
+		IdsDictionary criteria = new IdsDictionary(inputs.criteria_ids);
+		int m = criteria.size();
+		PreferenceKernel[] kernels = new PreferenceKernel[m];
+		double[][] evaluations = new double[m][];
+		DistinctValuesTable[] tables = new DistinctValuesTable[m];
+		for (int c = 0; c < m; c++) {
+			kernels[c] = Preference.compileKernel(inputs, criteria.getId(c));
+			evaluations[c] = Preference.getEvaluations(inputs, elements, criteria.getId(c));
+			tables[c] = DistinctValuesTable.compress(kernels[c], evaluations[c]);
+		}
+		double[] weights = Preference.getWeights(inputs, criteria);
+		double totalWeight = 0.0;
+		for (double weight : weights) {
+			totalWeight += weight;
+		}
+		PreferencesMatrix preferences = matrix(inputs);
+		PartialPreferencesTensor tensor = tensor(inputs, precision);
+		Preference.calculateByCriteria(elements, kernels, evaluations, tables, weights, totalWeight, preferences,
+				tensor, threads);
+		return new PreferenceResults(preferences, tensor);
+	}
+
+	private static PreferencesMatrix matrix(Inputs inputs) {
+		return new PreferencesMatrix(new ComparedElements(inputs));
+	}
+
+	private static PartialPreferencesTensor tensor(Inputs inputs, StoragePrecision precision) {
+		if (precision == null) {
+			return null;
+		}
+		ComparedElements elements = new ComparedElements(inputs);
+		IdsDictionary criteria = new IdsDictionary(inputs.criteria_ids);
+		return new PartialPreferencesTensor(elements, criteria,
+				precision.create(PartialPreferencesTensor.size(elements, criteria)));
+	}
+}
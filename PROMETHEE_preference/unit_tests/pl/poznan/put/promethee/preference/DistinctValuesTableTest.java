@@ -0,0 +1,79 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Random;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Preferences read from a {@link DistinctValuesTable} are the ones of its
+ * kernel.
+ */
+public class DistinctValuesTableTest {
+
+	public static void main(String[] args) throws Exception {
+		testCompress();
+		testTable();
+		testResults();
+	}
+
+	private static void testCompress() throws Exception {
+		PreferenceKernel kernel = PreferenceKernel.compile("MAX", 3, TestInputs.constant(2.0), null, null);
+		Checks.check(DistinctValuesTable.compress(kernel, new double[] { 1, 2, 3, 4, 5, 6 }) == null,
+				"table of distinct evaluations");
+		Checks.check(DistinctValuesTable.compress(kernel, new double[] { 1, 2, 3, 4, 4, 4 }) == null,
+				"table of more than half distinct evaluations");
+		DistinctValuesTable table = DistinctValuesTable.compress(kernel, new double[] { 1, 2, 3, 1, 2, 3 });
+		Checks.check(table != null && table.getDistinctCount() == 3, "table of 3 distinct evaluations");
+		// evaluations are compared by bits
+		table = DistinctValuesTable.compress(kernel, new double[] { 0.0, -0.0, Double.NaN, 0.0, -0.0, Double.NaN });
+		Checks.check(table != null && table.getDistinctCount() == 3, "table of signed zeros and NaN");
+	}
+
+	private static void testTable() throws Exception {
+		Random random = new Random(50);
+		double[] evaluations = new double[40];
+		int[] columns = new int[evaluations.length];
+		for (int i = 0; i < evaluations.length; i++) {
+			evaluations[i] = i % 7 == 6 ? Double.NaN : random.nextInt(6) * 0.5;
+			columns[i] = i;
+		}
+		PreferenceKernel[] kernels = { PreferenceKernel.compile("MAX", 1, null, null, null),
+				PreferenceKernel.compile("MIN", 4, TestInputs.constant(1.0), TestInputs.constant(0.5), null),
+				PreferenceKernel.compile("MAX", 5, TestInputs.constant(1.2), TestInputs.constant(0.2), null),
+				PreferenceKernel.compile("MIN", 5, TestInputs.linear(0.1, 1.0), TestInputs.constant(0.2), null) };
+		for (int i = 0; i < kernels.length; i++) {
+			PreferenceKernel kernel = kernels[i];
+			DistinctValuesTable table = DistinctValuesTable.compress(kernel, evaluations);
+			Checks.check(table != null, "table of kernel " + i);
+			for (int a = 0; a < evaluations.length; a++) {
+				double[] row = new double[evaluations.length * 2];
+				double[] forward = new double[evaluations.length];
+				double[] backward = new double[evaluations.length];
+				table.calculateRow(a, columns, row, 1, 2);
+				table.calculatePairs(a, columns, forward, 0, 1, backward, 0, 1);
+				for (int b = 0; b < evaluations.length; b++) {
+					String pair = "kernel " + i + " (" + evaluations[a] + ", " + evaluations[b] + ")";
+					double expected = kernel.calculate(evaluations[a], evaluations[b]);
+					double expectedBackward = kernel.calculate(evaluations[b], evaluations[a]);
+					Checks.checkSame(expected, row[1 + b * 2], pair + " in a row");
+					Checks.checkSame(expected, forward[b], pair + " forward");
+					Checks.checkSame(expectedBackward, backward[b], pair + " backward");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Inputs of only ordinal criteria, all read from tables.
+	 */
+	private static void testResults() throws Exception {
+		Random random = new Random(51);
+		Inputs inputs = TestInputs.random(60, 0, 6, random);
+		for (String alternative : inputs.alternatives_ids) {
+			for (String criterion : inputs.criteria_ids) {
+				inputs.performanceTable.get(alternative).put(criterion, (double) random.nextInt(4));
+			}
+		}
+		TestInputs.checkResults(inputs, Preference.calculateResults(inputs, 1, true), "ordinal criteria");
+	}
+}
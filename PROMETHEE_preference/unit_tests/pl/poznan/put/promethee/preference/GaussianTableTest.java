@@ -0,0 +1,161 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Random;
+
+import org.xmcda.Threshold;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+import pl.poznan.put.promethee.xmcda.Utils;
+import pl.poznan.put.promethee.xmcda.Utils.InvalidCommandLineException;
+
+/**
+ * Approximations of the Gaussian criterion stay within their maximum error,
+ * alone, in the kernels and in the aggregated preferences.
+ */
+public class GaussianTableTest {
+	private static final double[] MAX_ERRORS = { 0.5, 1e-2, 1e-4, 1e-7, GaussianTable.MIN_MAX_ERROR };
+
+	public static void main(String[] args) throws Exception {
+		testTables();
+		testLimits();
+		testKernels();
+		testResults();
+		testArguments();
+	}
+
+	/**
+	 * Differences sweep the table around its points and beyond its end.
+	 */
+	private static void testTables() throws Exception {
+		GeneralisedCriteria criteria = new GeneralisedCriteria();
+		Random random = new Random(180);
+		for (double maxError : MAX_ERRORS) {
+			GaussianTable table = new GaussianTable(maxError);
+			Checks.checkSame(maxError, table.getMaxError(), "maximum error");
+			for (double s : new double[] { 1.0, 0.37, 250.0, -2.0 }) {
+				double scale = table.scale(s);
+				double last = Math.abs(s) * Math.sqrt(-2 * Math.log(maxError)) * 1.5;
+				for (int i = 0; i <= 20000; i++) {
+					double difference = i < 10000 ? last * i / 10000 : random.nextDouble() * last;
+					double exact = criteria.calculate(6, difference, null, null, s);
+					Checks.checkClose(exact, table.preference(difference, scale), maxError,
+							"error " + maxError + " s " + s + " difference " + difference);
+				}
+			}
+		}
+		Checks.check(new GaussianTable(1e-2).size() < new GaussianTable(1e-4).size(), "smaller tables");
+		Checks.check(new GaussianTable(GaussianTable.MIN_MAX_ERROR).size() < 400000, "size of the finest table");
+	}
+
+	private static void testLimits() {
+		GaussianTable table = new GaussianTable(1e-4);
+		double scale = table.scale(3.0);
+		Checks.checkSame(0.0, table.preference(0.0, scale), "no difference");
+		Checks.checkSame(0.0, table.preference(-5.0, scale), "negative difference");
+		Checks.checkSame(1.0, table.preference(1e6, scale), "beyond the table");
+		Checks.checkSame(1.0, table.preference(Double.POSITIVE_INFINITY, scale), "infinite difference");
+		Checks.check(Double.isNaN(table.preference(Double.NaN, scale)), "NaN difference");
+		for (double maxError : new double[] { 0.0, 1e-11, 1.0, -1e-3, Double.NaN }) {
+			Checks.checkThrows(IllegalArgumentException.class, () -> new GaussianTable(maxError),
+					"maximum error " + maxError);
+		}
+	}
+
+	/**
+	 * Constant and linear sigma thresholds, rows and pairs of the kernels
+	 * agree with their single preferences.
+	 */
+	private static void testKernels() throws Exception {
+		GeneralisedCriteria criteria = new GeneralisedCriteria();
+		Random random = new Random(181);
+		double maxError = 1e-5;
+		GaussianTable table = new GaussianTable(maxError);
+		Threshold<Double>[] sigmas = thresholds(TestInputs.constant(12.0), TestInputs.linear(0.2, 4.0));
+		for (Threshold<Double> sigma : sigmas) {
+			for (String direction : new String[] { "MAX", "MIN" }) {
+				PreferenceKernel kernel = PreferenceKernel.compile(direction, 6, null, null, sigma, table);
+				String name = direction + (sigma.isConstant() ? " constant" : " linear") + " sigma";
+				int length = 200;
+				double[] evaluations = new double[length];
+				int[] columns = new int[length];
+				for (int k = 0; k < length; k++) {
+					evaluations[k] = random.nextDouble() * 100;
+					columns[k] = k;
+				}
+				double ga = 50.0;
+				double[] row = new double[length];
+				double[] forward = new double[length];
+				double[] backward = new double[length];
+				PreferenceKernel.Buffers buffers = new PreferenceKernel.Buffers();
+				kernel.calculateRow(ga, evaluations, columns, row, 0, 1, buffers);
+				kernel.calculatePairs(ga, evaluations, columns, forward, 0, 1, backward, 0, 1, buffers);
+				for (int k = 0; k < length; k++) {
+					double gb = evaluations[k];
+					double base = "MAX".equals(direction) ? Math.min(ga, gb) : Math.max(ga, gb);
+					double s = sigma.isConstant() ? 12.0 : 0.2 * base + 4.0;
+					double difference = "MAX".equals(direction) ? ga - gb : gb - ga;
+					String pair = name + " (" + ga + ", " + gb + ")";
+					Checks.checkClose(criteria.calculate(6, difference, null, null, s), kernel.calculate(ga, gb),
+							maxError, pair);
+					Checks.checkSame(kernel.calculate(ga, gb), row[k], pair + " in a row");
+					Checks.checkSame(kernel.calculate(ga, gb), forward[k], pair + " forward");
+					Checks.checkSame(kernel.calculate(gb, ga), backward[k], pair + " backward");
+				}
+			}
+		}
+	}
+
+	@SafeVarargs
+	private static Threshold<Double>[] thresholds(Threshold<Double>... thresholds) {
+		return thresholds;
+	}
+
+	/**
+	 * Aggregated preferences are weighted means, so they are within the
+	 * maximum error too, and the other criteria are unchanged.
+	 */
+	private static void testResults() throws Exception {
+		Inputs inputs = TestInputs.random(30, 3, 12, new Random(182));
+		PreferenceResults exact = Preference.calculateResults(inputs, 1, true);
+		double maxError = 1e-3;
+		inputs.gaussianMaxError = maxError;
+		PreferenceResults serial = Preference.calculateResults(inputs, 1, true);
+		TestInputs.checkSameResults(serial, Preference.calculateResults(inputs, 3, true), "parallel approximation");
+		ComparedElements elements = exact.getPreferences().getElements();
+		for (int a = 0; a < elements.size(); a++) {
+			for (int b : elements.getColumns(a)) {
+				String pair = "(" + a + ", " + b + ")";
+				Checks.checkClose(exact.getPreferences().get(a, b), serial.getPreferences().get(a, b), maxError,
+						"preference of " + pair);
+				for (int c = 0; c < inputs.criteria_ids.size(); c++) {
+					double expected = exact.getPartialPreferences().get(a, b, c);
+					double approximated = serial.getPartialPreferences().get(a, b, c);
+					if (inputs.generalisedCriteria.get(inputs.criteria_ids.get(c)) == 6) {
+						Checks.checkClose(expected, approximated, maxError, "Gaussian " + pair + " on " + c);
+					} else {
+						Checks.checkSame(expected, approximated, pair + " on " + c);
+					}
+				}
+			}
+		}
+	}
+
+	private static void testArguments() throws Exception {
+		Checks.checkSame(0.0, parse().gaussianMaxError, "exact by default");
+		Checks.checkSame(1e-6, parse("--gaussian-max-error", "1e-6").gaussianMaxError, "--gaussian-max-error");
+		for (String maxError : new String[] { "0", "1", "1e-12", "small" }) {
+			Checks.checkThrows(InvalidCommandLineException.class, () -> parse("--gaussian-max-error", maxError),
+					"--gaussian-max-error " + maxError);
+		}
+	}
+
+	private static Utils.Arguments parse(String... options) throws InvalidCommandLineException {
+		String[] args = new String[options.length + 4];
+		args[0] = "-i";
+		args[1] = "in";
+		args[2] = "-o";
+		args[3] = "out";
+		System.arraycopy(options, 0, args, 4, options.length);
+		return Utils.parseCmdLineArguments(args);
+	}
+}
@@ -0,0 +1,86 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import pl.poznan.put.promethee.exceptions.NullThresholdException;
+
+/**
+ * Batch methods of {@link GeneralisedCriteria} against the preference of
+ * each difference.
+ */
+public class GeneralisedCriteriaTest {
+
+	public static void main(String[] args) throws Exception {
+		testBatches();
+		testMissingThresholds();
+	}
+
+	/**
+	 * Preferences of all differences with the same thresholds, and with one
+	 * threshold per difference, are the ones of a single difference.
+	 */
+	private static void testBatches() throws Exception {
+		GeneralisedCriteria criteria = new GeneralisedCriteria();
+		Random random = new Random(90);
+		int length = 200;
+		double[] differences = new double[length + 3];
+		for (int i = 0; i < length; i++) {
+			differences[i] = i % 9 == 0 ? 0.0 : (random.nextDouble() - 0.5) * 20;
+		}
+		differences[5] = Double.NaN;
+		// differences beyond the length are not evaluated
+		Arrays.fill(differences, length, differences.length, 1.0);
+		double[][] thresholds = { { 4.0, 1.0, 2.0 }, { 4.0, -1.0, 0.5 }, { 1.0, 1.0, 3.0 } };
+		for (int function = 1; function <= 6; function++) {
+			for (double[] pqs : thresholds) {
+				double p = pqs[0];
+				double q = pqs[1];
+				double s = pqs[2];
+				double[] all = new double[differences.length];
+				double[] each = new double[differences.length];
+				criteria.calculateAll(function, differences, p, q, s, all, length);
+				criteria.calculateEach(function, differences, filled(p, length), filled(q, length),
+						filled(s, length), each, length);
+				for (int i = 0; i < length; i++) {
+					double expected = criteria.calculate(function, differences[i], p, q, s);
+					String message = "function " + function + " difference " + differences[i] + " thresholds "
+							+ Arrays.toString(pqs);
+					Checks.checkSame(expected, all[i], message + " with the same thresholds");
+					Checks.checkSame(expected, each[i], message + " with thresholds per difference");
+				}
+				for (int i = length; i < differences.length; i++) {
+					Checks.checkSame(0.0, all[i], "difference beyond the length");
+				}
+			}
+		}
+	}
+
+	private static double[] filled(double value, int length) {
+		double[] values = new double[length];
+		Arrays.fill(values, value);
+		return values;
+	}
+
+	private static void testMissingThresholds() throws Exception {
+		GeneralisedCriteria criteria = new GeneralisedCriteria();
+		double[] differences = { 1.0, -1.0 };
+		double[] preferences = new double[2];
+		Checks.checkThrows(NullThresholdException.class,
+				() -> criteria.calculateAll(2, differences, 1.0, null, 1.0, preferences, 2), "U-shape without q");
+		Checks.checkThrows(NullThresholdException.class,
+				() -> criteria.calculateAll(3, differences, null, 1.0, 1.0, preferences, 2), "V-shape without p");
+		Checks.checkThrows(NullThresholdException.class,
+				() -> criteria.calculateAll(4, differences, 1.0, null, null, preferences, 2), "level without q");
+		Checks.checkThrows(NullThresholdException.class,
+				() -> criteria.calculateAll(5, differences, null, 1.0, null, preferences, 2),
+				"V-shape with indifference without p");
+		Checks.checkThrows(NullThresholdException.class,
+				() -> criteria.calculateAll(6, differences, 1.0, 1.0, null, preferences, 2), "Gaussian without s");
+		Checks.checkThrows(NullThresholdException.class,
+				() -> criteria.calculateEach(6, differences, null, null, null, preferences, 2),
+				"Gaussian without an array of s");
+		criteria.calculateAll(1, differences, null, null, null, preferences, 2);
+		Checks.checkSame(1.0, preferences[0], "usual criterion without thresholds");
+	}
+}
@@ -0,0 +1,122 @@
+package pl.poznan.put.promethee.preference;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Random;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Values stored in memory-mapped files are the ones stored on the heap.
+ */
+public class MappedStorageTest {
+	/**
+	 * Number of values of a mapped chunk
+	 */
+	private static final long CHUNK_SIZE = 1L << 27;
+
+	public static void main(String[] args) throws Exception {
+		testValues();
+		testChunks();
+		testResults();
+		testHeapLimit();
+	}
+
+	/**
+	 * Values are initially 0, even in an existing file, and are written as
+	 * doubles in the native byte order.
+	 */
+	private static void testValues() throws Exception {
+		File file = File.createTempFile("storage", ".bin");
+		try {
+			Files.write(file.toPath(), new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 });
+			double[] values = { 0.25, Double.NaN, Double.POSITIVE_INFINITY, -0.0, 1.0 };
+			DoubleStorage storage = DoubleStorage.mapped(file, values.length + 1);
+			Checks.check(storage.size() == values.length + 1, "size");
+			Checks.check(storage.isExact(), "mapped values are exact");
+			for (int i = 0; i <= values.length; i++) {
+				Checks.checkSame(0.0, storage.get(i), "initial value " + i);
+			}
+			for (int i = 0; i < values.length; i++) {
+				storage.set(i, values[i]);
+			}
+			storage.flush();
+			for (int i = 0; i < values.length; i++) {
+				Checks.checkSame(values[i], storage.get(i), "value " + i);
+			}
+			ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.nativeOrder());
+			Checks.check(bytes.capacity() == (values.length + 1) * Double.BYTES, "file of " + bytes.capacity());
+			for (int i = 0; i < values.length; i++) {
+				Checks.checkSame(values[i], bytes.getDouble(i * Double.BYTES), "value " + i + " in the file");
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Values on both sides of the end of the first chunk. The file is sparse,
+	 * only the pages written take room.
+	 */
+	private static void testChunks() throws Exception {
+		File file = File.createTempFile("storage", ".bin");
+		try {
+			DoubleStorage storage = DoubleStorage.mapped(file, CHUNK_SIZE + 2);
+			storage.set(CHUNK_SIZE - 1, 0.5);
+			storage.set(CHUNK_SIZE, 0.75);
+			storage.set(CHUNK_SIZE + 1, 1.0);
+			storage.flush();
+			Checks.checkSame(0.5, storage.get(CHUNK_SIZE - 1), "last value of the first chunk");
+			Checks.checkSame(0.75, storage.get(CHUNK_SIZE), "first value of the second chunk");
+			Checks.checkSame(1.0, storage.get(CHUNK_SIZE + 1), "last value");
+			try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+				byte[] bytes = new byte[3 * Double.BYTES];
+				randomAccessFile.seek((CHUNK_SIZE - 1) * Double.BYTES);
+				randomAccessFile.readFully(bytes);
+				ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder());
+				Checks.checkSame(0.75, buffer.getDouble(Double.BYTES), "first value of the second chunk in the file");
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static void testResults() throws Exception {
+		for (int profiles : new int[] { 0, 6 }) {
+			Inputs inputs = TestInputs.random(45, profiles, 5, new Random(130));
+			PreferenceResults heap = Preference.calculateResults(inputs, 1, true);
+			ComparedElements elements = new ComparedElements(inputs);
+			IdsDictionary criteria = new IdsDictionary(inputs.criteria_ids);
+			File preferencesFile = File.createTempFile("preferences", ".bin");
+			File partialPreferencesFile = File.createTempFile("partial_preferences", ".bin");
+			try {
+				PreferencesMatrix preferences = new PreferencesMatrix(elements,
+						DoubleStorage.mapped(preferencesFile, PreferencesMatrix.size(elements)));
+				long size = PartialPreferencesTensor.size(elements, criteria);
+				PartialPreferencesTensor partialPreferences = new PartialPreferencesTensor(elements, criteria,
+						DoubleStorage.mapped(partialPreferencesFile, size));
+				TestInputs.checkSameResults(heap,
+						Preference.calculateResults(inputs, 2, preferences, partialPreferences),
+						"mapped results with " + profiles + " profiles");
+				preferences = new PreferencesMatrix(elements,
+						DoubleStorage.mapped(preferencesFile, PreferencesMatrix.size(elements)));
+				TestInputs.checkSameResults(new PreferenceResults(heap.getPreferences(), null),
+						Preference.calculateResults(inputs, 1, preferences, null),
+						"mapped preferences with " + profiles + " profiles");
+			} finally {
+				preferencesFile.delete();
+				partialPreferencesFile.delete();
+			}
+		}
+	}
+
+	private static void testHeapLimit() {
+		Checks.checkThrows(IllegalArgumentException.class, () -> DoubleStorage.heap(Integer.MAX_VALUE),
+				"more values than an array");
+		Checks.checkThrows(IllegalArgumentException.class, () -> DoubleStorage.floats(1L << 32),
+				"more floats than an array");
+	}
+}
@@ -0,0 +1,88 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Random;
+
+import org.xmcda.Threshold;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Unordered pairs evaluated once for both directions.
+ */
+public class PairColumnsTest {
+
+	public static void main(String[] args) throws Exception {
+		testOwnership();
+		testBothDirections();
+		testResults();
+	}
+
+	/**
+	 * Each compared unordered pair, including the pairs of an element with
+	 * itself, is owned by exactly one row.
+	 */
+	private static void testOwnership() {
+		for (int profiles : new int[] { 0, 4 }) {
+			ComparedElements elements = new ComparedElements(TestInputs.random(6, profiles, 1, new Random(40)));
+			int n = elements.size();
+			int[][] owners = new int[n][n];
+			for (int a = 0; a < n; a++) {
+				for (int b : elements.getPairColumns(a)) {
+					owners[a][b]++;
+					if (b != a) {
+						owners[b][a]++;
+					}
+				}
+			}
+			for (int a = 0; a < n; a++) {
+				for (int b = 0; b < n; b++) {
+					int expected = elements.isCompared(a, b) ? 1 : 0;
+					Checks.check(owners[a][b] == expected, "pair (" + a + ", " + b + ") owned " + owners[a][b]
+							+ " times with " + profiles + " profiles");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Kernels skip the direction of a pair whose preference is 0 only when
+	 * their thresholds allow it: negative thresholds and NaN evaluations give
+	 * preferences in both directions.
+	 */
+	private static void testBothDirections() throws Exception {
+		double[] evaluations = { 10.0, 9.5, 10.0, 12.0, Double.NaN, 7.0, 10.25 };
+		int[] columns = { 0, 1, 2, 3, 4, 5, 6 };
+		Threshold<Double> negative = TestInputs.constant(-1.0);
+		Threshold<Double> positive = TestInputs.constant(2.0);
+		PreferenceKernel[] kernels = { PreferenceKernel.compile("MAX", 1, null, null, null),
+				PreferenceKernel.compile("MIN", 2, null, negative, null),
+				PreferenceKernel.compile("MAX", 3, positive, null, null),
+				PreferenceKernel.compile("MIN", 4, positive, negative, null),
+				PreferenceKernel.compile("MAX", 5, positive, negative, null),
+				PreferenceKernel.compile("MIN", 6, null, null, positive) };
+		PreferenceKernel.Buffers buffers = new PreferenceKernel.Buffers();
+		for (int function = 1; function <= kernels.length; function++) {
+			PreferenceKernel kernel = kernels[function - 1];
+			for (double ga : evaluations) {
+				double[] forward = new double[columns.length];
+				double[] backward = new double[columns.length];
+				kernel.calculatePairs(ga, evaluations, columns, forward, 0, 1, backward, 0, 1, buffers);
+				for (int k = 0; k < columns.length; k++) {
+					String pair = "function " + function + " (" + ga + ", " + evaluations[k] + ")";
+					Checks.checkSame(kernel.calculate(ga, evaluations[k]), forward[k], pair);
+					Checks.checkSame(kernel.calculate(evaluations[k], ga), backward[k], pair + " backward");
+				}
+			}
+		}
+	}
+
+	private static void testResults() throws Exception {
+		for (int profiles : new int[] { 0, 5 }) {
+			Inputs inputs = TestInputs.random(35, profiles, 6, new Random(41));
+			inputs.indifferenceThresholds.put("g1", TestInputs.constant(-3.0));
+			inputs.indifferenceThresholds.put("g4", TestInputs.constant(-3.0));
+			TestInputs.checkResults(inputs, Preference.calculateResults(inputs, 1, true),
+					"negative thresholds, " + profiles + " profiles");
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Preferences of single pairs and rows computed on demand are the ones of the
+ * whole matrix, before and after weights change.
+ */
+public class PairPreferencesTest {
+
+	public static void main(String[] args) throws Exception {
+		testPairs();
+		testRows();
+		testWeights();
+		testErrors();
+	}
+
+	private static void testPairs() throws Exception {
+		for (int profiles : new int[] { 0, 4 }) {
+			Inputs inputs = TestInputs.random(20, profiles, 6, new Random(160));
+			PreferencesMatrix full = Preference.calculatePreferences(inputs);
+			PairPreferences pairs = new PairPreferences(inputs, 50);
+			ComparedElements elements = pairs.getElements();
+			IdsDictionary ids = elements.getDictionary();
+			Random random = new Random(161);
+			for (int i = 0; i < 300; i++) {
+				int row = random.nextInt(elements.size());
+				int[] columns = elements.getColumns(row);
+				int column = columns[random.nextInt(columns.length)];
+				String pair = "(" + ids.getId(row) + ", " + ids.getId(column) + ") with " + profiles + " profiles";
+				Checks.checkSame(full.get(row, column), pairs.getPreference(ids.getId(row), ids.getId(column)), pair);
+				// the reverse pair is computed at the same time
+				Checks.checkSame(full.get(column, row), pairs.getPreference(column, row), pair + " reversed");
+				Checks.check(pairs.getCachedPairsCount() <= 50, pairs.getCachedPairsCount() + " cached pairs");
+			}
+		}
+	}
+
+	/**
+	 * Rows mix pairs already cached with pairs computed for the row.
+	 */
+	private static void testRows() throws Exception {
+		for (int profiles : new int[] { 0, 4 }) {
+			Inputs inputs = TestInputs.random(15, profiles, 5, new Random(162));
+			PreferencesMatrix full = Preference.calculatePreferences(inputs);
+			PairPreferences pairs = new PairPreferences(inputs, 1000);
+			ComparedElements elements = pairs.getElements();
+			IdsDictionary ids = elements.getDictionary();
+			for (int row = 0; row < elements.size(); row += 2) {
+				int[] columns = elements.getColumns(row);
+				pairs.getPreference(row, columns[columns.length / 2]);
+				checkRow(full, elements, row, pairs.getRow(ids.getId(row)), profiles + " profiles");
+				checkRow(full, elements, row, pairs.getRow(row), profiles + " profiles from the cache");
+			}
+		}
+	}
+
+	private static void checkRow(PreferencesMatrix full, ComparedElements elements, int row, double[] preferences,
+			String message) {
+		int[] columns = elements.getColumns(row);
+		Checks.check(preferences.length == columns.length, "length of row " + row);
+		for (int i = 0; i < columns.length; i++) {
+			Checks.checkSame(full.get(row, columns[i]), preferences[i],
+					"(" + row + ", " + columns[i] + ") in a row with " + message);
+		}
+	}
+
+	/**
+	 * Cached preferences of the former weights are not returned.
+	 */
+	private static void testWeights() throws Exception {
+		Inputs inputs = TestInputs.random(12, 0, 4, new Random(163));
+		PairPreferences pairs = new PairPreferences(inputs, 1000);
+		for (int row = 0; row < 12; row++) {
+			pairs.getRow(row);
+		}
+		Checks.check(pairs.getCachedPairsCount() > 0, "cached pairs");
+		pairs.setWeight("g1", 7.5);
+		Checks.check(pairs.getCachedPairsCount() == 0, "cache cleared by a weight");
+		inputs.weights.put("g1", 7.5);
+		checkAll(inputs, pairs, "new weight");
+
+		Map<String, Double> weights = new LinkedHashMap<>();
+		weights.put("g0", 0.25);
+		weights.put("g3", 2.0);
+		pairs.setWeights(weights);
+		Checks.check(pairs.getCachedPairsCount() == 0, "cache cleared by weights");
+		inputs.weights.putAll(weights);
+		checkAll(inputs, pairs, "new weights");
+	}
+
+	private static void checkAll(Inputs inputs, PairPreferences pairs, String message) throws Exception {
+		PreferencesMatrix full = Preference.calculatePreferences(inputs);
+		ComparedElements elements = pairs.getElements();
+		for (int row = 0; row < elements.size(); row++) {
+			checkRow(full, elements, row, pairs.getRow(row), message);
+		}
+	}
+
+	private static void testErrors() throws Exception {
+		Inputs inputs = TestInputs.random(5, 2, 3, new Random(164));
+		Checks.checkThrows(IllegalArgumentException.class, () -> new PairPreferences(inputs, 0), "empty cache");
+		PairPreferences pairs = new PairPreferences(inputs, 10);
+		Checks.checkThrows(IllegalArgumentException.class, () -> pairs.getPreference("a9", "p0"), "unknown row");
+		Checks.checkThrows(IllegalArgumentException.class, () -> pairs.getPreference("a0", "p9"), "unknown column");
+		Checks.checkThrows(IllegalArgumentException.class, () -> pairs.getRow("a9"), "unknown row of a row");
+		Checks.checkThrows(IllegalArgumentException.class, () -> pairs.getPreference("a0", "a1"),
+				"alternatives not compared with each other");
+		Checks.checkThrows(IllegalArgumentException.class, () -> pairs.setWeight("g9", 1.0), "unknown criterion");
+		Checks.checkThrows(IllegalArgumentException.class,
+				() -> pairs.setWeights(java.util.Collections.singletonMap("g9", 1.0)), "unknown criterion of weights");
+	}
+}
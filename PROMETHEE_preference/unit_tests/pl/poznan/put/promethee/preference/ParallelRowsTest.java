@@ -0,0 +1,51 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Random;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+import pl.poznan.put.promethee.xmcda.Utils;
+import pl.poznan.put.promethee.xmcda.Utils.InvalidCommandLineException;
+
+/**
+ * Results computed by several threads are the same as the ones of a single
+ * thread, and the number of threads is bounded.
+ */
+public class ParallelRowsTest {
+
+	public static void main(String[] args) throws Exception {
+		testSameResults();
+		testThreadsBounds();
+	}
+
+	private static void testSameResults() throws Exception {
+		for (int profiles : new int[] { 0, 9 }) {
+			// more rows than a tile and rows of different lengths
+			Inputs inputs = TestInputs.random(101, profiles, 7, new Random(20));
+			PreferenceResults serial = Preference.calculateResults(inputs, 1, true);
+			PreferenceResults serialPreferences = Preference.calculateResults(inputs, 1, false);
+			TestInputs.checkResults(inputs, serial, "1 thread");
+			for (int threads : new int[] { 2, 3, 8 }) {
+				TestInputs.checkSameResults(serial, Preference.calculateResults(inputs, threads, true),
+						threads + " threads, " + profiles + " profiles");
+				TestInputs.checkSameResults(serialPreferences, Preference.calculateResults(inputs, threads, false),
+						threads + " threads without partial preferences");
+			}
+		}
+	}
+
+	private static void testThreadsBounds() throws Exception {
+		Checks.checkThrows(IllegalArgumentException.class,
+				() -> ParallelRows.forEachRow(10, ParallelRows.MAX_THREADS + 1, row -> {
+				}), "more threads than the maximum");
+		Checks.check(parseThreads("1") == 1, "one thread");
+		Checks.check(parseThreads(String.valueOf(ParallelRows.MAX_THREADS)) == ParallelRows.MAX_THREADS,
+				"maximal number of threads");
+		for (String threads : new String[] { "0", "-2", String.valueOf(ParallelRows.MAX_THREADS + 1), "two" }) {
+			Checks.checkThrows(InvalidCommandLineException.class, () -> parseThreads(threads), "-t " + threads);
+		}
+	}
+
+	private static int parseThreads(String threads) throws InvalidCommandLineException {
+		return Utils.parseCmdLineArguments(new String[] { "-i", "in", "-o", "out", "-t", threads }).threads;
+	}
+}
@@ -0,0 +1,125 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import pl.poznan.put.promethee.xmcda.Utils;
+import pl.poznan.put.promethee.xmcda.Utils.InvalidCommandLineException;
+
+/**
+ * Pairs kept by a minimal preference and the top k pairs of each row, ties
+ * broken by the order of the columns, against a sort of the whole row.
+ */
+public class PreferenceFilterTest {
+	/**
+	 * Few distinct values, so rows have many ties
+	 */
+	private static final double[] VALUES = { 0.0, -0.0, 0.25, 0.5, 0.5000001, 1.0, Double.NaN };
+
+	public static void main(String[] args) throws Exception {
+		testSelect();
+		testTies();
+		testColumns();
+		testArguments();
+	}
+
+	private static void testSelect() {
+		Random random = new Random(200);
+		double[] minPreferences = { Double.NaN, 0.0, 0.5, 0.75, 2.0 };
+		for (int i = 0; i < 2000; i++) {
+			double[] row = new double[random.nextInt(30)];
+			for (int column = 0; column < row.length; column++) {
+				row[column] = VALUES[random.nextInt(VALUES.length)];
+			}
+			double minPreference = minPreferences[random.nextInt(minPreferences.length)];
+			int topK = random.nextInt(10);
+			PreferenceFilter filter = new PreferenceFilter(minPreference, topK);
+			String name = Arrays.toString(row) + " min " + minPreference + " top " + topK;
+			Checks.check(Arrays.equals(reference(row, minPreference, topK), filter.select(row.length, k -> row[k])),
+					name);
+		}
+	}
+
+	/**
+	 * Keeps the pairs of the minimal preference, then the k highest ones of a
+	 * stable sort in decreasing order.
+	 */
+	private static int[] reference(double[] row, double minPreference, int topK) {
+		List<Integer> kept = new ArrayList<>();
+		for (int column = 0; column < row.length; column++) {
+			if (Double.isNaN(minPreference) || row[column] >= minPreference) {
+				kept.add(column);
+			}
+		}
+		if (topK > 0 && kept.size() > topK) {
+			kept.sort((a, b) -> Double.compare(row[b], row[a]));
+			kept = kept.subList(0, topK);
+			kept.sort(null);
+		}
+		return kept.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	private static void testTies() {
+		double[] row = { 0.5, 1.0, 0.5, 0.5, 0.2, 1.0, 0.5 };
+		PreferenceFilter top3 = new PreferenceFilter(Double.NaN, 3);
+		Checks.check(Arrays.equals(new int[] { 0, 1, 5 }, top3.select(row.length, k -> row[k])),
+				"first tie kept");
+		PreferenceFilter top4 = new PreferenceFilter(Double.NaN, 4);
+		Checks.check(Arrays.equals(new int[] { 0, 1, 2, 5 }, top4.select(row.length, k -> row[k])),
+				"first ties kept");
+		PreferenceFilter minimum = new PreferenceFilter(0.5, 0);
+		Checks.check(Arrays.equals(new int[] { 0, 1, 2, 3, 5, 6 }, minimum.select(row.length, k -> row[k])),
+				"minimal preference included");
+		PreferenceFilter both = new PreferenceFilter(0.5, 10);
+		Checks.check(Arrays.equals(new int[] { 0, 1, 2, 3, 5, 6 }, both.select(row.length, k -> row[k])),
+				"fewer pairs than k");
+		double[] zeros = { 0.0, -0.0, 0.0 };
+		// -0.0 is lower than 0.0 for Double.compare
+		Checks.check(Arrays.equals(new int[] { 0, 2 }, new PreferenceFilter(Double.NaN, 2).select(3, k -> zeros[k])),
+				"negative zero left out");
+	}
+
+	private static void testColumns() {
+		int[] columns = { 4, 5, 6, 7, 8 };
+		double[] preferences = new double[9];
+		preferences[5] = 0.9;
+		preferences[7] = 0.9;
+		preferences[8] = 0.3;
+		Checks.check(PreferenceFilter.NONE.filterColumns(columns, column -> preferences[column]) == columns,
+				"every column kept");
+		Checks.check(!PreferenceFilter.NONE.isFiltering() && !PreferenceFilter.NONE.isTopK(), "no filter");
+		PreferenceFilter filter = new PreferenceFilter(0.1, 2);
+		Checks.check(filter.isFiltering() && filter.isTopK(), "filter of top pairs");
+		Checks.check(new PreferenceFilter(0.1, 0).isFiltering() && !new PreferenceFilter(0.1, 0).isTopK(),
+				"filter of the minimal preference");
+		Checks.check(Arrays.equals(new int[] { 5, 7 }, filter.filterColumns(columns, column -> preferences[column])),
+				"columns of the kept positions");
+		Checks.check(filter.filterColumns(new int[0], column -> 1.0).length == 0, "empty row");
+		Checks.checkThrows(IllegalArgumentException.class, () -> new PreferenceFilter(0.5, -1), "negative k");
+	}
+
+	private static void testArguments() throws Exception {
+		Utils.Arguments defaults = parse();
+		Checks.check(!defaults.getPreferenceFilter().isFiltering(), "no filter by default");
+		Utils.Arguments arguments = parse("--min-preference", "0.25", "--top-k", "3");
+		Checks.checkSame(0.25, arguments.minPreference, "--min-preference");
+		Checks.check(arguments.topK == 3, "--top-k");
+		Checks.check(arguments.getPreferenceFilter().isTopK(), "filter of the arguments");
+		Checks.checkThrows(InvalidCommandLineException.class, () -> parse("--top-k", "0"), "no pair per row");
+		Checks.checkThrows(InvalidCommandLineException.class, () -> parse("--top-k", "-2"), "negative k");
+		Checks.checkThrows(InvalidCommandLineException.class, () -> parse("--min-preference", "high"),
+				"not a number");
+	}
+
+	private static Utils.Arguments parse(String... options) throws InvalidCommandLineException {
+		String[] args = new String[options.length + 4];
+		args[0] = "-i";
+		args[1] = "in";
+		args[2] = "-o";
+		args[3] = "out";
+		System.arraycopy(options, 0, args, 4, options.length);
+		return Utils.parseCmdLineArguments(args);
+	}
+}
@@ -0,0 +1,136 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.xmcda.Threshold;
+
+import pl.poznan.put.promethee.exceptions.NullThresholdException;
+import pl.poznan.put.promethee.exceptions.WrongPreferenceDirectionException;
+
+/**
+ * Kernels of every generalised criterion, direction and kind of thresholds
+ * against {@link GeneralisedCriteria}, and rows evaluated with scratch
+ * buffers reused from row to row.
+ */
+public class PreferenceKernelTest {
+	private static final String[] DIRECTIONS = { "MAX", "MIN" };
+
+	public static void main(String[] args) throws Exception {
+		testKernels();
+		testErrors();
+		testWorkerStates();
+	}
+
+	/**
+	 * Thresholds are constant, linear or mixed: with linear thresholds of one
+	 * kind only, kernels of the functions using both thresholds are given a
+	 * constant one.
+	 */
+	private static void testKernels() throws Exception {
+		Random random = new Random(10);
+		for (int function = 1; function <= 6; function++) {
+			for (String direction : DIRECTIONS) {
+				for (int linear = 0; linear < 4; linear++) {
+					Threshold<Double> p = (linear & 1) != 0 ? TestInputs.linear(0.3, 10.0)
+							: TestInputs.constant(30.0);
+					Threshold<Double> q = (linear & 2) != 0 ? TestInputs.linear(0.05, 2.0)
+							: TestInputs.constant(5.0);
+					Threshold<Double> s = linear != 0 ? TestInputs.linear(0.1, 5.0) : TestInputs.constant(15.0);
+					PreferenceKernel kernel = PreferenceKernel.compile(direction, function, p, q, s);
+					String name = "function " + function + " " + direction + " thresholds " + linear;
+					PreferenceKernel.Buffers buffers = new PreferenceKernel.Buffers();
+					// buffers grow with the first row and are reused by the
+					// shorter ones
+					for (int length : new int[] { 50, 7, 0, 80 }) {
+						checkRow(kernel, function, direction, p, q, s, random, length, buffers, name);
+					}
+				}
+			}
+		}
+	}
+
+	private static void checkRow(PreferenceKernel kernel, int function, String direction, Threshold<Double> p,
+			Threshold<Double> q, Threshold<Double> s, Random random, int length, PreferenceKernel.Buffers buffers,
+			String name) throws Exception {
+		double[] evaluations = new double[length];
+		int[] columns = new int[length];
+		for (int k = 0; k < length; k++) {
+			// equal evaluations and differences around the thresholds
+			evaluations[k] = k % 5 == 0 ? 50.0 : random.nextDouble() * 100;
+			columns[k] = k;
+		}
+		double ga = 50.0;
+		double[] row = new double[length * 3];
+		double[] forward = new double[length * 2];
+		double[] backward = new double[length * 2 + 1];
+		kernel.calculateRow(ga, evaluations, columns, row, 1, 3, buffers);
+		kernel.calculatePairs(ga, evaluations, columns, forward, 0, 2, backward, 1, 2, buffers);
+		for (int k = 0; k < length; k++) {
+			double expected = reference(function, direction, p, q, s, ga, evaluations[k]);
+			double expectedBackward = reference(function, direction, p, q, s, evaluations[k], ga);
+			String pair = name + " (" + ga + ", " + evaluations[k] + ")";
+			Checks.checkSame(expected, kernel.calculate(ga, evaluations[k]), pair);
+			Checks.checkSame(expected, row[1 + k * 3], pair + " in a row");
+			Checks.checkSame(expected, forward[k * 2], pair + " forward");
+			Checks.checkSame(expectedBackward, backward[1 + k * 2], pair + " backward");
+		}
+	}
+
+	private static double reference(int function, String direction, Threshold<Double> p, Threshold<Double> q,
+			Threshold<Double> s, double ga, double gb)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		double base = "MAX".equals(direction) ? Math.min(ga, gb) : Math.max(ga, gb);
+		return new GeneralisedCriteria().calculate(function, "MAX".equals(direction) ? ga - gb : gb - ga,
+				threshold(p, base), threshold(q, base), threshold(s, base));
+	}
+
+	private static double threshold(Threshold<Double> threshold, double base) {
+		if (threshold.isConstant()) {
+			return threshold.getConstant().getValue();
+		}
+		return threshold.getSlope().getValue() * base + threshold.getIntercept().getValue();
+	}
+
+	private static void testErrors() {
+		Checks.checkThrows(WrongPreferenceDirectionException.class,
+				() -> PreferenceKernel.compile("UP", 1, null, null, null), "unknown direction");
+		Checks.checkThrows(NullThresholdException.class, () -> PreferenceKernel.compile("MAX", 2, null, null, null),
+				"U-shape without indifference threshold");
+		Checks.checkThrows(NullThresholdException.class,
+				() -> PreferenceKernel.compile("MAX", 5, TestInputs.constant(1.0), null, null),
+				"V-shape with indifference without indifference threshold");
+		Checks.checkThrows(NullThresholdException.class, () -> PreferenceKernel.compile("MIN", 6, null, null, null),
+				"Gaussian without sigma threshold");
+		Checks.checkThrows(IllegalArgumentException.class, () -> PreferenceKernel.compile("MAX", 7, null, null, null),
+				"unknown function");
+	}
+
+	/**
+	 * Every row is run once and a worker state is never used by two threads
+	 * at once.
+	 */
+	private static void testWorkerStates() {
+		for (int threads : new int[] { 1, 4 }) {
+			int rows = 1000;
+			AtomicIntegerArray runs = new AtomicIntegerArray(rows);
+			Set<AtomicInteger> states = ConcurrentHashMap.newKeySet();
+			ParallelRows.forEachRow(rows, threads, () -> {
+				AtomicInteger state = new AtomicInteger();
+				states.add(state);
+				return state;
+			}, (state, row) -> {
+				Checks.check(state.compareAndSet(0, 1), "state used by two threads");
+				runs.incrementAndGet(row);
+				state.set(0);
+			});
+			for (int row = 0; row < rows; row++) {
+				Checks.check(runs.get(row) == 1, "row " + row + " run " + runs.get(row) + " times");
+			}
+			Checks.check(states.size() <= threads, states.size() + " states for " + threads + " threads");
+		}
+	}
+}
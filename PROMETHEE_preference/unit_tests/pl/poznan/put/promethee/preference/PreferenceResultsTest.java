@@ -0,0 +1,61 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Random;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Aggregated preferences computed in the same pass as the partial
+ * preferences.
+ */
+public class PreferenceResultsTest {
+
+	public static void main(String[] args) throws Exception {
+		testAggregation();
+		testEntryPoints();
+	}
+
+	/**
+	 * Each aggregated preference is the weighted mean of the partial
+	 * preferences of its pair, added in the order of the criteria.
+	 */
+	private static void testAggregation() throws Exception {
+		for (int profiles : new int[] { 0, 3 }) {
+			Inputs inputs = TestInputs.random(12, profiles, 5, new Random(30));
+			// weights which are not integers
+			for (String criterion : inputs.criteria_ids) {
+				inputs.weights.put(criterion, inputs.weights.get(criterion) * 0.37);
+			}
+			PreferenceResults results = Preference.calculateResults(inputs, 1, true);
+			TestInputs.checkResults(inputs, results, profiles + " profiles");
+			ComparedElements elements = results.getPreferences().getElements();
+			for (int a = 0; a < elements.size(); a++) {
+				for (int b : elements.getColumns(a)) {
+					double preference = 0.0;
+					double totalWeight = 0.0;
+					for (int c = 0; c < inputs.criteria_ids.size(); c++) {
+						double weight = inputs.weights.get(inputs.criteria_ids.get(c));
+						preference += results.getPartialPreferences().get(a, b, c) * weight;
+						totalWeight += weight;
+					}
+					Checks.checkSame(preference / totalWeight, results.getPreferences().get(a, b),
+							"weighted mean of (" + a + ", " + b + ")");
+				}
+			}
+		}
+	}
+
+	/**
+	 * The aggregated preferences do not depend on whether the partial
+	 * preferences are kept.
+	 */
+	private static void testEntryPoints() throws Exception {
+		Inputs inputs = TestInputs.random(40, 0, 6, new Random(31));
+		PreferenceResults results = Preference.calculateResults(inputs, 1, true);
+		PreferencesMatrix preferences = Preference.calculatePreferences(inputs);
+		PartialPreferencesTensor partialPreferences = Preference.calcPartialPreferences(inputs);
+		TestInputs.checkSameResults(results, new PreferenceResults(preferences, partialPreferences), "entry points");
+		TestInputs.checkSameResults(new PreferenceResults(results.getPreferences(), null),
+				Preference.calculateResults(inputs, 1, false), "without partial preferences");
+	}
+}
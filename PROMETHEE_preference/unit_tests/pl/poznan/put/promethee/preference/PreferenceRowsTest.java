@@ -0,0 +1,85 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Rows computed alone, e.g. for a shard, have the preferences of the whole
+ * matrix. Rows of the alternatives only hold the profiles when they are
+ * compared with profiles.
+ */
+public class PreferenceRowsTest {
+
+	public static void main(String[] args) throws Exception {
+		testRows();
+		testErrors();
+	}
+
+	private static void testRows() throws Exception {
+		for (int profiles : new int[] { 0, 5 }) {
+			Inputs inputs = TestInputs.random(25, profiles, 7, new Random(190));
+			PreferenceResults full = Preference.calculateResults(inputs, 1, true);
+			ComparedElements elements = full.getPreferences().getElements();
+			List<Integer> shuffled = new ArrayList<>();
+			for (int row = 0; row < elements.size(); row++) {
+				shuffled.add(row);
+			}
+			Collections.shuffle(shuffled, new Random(191));
+			// every row, the profiles and alternatives of a shard, one row
+			int[][] shards = { rows(shuffled, shuffled.size()), rows(shuffled, elements.size() / 3),
+					{ elements.size() - 1 } };
+			for (int[] rows : shards) {
+				for (int threads : new int[] { 1, 3 }) {
+					String name = rows.length + " rows by " + threads + " threads with " + profiles + " profiles";
+					checkRows(full, PreferenceRows.calculate(inputs, rows, threads, StoragePrecision.DOUBLE), rows,
+							name);
+					PreferenceRows withoutPartial = PreferenceRows.calculate(inputs, rows, threads, null);
+					Checks.check(!withoutPartial.hasPartialPreferences(), name + " without partial preferences");
+					checkRows(full, withoutPartial, rows, name + " without partial preferences");
+				}
+			}
+		}
+	}
+
+	private static int[] rows(List<Integer> shuffled, int count) {
+		int[] rows = new int[count];
+		for (int i = 0; i < count; i++) {
+			rows[i] = shuffled.get(i);
+		}
+		return rows;
+	}
+
+	private static void checkRows(PreferenceResults full, PreferenceRows results, int[] rows, String name) {
+		ComparedElements elements = full.getPreferences().getElements();
+		for (int a : rows) {
+			for (int b : elements.getColumns(a)) {
+				String pair = name + " (" + a + ", " + b + ")";
+				Checks.checkSame(full.getPreferences().get(a, b), results.getPreference(a, b), pair);
+				if (!results.hasPartialPreferences()) {
+					continue;
+				}
+				for (int c = 0; c < results.getCriteria().size(); c++) {
+					Checks.checkSame(full.getPartialPreferences().get(a, b, c), results.getPartialPreference(a, b, c),
+							pair + " on criterion " + c);
+				}
+			}
+		}
+	}
+
+	private static void testErrors() throws Exception {
+		Inputs inputs = TestInputs.random(4, 2, 3, new Random(192));
+		PreferenceRows results = PreferenceRows.calculate(inputs, new int[] { 1, 4 }, 1, StoragePrecision.DOUBLE);
+		Checks.checkThrows(IllegalArgumentException.class, () -> results.getPreference(0, 4), "row not computed");
+		Checks.checkThrows(IllegalArgumentException.class, () -> results.getPartialPreference(5, 0, 0),
+				"partial preference of a row not computed");
+		// alternatives are compared with the profiles only
+		Checks.checkThrows(IllegalArgumentException.class, () -> results.getPreference(1, 2),
+				"alternatives not compared");
+		Checks.checkThrows(IllegalArgumentException.class, () -> results.getPartialPreference(1, 3, 0),
+				"partial preference of alternatives not compared");
+	}
+}
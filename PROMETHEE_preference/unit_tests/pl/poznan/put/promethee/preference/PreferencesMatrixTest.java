@@ -0,0 +1,97 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Indexing of the compared pairs in {@link PreferencesMatrix} and
+ * {@link PartialPreferencesTensor}, with and without profiles.
+ */
+public class PreferencesMatrixTest {
+
+	public static void main(String[] args) throws Exception {
+		testPairIndices();
+		testStorageSize();
+		testTensorValues();
+		testResults();
+	}
+
+	/**
+	 * Every compared pair has its own index below the number of pairs, and
+	 * alternatives are not compared with each other when profiles are given.
+	 */
+	private static void testPairIndices() {
+		for (int profiles : new int[] { 0, 3 }) {
+			ComparedElements elements = new ComparedElements(TestInputs.random(5, profiles, 2, new Random(1)));
+			boolean[] used = new boolean[(int) elements.getPairsCount()];
+			int pairs = 0;
+			for (int a = 0; a < elements.size(); a++) {
+				for (int b = 0; b < elements.size(); b++) {
+					boolean compared = profiles == 0 || !elements.isAlternative(a) || !elements.isAlternative(b);
+					Checks.check(elements.isCompared(a, b) == compared, "compared pair (" + a + ", " + b + ")");
+					if (!compared) {
+						continue;
+					}
+					int index = (int) elements.getPairIndex(a, b);
+					Checks.check(index >= 0 && index < used.length && !used[index],
+							"index " + index + " of pair (" + a + ", " + b + ")");
+					used[index] = true;
+					pairs++;
+				}
+				Checks.check(elements.getColumns(a).length == (profiles > 0 && elements.isAlternative(a) ? profiles
+						: elements.size()), "columns of row " + a);
+			}
+			Checks.check(pairs == used.length, pairs + " compared pairs for " + used.length + " indices");
+		}
+	}
+
+	private static void testStorageSize() {
+		ComparedElements elements = new ComparedElements(TestInputs.random(4, 2, 3, new Random(2)));
+		IdsDictionary criteria = new IdsDictionary(Arrays.asList("g0", "g1", "g2"));
+		// 4 alternatives * 2 profiles + 2 profiles * 6 elements
+		Checks.check(PreferencesMatrix.size(elements) == 20, "size of the matrix");
+		Checks.check(PartialPreferencesTensor.size(elements, criteria) == 60, "size of the tensor");
+		Checks.checkThrows(IllegalArgumentException.class,
+				() -> new PreferencesMatrix(elements, DoubleStorage.heap(36)), "matrix of all pairs");
+		Checks.checkThrows(IllegalArgumentException.class,
+				() -> new PartialPreferencesTensor(elements, criteria, DoubleStorage.heap(20)),
+				"tensor without criteria");
+		Checks.checkThrows(IllegalArgumentException.class, () -> DoubleStorage.heap(Integer.MAX_VALUE + 1L),
+				"heap storage larger than an array");
+	}
+
+	/**
+	 * Values of a pair on all criteria are contiguous and pairs do not
+	 * overlap.
+	 */
+	private static void testTensorValues() {
+		ComparedElements elements = new ComparedElements(TestInputs.random(3, 2, 3, new Random(3)));
+		IdsDictionary criteria = new IdsDictionary(Arrays.asList("g0", "g1", "g2"));
+		PartialPreferencesTensor tensor = new PartialPreferencesTensor(elements, criteria);
+		for (int a = 0; a < elements.size(); a++) {
+			for (int b : elements.getColumns(a)) {
+				double[] values = { -1.0, a, b, a * 10.0 + b };
+				tensor.set(a, b, values, 1);
+			}
+		}
+		for (int a = 0; a < elements.size(); a++) {
+			for (int b : elements.getColumns(a)) {
+				long offset = elements.getPairIndex(a, b) * criteria.size();
+				Checks.checkSame(a, tensor.get(a, b, 0), "first criterion of (" + a + ", " + b + ")");
+				Checks.checkSame(b, tensor.getValues().get(offset + 1), "second criterion of (" + a + ", " + b + ")");
+				Checks.checkSame(a * 10.0 + b, tensor.get(a, b, 2), "third criterion of (" + a + ", " + b + ")");
+			}
+		}
+	}
+
+	private static void testResults() throws Exception {
+		for (int profiles : new int[] { 0, 4 }) {
+			Inputs inputs = TestInputs.random(7, profiles, 6, new Random(4));
+			TestInputs.checkResults(inputs, Preference.calculateResults(inputs, 1, true), profiles + " profiles");
+			TestInputs.checkResults(inputs, Preference.calculateResults(inputs, 1, false),
+					profiles + " profiles without partial preferences");
+		}
+	}
+}
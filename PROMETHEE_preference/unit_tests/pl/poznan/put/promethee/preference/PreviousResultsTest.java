@@ -0,0 +1,140 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Map;
+import java.util.Random;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Results recalculated from previous results are the ones of a full run, and
+ * previous results of other inputs are rejected.
+ */
+public class PreviousResultsTest {
+
+	public static void main(String[] args) throws Exception {
+		testRecalculate();
+		testMissingPairs();
+		testIds();
+		testMismatch();
+	}
+
+	/**
+	 * Evaluations of some elements change between the runs.
+	 */
+	private static void testRecalculate() throws Exception {
+		for (int profiles : new int[] { 0, 4 }) {
+			for (boolean withPartialPreferences : new boolean[] { true, false }) {
+				Inputs inputs = TestInputs.random(30, profiles, 6, new Random(100));
+				PreferenceResults before = Preference.calculateResults(inputs, 1, true);
+				String[] changed = { "a3", "a17", profiles > 0 ? "p2" : "a29" };
+				Random random = new Random(101);
+				for (String id : changed) {
+					Map<String, Double> evaluations = id.startsWith("p") ? inputs.profilesPerformanceTable.get(id)
+							: inputs.performanceTable.get(id);
+					for (String criterion : inputs.criteria_ids) {
+						evaluations.put(criterion, random.nextDouble() * 100);
+					}
+				}
+				PreviousResults previous = load(inputs, before, withPartialPreferences, changed, 1);
+				String name = profiles + " profiles" + (withPartialPreferences ? "" : " without partial preferences");
+				PreferenceResults expected = Preference.calculateResults(inputs, 1, withPartialPreferences);
+				TestInputs.checkSameResults(expected, Preference.recalculateResults(inputs, 1, previous),
+						"recalculated with " + name);
+				previous = load(inputs, before, withPartialPreferences, changed, 1);
+				TestInputs.checkSameResults(expected, Preference.recalculateResults(inputs, 3, previous),
+						"recalculated by 3 threads with " + name);
+			}
+		}
+	}
+
+	/**
+	 * Pairs missing from the previous results, as in filtered results, are
+	 * computed.
+	 */
+	private static void testMissingPairs() throws Exception {
+		Inputs inputs = TestInputs.random(25, 0, 5, new Random(102));
+		PreferenceResults before = Preference.calculateResults(inputs, 1, true);
+		PreviousResults previous = load(inputs, before, true, new String[0], 3);
+		ComparedElements elements = previous.getPreferences().getElements();
+		int reused = 0;
+		for (int a = 0; a < elements.size(); a++) {
+			for (int b : elements.getColumns(a)) {
+				reused += previous.isReusable(a, b) ? 1 : 0;
+			}
+		}
+		Checks.check(reused > 0 && reused < elements.getPairsCount(), reused + " reused pairs");
+		TestInputs.checkSameResults(before, Preference.recalculateResults(inputs, 1, previous), "missing pairs");
+	}
+
+	/**
+	 * Elements which are not in the current run are ignored, except as
+	 * changed elements.
+	 */
+	private static void testIds() throws Exception {
+		Inputs inputs = TestInputs.random(5, 0, 2, new Random(103));
+		PreviousResults previous = create(inputs, true);
+		Checks.check(!previous.setChanged("a99"), "unknown changed element");
+		Checks.check(previous.setChanged("a2"), "changed alternative");
+		previous.setPreference("a99", "a1", 0.5);
+		previous.setPartialPreference("a1", "a2", "g99", 0.5);
+		previous.setPreference("a1", "a2", 0.5);
+		previous.setPreference("a2", "a1", 0.5);
+		previous.setPartialPreference("a1", "a2", "g0", 0.5);
+		previous.setPartialPreference("a2", "a1", "g0", 0.5);
+		ComparedElements elements = previous.getPreferences().getElements();
+		int a1 = elements.getDictionary().getIndex("a1");
+		int a2 = elements.getDictionary().getIndex("a2");
+		Checks.check(!previous.isReusable(a1, a2), "pair of a changed element");
+	}
+
+	/**
+	 * Previous results computed with other weights do not match the inputs.
+	 */
+	private static void testMismatch() throws Exception {
+		Inputs inputs = TestInputs.random(20, 0, 4, new Random(104));
+		PreferenceResults before = Preference.calculateResults(inputs, 1, true);
+		inputs.weights.put("g1", inputs.weights.get("g1") + 1.0);
+		PreviousResults previous = load(inputs, before, true, new String[] { "a1" }, 1);
+		Checks.checkThrows(IllegalArgumentException.class, () -> Preference.recalculateResults(inputs, 1, previous),
+				"previous results of other weights");
+	}
+
+	private static PreviousResults create(Inputs inputs, boolean withPartialPreferences) {
+		ComparedElements elements = new ComparedElements(inputs);
+		return new PreviousResults(new PreferencesMatrix(elements), withPartialPreferences
+				? new PartialPreferencesTensor(elements, new IdsDictionary(inputs.criteria_ids)) : null);
+	}
+
+	/**
+	 * Loads one pair out of {@code every} of the results, in both directions.
+	 */
+	private static PreviousResults load(Inputs inputs, PreferenceResults results, boolean withPartialPreferences,
+			String[] changed, int every) {
+		PreviousResults previous = create(inputs, withPartialPreferences);
+		for (String id : changed) {
+			Checks.check(previous.setChanged(id), "changed element " + id);
+		}
+		ComparedElements elements = results.getPreferences().getElements();
+		IdsDictionary ids = elements.getDictionary();
+		int pair = 0;
+		for (int a = 0; a < elements.size(); a++) {
+			for (int b : elements.getPairColumns(a)) {
+				if (pair++ % every != 0) {
+					continue;
+				}
+				loadPair(previous, results, inputs, ids, a, b);
+				loadPair(previous, results, inputs, ids, b, a);
+			}
+		}
+		return previous;
+	}
+
+	private static void loadPair(PreviousResults previous, PreferenceResults results, Inputs inputs,
+			IdsDictionary ids, int a, int b) {
+		previous.setPreference(ids.getId(a), ids.getId(b), results.getPreferences().get(a, b));
+		for (int c = 0; c < inputs.criteria_ids.size(); c++) {
+			previous.setPartialPreference(ids.getId(a), ids.getId(b), inputs.criteria_ids.get(c),
+					results.getPartialPreferences().get(a, b, c));
+		}
+	}
+}
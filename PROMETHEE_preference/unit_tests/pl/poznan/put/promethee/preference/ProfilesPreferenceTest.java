@@ -0,0 +1,130 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Random;
+
+import pl.poznan.put.promethee.exceptions.NullThresholdException;
+import pl.poznan.put.promethee.exceptions.WrongPreferenceDirectionException;
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+import pl.poznan.put.promethee.xmcda.Utils;
+import pl.poznan.put.promethee.xmcda.Utils.InvalidCommandLineException;
+
+/**
+ * Alternatives compared with the profiles chunk by chunk have the preferences
+ * of the whole matrix.
+ */
+public class ProfilesPreferenceTest {
+
+	public static void main(String[] args) throws Exception {
+		testChunks();
+		testErrors();
+		testArguments();
+	}
+
+	private static void testChunks() throws Exception {
+		Inputs inputs = TestInputs.random(23, 6, 7, new Random(150));
+		PreferenceResults full = Preference.calculateResults(inputs, 1, true);
+		ProfilesPreference preference = new ProfilesPreference(inputs);
+		int alternatives = inputs.alternatives_ids.size();
+		int profiles = inputs.profiles_ids.size();
+		for (int p = 0; p < profiles; p++) {
+			for (int q = 0; q < profiles; q++) {
+				String pair = "profiles (" + p + ", " + q + ")";
+				Checks.checkSame(full.getPreferences().get(alternatives + p, alternatives + q),
+						preference.getProfilesPreference(p, q), pair);
+				for (int c = 0; c < inputs.criteria_ids.size(); c++) {
+					Checks.checkSame(full.getPartialPreferences().get(alternatives + p, alternatives + q, c),
+							preference.getProfilesPartialPreference(p, q, c), pair + " on criterion " + c);
+				}
+			}
+		}
+		for (int capacity : new int[] { 1, 7, alternatives, alternatives + 5 }) {
+			for (int threads : new int[] { 1, 3 }) {
+				for (boolean withPartialPreferences : new boolean[] { true, false }) {
+					AlternativesChunk chunk = preference.newChunk(capacity, withPartialPreferences);
+					Checks.check(chunk.hasPartialPreferences() == withPartialPreferences, "chunk with partial");
+					String name = "chunks of " + capacity + " by " + threads + " threads"
+							+ (withPartialPreferences ? "" : " without partial preferences");
+					int first = 0;
+					for (int a = 0; a < alternatives; a++) {
+						chunk.add(inputs.alternatives_ids.get(a), evaluations(inputs, a));
+						if (chunk.isFull() || a == alternatives - 1) {
+							preference.calculate(chunk, threads);
+							checkChunk(inputs, full, chunk, first, name);
+							first += chunk.size();
+							chunk.clear();
+						}
+					}
+					Checks.check(first == alternatives, name + " cover the alternatives");
+				}
+			}
+		}
+	}
+
+	private static double[] evaluations(Inputs inputs, int alternative) {
+		double[] evaluations = new double[inputs.criteria_ids.size()];
+		for (int c = 0; c < evaluations.length; c++) {
+			evaluations[c] = inputs.performanceTable.get(inputs.alternatives_ids.get(alternative))
+					.get(inputs.criteria_ids.get(c));
+		}
+		return evaluations;
+	}
+
+	private static void checkChunk(Inputs inputs, PreferenceResults full, AlternativesChunk chunk, int first,
+			String name) {
+		int alternatives = inputs.alternatives_ids.size();
+		for (int i = 0; i < chunk.size(); i++) {
+			int a = first + i;
+			Checks.check(inputs.alternatives_ids.get(a).equals(chunk.getId(i)), name + " id of " + a);
+			for (int p = 0; p < inputs.profiles_ids.size(); p++) {
+				String pair = name + " (" + a + ", " + p + ")";
+				Checks.checkSame(full.getPreferences().get(a, alternatives + p), chunk.getPreferenceToProfile(i, p),
+						pair);
+				Checks.checkSame(full.getPreferences().get(alternatives + p, a),
+						chunk.getPreferenceFromProfile(i, p), pair + " from the profile");
+				if (!chunk.hasPartialPreferences()) {
+					continue;
+				}
+				for (int c = 0; c < inputs.criteria_ids.size(); c++) {
+					Checks.checkSame(full.getPartialPreferences().get(a, alternatives + p, c),
+							chunk.getPartialPreferenceToProfile(i, p, c), pair + " on criterion " + c);
+					Checks.checkSame(full.getPartialPreferences().get(alternatives + p, a, c),
+							chunk.getPartialPreferenceFromProfile(i, p, c), pair + " from the profile on " + c);
+				}
+			}
+		}
+	}
+
+	private static void testErrors() {
+		Inputs direction = TestInputs.random(3, 2, 3, new Random(151));
+		direction.preferenceDirections.put("g1", "UP");
+		Checks.checkThrows(WrongPreferenceDirectionException.class, () -> new ProfilesPreference(direction),
+				"unknown direction");
+		Inputs threshold = TestInputs.random(3, 2, 3, new Random(152));
+		// g2 is a V-shape criterion
+		threshold.preferenceThresholds.remove("g2");
+		Checks.checkThrows(NullThresholdException.class, () -> new ProfilesPreference(threshold),
+				"missing preference threshold");
+	}
+
+	private static void testArguments() throws Exception {
+		Checks.check(parse("--chunk-size", "100").chunkSize == 100, "--chunk-size 100");
+		Checks.checkThrows(InvalidCommandLineException.class, () -> parse("--chunk-size", "0"), "empty chunks");
+		Checks.checkThrows(InvalidCommandLineException.class, () -> parse("--chunk-size", "many"), "not a number");
+		String[][] conflicts = { { "-p", "previous" }, { "-m", "mapped" }, { "--top-k", "3" },
+				{ "--shard", "1/2" } };
+		for (String[] conflict : conflicts) {
+			Checks.checkThrows(InvalidCommandLineException.class,
+					() -> parse("--chunk-size", "10", conflict[0], conflict[1]), "--chunk-size with " + conflict[0]);
+		}
+	}
+
+	private static Utils.Arguments parse(String... options) throws InvalidCommandLineException {
+		String[] args = new String[options.length + 4];
+		args[0] = "-i";
+		args[1] = "in";
+		args[2] = "-o";
+		args[3] = "out";
+		System.arraycopy(options, 0, args, 4, options.length);
+		return Utils.parseCmdLineArguments(args);
+	}
+}
@@ -0,0 +1,136 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import pl.poznan.put.promethee.exceptions.NullThresholdException;
+import pl.poznan.put.promethee.exceptions.WrongPreferenceDirectionException;
+import pl.poznan.put.promethee.xmcda.InputsHandler.ComparisonWithParam;
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Scenarios of a batch sharing the evaluations of its inputs have the results
+ * of their inputs computed alone, serially or in parallel. Scenarios of other
+ * elements or criteria are rejected.
+ */
+public class ScenarioBatchTest {
+	private static final int ALTERNATIVES = 25;
+	private static final int CRITERIA = 7;
+
+	public static void main(String[] args) throws Exception {
+		testScenarios();
+		testIncompatible();
+		testErrors();
+	}
+
+	/**
+	 * Scenarios change the weights, the functions, the directions and the
+	 * thresholds of the inputs, and do not hold the performance tables.
+	 */
+	private static void testScenarios() throws Exception {
+		for (int profiles : new int[] { 0, 4 }) {
+			ScenarioBatch batch = new ScenarioBatch(inputs(profiles));
+			Inputs[] scenarios = new Inputs[5];
+			for (int s = 0; s < scenarios.length; s++) {
+				scenarios[s] = inputs(profiles);
+			}
+			scenarios[1].weights.put("g2", 0.3);
+			scenarios[1].weights.put("g5", 0.0);
+			for (int c = 0; c < CRITERIA; c++) {
+				scenarios[2].generalisedCriteria.put("g" + c, 6 - c % 6);
+			}
+			scenarios[3].preferenceDirections.put("g0", "MIN");
+			scenarios[3].preferenceDirections.put("g1", "MAX");
+			scenarios[4].preferenceThresholds.put("g4", TestInputs.linear(0.5, 1.0));
+			scenarios[4].indifferenceThresholds.put("g3", TestInputs.constant(0.5));
+			scenarios[4].sigmaThresholds.put("g5", TestInputs.constant(40.0));
+			PreferenceResults[] expected = new PreferenceResults[scenarios.length];
+			for (int s = 0; s < scenarios.length; s++) {
+				expected[s] = Preference.calculateResults(scenarios[s], 1, true);
+				Checks.check(batch.isCompatible(scenarios[s]), "compatible scenario " + s);
+			}
+			for (Inputs scenario : scenarios) {
+				scenario.performanceTable = null;
+				scenario.profilesPerformanceTable = null;
+			}
+			for (int s = 0; s < scenarios.length; s++) {
+				String name = "scenario " + s + " with " + profiles + " profiles";
+				TestInputs.checkSameResults(expected[s], batch.calculateResults(scenarios[s], true), name);
+				PreferenceResults withoutPartial = batch.calculateResults(scenarios[s], false);
+				Checks.check(withoutPartial.getPartialPreferences() == null, name + " without partial preferences");
+				checkSamePreferences(expected[s], withoutPartial, name + " without partial preferences");
+			}
+			for (int threads : new int[] { 1, 3, 8 }) {
+				PreferenceResults[] results = new PreferenceResults[scenarios.length];
+				Throwable[] errors = new Throwable[scenarios.length];
+				batch.calculateResults(scenarios, threads, true, results, errors);
+				for (int s = 0; s < scenarios.length; s++) {
+					String name = "scenario " + s + " of " + threads + " threads with " + profiles + " profiles";
+					Checks.check(errors[s] == null, name + " without error");
+					TestInputs.checkSameResults(expected[s], results[s], name);
+				}
+			}
+		}
+	}
+
+	private static void checkSamePreferences(PreferenceResults expected, PreferenceResults actual, String name) {
+		ComparedElements elements = expected.getPreferences().getElements();
+		for (int a = 0; a < elements.size(); a++) {
+			for (int b : elements.getColumns(a)) {
+				Checks.checkSame(expected.getPreferences().get(a, b), actual.getPreferences().get(a, b),
+						name + " (" + a + ", " + b + ")");
+			}
+		}
+	}
+
+	private static void testIncompatible() {
+		ScenarioBatch batch = new ScenarioBatch(inputs(3));
+		Inputs alternatives = inputs(3);
+		alternatives.alternatives_ids = new ArrayList<>(alternatives.alternatives_ids.subList(1, ALTERNATIVES));
+		Inputs profiles = inputs(3);
+		profiles.profiles_ids.add("p9");
+		Inputs criteria = inputs(3);
+		Collections.swap(criteria.criteria_ids, 0, 1);
+		Inputs comparison = inputs(3);
+		comparison.comparisonWith = ComparisonWithParam.ALTERNATIVES;
+		Inputs[] scenarios = { alternatives, profiles, criteria, comparison };
+		String[] names = { "other alternatives", "other profiles", "criteria in another order",
+				"comparisons with the alternatives" };
+		for (int s = 0; s < scenarios.length; s++) {
+			Inputs scenario = scenarios[s];
+			Checks.check(!batch.isCompatible(scenario), names[s]);
+			Checks.checkThrows(IllegalArgumentException.class, () -> batch.calculateResults(scenario, true),
+					names[s] + " computed");
+		}
+	}
+
+	/**
+	 * A failed scenario does not stop the others.
+	 */
+	private static void testErrors() throws Exception {
+		ScenarioBatch batch = new ScenarioBatch(inputs(0));
+		Inputs direction = inputs(0);
+		direction.preferenceDirections.put("g3", "UP");
+		Inputs threshold = inputs(0);
+		// g2 is a V-shape criterion
+		threshold.preferenceThresholds.remove("g2");
+		Inputs alternatives = inputs(0);
+		alternatives.alternatives_ids = new ArrayList<>(alternatives.alternatives_ids.subList(0, 3));
+		Inputs[] scenarios = { inputs(0), direction, threshold, alternatives };
+		PreferenceResults[] results = new PreferenceResults[scenarios.length];
+		Throwable[] errors = new Throwable[scenarios.length];
+		batch.calculateResults(scenarios, 2, false, results, errors);
+		Checks.check(errors[0] == null && results[0] != null, "valid scenario");
+		checkSamePreferences(Preference.calculateResults(scenarios[0], 1, false), results[0], "valid scenario");
+		Checks.check(results[1] == null && errors[1] instanceof WrongPreferenceDirectionException,
+				"unknown direction");
+		Checks.check(results[2] == null && errors[2] instanceof NullThresholdException,
+				"missing threshold");
+		Checks.check(results[3] == null && errors[3] instanceof IllegalArgumentException, "incompatible scenario");
+	}
+
+	private static Inputs inputs(int profiles) {
+		return TestInputs.random(ALTERNATIVES, profiles, CRITERIA, new Random(240));
+	}
+}
@@ -0,0 +1,197 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Random;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Partial preferences of step criteria packed in bits and counted by weight
+ * give the sums of the weighted partial preferences, and the bits are used
+ * only when these sums are exact.
+ */
+public class StepWeightsTest {
+
+	public static void main(String[] args) throws Exception {
+		testBits();
+		testCreate();
+		testSums();
+		testPairBits();
+		testResults();
+	}
+
+	private static void testBits() {
+		Checks.check(StepBits.words(1) == 1 && StepBits.words(64) == 1 && StepBits.words(65) == 2, "words");
+		int criteria = 130;
+		int words = StepBits.words(criteria);
+		StepBits bits = new StepBits(2 * words);
+		double[] values = { 0.0, 0.5, 1.0 };
+		for (int pair = 0; pair < 2; pair++) {
+			for (int c = 0; c < criteria; c++) {
+				bits.set(pair * words + (c >>> 6), 1L << c, values[(c + pair) % 3]);
+			}
+		}
+		for (int pair = 0; pair < 2; pair++) {
+			for (int c = 0; c < criteria; c++) {
+				Checks.checkSame(values[(c + pair) % 3], bits.get(pair * words, c), "bit " + c + " of pair " + pair);
+			}
+		}
+		bits.clear();
+		for (int c = 0; c < criteria; c++) {
+			Checks.checkSame(0.0, bits.get(words, c), "cleared bit " + c);
+		}
+	}
+
+	private static void testCreate() throws Exception {
+		PreferenceKernel usual = PreferenceKernel.compile("MAX", 1, null, null, null);
+		PreferenceKernel level = PreferenceKernel.compile("MIN", 4, TestInputs.constant(2.0),
+				TestInputs.constant(1.0), null);
+		PreferenceKernel linear = PreferenceKernel.compile("MAX", 2, null, TestInputs.linear(0.1, 1.0), null);
+		PreferenceKernel vShape = PreferenceKernel.compile("MAX", 3, TestInputs.constant(2.0), null, null);
+		PreferenceKernel[] steps = { usual, level, linear };
+		Checks.check(StepWeights.create(steps, new double[] { 1.0, 3.0, 7.0 }) != null, "integer weights");
+		Checks.check(StepWeights.create(steps, new double[] { 0.25, 1.5, 0.0 }) != null, "multiples of 1/4");
+		Checks.check(StepWeights.create(steps, new double[] { -1.0, 2.0, 3.0 }) != null, "negative weight");
+		Checks.check(StepWeights.create(steps, new double[] { 0.3, 1.0, 1.0 }) == null, "weight 0.3");
+		Checks.check(StepWeights.create(steps, new double[] { 1.0 / 3, 1.0, 1.0 }) == null, "weight 1/3");
+		Checks.check(StepWeights.create(steps, new double[] { 1e300, 1.0, 1.0 }) == null, "sums not exact");
+		Checks.check(StepWeights.create(steps, new double[] { Double.MIN_VALUE, 1.0, 1.0 }) == null,
+				"subnormal weight");
+		Checks.check(StepWeights.create(steps, new double[] { Double.NaN, 1.0, 1.0 }) == null, "NaN weight");
+		Checks.check(StepWeights.create(steps, new double[] { Double.POSITIVE_INFINITY, 1.0, 1.0 }) == null,
+				"infinite weight");
+		Checks.check(StepWeights.create(new PreferenceKernel[] { usual, vShape }, new double[] { 1.0, 1.0 }) == null,
+				"V-shape criterion");
+		Checks.check(StepWeights.create(new PreferenceKernel[0], new double[0]) == null, "no criterion");
+	}
+
+	/**
+	 * Sums by popcounts against the sums of the criteria in order, over more
+	 * than one word.
+	 */
+	private static void testSums() throws Exception {
+		Random random = new Random(210);
+		double[][] weightSets = { { 1.0, 2.0, 5.0 }, { 0.5, 0.25, 3.75, 0.0 }, { 1024.0, 1.0, -2.0 } };
+		for (int criteria : new int[] { 3, 64, 65, 130 }) {
+			PreferenceKernel[] kernels = new PreferenceKernel[criteria];
+			for (int c = 0; c < criteria; c++) {
+				kernels[c] = PreferenceKernel.compile("MAX", 1, null, null, null);
+			}
+			for (double[] weightSet : weightSets) {
+				double[] weights = new double[criteria];
+				double totalWeight = 0.0;
+				for (int c = 0; c < criteria; c++) {
+					weights[c] = weightSet[random.nextInt(weightSet.length)];
+					totalWeight += weights[c];
+				}
+				StepWeights stepWeights = StepWeights.create(kernels, weights);
+				Checks.check(stepWeights != null, "weights of " + criteria + " criteria");
+				int words = StepBits.words(criteria);
+				StepBits bits = new StepBits(words);
+				double[] preferences = new double[criteria];
+				for (int i = 0; i < 100; i++) {
+					bits.clear();
+					for (int c = 0; c < criteria; c++) {
+						preferences[c] = random.nextInt(3) * 0.5;
+						bits.set(c >>> 6, 1L << c, preferences[c]);
+					}
+					Checks.checkSame(Preference.calcTotalPreference(preferences, 0, weights, totalWeight),
+							Preference.calcTotalPreference(bits, 0, stepWeights, totalWeight),
+							"sum of " + criteria + " criteria");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Bits of the kernels and of the tables of distinct values hold the
+	 * preferences of their pairs.
+	 */
+	private static void testPairBits() throws Exception {
+		Random random = new Random(211);
+		PreferenceKernel[] kernels = { PreferenceKernel.compile("MAX", 1, null, null, null),
+				PreferenceKernel.compile("MIN", 2, null, TestInputs.constant(3.0), null),
+				PreferenceKernel.compile("MAX", 4, TestInputs.constant(6.0), TestInputs.constant(2.0), null),
+				PreferenceKernel.compile("MIN", 4, TestInputs.linear(0.1, 4.0), TestInputs.linear(0.05, 1.0), null) };
+		int n = 40;
+		double[] evaluations = new double[n];
+		int[] columns = new int[n];
+		for (int k = 0; k < n; k++) {
+			// few distinct values, so tables are built
+			evaluations[k] = random.nextInt(12);
+			columns[k] = k;
+		}
+		for (int c = 0; c < kernels.length; c++) {
+			PreferenceKernel kernel = kernels[c];
+			DistinctValuesTable table = DistinctValuesTable.compress(kernel, evaluations);
+			Checks.check(table != null, "table of kernel " + c);
+			long bit = 1L << (c * 17);
+			for (int a = 0; a < n; a += 7) {
+				StepBits forward = new StepBits(n * 2);
+				StepBits backward = new StepBits(n * 2 + 1);
+				StepBits tableForward = new StepBits(n * 2);
+				StepBits tableBackward = new StepBits(n * 2 + 1);
+				kernel.calculatePairBits(evaluations[a], evaluations, columns, bit, forward, 0, 2, backward, 1, 2);
+				table.calculatePairBits(a, columns, bit, tableForward, 0, 2, tableBackward, 1, 2);
+				for (int b = 0; b < n; b++) {
+					String pair = "kernel " + c + " (" + a + ", " + b + ")";
+					double expected = kernel.calculate(evaluations[a], evaluations[b]);
+					double expectedBackward = kernel.calculate(evaluations[b], evaluations[a]);
+					Checks.checkSame(expected, forward.get(b * 2, c * 17), pair);
+					Checks.checkSame(expectedBackward, backward.get(1 + b * 2, c * 17), pair + " backward");
+					Checks.checkSame(expected, tableForward.get(b * 2, c * 17), pair + " of the table");
+					Checks.checkSame(expectedBackward, tableBackward.get(1 + b * 2, c * 17),
+							pair + " backward of the table");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Results of step criteria with integer weights, computed with bits, and
+	 * with weights of 0.3, computed with doubles, are the sums of the partial
+	 * preferences in the order of the criteria.
+	 */
+	private static void testResults() throws Exception {
+		for (int profiles : new int[] { 0, 3 }) {
+			Inputs inputs = TestInputs.random(35, profiles, 9, new Random(212));
+			for (int c = 0; c < inputs.criteria_ids.size(); c++) {
+				inputs.generalisedCriteria.put(inputs.criteria_ids.get(c), new int[] { 1, 2, 4 }[c % 3]);
+			}
+			checkResults(inputs, true, profiles + " profiles, integer weights");
+			inputs.weights.put("g0", 0.3);
+			inputs.weights.put("g4", 0.3);
+			checkResults(inputs, false, profiles + " profiles, weights of 0.3");
+		}
+	}
+
+	private static void checkResults(Inputs inputs, boolean packed, String name) throws Exception {
+		IdsDictionary criteria = new IdsDictionary(inputs.criteria_ids);
+		int m = criteria.size();
+		PreferenceKernel[] kernels = new PreferenceKernel[m];
+		for (int c = 0; c < m; c++) {
+			kernels[c] = Preference.compileKernel(inputs, criteria.getId(c));
+		}
+		double[] weights = Preference.getWeights(inputs, criteria);
+		Checks.check((StepWeights.create(kernels, weights) != null) == packed, name + " packed");
+		double totalWeight = 0.0;
+		for (double weight : weights) {
+			totalWeight += weight;
+		}
+		PreferenceResults serial = Preference.calculateResults(inputs, 1, true);
+		TestInputs.checkSameResults(serial, Preference.calculateResults(inputs, 3, true), name + " in parallel");
+		PreferenceResults withoutPartial = Preference.calculateResults(inputs, 2, false);
+		ComparedElements elements = serial.getPreferences().getElements();
+		double[] partialPreferences = new double[m];
+		for (int a = 0; a < elements.size(); a++) {
+			for (int b : elements.getColumns(a)) {
+				for (int c = 0; c < m; c++) {
+					partialPreferences[c] = serial.getPartialPreferences().get(a, b, c);
+				}
+				double expected = Preference.calcTotalPreference(partialPreferences, 0, weights, totalWeight);
+				String pair = name + " (" + a + ", " + b + ")";
+				Checks.checkSame(expected, serial.getPreferences().get(a, b), pair);
+				Checks.checkSame(expected, withoutPartial.getPreferences().get(a, b), pair + " without partial");
+			}
+		}
+	}
+}
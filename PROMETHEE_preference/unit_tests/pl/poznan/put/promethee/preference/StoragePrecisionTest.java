@@ -0,0 +1,155 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Random;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+import pl.poznan.put.promethee.xmcda.Utils;
+import pl.poznan.put.promethee.xmcda.Utils.InvalidCommandLineException;
+
+/**
+ * Partial preferences kept in a reduced precision are within the error bound
+ * of their precision, and the aggregated preferences are unchanged.
+ */
+public class StoragePrecisionTest {
+	private static final double FLOAT32_ERROR = 6e-8;
+	private static final double FIXED16_ERROR = 8e-6;
+
+	public static void main(String[] args) throws Exception {
+		testStorages();
+		testStepCodes();
+		testNames();
+		testResults();
+		testStepResults();
+		testArguments();
+	}
+
+	private static void testStorages() {
+		Random random = new Random(140);
+		int size = 10000;
+		DoubleStorage floats = StoragePrecision.FLOAT32.create(size);
+		DoubleStorage fixedPoint = StoragePrecision.FIXED16.create(size);
+		Checks.check(StoragePrecision.DOUBLE.create(size).isExact(), "doubles are exact");
+		Checks.check(!floats.isExact() && !fixedPoint.isExact(), "reduced precisions are not exact");
+		Checks.check(floats.size() == size && fixedPoint.size() == size, "size");
+		for (int i = 0; i < size; i++) {
+			double value = i < 3 ? i * 0.5 : random.nextDouble();
+			floats.set(i, value);
+			fixedPoint.set(i, value);
+			Checks.checkClose(value, floats.get(i), value * FLOAT32_ERROR, "float " + value);
+			Checks.checkClose(value, fixedPoint.get(i), FIXED16_ERROR, "fixed point " + value);
+			if (i < 3) {
+				Checks.checkSame(value, floats.get(i), "float " + value);
+				Checks.checkSame(value, fixedPoint.get(i), "fixed point " + value);
+			}
+		}
+		floats.set(0, Double.NaN);
+		fixedPoint.set(0, Double.NaN);
+		Checks.check(Double.isNaN(floats.get(0)), "float NaN");
+		Checks.check(Double.isNaN(fixedPoint.get(0)), "fixed point NaN");
+		// the functions give values in [0, 1] only
+		fixedPoint.set(1, 1.5);
+		fixedPoint.set(2, -0.5);
+		Checks.checkSame(1.0, fixedPoint.get(1), "fixed point above 1");
+		Checks.checkSame(0.0, fixedPoint.get(2), "fixed point below 0");
+	}
+
+	/**
+	 * Codes sharing a word are written by several threads.
+	 */
+	private static void testStepCodes() {
+		int size = 1000;
+		DoubleStorage codes = StoragePrecision.STEP2.create(size);
+		// values which are not codes are rejected, the others are exact
+		Checks.check(codes.isExact(), "codes are exact");
+		ParallelRows.forEachRow(size, 4, index -> codes.set(index, (index % 3) * 0.5));
+		for (int index = 0; index < size; index++) {
+			Checks.checkSame((index % 3) * 0.5, codes.get(index), "code " + index);
+		}
+		for (double value : new double[] { 0.3, -0.5, Double.NaN }) {
+			Checks.checkThrows(IllegalArgumentException.class, () -> codes.set(0, value), "code of " + value);
+		}
+	}
+
+	private static void testNames() {
+		for (StoragePrecision precision : StoragePrecision.values()) {
+			Checks.check(StoragePrecision.fromName(precision.getName()) == precision, precision.getName());
+			for (int function = 1; function <= 6; function++) {
+				boolean step = function == 1 || function == 2 || function == 4;
+				Checks.check(precision.supports(function) == (step || precision != StoragePrecision.STEP2),
+						precision.getName() + " of function " + function);
+			}
+		}
+		Checks.check(StoragePrecision.fromName("float64") == null, "unknown precision");
+	}
+
+	private static void testResults() throws Exception {
+		for (int profiles : new int[] { 0, 3 }) {
+			Inputs inputs = TestInputs.random(40, profiles, 6, new Random(141));
+			PreferenceResults exact = Preference.calculateResults(inputs, 1, true);
+			for (StoragePrecision precision : new StoragePrecision[] { StoragePrecision.FLOAT32,
+					StoragePrecision.FIXED16 }) {
+				String name = precision.getName() + " with " + profiles + " profiles";
+				for (int threads : new int[] { 1, 3 }) {
+					PreferenceResults reduced = calculate(inputs, threads, precision);
+					ComparedElements elements = exact.getPreferences().getElements();
+					for (int a = 0; a < elements.size(); a++) {
+						for (int b : elements.getColumns(a)) {
+							Checks.checkSame(exact.getPreferences().get(a, b), reduced.getPreferences().get(a, b),
+									name + " preference of (" + a + ", " + b + ")");
+							for (int c = 0; c < inputs.criteria_ids.size(); c++) {
+								double value = exact.getPartialPreferences().get(a, b, c);
+								double error = precision == StoragePrecision.FLOAT32 ? value * FLOAT32_ERROR
+										: FIXED16_ERROR;
+								Checks.checkClose(value, reduced.getPartialPreferences().get(a, b, c), error,
+										name + " partial preference of (" + a + ", " + b + ", " + c + ")");
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Codes keep the partial preferences of step functions exactly.
+	 */
+	private static void testStepResults() throws Exception {
+		Inputs inputs = TestInputs.random(30, 0, 6, new Random(142));
+		for (int c = 0; c < inputs.criteria_ids.size(); c++) {
+			inputs.generalisedCriteria.put(inputs.criteria_ids.get(c), new int[] { 1, 2, 4 }[c % 3]);
+		}
+		TestInputs.checkSameResults(Preference.calculateResults(inputs, 1, true),
+				calculate(inputs, 2, StoragePrecision.STEP2), "step2");
+	}
+
+	private static PreferenceResults calculate(Inputs inputs, int threads, StoragePrecision precision)
+			throws Exception {
+		ComparedElements elements = new ComparedElements(inputs);
+		IdsDictionary criteria = new IdsDictionary(inputs.criteria_ids);
+		return Preference.calculateResults(inputs, threads, new PreferencesMatrix(elements),
+				new PartialPreferencesTensor(elements, criteria,
+						precision.create(PartialPreferencesTensor.size(elements, criteria))));
+	}
+
+	private static void testArguments() throws Exception {
+		Checks.check(parse().partialPreferencesPrecision == StoragePrecision.DOUBLE, "double by default");
+		for (StoragePrecision precision : StoragePrecision.values()) {
+			Checks.check(parse("--partial-precision", precision.getName()).partialPreferencesPrecision == precision,
+					"--partial-precision " + precision.getName());
+		}
+		Checks.checkThrows(InvalidCommandLineException.class, () -> parse("--partial-precision", "half"),
+				"unknown precision");
+		Checks.checkThrows(InvalidCommandLineException.class,
+				() -> parse("--partial-precision", "float32", "--chunk-size", "10"), "precision of chunks");
+	}
+
+	private static Utils.Arguments parse(String... options) throws InvalidCommandLineException {
+		String[] args = new String[options.length + 4];
+		args[0] = "-i";
+		args[1] = "in";
+		args[2] = "-o";
+		args[3] = "out";
+		System.arraycopy(options, 0, args, 4, options.length);
+		return Utils.parseCmdLineArguments(args);
+	}
+}
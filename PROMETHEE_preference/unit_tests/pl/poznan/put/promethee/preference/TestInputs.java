@@ -0,0 +1,200 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.xmcda.QualifiedValue;
+import org.xmcda.Threshold;
+
+import pl.poznan.put.promethee.exceptions.NullThresholdException;
+import pl.poznan.put.promethee.exceptions.WrongPreferenceDirectionException;
+import pl.poznan.put.promethee.xmcda.InputsHandler.ComparisonWithParam;
+import pl.poznan.put.promethee.xmcda.InputsHandler.GeneralisedCriterionParam;
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Random inputs of the unit tests and preferences computed pair by pair with
+ * {@link GeneralisedCriteria}, in the same way as the module did before its
+ * preferences were computed by kernels, tiles and tables.
+ */
+public class TestInputs {
+	private TestInputs() {
+	}
+
+	/**
+	 * Criteria cycle through the six generalised criteria and both
+	 * directions. Every third criterion has linear thresholds and every fourth
+	 * one is evaluated on an ordinal scale of 5 levels.
+	 *
+	 * @param profiles
+	 *            number of boundary profiles, 0 to compare alternatives with
+	 *            each other
+	 */
+	public static Inputs random(int alternatives, int profiles, int criteria, Random random) {
+		Inputs inputs = new Inputs();
+		inputs.comparisonWith = profiles > 0 ? ComparisonWithParam.BOUNDARY_PROFILES
+				: ComparisonWithParam.ALTERNATIVES;
+		inputs.generalisedCriterion = GeneralisedCriterionParam.SPECIFIED;
+		inputs.alternatives_ids = new ArrayList<>();
+		inputs.profiles_ids = new ArrayList<>();
+		inputs.criteria_ids = new ArrayList<>();
+		inputs.performanceTable = new LinkedHashMap<>();
+		inputs.profilesPerformanceTable = new LinkedHashMap<>();
+		inputs.generalisedCriteria = new LinkedHashMap<>();
+		inputs.preferenceDirections = new LinkedHashMap<>();
+		inputs.weights = new LinkedHashMap<>();
+		inputs.preferenceThresholds = new LinkedHashMap<>();
+		inputs.indifferenceThresholds = new LinkedHashMap<>();
+		inputs.sigmaThresholds = new LinkedHashMap<>();
+		for (int c = 0; c < criteria; c++) {
+			String criterion = "g" + c;
+			inputs.criteria_ids.add(criterion);
+			inputs.generalisedCriteria.put(criterion, 1 + c % 6);
+			inputs.preferenceDirections.put(criterion, c % 2 == 0 ? "MAX" : "MIN");
+			inputs.weights.put(criterion, 1.0 + random.nextInt(5));
+			if (c % 3 == 2) {
+				inputs.preferenceThresholds.put(criterion, linear(0.3, 10.0));
+				inputs.indifferenceThresholds.put(criterion, linear(0.05, 2.0));
+				inputs.sigmaThresholds.put(criterion, linear(0.1, 5.0));
+			} else {
+				inputs.preferenceThresholds.put(criterion, constant(30.0));
+				inputs.indifferenceThresholds.put(criterion, constant(5.0));
+				inputs.sigmaThresholds.put(criterion, constant(15.0));
+			}
+		}
+		for (int a = 0; a < alternatives; a++) {
+			String alternative = "a" + a;
+			inputs.alternatives_ids.add(alternative);
+			inputs.performanceTable.put(alternative, randomEvaluations(inputs.criteria_ids, random));
+		}
+		for (int p = 0; p < profiles; p++) {
+			String profile = "p" + p;
+			inputs.profiles_ids.add(profile);
+			inputs.profilesPerformanceTable.put(profile, randomEvaluations(inputs.criteria_ids, random));
+		}
+		return inputs;
+	}
+
+	private static Map<String, Double> randomEvaluations(List<String> criteria, Random random) {
+		Map<String, Double> evaluations = new LinkedHashMap<>();
+		for (int c = 0; c < criteria.size(); c++) {
+			evaluations.put(criteria.get(c), c % 4 == 3 ? random.nextInt(5) * 25.0 : random.nextDouble() * 100);
+		}
+		return evaluations;
+	}
+
+	public static Threshold<Double> constant(double value) {
+		return new Threshold<Double>(new QualifiedValue<Double>(value));
+	}
+
+	public static Threshold<Double> linear(double slope, double intercept) {
+		return new Threshold<Double>(new QualifiedValue<Double>(slope), new QualifiedValue<Double>(intercept));
+	}
+
+	/**
+	 * @return evaluation of an alternative or a profile
+	 */
+	public static double evaluation(Inputs inputs, String element, String criterion) {
+		Map<String, Double> evaluations = inputs.performanceTable.get(element);
+		if (evaluations == null) {
+			evaluations = inputs.profilesPerformanceTable.get(element);
+		}
+		return evaluations.get(criterion);
+	}
+
+	/**
+	 * @return preference of {@code a} over {@code b} on the criterion
+	 */
+	public static double partialPreference(Inputs inputs, String a, String b, String criterion)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		double ga = evaluation(inputs, a, criterion);
+		double gb = evaluation(inputs, b, criterion);
+		String direction = inputs.preferenceDirections.get(criterion);
+		if (!"MAX".equals(direction) && !"MIN".equals(direction)) {
+			throw new WrongPreferenceDirectionException();
+		}
+		boolean maximized = "MAX".equals(direction);
+		double base = maximized ? Math.min(ga, gb) : Math.max(ga, gb);
+		Double p = threshold(inputs.preferenceThresholds.get(criterion), base);
+		Double q = threshold(inputs.indifferenceThresholds.get(criterion), base);
+		Double s = threshold(inputs.sigmaThresholds.get(criterion), base);
+		return new GeneralisedCriteria().calculate(inputs.generalisedCriteria.get(criterion),
+				maximized ? ga - gb : gb - ga, p, q, s);
+	}
+
+	private static Double threshold(Threshold<Double> threshold, double base) {
+		if (threshold == null) {
+			return null;
+		}
+		if (threshold.isConstant()) {
+			return threshold.getConstant().getValue();
+		}
+		return threshold.getSlope().getValue() * base + threshold.getIntercept().getValue();
+	}
+
+	/**
+	 * @return aggregated preference of {@code a} over {@code b}, criteria
+	 *         being added in their order
+	 */
+	public static double preference(Inputs inputs, String a, String b)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		double preference = 0.0;
+		double totalWeight = 0.0;
+		for (String criterion : inputs.criteria_ids) {
+			double weight = inputs.weights.get(criterion);
+			totalWeight += weight;
+			preference += partialPreference(inputs, a, b, criterion) * weight;
+		}
+		return preference / totalWeight;
+	}
+
+	/**
+	 * Checks every compared pair of the results against the preferences
+	 * computed pair by pair.
+	 */
+	public static void checkResults(Inputs inputs, PreferenceResults results, String message)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		PreferencesMatrix preferences = results.getPreferences();
+		PartialPreferencesTensor partialPreferences = results.getPartialPreferences();
+		ComparedElements elements = preferences.getElements();
+		IdsDictionary ids = elements.getDictionary();
+		for (int a = 0; a < elements.size(); a++) {
+			for (int b : elements.getColumns(a)) {
+				String pair = message + " (" + ids.getId(a) + ", " + ids.getId(b) + ")";
+				Checks.checkSame(preference(inputs, ids.getId(a), ids.getId(b)), preferences.get(a, b), pair);
+				if (partialPreferences == null) {
+					continue;
+				}
+				for (int c = 0; c < inputs.criteria_ids.size(); c++) {
+					String criterion = inputs.criteria_ids.get(c);
+					Checks.checkSame(partialPreference(inputs, ids.getId(a), ids.getId(b), criterion),
+							partialPreferences.get(a, b, c), pair + " on " + criterion);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that two results hold the same values for every compared pair.
+	 */
+	public static void checkSameResults(PreferenceResults expected, PreferenceResults actual, String message) {
+		ComparedElements elements = expected.getPreferences().getElements();
+		int criteria = expected.getPartialPreferences() != null
+				? expected.getPartialPreferences().getCriteria().size() : 0;
+		Checks.check((expected.getPartialPreferences() == null) == (actual.getPartialPreferences() == null),
+				message + ": partial preferences kept in only one of the results");
+		for (int a = 0; a < elements.size(); a++) {
+			for (int b : elements.getColumns(a)) {
+				String pair = message + " (" + a + ", " + b + ")";
+				Checks.checkSame(expected.getPreferences().get(a, b), actual.getPreferences().get(a, b), pair);
+				for (int c = 0; c < criteria; c++) {
+					Checks.checkSame(expected.getPartialPreferences().get(a, b, c),
+							actual.getPartialPreferences().get(a, b, c), pair + " on criterion " + c);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package pl.poznan.put.promethee.preference;
+
+import java.util.Random;
+
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Results of matrices whose size is around a multiple of the tile size are
+ * the ones of the pairs evaluated one by one.
+ */
+public class TilesTest {
+	private static final int[] SIZES = { 1, 2, 31, 32, 33, 63, 64, 65, 97 };
+
+	public static void main(String[] args) throws Exception {
+		testAlternatives();
+		testProfiles();
+	}
+
+	private static void testAlternatives() throws Exception {
+		for (int size : SIZES) {
+			Inputs inputs = TestInputs.random(size, 0, 5, new Random(110 + size));
+			PreferenceResults results = Preference.calculateResults(inputs, 1, true);
+			TestInputs.checkResults(inputs, results, size + " alternatives");
+			TestInputs.checkSameResults(new PreferenceResults(results.getPreferences(), null),
+					Preference.calculateResults(inputs, 1, false), size + " alternatives without tensor");
+			TestInputs.checkSameResults(results, Preference.calculateResults(inputs, 2, true),
+					size + " alternatives by 2 threads");
+		}
+	}
+
+	/**
+	 * The profiles follow the alternatives in the matrix, so they start
+	 * anywhere in a tile.
+	 */
+	private static void testProfiles() throws Exception {
+		for (int size : SIZES) {
+			for (int profiles : new int[] { 1, 5, 32 }) {
+				Inputs inputs = TestInputs.random(size, profiles, 4, new Random(120 + size));
+				PreferenceResults results = Preference.calculateResults(inputs, 1, true);
+				String name = size + " alternatives and " + profiles + " profiles";
+				TestInputs.checkResults(inputs, results, name);
+				TestInputs.checkSameResults(new PreferenceResults(results.getPreferences(), null),
+						Preference.calculateResults(inputs, 1, false), name + " without tensor");
+			}
+		}
+	}
+}
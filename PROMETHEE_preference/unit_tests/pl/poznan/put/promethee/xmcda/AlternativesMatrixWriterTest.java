@@ -0,0 +1,327 @@
+package pl.poznan.put.promethee.xmcda;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import pl.poznan.put.promethee.preference.Checks;
+import pl.poznan.put.promethee.preference.ComparedElements;
+import pl.poznan.put.promethee.preference.Preference;
+import pl.poznan.put.promethee.preference.PreferenceResults;
+import pl.poznan.put.promethee.preference.TestInputs;
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Layout of the matrices streamed in both versions of XMCDA, and values read
+ * back from whole results.
+ */
+public class AlternativesMatrixWriterTest {
+	private static final String V3_HEADER = "<?xml version=\"1.0\" ?>\n"
+			+ "<xmcda:XMCDA xmlns:xmcda=\"http://www.decision-deck.org/2016/XMCDA-3.0.2\""
+			+ " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+			+ " xsi:schemaLocation=\"http://www.decision-deck.org/2016/XMCDA-3.0.2"
+			+ " http://www.decision-deck.org/xmcda/_downloads/XMCDA-3.0.2.xsd\">\n\n";
+	private static final String V2_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+			+ "<xmcda:XMCDA xmlns:xmcda=\"http://www.decision-deck.org/2017/XMCDA-2.2.2\""
+			+ " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-Instance\">";
+
+	public static void main(String[] args) throws Exception {
+		testLayoutV3();
+		testLayoutV2();
+		testResults();
+		testSparseLayout();
+		testSparseResults();
+		testSparseArgument();
+		testErrors();
+	}
+
+	/**
+	 * A row written twice, values with and without ids and the lexical forms
+	 * of the special values.
+	 */
+	private static void testLayoutV3() throws Exception {
+		String expected = V3_HEADER + "<alternativesMatrix>\n"
+				+ "\t\t<row>\n"
+				+ "\t\t\t<alternativeID>a1</alternativeID>\n"
+				+ "\t\t\t<column>\n"
+				+ "\t\t\t\t<alternativeID>a2</alternativeID>\n"
+				+ "\t\t\t\t<values>\n"
+				+ "\t\t\t\t\t<value id=\"g1\">\n"
+				+ "\t\t\t\t\t\t<real>0.0</real>\n"
+				+ "\t\t\t\t\t</value>\n"
+				+ "\t\t\t\t\t<value>\n"
+				+ "\t\t\t\t\t\t<real>INF</real>\n"
+				+ "\t\t\t\t\t</value>\n"
+				+ "\t\t\t\t</values>\n"
+				+ "\t\t\t</column>\n"
+				+ "\t\t\t<column>\n"
+				+ "\t\t\t\t<alternativeID>a3</alternativeID>\n"
+				+ "\t\t\t\t<values>\n"
+				+ "\t\t\t\t\t<value id=\"g1\">\n"
+				+ "\t\t\t\t\t\t<real>-0.25</real>\n"
+				+ "\t\t\t\t\t</value>\n"
+				+ "\t\t\t\t\t<value>\n"
+				+ "\t\t\t\t\t\t<real>-INF</real>\n"
+				+ "\t\t\t\t\t</value>\n"
+				+ "\t\t\t\t</values>\n"
+				+ "\t\t\t</column>\n"
+				+ "\t\t</row>\n"
+				+ "\t\t<row>\n"
+				+ "\t\t\t<alternativeID>a1</alternativeID>\n"
+				+ "\t\t\t<column>\n"
+				+ "\t\t\t\t<alternativeID>a1</alternativeID>\n"
+				+ "\t\t\t\t<values>\n"
+				+ "\t\t\t\t\t<value id=\"g1\">\n"
+				+ "\t\t\t\t\t\t<real>NaN</real>\n"
+				+ "\t\t\t\t\t</value>\n"
+				+ "\t\t\t\t\t<value>\n"
+				+ "\t\t\t\t\t\t<real>1.0E-7</real>\n"
+				+ "\t\t\t\t\t</value>\n"
+				+ "\t\t\t\t</values>\n"
+				+ "\t\t\t</column>\n"
+				+ "\t\t</row>\n"
+				+ "\t</alternativesMatrix>\n"
+				+ "</xmcda:XMCDA>\n";
+		Checks.check(expected.equals(writeSmall(Utils.XMCDA_VERSION.v3)), "XMCDA v3 layout");
+	}
+
+	private static void testLayoutV2() throws Exception {
+		String expected = V2_HEADER + "\n"
+				+ "    <alternativesComparisons>\n"
+				+ "        <pairs>\n"
+				+ pairV2("a1", "a2", "0.0", "INF")
+				+ pairV2("a1", "a3", "-0.25", "-INF")
+				+ pairV2("a1", "a1", "NaN", "1.0E-7")
+				+ "        </pairs>\n"
+				+ "    </alternativesComparisons>\n"
+				+ "</xmcda:XMCDA>\n";
+		Checks.check(expected.equals(writeSmall(Utils.XMCDA_VERSION.v2)), "XMCDA v2 layout");
+	}
+
+	private static String pairV2(String initial, String terminal, String first, String second) {
+		return "            <pair>\n"
+				+ "                <initial>\n"
+				+ "                    <alternativeID>" + initial + "</alternativeID>\n"
+				+ "                </initial>\n"
+				+ "                <terminal>\n"
+				+ "                    <alternativeID>" + terminal + "</alternativeID>\n"
+				+ "                </terminal>\n"
+				+ "                <values>\n"
+				+ "                    <value id=\"g1\">\n"
+				+ "                        <real>" + first + "</real>\n"
+				+ "                    </value>\n"
+				+ "                    <value>\n"
+				+ "                        <real>" + second + "</real>\n"
+				+ "                    </value>\n"
+				+ "                </values>\n"
+				+ "            </pair>\n";
+	}
+
+	private static String writeSmall(Utils.XMCDA_VERSION version) throws Exception {
+		String tag = version == Utils.XMCDA_VERSION.v2 ? "alternativesComparisons" : "alternativesMatrix";
+		double[][] first = { { 0.0, Double.POSITIVE_INFINITY }, { -0.25, Double.NEGATIVE_INFINITY } };
+		File file = File.createTempFile("matrix", ".xml");
+		try {
+			try (AlternativesMatrixWriter writer = new AlternativesMatrixWriter(file, tag, version,
+					new String[] { "g1", null }, false)) {
+				writer.writeRow("a1", new String[] { "a2", "a3" }, (column, index) -> first[column][index]);
+				writer.writeRow("a1", new String[] { "a1" }, (column, index) -> index == 0 ? Double.NaN : 1e-7);
+				writer.finish();
+			}
+			return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Every compared pair of whole results is written once with its
+	 * preference, in the order of the rows and columns.
+	 */
+	private static void testResults() throws Exception {
+		for (int profiles : new int[] { 0, 3 }) {
+			PreferenceResults results = Preference.calculateResults(TestInputs.random(7, profiles, 3, new Random(70)),
+					1, true);
+			ComparedElements elements = results.getPreferences().getElements();
+			int[] rows = new int[elements.size()];
+			List<String> expected = new ArrayList<>();
+			for (int row = 0; row < rows.length; row++) {
+				rows[row] = row;
+				for (int column : elements.getColumns(row)) {
+					expected.add(elements.getDictionary().getId(row) + " " + elements.getDictionary().getId(column)
+							+ " " + results.getPreferences().get(row, column));
+				}
+			}
+			for (Utils.XMCDA_VERSION version : Utils.XMCDA_VERSION.values()) {
+				File file = File.createTempFile("matrix", ".xml");
+				try {
+					AlternativesMatrixWriter.write(file, "alternativesMatrix", version, elements, rows,
+							new String[] { null }, (row, column, index) -> results.getPreferences().get(row, column),
+							false);
+					Checks.check(expected.equals(readPairs(file, version)),
+							"preferences written in " + version + " with " + profiles + " profiles");
+				} finally {
+					file.delete();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Values equal to 0, of both signs, are omitted as well as the pairs and
+	 * rows left without values, NaN is kept.
+	 */
+	private static void testSparseLayout() throws Exception {
+		String expected = V3_HEADER + "<alternativesMatrix>\n"
+				+ "\t\t<row>\n"
+				+ "\t\t\t<alternativeID>a1</alternativeID>\n"
+				+ "\t\t\t<column>\n"
+				+ "\t\t\t\t<alternativeID>a2</alternativeID>\n"
+				+ "\t\t\t\t<values>\n"
+				+ "\t\t\t\t\t<value>\n"
+				+ "\t\t\t\t\t\t<real>INF</real>\n"
+				+ "\t\t\t\t\t</value>\n"
+				+ "\t\t\t\t</values>\n"
+				+ "\t\t\t</column>\n"
+				+ "\t\t\t<column>\n"
+				+ "\t\t\t\t<alternativeID>a4</alternativeID>\n"
+				+ "\t\t\t\t<values>\n"
+				+ "\t\t\t\t\t<value id=\"g1\">\n"
+				+ "\t\t\t\t\t\t<real>NaN</real>\n"
+				+ "\t\t\t\t\t</value>\n"
+				+ "\t\t\t\t</values>\n"
+				+ "\t\t\t</column>\n"
+				+ "\t\t</row>\n"
+				+ "\t</alternativesMatrix>\n"
+				+ "</xmcda:XMCDA>\n";
+		double[][] values = { { 0.0, Double.POSITIVE_INFINITY }, { -0.0, 0.0 }, { Double.NaN, 0.0 } };
+		File file = File.createTempFile("matrix", ".xml");
+		try {
+			try (AlternativesMatrixWriter writer = new AlternativesMatrixWriter(file, "alternativesMatrix",
+					Utils.XMCDA_VERSION.v3, new String[] { "g1", null }, true)) {
+				writer.writeRow("a1", new String[] { "a2", "a3", "a4" }, (column, index) -> values[column][index]);
+				writer.writeRow("a2", new String[] { "a1", "a3" }, (column, index) -> 0.0);
+				writer.writeRow("a3", new String[0], (column, index) -> 1.0);
+				writer.finish();
+			}
+			String written = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+			Checks.check(expected.equals(written), "sparse XMCDA v3 layout");
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * The sparse partial preferences are the dense ones without the values
+	 * equal to 0.
+	 */
+	private static void testSparseResults() throws Exception {
+		for (int profiles : new int[] { 0, 4 }) {
+			Inputs inputs = TestInputs.random(9, profiles, 6, new Random(71));
+			PreferenceResults results = Preference.calculateResults(inputs, 1, true);
+			ComparedElements elements = results.getPreferences().getElements();
+			int[] rows = new int[elements.size()];
+			for (int row = 0; row < rows.length; row++) {
+				rows[row] = row;
+			}
+			String[] criteria = inputs.criteria_ids.toArray(new String[0]);
+			for (Utils.XMCDA_VERSION version : Utils.XMCDA_VERSION.values()) {
+				List<String> dense = writePartialPreferences(results, rows, criteria, version, false);
+				List<String> sparse = writePartialPreferences(results, rows, criteria, version, true);
+				List<String> expected = new ArrayList<>();
+				for (String pair : dense) {
+					String values = pair.replaceAll(" g[0-9]+=-?0\\.0(?= |$)", "");
+					if (values.indexOf('=') >= 0) {
+						expected.add(values);
+					}
+				}
+				Checks.check(sparse.size() < dense.size(), "pairs omitted in " + version);
+				Checks.check(expected.equals(sparse),
+						"sparse partial preferences in " + version + " with " + profiles + " profiles");
+			}
+		}
+	}
+
+	private static void testSparseArgument() throws Exception {
+		String[] dense = { "-i", "in", "-o", "out" };
+		String[] sparse = { "-i", "in", "-o", "out", "--sparse-partial-preferences" };
+		Checks.check(!Utils.parseCmdLineArguments(dense).sparsePartialPreferences, "dense by default");
+		Checks.check(Utils.parseCmdLineArguments(sparse).sparsePartialPreferences, "sparse on request");
+	}
+
+	private static List<String> writePartialPreferences(PreferenceResults results, int[] rows, String[] criteria,
+			Utils.XMCDA_VERSION version, boolean sparse) throws Exception {
+		File file = File.createTempFile("matrix", ".xml");
+		try {
+			AlternativesMatrixWriter.write(file, "alternativesMatrix", version,
+					results.getPreferences().getElements(), rows, criteria, results.getPartialPreferences()::get,
+					sparse);
+			return readPairs(file, version);
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * @return pairs of the file as "row column values", with the values of a
+	 *         pair separated by spaces and preceded by their id if any
+	 */
+	static List<String> readPairs(File file, Utils.XMCDA_VERSION version) throws Exception {
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		Element root = factory.newDocumentBuilder().parse(file).getDocumentElement();
+		List<String> pairs = new ArrayList<>();
+		if (version == Utils.XMCDA_VERSION.v2) {
+			NodeList nodes = root.getElementsByTagName("pair");
+			for (int i = 0; i < nodes.getLength(); i++) {
+				Element pair = (Element) nodes.item(i);
+				pairs.add(text(pair, "initial") + " " + text(pair, "terminal") + values(pair));
+			}
+			return pairs;
+		}
+		NodeList rows = root.getElementsByTagName("row");
+		for (int i = 0; i < rows.getLength(); i++) {
+			Element row = (Element) rows.item(i);
+			String id = row.getElementsByTagName("alternativeID").item(0).getTextContent();
+			NodeList columns = row.getElementsByTagName("column");
+			for (int j = 0; j < columns.getLength(); j++) {
+				Element column = (Element) columns.item(j);
+				pairs.add(id + " " + column.getElementsByTagName("alternativeID").item(0).getTextContent()
+						+ values(column));
+			}
+		}
+		return pairs;
+	}
+
+	private static String text(Element element, String tag) {
+		return element.getElementsByTagName(tag).item(0).getTextContent().trim();
+	}
+
+	private static String values(Element element) {
+		StringBuilder builder = new StringBuilder();
+		NodeList values = element.getElementsByTagName("value");
+		for (int i = 0; i < values.getLength(); i++) {
+			Element value = (Element) values.item(i);
+			builder.append(' ');
+			if (value.hasAttribute("id")) {
+				builder.append(value.getAttribute("id")).append('=');
+			}
+			builder.append(Double.parseDouble(text(value, "real")));
+		}
+		return builder.toString();
+	}
+
+	private static void testErrors() {
+		File missing = new File(new File(System.getProperty("java.io.tmpdir"), "missing-directory"), "matrix.xml");
+		Checks.checkThrows(IOException.class, () -> new AlternativesMatrixWriter(missing, "alternativesMatrix",
+				Utils.XMCDA_VERSION.v3, new String[] { null }, false), "file in a missing directory");
+	}
+}
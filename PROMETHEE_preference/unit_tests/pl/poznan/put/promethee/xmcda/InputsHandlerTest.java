@@ -0,0 +1,125 @@
+package pl.poznan.put.promethee.xmcda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.xmcda.ProgramExecutionResult;
+
+import pl.poznan.put.promethee.preference.Checks;
+import pl.poznan.put.promethee.preference.IdsDictionary;
+import pl.poznan.put.promethee.preference.PerformanceColumns;
+import pl.poznan.put.promethee.xmcda.InputsHandler.ComparisonWithParam;
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Ids of the profiles checked against the ids of the alternatives, and
+ * performance tables read by streaming checked for missing evaluations.
+ */
+public class InputsHandlerTest {
+
+	public static void main(String[] args) throws Exception {
+		testUniqueProfiles();
+		testManyProfiles();
+		testPerformanceColumns();
+	}
+
+	private static void testUniqueProfiles() {
+		Inputs inputs = inputs(Arrays.asList("a1", "a2", "a3"), Arrays.asList("p1", "p2"));
+		ProgramExecutionResult errors = new ProgramExecutionResult();
+		Checks.check(InputsHandler.profilesIDsUnique(inputs, errors), "unique ids");
+		Checks.check(ErrorChecker.checkErrors(errors), "no error for unique ids");
+
+		inputs.profiles_ids = Arrays.asList("p1", "a3");
+		errors = new ProgramExecutionResult();
+		Checks.check(!InputsHandler.profilesIDsUnique(inputs, errors), "profile with the id of an alternative");
+		Checks.check(!ErrorChecker.checkErrors(errors), "error for the id of an alternative");
+
+		inputs.comparisonWith = ComparisonWithParam.ALTERNATIVES;
+		errors = new ProgramExecutionResult();
+		Checks.check(InputsHandler.profilesIDsUnique(inputs, errors), "profiles ignored without comparisons");
+		Checks.check(ErrorChecker.checkErrors(errors), "no error without comparisons with profiles");
+
+		inputs.comparisonWith = ComparisonWithParam.BOUNDARY_PROFILES;
+		inputs.profiles_ids = null;
+		errors = new ProgramExecutionResult();
+		Checks.check(!InputsHandler.profilesIDsUnique(inputs, errors), "missing list of profiles");
+		Checks.check(!ErrorChecker.checkErrors(errors), "error for a missing list of profiles");
+	}
+
+	/**
+	 * Ids are looked up in a set, so many alternatives and profiles are
+	 * checked at once. A list lookup would take minutes.
+	 */
+	private static void testManyProfiles() {
+		int count = 200000;
+		List<String> alternatives = new ArrayList<>();
+		List<String> profiles = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			alternatives.add("a" + i);
+			profiles.add("p" + i);
+		}
+		Inputs inputs = inputs(alternatives, profiles);
+		Checks.check(InputsHandler.profilesIDsUnique(inputs, new ProgramExecutionResult()), "many unique ids");
+		profiles.set(count - 1, "a" + (count - 1));
+		Checks.check(!InputsHandler.profilesIDsUnique(inputs, new ProgramExecutionResult()),
+				"last profile with the id of the last alternative");
+	}
+
+	private static void testPerformanceColumns() {
+		PerformanceColumns columns = columns();
+		ProgramExecutionResult errors = new ProgramExecutionResult();
+		Checks.check(InputsHandler.checkPerformanceColumns(columns, errors), "complete columns");
+		Checks.check(ErrorChecker.checkErrors(errors), "no error for complete columns");
+
+		// NaN is an evaluation
+		columns.set(1, 1, Double.NaN);
+		Checks.check(InputsHandler.checkPerformanceColumns(columns, new ProgramExecutionResult()), "NaN evaluation");
+
+		columns = new PerformanceColumns(columns.getAlternatives(), columns.getCriteria());
+		columns.set(0, 0, 1.0);
+		columns.set(1, 0, 1.0);
+		columns.set(2, 0, 1.0);
+		columns.set(0, 1, 1.0);
+		columns.set(2, 1, 1.0);
+		errors = new ProgramExecutionResult();
+		Checks.check(!InputsHandler.checkPerformanceColumns(columns, errors), "missing evaluation");
+		Checks.check(!ErrorChecker.checkErrors(errors), "error for a missing evaluation");
+
+		columns = new PerformanceColumns(columns.getAlternatives(), columns.getCriteria());
+		columns.set(0, 0, 1.0);
+		columns.set(0, 1, 1.0);
+		columns.set(2, 0, 1.0);
+		columns.set(2, 1, 1.0);
+		errors = new ProgramExecutionResult();
+		Checks.check(!InputsHandler.checkPerformanceColumns(columns, errors), "missing alternative");
+		Checks.check(!ErrorChecker.checkErrors(errors), "error for a missing alternative");
+
+		columns = new PerformanceColumns(columns.getAlternatives(), columns.getCriteria());
+		columns.set(0, 0, 1.0);
+		columns.set(1, 0, 1.0);
+		columns.set(2, 0, 1.0);
+		errors = new ProgramExecutionResult();
+		Checks.check(!InputsHandler.checkPerformanceColumns(columns, errors), "missing criterion");
+		Checks.check(!ErrorChecker.checkErrors(errors), "error for a missing criterion");
+	}
+
+	private static PerformanceColumns columns() {
+		PerformanceColumns columns = new PerformanceColumns(new IdsDictionary(Arrays.asList("a1", "a2", "a3")),
+				new IdsDictionary(Arrays.asList("g1", "g2")));
+		for (int alternative = 0; alternative < 3; alternative++) {
+			for (int criterion = 0; criterion < 2; criterion++) {
+				columns.set(alternative, criterion, alternative * 10 + criterion);
+			}
+		}
+		return columns;
+	}
+
+	private static Inputs inputs(List<String> alternatives, List<String> profiles) {
+		Inputs inputs = new Inputs();
+		inputs.comparisonWith = ComparisonWithParam.BOUNDARY_PROFILES;
+		inputs.alternatives_ids = alternatives;
+		inputs.profiles_ids = profiles;
+		return inputs;
+	}
+}
@@ -0,0 +1,150 @@
+package pl.poznan.put.promethee.xmcda;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.xmcda.ProgramExecutionResult;
+
+import pl.poznan.put.promethee.preference.Checks;
+import pl.poznan.put.promethee.preference.IdsDictionary;
+import pl.poznan.put.promethee.preference.PerformanceColumns;
+import pl.poznan.put.promethee.preference.Preference;
+import pl.poznan.put.promethee.preference.TestInputs;
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Performance tables read by streaming into columns have the evaluations of
+ * the XMCDA performance tables, in v2 and v3, whatever their layout.
+ */
+public class PerformanceTableReaderTest {
+
+	public static void main(String[] args) throws Exception {
+		testValues();
+		testResults();
+		testErrors();
+	}
+
+	/**
+	 * The first value of a performance is its evaluation, other criteria and
+	 * alternatives are ignored, missing evaluations are not set.
+	 */
+	private static void testValues() throws Exception {
+		for (String version : new String[] { "v2", "v3" }) {
+			String table = alternative(version, "a2", performance(version, "g1", "<integer>7</integer>"),
+					performance(version, "g0", "<real>INF</real>"), performance(version, "g9", "<real>1.0</real>"))
+					+ alternative(version, "a0", performance(version, "g0", "<real>-INF</real>"),
+							performance(version, "g1", "<real>0.25</real><real>3.0</real>"))
+					+ alternative(version, "a9", performance(version, "g0", "<real>5.0</real>"))
+					+ alternative(version, "a1", performance(version, "g1", "<real>-1.5E-3</real>"));
+			PerformanceColumns columns = read(version, table, Arrays.asList("a0", "a1", "a2"),
+					Arrays.asList("g0", "g1"));
+			String name = version + " ";
+			Checks.checkSame(Double.NEGATIVE_INFINITY, columns.get(0, 0), name + "-INF");
+			Checks.checkSame(0.25, columns.get(0, 1), name + "first value");
+			Checks.check(!columns.isSet(1, 0), name + "missing evaluation");
+			Checks.checkSame(-1.5E-3, columns.get(1, 1), name + "exponent");
+			Checks.checkSame(Double.POSITIVE_INFINITY, columns.get(2, 0), name + "INF");
+			Checks.checkSame(7.0, columns.get(2, 1), name + "integer");
+		}
+	}
+
+	/**
+	 * Alternatives and criteria of the file in another order than the ids.
+	 */
+	private static void testResults() throws Exception {
+		for (int profiles : new int[] { 0, 3 }) {
+			Inputs inputs = TestInputs.random(30, profiles, 6, new Random(230));
+			for (String version : new String[] { "v2", "v3" }) {
+				List<String> alternatives = new ArrayList<>(inputs.alternatives_ids);
+				Collections.shuffle(alternatives, new Random(231));
+				StringBuilder table = new StringBuilder();
+				for (String alternative : alternatives) {
+					List<String> criteria = new ArrayList<>(inputs.criteria_ids);
+					Collections.shuffle(criteria, new Random(alternative.hashCode()));
+					String[] performances = new String[criteria.size()];
+					for (int c = 0; c < performances.length; c++) {
+						performances[c] = performance(version, criteria.get(c), "<real>"
+								+ inputs.performanceTable.get(alternative).get(criteria.get(c)) + "</real>");
+					}
+					table.append(alternative(version, alternative, performances));
+				}
+				PerformanceColumns columns = read(version, table.toString(), inputs.alternatives_ids,
+						inputs.criteria_ids);
+				Checks.check(InputsHandler.checkPerformanceColumns(columns, new ProgramExecutionResult()),
+						"complete columns");
+				Inputs streamed = TestInputs.random(30, profiles, 6, new Random(230));
+				streamed.performanceColumns = columns;
+				streamed.performanceTable = null;
+				String name = version + " with " + profiles + " profiles";
+				TestInputs.checkSameResults(Preference.calculateResults(inputs, 1, true),
+						Preference.calculateResults(streamed, 2, true), name);
+				Utils.Arguments params = Utils.parseCmdLineArguments(new String[] { "-i", "in", "-o", "out" });
+				Checks.check(ResultsCache.key(inputs, params, Utils.XMCDA_VERSION.v3)
+						.equals(ResultsCache.key(streamed, params, Utils.XMCDA_VERSION.v3)), name + " cache key");
+			}
+		}
+	}
+
+	private static void testErrors() throws Exception {
+		List<String> alternatives = Arrays.asList("a0", "a1");
+		List<String> criteria = Arrays.asList("g0");
+		String a0 = alternative("v3", "a0", performance("v3", "g0", "<real>1.0</real>"));
+		Checks.checkThrows(IllegalArgumentException.class, () -> read("v3", a0 + a0, alternatives, criteria),
+				"alternative twice");
+		String ignored = alternative("v3", "a9", performance("v3", "g0", "<real>1.0</real>"));
+		read("v3", a0 + ignored + ignored, alternatives, criteria);
+		Checks.checkThrows(NumberFormatException.class,
+				() -> read("v3", alternative("v3", "a0", performance("v3", "g0", "<real>one</real>")), alternatives,
+						criteria),
+				"not a number");
+		Checks.checkThrows(XMLStreamException.class, () -> read("v3", "<alternativePerformances>", alternatives,
+				criteria), "unclosed element");
+		Checks.checkThrows(FileNotFoundException.class,
+				() -> PerformanceTableReader.read(new File("missing/performance_table.xml"),
+						new PerformanceColumns(new IdsDictionary(alternatives), new IdsDictionary(criteria))),
+				"missing file");
+	}
+
+	private static PerformanceColumns read(String version, String alternatives, List<String> alternativesIds,
+			List<String> criteriaIds) throws IOException, XMLStreamException {
+		String namespace = "v2".equals(version) ? "http://www.decision-deck.org/2012/XMCDA-2.2.1"
+				: "http://www.decision-deck.org/2016/XMCDA-3.0.2";
+		String xml = "<?xml version=\"1.0\" ?>\n<xmcda:XMCDA xmlns:xmcda=\"" + namespace + "\">\n"
+				+ "<performanceTable mcdaConcept=\"REAL\">\n" + alternatives + "</performanceTable>\n</xmcda:XMCDA>\n";
+		File file = File.createTempFile("performance_table", ".xml");
+		try {
+			Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+			PerformanceColumns columns = new PerformanceColumns(new IdsDictionary(alternativesIds),
+					new IdsDictionary(criteriaIds));
+			PerformanceTableReader.read(file, columns);
+			return columns;
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static String alternative(String version, String id, String... performances) {
+		return "<alternativePerformances>\n<alternativeID>" + id + "</alternativeID>\n"
+				+ String.join("", performances) + "</alternativePerformances>\n";
+	}
+
+	/**
+	 * @return performance of the criterion, values in a {@code values}
+	 *         element in v3 and in a {@code value} element in v2
+	 */
+	private static String performance(String version, String criterion, String values) {
+		String value = "v2".equals(version) ? "<value>" + values + "</value>"
+				: "<values><value>" + values + "</value></values>";
+		return "<performance>\n<criterionID>" + criterion + "</criterionID>\n" + value + "\n</performance>\n";
+	}
+}
@@ -0,0 +1,177 @@
+package pl.poznan.put.promethee.xmcda;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import pl.poznan.put.promethee.preference.Checks;
+import pl.poznan.put.promethee.preference.TestInputs;
+import pl.poznan.put.promethee.xmcda.InputsHandler.Inputs;
+
+/**
+ * Entries of the result cache in a temporary directory: misses, hits, files
+ * stored from the output directory and eviction of the least recently used
+ * entries.
+ */
+public class ResultsCacheTest {
+	private static final String KEY1 = key('1');
+	private static final String KEY2 = key('2');
+	private static final String KEY3 = key('3');
+
+	public static void main(String[] args) throws Exception {
+		File directory = Files.createTempDirectory("results_cache").toFile();
+		try {
+			testStore(new File(directory, "store"));
+			testStaleFiles(new File(directory, "stale"));
+			testMissingFiles(new File(directory, "missing"));
+			testEviction(new File(directory, "eviction"));
+			testKeys();
+		} finally {
+			delete(directory);
+		}
+	}
+
+	private static void testStore(File directory) throws Exception {
+		ResultsCache cache = new ResultsCache(new File(directory, "cache"), 1 << 20);
+		File output = output(directory, "output", "preferences", "partial preferences");
+		File restored = directory(directory, "restored");
+		Checks.check(!cache.restore(KEY1, restored, true), "miss of an empty cache");
+		Checks.check(restored.list().length == 0, "nothing restored by a miss");
+		cache.store(KEY1, output, true);
+		Checks.check(cache.restore(KEY1, restored, true), "hit");
+		checkFile(restored, "preferences.xml", "preferences");
+		checkFile(restored, "partial_preferences.xml", "partial preferences");
+		Checks.check(!cache.restore(KEY2, restored, true), "miss of another key");
+
+		File withoutPartial = directory(directory, "without_partial");
+		Checks.check(cache.restore(KEY1, withoutPartial, false), "hit without partial preferences");
+		Checks.check(Arrays.equals(new String[] { "preferences.xml" }, withoutPartial.list()),
+				"partial preferences not restored");
+		// entries are complete directories, no temporary directory is left
+		Checks.check(Arrays.equals(new String[] { KEY1 }, new File(directory, "cache").list()), "entries");
+	}
+
+	/**
+	 * Partial preferences left in the output directory by an earlier run are
+	 * not stored with the results of a run without them.
+	 */
+	private static void testStaleFiles(File directory) throws Exception {
+		ResultsCache cache = new ResultsCache(new File(directory, "cache"), 1 << 20);
+		File output = output(directory, "output", "preferences", "stale partial preferences");
+		cache.store(KEY1, output, false);
+		Checks.check(Arrays.equals(new String[] { "preferences.xml" }, new File(directory, "cache/" + KEY1).list()),
+				"stale partial preferences not stored");
+		Checks.check(!cache.restore(KEY1, directory(directory, "partial"), true),
+				"miss of the partial preferences");
+		File restored = directory(directory, "restored");
+		Checks.check(cache.restore(KEY1, restored, false), "hit of the preferences");
+		checkFile(restored, "preferences.xml", "preferences");
+	}
+
+	private static void testMissingFiles(File directory) throws Exception {
+		ResultsCache cache = new ResultsCache(new File(directory, "cache"), 1 << 20);
+		File output = output(directory, "output", "preferences", null);
+		Checks.checkThrows(IOException.class, () -> cache.store(KEY1, output, true), "missing partial preferences");
+		Checks.check(new File(directory, "cache").list().length == 0, "no entry of missing files");
+		Checks.check(!cache.restore(KEY1, directory(directory, "restored"), false), "miss after a failed store");
+	}
+
+	/**
+	 * The cache holds two entries: restoring an entry keeps it over older
+	 * ones. Directories which are not entries are never evicted.
+	 */
+	private static void testEviction(File directory) throws Exception {
+		File cacheDirectory = new File(directory, "cache");
+		ResultsCache cache = new ResultsCache(cacheDirectory, 250);
+		File other = directory(cacheDirectory, "other");
+		Files.write(new File(other, "file").toPath(), new byte[1000]);
+		File output = output(directory, "output", repeat('p', 100), null);
+		cache.store(KEY1, output, false);
+		cache.store(KEY2, output, false);
+		new File(cacheDirectory, KEY1).setLastModified(1000000L);
+		new File(cacheDirectory, KEY2).setLastModified(2000000L);
+		Checks.check(cache.restore(KEY1, directory(directory, "restored"), false), "hit of the first entry");
+		cache.store(KEY3, output, false);
+		Checks.check(new File(cacheDirectory, KEY1).isDirectory(), "recently used entry kept");
+		Checks.check(!new File(cacheDirectory, KEY2).exists(), "least recently used entry evicted");
+		Checks.check(new File(cacheDirectory, KEY3).isDirectory(), "new entry kept");
+		Checks.check(other.isDirectory(), "other directory kept");
+		Checks.check(!cache.restore(KEY2, directory(directory, "evicted"), false), "miss of an evicted entry");
+	}
+
+	/**
+	 * Keys depend on the inputs and on the options changing the outputs.
+	 */
+	private static void testKeys() throws Exception {
+		Inputs inputs = TestInputs.random(6, 2, 4, new Random(220));
+		Utils.Arguments params = parse();
+		String key = ResultsCache.key(inputs, params, Utils.XMCDA_VERSION.v3);
+		Checks.check(key.matches("[0-9a-f]{64}"), "key " + key);
+		Checks.check(key.equals(ResultsCache.key(TestInputs.random(6, 2, 4, new Random(220)), params,
+				Utils.XMCDA_VERSION.v3)), "key of the same inputs");
+		Checks.check(!key.equals(ResultsCache.key(inputs, params, Utils.XMCDA_VERSION.v2)), "key of v2");
+		Checks.check(!key.equals(ResultsCache.key(inputs, parse("--partial-precision", "float32"),
+				Utils.XMCDA_VERSION.v3)), "key of another precision");
+		inputs.weights.put("g1", inputs.weights.get("g1") + 1);
+		Checks.check(!key.equals(ResultsCache.key(inputs, params, Utils.XMCDA_VERSION.v3)), "key of a new weight");
+	}
+
+	private static Utils.Arguments parse(String... options) throws Utils.InvalidCommandLineException {
+		String[] args = new String[options.length + 4];
+		args[0] = "-i";
+		args[1] = "in";
+		args[2] = "-o";
+		args[3] = "out";
+		System.arraycopy(options, 0, args, 4, options.length);
+		return Utils.parseCmdLineArguments(args);
+	}
+
+	/**
+	 * @return output directory with the given contents of the result files,
+	 *         files of null contents are not written
+	 */
+	private static File output(File parent, String name, String preferences, String partialPreferences)
+			throws IOException {
+		File output = directory(parent, name);
+		Files.write(new File(output, "preferences.xml").toPath(), preferences.getBytes(StandardCharsets.UTF_8));
+		if (partialPreferences != null) {
+			Files.write(new File(output, "partial_preferences.xml").toPath(),
+					partialPreferences.getBytes(StandardCharsets.UTF_8));
+		}
+		return output;
+	}
+
+	private static File directory(File parent, String name) throws IOException {
+		File directory = new File(parent, name);
+		Files.createDirectories(directory.toPath());
+		return directory;
+	}
+
+	private static void checkFile(File directory, String name, String contents) throws IOException {
+		Checks.check(contents.equals(new String(Files.readAllBytes(new File(directory, name).toPath()),
+				StandardCharsets.UTF_8)), "contents of " + name);
+	}
+
+	private static String key(char digit) {
+		return repeat(digit, 64);
+	}
+
+	private static String repeat(char c, int count) {
+		char[] chars = new char[count];
+		Arrays.fill(chars, c);
+		return new String(chars);
+	}
+
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
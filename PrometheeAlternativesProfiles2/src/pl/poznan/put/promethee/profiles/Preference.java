@@ -1,5 +1,6 @@
 package pl.poznan.put.promethee.profiles;
 
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 
@@ -83,18 +84,71 @@ public class Preference {
 		return thresholdValue;
 	}
 
-	private static Double calcPreferenceOnOneCriterion(Double ga, Double gb, String direction, Integer functionNumber,
-			Threshold<Double> preferenceThreshold, Threshold<Double> indifferenceThreshold,
-			Threshold<Double> sigmaThreshold) throws WrongPreferenceDirectionException, NullThresholdException {
-		GeneralisedCriteria generalisedCriteria = new GeneralisedCriteria();
+	/**
+	 * @param inputs
+	 * @return preference kernels of all criteria, in the order of the criteria
+	 * @throws WrongPreferenceDirectionException
+	 * @throws NullThresholdException
+	 */
+	private static PreferenceKernel[] compileKernels(Inputs inputs)
+			throws WrongPreferenceDirectionException, NullThresholdException {
+		PreferenceKernel[] kernels = new PreferenceKernel[inputs.criteria_ids.size()];
+		for (int c = 0; c < kernels.length; c++) {
+			String criterion = inputs.criteria_ids.get(c);
+			kernels[c] = PreferenceKernel.compile(inputs.preferenceDirections.get(criterion),
+					inputs.generalisedCriteria.get(criterion), inputs.preferenceThresholds.get(criterion),
+					inputs.indifferenceThresholds.get(criterion), inputs.sigmaThresholds.get(criterion));
+		}
+		return kernels;
+	}
 
-		Double diff = calcDifferenceBetweenEvaluations(direction, ga, gb);
-		Double p = calcThreshold(direction, ga, gb, preferenceThreshold);
-		Double q = calcThreshold(direction, ga, gb, indifferenceThreshold);
-		Double s = calcThreshold(direction, ga, gb, sigmaThreshold);
+	/**
+	 * @return evaluations of the elements on each criterion, indexed by
+	 *         criterion then by element
+	 */
+	private static double[][] getEvaluations(List<String> ids, Map<String, Map<String, Double>> performanceTable,
+			List<String> criteria) {
+		double[][] evaluations = new double[criteria.size()][ids.size()];
+		for (int c = 0; c < criteria.size(); c++) {
+			for (int i = 0; i < ids.size(); i++) {
+				evaluations[c][i] = performanceTable.get(ids.get(i)).get(criteria.get(c)).doubleValue();
+			}
+		}
+		return evaluations;
+	}
+
+	/**
+	 * Calculates the preferences of one element over all the elements of the
+	 * columns, criterion by criterion.
+	 *
+	 * @param row
+	 *            index of the element in the evaluations of the rows
+	 * @param columns
+	 *            indices of all the elements of the columns, see
+	 *            {@link #getColumns(int)}
+	 * @param buffers
+	 *            scratch arrays of the kernels
+	 * @param preferences
+	 *            receives the preferences, indexed by criterion then by column
+	 */
+	private static void calcRow(PreferenceKernel[] kernels, double[][] rowsEvaluations, int row,
+			double[][] columnsEvaluations, int[] columns, PreferenceKernel.Buffers buffers,
+			double[][] preferences) {
+		for (int c = 0; c < kernels.length; c++) {
+			kernels[c].calculateRow(rowsEvaluations[c][row], columnsEvaluations[c], columns, preferences[c], 0, 1,
+					buffers);
+		}
+	}
 
-		Double preference = generalisedCriteria.calculate(functionNumber, diff, p, q, s);
-		return preference;
+	/**
+	 * @return indices of the given number of elements, from 0
+	 */
+	private static int[] getColumns(int count) {
+		int[] columns = new int[count];
+		for (int k = 0; k < count; k++) {
+			columns[k] = k;
+		}
+		return columns;
 	}
 
 	private static Boolean checkIfCrossed(Double ga, Double gb, String direction,
@@ -144,16 +198,21 @@ public class Preference {
 	 */
 	private static Map<String, Double> calcPartialPreferences(Inputs inputs)
 			throws WrongPreferenceDirectionException, NullThresholdException {
+		PreferenceKernel[] kernels = compileKernels(inputs);
+		List<String> criteria = inputs.criteria_ids;
+		List<String> alternatives = inputs.alternatives_ids;
+		double[][] evaluations = getEvaluations(alternatives, inputs.performanceTable, criteria);
+		int[] columns = getColumns(alternatives.size());
+		PreferenceKernel.Buffers buffers = new PreferenceKernel.Buffers();
 		Map<String, Double> preferenceMap = new HashMap<>();
-		for (String a : inputs.alternatives_ids) {
-			for (String b : inputs.alternatives_ids) {
-				for (String c : inputs.criteria_ids) {
-					preferenceMap.put(keyHash(a, b, c),
-							calcPreferenceOnOneCriterion(inputs.performanceTable.get(a).get(c).doubleValue(),
-									inputs.performanceTable.get(b).get(c).doubleValue(),
-									inputs.preferenceDirections.get(c), inputs.generalisedCriteria.get(c).intValue(),
-									inputs.preferenceThresholds.get(c), inputs.indifferenceThresholds.get(c),
-									inputs.sigmaThresholds.get(c)));
+		double[][] row = new double[criteria.size()][alternatives.size()];
+		for (int i = 0; i < alternatives.size(); i++) {
+			String a = alternatives.get(i);
+			calcRow(kernels, evaluations, i, evaluations, columns, buffers, row);
+			for (int j = 0; j < alternatives.size(); j++) {
+				String b = alternatives.get(j);
+				for (int c = 0; c < criteria.size(); c++) {
+					preferenceMap.put(keyHash(a, b, criteria.get(c)), row[c][j]);
 				}
 			}
 		}
@@ -18,9 +18,11 @@ import org.xmcda.utils.ValueConverters;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 
@@ -425,10 +427,12 @@ public class InputsHandler {
 	private static Boolean criteriaIdenticalInAllFiles(Inputs inputs, XMCDA xmcda,
 			ProgramExecutionResult xmcda_execution_results) {
 		Boolean criteriaIdentical = true;
+		Set<Criterion> performanceTableCriteria = xmcda.performanceTablesList.get(0).getCriteria();
+		Set<String> criteriaIds = new HashSet<>(inputs.criteria_ids);
 		for (String criterionID : inputs.criteria_ids) {
 			Criterion criterion = new Criterion(criterionID);
 
-			if (!xmcda.performanceTablesList.get(0).getCriteria().contains(criterion)) {
+			if (!performanceTableCriteria.contains(criterion)) {
 				criteriaIdentical = false;
 				xmcda_execution_results
 						.addError("Criteria are not identical in criteria.xml file and performance_table.xml file");
@@ -458,8 +462,8 @@ public class InputsHandler {
 			if (!criteriaIdentical)
 				return criteriaIdentical;
 		}
-		for (Criterion criterion : xmcda.performanceTablesList.get(0).getCriteria()) {
-			if ((!inputs.criteria_ids.contains(criterion.id())) && (criterion.isActive())) {
+		for (Criterion criterion : performanceTableCriteria) {
+			if ((!criteriaIds.contains(criterion.id())) && (criterion.isActive())) {
 				criteriaIdentical = false;
 				xmcda_execution_results
 						.addError("Criteria are not identical in criteria.xml file and performance_table.xml file");
@@ -468,7 +472,7 @@ public class InputsHandler {
 		}
 		if (inputs.generalisedCriterion.equals(GeneralisedCriterionParam.SPECIFIED)) {
 			for (Criterion criterion : xmcda.criteriaValuesList.get(0).getCriteria()) {
-				if ((!inputs.criteria_ids.contains(criterion.id())) && (criterion.isActive())) {
+				if ((!criteriaIds.contains(criterion.id())) && (criterion.isActive())) {
 					criteriaIdentical = false;
 					xmcda_execution_results.addError(
 							"Criteria are not identical in criteria.xml file and generalised_criteria.xm file");
@@ -477,7 +481,7 @@ public class InputsHandler {
 			}
 			if (inputs.mode.equals(OperatingModeParam.REINFORCED_PREFERENCE)) {
 				for (Criterion criterion : xmcda.criteriaValuesList.get(1).getCriteria()) {
-					if ((!inputs.criteria_ids.contains(criterion.id())) && (criterion.isActive())) {
+					if ((!criteriaIds.contains(criterion.id())) && (criterion.isActive())) {
 						criteriaIdentical = false;
 						xmcda_execution_results.addError(
 								"Criteria are not identical in criteria.xml file and reinforcement_factors.xm file");
@@ -488,7 +492,7 @@ public class InputsHandler {
 		} else {
 			if (inputs.mode.equals(OperatingModeParam.REINFORCED_PREFERENCE)) {
 				for (Criterion criterion : xmcda.criteriaValuesList.get(0).getCriteria()) {
-					if ((!inputs.criteria_ids.contains(criterion.id())) && (criterion.isActive())) {
+					if ((!criteriaIds.contains(criterion.id())) && (criterion.isActive())) {
 						criteriaIdentical = false;
 						xmcda_execution_results.addError(
 								"Criteria are not identical in criteria.xml file and reinforcement_factors.xm file");
@@ -557,14 +561,16 @@ public class InputsHandler {
 	}
 
 	private static void extractPreferenceTables(Inputs inputs, XMCDA xmcda) {
-		List<String> criteria_ids = inputs.criteria_ids;
+		Set<String> criteria_ids = new HashSet<>(inputs.criteria_ids);
 		inputs.performanceTable = new LinkedHashMap<>();
 		@SuppressWarnings("unchecked")
 		PerformanceTable<Double> x_perf_table = (PerformanceTable<Double>) xmcda.performanceTablesList.get(0);
+		Set<String> alternativesIds = new HashSet<>(inputs.alternatives_ids);
+		Set<Criterion> x_criteria = x_perf_table.getCriteria();
 		for (Alternative x_alternative : x_perf_table.getAlternatives()) {
-			if (!inputs.alternatives_ids.contains(x_alternative.id()))
+			if (!alternativesIds.contains(x_alternative.id()))
 				continue;
-			for (Criterion x_criterion : x_perf_table.getCriteria()) {
+			for (Criterion x_criterion : x_criteria) {
 				if (!criteria_ids.contains(x_criterion.id()))
 					continue;
 				Double value = (Double) x_perf_table.getValue(x_alternative, x_criterion);
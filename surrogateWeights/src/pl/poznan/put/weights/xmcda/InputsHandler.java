@@ -8,8 +8,10 @@ import org.xmcda.XMCDA;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 
@@ -202,8 +204,9 @@ public class InputsHandler {
 	}
 
 	private static void checkRanking(Inputs inputs, ProgramExecutionResult xmcda_execution_results) {
+		Set<Integer> positions = new HashSet<>(inputs.criteriaRanking.values());
 		for (int i = 1; i <= inputs.criteriaRanking.size(); i++) {
-			if (!inputs.criteriaRanking.values().contains(i)) {
+			if (!positions.contains(i)) {
 				xmcda_execution_results.addError(
 						"Ranking is incorrect. It should start from 1 and have one criterion on each next position ");
 				return;